@@ -0,0 +1,67 @@
+package com.techsolutions.config;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.CommandLineRunner;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+
+/**
+ * Alinea la tabla secuencias_id con los IDs existentes al arrancar
+ * Venta, DetalleVenta y Producto reciben sus IDs de Hibernate en bloques de 50 (optimizador pooled)
+ * en lugar de AUTO_INCREMENT. En una base de datos que ya tiene filas, el siguiente bloque debe
+ * empezar después del mayor ID: se corre antes que cualquier otro runner que inserte datos
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE)
+public class AlineadorSecuenciasId implements CommandLineRunner {
+
+    /**
+     * Debe coincidir con allocationSize de los @TableGenerator
+     */
+    static final int TAMANO_BLOQUE = 50;
+
+    /**
+     * pkColumnValue del generador -> tabla cuyos IDs genera
+     */
+    private static final Map<String, String> TABLAS = Map.of(
+        "productos", "productos",
+        "ventas", "ventas",
+        "detalle_ventas", "detalle_ventas"
+    );
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void run(String... args) {
+        TABLAS.forEach(this::alinear);
+    }
+
+    /**
+     * Deja siguiente_valor en al menos MAX(id) + bloque + 1
+     * El optimizador pooled entrega el bloque que termina en el valor leído, por lo que
+     * todo el bloque queda por encima de los IDs existentes
+     */
+    void alinear(String entidad, String tabla) {
+        Long maximo = jdbcTemplate.queryForObject("SELECT COALESCE(MAX(id), 0) FROM " + tabla, Long.class);
+        long minimo = maximo + TAMANO_BLOQUE + 1;
+
+        Integer existe = jdbcTemplate.queryForObject(
+            "SELECT COUNT(*) FROM secuencias_id WHERE entidad = ?", Integer.class, entidad);
+        if (existe == 0) {
+            jdbcTemplate.update("INSERT INTO secuencias_id (entidad, siguiente_valor) VALUES (?, ?)", entidad, minimo);
+            System.out.println("🔢 Secuencia de IDs creada: " + entidad + " -> " + minimo);
+            return;
+        }
+        int actualizadas = jdbcTemplate.update(
+            "UPDATE secuencias_id SET siguiente_valor = ? WHERE entidad = ? AND siguiente_valor < ?",
+            minimo, entidad, minimo);
+        if (actualizadas > 0) {
+            System.out.println("🔢 Secuencia de IDs alineada: " + entidad + " -> " + minimo);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+package com.techsolutions.config;
+
+import com.techsolutions.util.AlmacenIdempotencia;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * Configuración de la idempotencia de pagos
+ * Los resultados se guardan en memoria de cada instancia: un balanceador con afinidad por
+ * cliente mantiene los reintentos en la misma instancia
+ */
+@Configuration
+public class IdempotenciaConfig {
+
+    @Bean
+    public AlmacenIdempotencia<Map<String, Object>> almacenIdempotenciaPagos(
+            @Value("${pagos.idempotencia.ttl-minutos:1440}") long ttlMinutos,
+            @Value("${pagos.idempotencia.max-claves:10000}") int maxClaves,
+            @Value("${pagos.idempotencia.espera-ms:30000}") long esperaMs) {
+        System.out.println("🔑 Idempotencia de pagos - TTL: " + ttlMinutos + " min | Máx. claves: " + maxClaves);
+        return new AlmacenIdempotencia<>(Duration.ofMinutes(ttlMinutos), maxClaves, Duration.ofMillis(esperaMs));
+    }
+}
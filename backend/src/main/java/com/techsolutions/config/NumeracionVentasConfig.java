@@ -0,0 +1,25 @@
+package com.techsolutions.config;
+
+import com.techsolutions.model.Venta;
+import com.techsolutions.util.GeneradorNumeroVenta;
+import com.techsolutions.util.GeneradorNumeroVentaSecuencial;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * Configuración de la numeración de ventas
+ * Cada instancia de la aplicación debe usar un nodo distinto para que los números no choquen
+ */
+@Configuration
+public class NumeracionVentasConfig {
+
+    @Bean
+    public GeneradorNumeroVenta generadorNumeroVenta(@Value("${ventas.numeracion.nodo:0}") int nodo) {
+        GeneradorNumeroVentaSecuencial generador = new GeneradorNumeroVentaSecuencial(nodo);
+        // Venta genera su número en @PrePersist, fuera del contenedor: se le instala aquí
+        Venta.usarGeneradorNumero(generador);
+        System.out.println("🔢 Numeración de ventas - nodo " + nodo);
+        return generador;
+    }
+}
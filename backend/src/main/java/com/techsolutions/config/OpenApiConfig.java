@@ -317,6 +317,22 @@ public class OpenApiConfig {
                                 - `POST /api/reportes/ingresos-gastos` - Reporte de ingresos y gastos
                                 - `POST /api/reportes/utilidades` - Reporte de utilidades
                                 - `POST /api/reportes/generar-pdf` - Generar PDF del reporte
+                                """),
+                
+                new Tag()
+                        .name("Ventas")
+                        .description("""
+                                🧾 **Checkout de Ventas**
+                                
+                                Registra una venta completa en una sola llamada: valora el carrito
+                                con los precios del catálogo, reserva el stock, cobra con la pasarela
+                                y cierra la venta (PENDIENTE → PROCESANDO → COMPLETADA o CANCELADA).
+                                
+                                Enviar el header `Idempotency-Key` permite reintentar sin cobrar dos veces.
+                                
+                                ### Endpoints disponibles:
+                                - `POST /api/ventas/checkout` - Ejecutar el checkout
+                                - `GET /api/ventas/{numeroVenta}` - Consultar el estado de una venta
                                 """)
         );
     }
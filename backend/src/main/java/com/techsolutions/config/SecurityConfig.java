@@ -97,6 +97,7 @@ public class SecurityConfig {
                 .requestMatchers("/api/pagos/**").permitAll()
                 .requestMatchers("/api/reportes/**").permitAll()
                 .requestMatchers("/api/inventario/**").permitAll()
+                .requestMatchers("/api/ventas/**").permitAll()
                 
                 // Swagger UI - Documentación API
                 .requestMatchers("/swagger-ui/**", "/swagger-ui.html").permitAll()
@@ -1,7 +1,13 @@
 package com.techsolutions.controller;
 
+import com.techsolutions.dto.FiltroProductosDTO;
+import com.techsolutions.dto.ProductoDTO;
 import com.techsolutions.model.Producto;
+import com.techsolutions.pattern.observer.GestorInventarioObservable;
+import com.techsolutions.service.ExportacionProductosService;
+import com.techsolutions.service.ImportacionProductosService;
 import com.techsolutions.service.InventarioService;
+import com.techsolutions.service.ReservaStockService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,10 +16,17 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.stream.Collectors;
@@ -32,14 +45,32 @@ public class InventarioController {
     @Autowired
     private InventarioService inventarioService;
     
+    @Autowired
+    private ReservaStockService reservaStockService;
+    
+    @Autowired
+    private GestorInventarioObservable gestorInventario;
+    
+    @Autowired
+    private ImportacionProductosService importacionProductosService;
+    
+    @Autowired
+    private ExportacionProductosService exportacionProductosService;
+    
     /**
-     * Obtiene todos los productos del inventario
+     * Obtiene los productos del inventario
      * GET /api/inventario/productos
+     * Devuelve una página; el cursor de la siguiente llega en la cabecera X-Siguiente-Cursor
      */
     @GetMapping("/productos")
     @Operation(
-        summary = "📋 Listar todos los productos",
-        description = "Obtiene la lista completa de productos del inventario con información de stock, precio y categoría"
+        summary = "📋 Listar productos",
+        description = """
+            Obtiene los productos del inventario con información de stock, precio y categoría.
+            Devuelve como máximo `tamano` productos (por defecto 50, máximo 200); si hay más,
+            la cabecera `X-Siguiente-Cursor` trae el cursor para pedir la página siguiente.
+            Acepta los mismos filtros y orden que `/productos/pagina`.
+            """
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "✅ Lista de productos obtenida exitosamente",
@@ -58,29 +89,265 @@ public class InventarioController {
                         "activo": true
                       }
                     ]
-                    """)))
+                    """))),
+        @ApiResponse(responseCode = "400", description = "❌ Filtro, orden o cursor inválido")
     })
-    public ResponseEntity<List<Map<String, Object>>> obtenerTodosProductos() {
-        List<Producto> productos = inventarioService.obtenerTodosProductos();
-        
-        List<Map<String, Object>> productosResponse = productos.stream()
-            .map(p -> {
-                Map<String, Object> prod = new HashMap<>();
-                prod.put("id", p.getId());
-                prod.put("codigo", p.getCodigo());
-                prod.put("nombre", p.getNombre());
-                prod.put("descripcion", p.getDescripcion());
-                prod.put("precio", p.getPrecio());
-                prod.put("stock", p.getStock());
-                prod.put("stockMinimo", p.getStockMinimo());
-                prod.put("categoria", p.getCategoria() != null ? p.getCategoria().getNombre() : null);
-                prod.put("imagen", p.getImagenUrl());
-                prod.put("activo", p.getActivo());
-                return prod;
-            })
+    public ResponseEntity<?> obtenerTodosProductos(
+            @Parameter(description = "Filtrar por nombre de categoría") @RequestParam(required = false) String categoria,
+            @Parameter(description = "Filtrar por estado activo") @RequestParam(required = false) Boolean activo,
+            @Parameter(description = "Precio mínimo") @RequestParam(required = false) BigDecimal precioMin,
+            @Parameter(description = "Precio máximo") @RequestParam(required = false) BigDecimal precioMax,
+            @Parameter(description = "Campo de orden: id, nombre o precio") @RequestParam(required = false) String orden,
+            @Parameter(description = "Dirección: asc o desc") @RequestParam(required = false) String direccion,
+            @Parameter(description = "Productos por página (máximo 200)") @RequestParam(defaultValue = "50") int tamano,
+            @Parameter(description = "Cursor de la página anterior") @RequestParam(required = false) String cursor) {
+        try {
+            FiltroProductosDTO filtro = crearFiltro(categoria, activo, precioMin, precioMax, orden, direccion);
+            InventarioService.PaginaProductos pagina = inventarioService.listarProductos(filtro, cursor, tamano);
+            
+            ResponseEntity.BodyBuilder respuesta = ResponseEntity.ok();
+            if (pagina.siguienteCursor() != null) {
+                respuesta.header("X-Siguiente-Cursor", pagina.siguienteCursor());
+            }
+            return respuesta.body(pagina.productos());
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "exitoso", false,
+                "mensaje", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Listado paginado, ordenable y filtrable de productos
+     * GET /api/inventario/productos/pagina
+     */
+    @GetMapping("/productos/pagina")
+    @Operation(
+        summary = "📄 Listar productos por páginas",
+        description = """
+            Paginación por cursor (keyset): cada página continúa después del último producto
+            de la anterior, por lo que su costo no depende de cuántas páginas se hayan recorrido.
+            El cursor solo es válido con el mismo orden y dirección con que fue generado;
+            `siguienteCursor` es null en la última página.
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "✅ Página obtenida",
+            content = @Content(mediaType = "application/json",
+                examples = @ExampleObject(value = """
+                    {
+                      "productos": [
+                        {
+                          "id": 1,
+                          "codigo": "TECH-001",
+                          "nombre": "Laptop HP ProBook",
+                          "precio": 2599.99,
+                          "stock": 25,
+                          "categoria": "Electrónicos",
+                          "activo": true
+                        }
+                      ],
+                      "cantidad": 1,
+                      "siguienteCursor": "djF8UFJFQ0lPfEFTQ3wxfDI1OTkuOTk"
+                    }
+                    """))),
+        @ApiResponse(responseCode = "400", description = "❌ Filtro, orden o cursor inválido")
+    })
+    public ResponseEntity<Map<String, Object>> listarProductosPaginados(
+            @Parameter(description = "Filtrar por nombre de categoría") @RequestParam(required = false) String categoria,
+            @Parameter(description = "Filtrar por estado activo") @RequestParam(required = false) Boolean activo,
+            @Parameter(description = "Precio mínimo") @RequestParam(required = false) BigDecimal precioMin,
+            @Parameter(description = "Precio máximo") @RequestParam(required = false) BigDecimal precioMax,
+            @Parameter(description = "Campo de orden: id, nombre o precio") @RequestParam(required = false) String orden,
+            @Parameter(description = "Dirección: asc o desc") @RequestParam(required = false) String direccion,
+            @Parameter(description = "Productos por página (máximo 200)") @RequestParam(defaultValue = "20") int tamano,
+            @Parameter(description = "Cursor de la página anterior") @RequestParam(required = false) String cursor) {
+        try {
+            FiltroProductosDTO filtro = crearFiltro(categoria, activo, precioMin, precioMax, orden, direccion);
+            InventarioService.PaginaProductos pagina = inventarioService.listarProductos(filtro, cursor, tamano);
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("productos", pagina.productos());
+            response.put("cantidad", pagina.productos().size());
+            response.put("siguienteCursor", pagina.siguienteCursor());
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "exitoso", false,
+                "mensaje", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Catálogo de productos activos
+     * GET /api/inventario/productos/activos
+     */
+    @GetMapping("/productos/activos")
+    @Operation(
+        summary = "🛍️ Catálogo de productos activos",
+        description = """
+            Lista los productos activos para el catálogo público. Se sirve desde la caché
+            en memoria del catálogo, que se invalida con cada alta, edición, baja o cambio de stock.
+            """
+    )
+    @ApiResponse(responseCode = "200", description = "✅ Catálogo obtenido",
+        content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                [
+                  {
+                    "id": 1,
+                    "codigo": "TECH-001",
+                    "nombre": "Laptop HP ProBook",
+                    "descripcion": "Laptop empresarial",
+                    "precio": 2599.99,
+                    "stock": 25,
+                    "stockMinimo": 10,
+                    "categoria": "Electrónicos",
+                    "imagen": "/images/laptop-hp.jpg",
+                    "activo": true
+                  }
+                ]
+                """)))
+    public ResponseEntity<List<ProductoDTO>> obtenerProductosActivos() {
+        List<ProductoDTO> productos = inventarioService.obtenerProductosActivos().stream()
+            .map(p -> new ProductoDTO(p.getId(), p.getCodigo(), p.getNombre(), p.getDescripcion(),
+                p.getPrecio(), p.getStock(), p.getStockMinimo(),
+                p.getCategoria() != null ? p.getCategoria().getNombre() : null,
+                p.getImagenUrl(), p.getActivo()))
             .collect(Collectors.toList());
         
-        return ResponseEntity.ok(productosResponse);
+        return ResponseEntity.ok(productos);
+    }
+    
+    /**
+     * Exportación del catálogo completo en streaming
+     * GET /api/inventario/productos/exportar
+     */
+    @GetMapping("/productos/exportar")
+    @Operation(
+        summary = "📤 Exportar productos (CSV o NDJSON)",
+        description = """
+            Descarga todos los productos. Las filas se leen con un cursor JDBC y se escriben
+            directamente en la respuesta, por lo que la memoria usada es constante aunque el
+            catálogo tenga millones de productos. Con `Accept-Encoding: gzip` la respuesta viaja comprimida.
+            El CSV usa las mismas columnas que la importación masiva.
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "✅ Archivo en streaming",
+            content = {
+                @Content(mediaType = "text/csv", examples = @ExampleObject(value = """
+                    id,codigo,nombre,descripcion,precio,stock,stockMinimo,categoria,imagen,activo
+                    1,TECH-001,Laptop HP ProBook,"Laptop empresarial, 8GB RAM",2599.99,25,10,Electrónicos,,true
+                    """)),
+                @Content(mediaType = "application/x-ndjson", examples = @ExampleObject(value = """
+                    {"id":1,"codigo":"TECH-001","nombre":"Laptop HP ProBook","precio":2599.99,"stock":25,"stockMinimo":10,"categoria":"Electrónicos","activo":true}
+                    """))
+            }),
+        @ApiResponse(responseCode = "400", description = "❌ Formato no soportado")
+    })
+    public ResponseEntity<StreamingResponseBody> exportarProductos(
+            @Parameter(description = "Formato: csv o ndjson") @RequestParam(defaultValue = "csv") String formato) {
+        boolean csv = formato.equalsIgnoreCase("csv");
+        if (!csv && !formato.equalsIgnoreCase("ndjson")) {
+            // El cuerpo también debe ser StreamingResponseBody para que Spring lo escriba en streaming
+            return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(salida -> salida.write(
+                    "{\"exitoso\":false,\"mensaje\":\"Formato no soportado (use csv o ndjson)\"}"
+                        .getBytes(StandardCharsets.UTF_8)));
+        }
+        
+        StreamingResponseBody cuerpo = csv
+            ? salida -> exportacionProductosService.exportarCsv(salida)
+            : salida -> exportacionProductosService.exportarNdjson(salida);
+        
+        return ResponseEntity.ok()
+            .contentType(csv ? new MediaType("text", "csv", StandardCharsets.UTF_8) : MediaType.APPLICATION_NDJSON)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"productos." + (csv ? "csv" : "ndjson") + "\"")
+            .body(cuerpo);
+    }
+    
+    /**
+     * Importación masiva de productos desde CSV o JSON
+     * POST /api/inventario/importar
+     */
+    @PostMapping(value = "/importar", consumes = {"text/csv", MediaType.APPLICATION_JSON_VALUE})
+    @Operation(
+        summary = "📥 Importar productos (CSV o JSON)",
+        description = """
+            Importa productos enviando el archivo como cuerpo de la petición
+            (`Content-Type: text/csv` o `application/json`). El archivo se procesa en streaming
+            y se escribe por lotes. Las filas inválidas, repetidas o con código ya existente se
+            rechazan individualmente sin detener la importación.
+
+            CSV: cabecera `codigo,nombre,descripcion,precio,stock,stockMinimo,categoria,imagen`
+            (obligatorias: codigo, nombre, precio). JSON: arreglo de objetos con esos campos.
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "✅ Importación procesada",
+            content = @Content(mediaType = "application/json",
+                examples = @ExampleObject(value = """
+                    {
+                      "exitoso": true,
+                      "filasLeidas": 10000,
+                      "filasImportadas": 9998,
+                      "filasRechazadas": 2,
+                      "segundos": 1.84,
+                      "filasPorSegundo": 5434.8,
+                      "errores": [
+                        {"linea": 17, "codigo": "TECH-016", "mensaje": "Código repetido en el archivo"},
+                        {"linea": 230, "codigo": "TECH-229", "mensaje": "Precio no numérico: abc"}
+                      ]
+                    }
+                    """))),
+        @ApiResponse(responseCode = "400", description = "❌ Archivo vacío, sin cabecera válida o mal formado")
+    })
+    public ResponseEntity<Map<String, Object>> importarProductos(
+            @RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            InputStream entrada) {
+        try {
+            ImportacionProductosService.ResultadoImportacion resultado =
+                MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.APPLICATION_JSON)
+                    ? importacionProductosService.importarJson(entrada)
+                    : importacionProductosService.importarCsv(entrada);
+            
+            Map<String, Object> response = new LinkedHashMap<>();
+            response.put("exitoso", true);
+            response.put("filasLeidas", resultado.filasLeidas());
+            response.put("filasImportadas", resultado.filasImportadas());
+            response.put("filasRechazadas", resultado.filasRechazadas());
+            response.put("segundos", resultado.segundos());
+            response.put("filasPorSegundo", resultado.filasPorSegundo());
+            response.put("errores", resultado.errores());
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalArgumentException | IOException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "exitoso", false,
+                "mensaje", "Archivo inválido: " + e.getMessage()
+            ));
+        }
+    }
+    
+    private FiltroProductosDTO crearFiltro(String categoria, Boolean activo, BigDecimal precioMin,
+                                          BigDecimal precioMax, String orden, String direccion) {
+        if (direccion != null && !direccion.equalsIgnoreCase("asc") && !direccion.equalsIgnoreCase("desc")) {
+            throw new IllegalArgumentException("Dirección no válida: " + direccion + " (use asc o desc)");
+        }
+        FiltroProductosDTO filtro = new FiltroProductosDTO();
+        filtro.setCategoria(categoria);
+        filtro.setActivo(activo);
+        filtro.setPrecioMin(precioMin);
+        filtro.setPrecioMax(precioMax);
+        filtro.setOrden(FiltroProductosDTO.Orden.desde(orden));
+        filtro.setDescendente("desc".equalsIgnoreCase(direccion));
+        return filtro;
     }
     
     /**
@@ -359,6 +626,158 @@ public class InventarioController {
         }
     }
     
+    /**
+     * Reserva el stock de un carrito completo en una sola transacción
+     * POST /api/inventario/reservas
+     */
+    @PostMapping("/reservas")
+    @Operation(
+        summary = "🛒 Reservar stock de un carrito",
+        description = """
+            Descuenta el stock de todas las líneas del carrito en una única transacción.
+            Es todo o nada: si algún producto no tiene stock suficiente no se descuenta ninguno.
+            La reserva vence a los pocos minutos si no se confirma; al vencer el stock vuelve al inventario.
+            **Patrón Observer**: al finalizar se evalúa una sola vez el stock bajo de los productos reservados.
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "✅ Stock reservado exitosamente",
+            content = @Content(mediaType = "application/json",
+                examples = @ExampleObject(value = """
+                    {
+                      "exitoso": true,
+                      "mensaje": "Stock reservado exitosamente",
+                      "referencia": "ORD-2024-001",
+                      "expiraEn": "2024-11-20T10:45:00",
+                      "productos": [
+                        { "id": 1, "producto": "Laptop HP ProBook", "stockActual": 23, "necesitaReposicion": false },
+                        { "id": 2, "producto": "Mouse Inalámbrico", "stockActual": 7, "necesitaReposicion": true }
+                      ]
+                    }
+                    """))),
+        @ApiResponse(responseCode = "400", description = "❌ Stock insuficiente o líneas inválidas"),
+        @ApiResponse(responseCode = "404", description = "❌ Producto no encontrado")
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+        description = "Líneas del carrito a reservar",
+        required = true,
+        content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                  "referencia": "ORD-2024-001",
+                  "items": [
+                    { "productoId": 1, "cantidad": 2 },
+                    { "productoId": 2, "cantidad": 1 }
+                  ]
+                }
+                """)))
+    @SuppressWarnings("unchecked")
+    public ResponseEntity<Map<String, Object>> reservarStock(@RequestBody Map<String, Object> request) {
+        try {
+            Map<Long, Integer> lineas = new HashMap<>();
+            List<Map<String, Object>> items = (List<Map<String, Object>>) request.getOrDefault("items", List.of());
+            for (Map<String, Object> item : items) {
+                Object productoId = item.get("productoId");
+                Object cantidad = item.get("cantidad");
+                if (productoId == null || cantidad == null || ((Number) cantidad).intValue() <= 0) {
+                    return ResponseEntity.badRequest().body(Map.of(
+                        "exitoso", false,
+                        "mensaje", "Cada línea requiere productoId y una cantidad mayor a 0"
+                    ));
+                }
+                lineas.merge(((Number) productoId).longValue(), ((Number) cantidad).intValue(), Integer::sum);
+            }
+            
+            ReservaStockService.Reserva reserva = reservaStockService.reservar((String) request.get("referencia"), lineas);
+            
+            List<Map<String, Object>> productos = reserva.productos().stream()
+                .map(p -> {
+                    Map<String, Object> prod = new HashMap<>();
+                    prod.put("id", p.getId());
+                    prod.put("producto", p.getNombre());
+                    prod.put("stockActual", p.getStock());
+                    prod.put("necesitaReposicion", p.necesitaReposicion());
+                    return prod;
+                })
+                .collect(Collectors.toList());
+            
+            Map<String, Object> response = new HashMap<>();
+            response.put("exitoso", true);
+            response.put("mensaje", "Stock reservado exitosamente");
+            response.put("referencia", reserva.referencia());
+            response.put("expiraEn", reserva.expiraEn());
+            response.put("productos", productos);
+            
+            return ResponseEntity.ok(response);
+            
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "exitoso", false,
+                "mensaje", e.getMessage()
+            ));
+        } catch (IllegalArgumentException e) {
+            if (e.getMessage().contains("no encontrado")) {
+                return ResponseEntity.notFound().build();
+            }
+            return ResponseEntity.badRequest().body(Map.of(
+                "exitoso", false,
+                "mensaje", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Confirma una reserva de stock (pago exitoso)
+     * POST /api/inventario/reservas/{referencia}/confirmar
+     */
+    @PostMapping("/reservas/{referencia}/confirmar")
+    @Operation(
+        summary = "✅ Confirmar reserva",
+        description = "Confirma la reserva de un checkout: el stock retenido queda definitivamente vendido"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "✅ Reserva confirmada"),
+        @ApiResponse(responseCode = "400", description = "❌ No hay reservas activas para la referencia o alguna de sus líneas ya venció o se liberó")
+    })
+    public ResponseEntity<Map<String, Object>> confirmarReserva(
+            @Parameter(description = "Referencia del checkout", example = "ORD-2024-001", required = true)
+            @PathVariable String referencia) {
+        try {
+            reservaStockService.confirmar(referencia);
+            return ResponseEntity.ok(Map.of(
+                "exitoso", true,
+                "mensaje", "Reserva confirmada",
+                "referencia", referencia
+            ));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.badRequest().body(Map.of(
+                "exitoso", false,
+                "mensaje", e.getMessage()
+            ));
+        }
+    }
+    
+    /**
+     * Libera una reserva de stock (pago fallido o carrito cancelado)
+     * DELETE /api/inventario/reservas/{referencia}
+     */
+    @DeleteMapping("/reservas/{referencia}")
+    @Operation(
+        summary = "↩️ Liberar reserva",
+        description = "Libera la reserva de un checkout y devuelve el stock retenido al inventario"
+    )
+    @ApiResponse(responseCode = "200", description = "✅ Reserva liberada")
+    public ResponseEntity<Map<String, Object>> liberarReserva(
+            @Parameter(description = "Referencia del checkout", example = "ORD-2024-001", required = true)
+            @PathVariable String referencia) {
+        reservaStockService.liberar(referencia);
+        return ResponseEntity.ok(Map.of(
+            "exitoso", true,
+            "mensaje", "Reserva liberada",
+            "referencia", referencia
+        ));
+    }
+    
     /**
      * Aumenta el stock de un producto
      * POST /api/inventario/{id}/aumentar
@@ -480,6 +899,104 @@ public class InventarioController {
         }
     }
     
+    /**
+     * Lista los productos que necesitan reposición
+     * GET /api/inventario/stock-bajo
+     */
+    @GetMapping("/stock-bajo")
+    @Operation(
+        summary = "⚠️ Productos con stock bajo (RF5)",
+        description = """
+            Lista los productos activos cuyo stock está en o por debajo del mínimo.
+            Se resuelve con un índice en memoria mantenido en cada operación de stock,
+            sin recorrer la tabla de productos.
+            """
+    )
+    @ApiResponse(responseCode = "200", description = "✅ Lista obtenida",
+        content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                [
+                  {
+                    "id": 2,
+                    "codigo": "ELEC-002",
+                    "nombre": "Mouse Inalámbrico Logitech",
+                    "stockActual": 8,
+                    "stockMinimo": 15
+                  }
+                ]
+                """)))
+    public ResponseEntity<List<Map<String, Object>>> obtenerProductosConStockBajo() {
+        List<Map<String, Object>> productos = inventarioService.obtenerProductosConStockBajo().stream()
+            .map(p -> {
+                Map<String, Object> prod = new HashMap<>();
+                prod.put("id", p.getId());
+                prod.put("codigo", p.getCodigo());
+                prod.put("nombre", p.getNombre());
+                prod.put("stockActual", p.getStock());
+                prod.put("stockMinimo", p.getStockMinimo());
+                return prod;
+            })
+            .collect(Collectors.toList());
+        
+        return ResponseEntity.ok(productos);
+    }
+    
+    /**
+     * Métricas del despacho asíncrono de notificaciones de stock bajo
+     * GET /api/inventario/notificaciones/metricas
+     */
+    @GetMapping("/notificaciones/metricas")
+    @Operation(
+        summary = "📊 Métricas de notificaciones (Patrón Observer)",
+        description = "Profundidad de la cola, notificaciones despachadas, descartadas y latencia de despacho"
+    )
+    @ApiResponse(responseCode = "200", description = "✅ Métricas obtenidas",
+        content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                  "politicaSaturacion": "DESCARTAR",
+                  "capacidadCola": 1000,
+                  "profundidadCola": 0,
+                  "enEjecucion": 0,
+                  "despachadas": 42,
+                  "fallidas": 0,
+                  "descartadas": 0,
+                  "latenciaPromedioMs": 0.8,
+                  "latenciaMaximaMs": 3.1
+                }
+                """)))
+    public ResponseEntity<Map<String, Object>> obtenerMetricasNotificacion() {
+        return ResponseEntity.ok(gestorInventario.obtenerMetricasNotificacion());
+    }
+    
+    /**
+     * Métricas de la caché del catálogo de productos
+     * GET /api/inventario/cache/metricas
+     */
+    @GetMapping("/cache/metricas")
+    @Operation(
+        summary = "📊 Métricas de la caché del catálogo",
+        description = "Aciertos, fallos, desalojos, invalidaciones y ocupación estimada de la caché de productos"
+    )
+    @ApiResponse(responseCode = "200", description = "✅ Métricas obtenidas",
+        content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                  "entradas": 5,
+                  "listaActivosEnCache": true,
+                  "bytesOcupados": 1840,
+                  "capacidadBytes": 1048576,
+                  "aciertos": 120,
+                  "fallos": 6,
+                  "tasaAciertos": 0.952,
+                  "desalojos": 0,
+                  "invalidaciones": 3
+                }
+                """)))
+    public ResponseEntity<Map<String, Object>> obtenerMetricasCache() {
+        return ResponseEntity.ok(inventarioService.obtenerMetricasCache());
+    }
+    
     /**
      * Obtiene el estado del inventario de un producto
      * GET /api/inventario/{id}
@@ -1,6 +1,14 @@
 package com.techsolutions.controller;
 
+import com.techsolutions.pattern.adapter.ResultadoPago;
+import com.techsolutions.pattern.decorator.PagoInciertoException;
+import com.techsolutions.pattern.decorator.PagoNoEnviadoException;
+import com.techsolutions.service.ConciliacionPagosService;
+import com.techsolutions.service.ConciliacionPagosService.EstadoTransaccion;
 import com.techsolutions.service.PagoService;
+import com.techsolutions.service.ReservaStockService;
+import com.techsolutions.util.AlmacenIdempotencia;
+import com.techsolutions.util.AlmacenIdempotencia.ConflictoIdempotencia;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.media.Content;
@@ -10,6 +18,9 @@ import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -17,6 +28,9 @@ import java.math.BigDecimal;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 /**
  * Controlador REST para gestionar pagos
@@ -31,6 +45,23 @@ public class PagoController {
     @Autowired
     private PagoService pagoService;
     
+    @Autowired
+    private ReservaStockService reservaStockService;
+    
+    @Autowired
+    private ConciliacionPagosService conciliacionPagos;
+    
+    @Autowired
+    private AlmacenIdempotencia<Map<String, Object>> almacenIdempotencia;
+    
+    /**
+     * Confirmar o liberar una reserva usa la base de datos: en el flujo asíncrono se hace en el
+     * ejecutor de tareas de Spring y no en el hilo que completa el pago
+     */
+    @Autowired
+    @Qualifier(TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+    private Executor ejecutorTareas;
+    
     /**
      * RF1: Lista todas las pasarelas de pago disponibles
      * GET /api/pagos/pasarelas
@@ -89,6 +120,27 @@ public class PagoController {
             
             El Patrón Adapter permite que todas las pasarelas implementen la misma interfaz,
             facilitando el procesamiento uniforme independientemente del proveedor.
+            
+            Si se envía `reserva` (referencia devuelta por POST /api/inventario/reservas), el stock
+            retenido se confirma cuando el pago es exitoso y se libera cuando falla. Si la reserva ya
+            había vencido se vuelve a retener el stock, o el pedido queda para atención manual si no
+            alcanza; el pago igual responde exitoso, con una `advertencia`.
+            
+            Con el header `Idempotency-Key` un reintento no vuelve a cobrar: si la solicitud original
+            sigue en proceso espera su resultado y si ya terminó lo recibe con `repetida: true`.
+            Reutilizar la clave con otros datos devuelve 409. Solo un error anterior al envío (datos
+            inválidos, pasarela deshabilitada, saturada o con el circuito abierto) libera la clave.
+            
+            Si la pasarela recibió el pago pero no respondió a tiempo o devolvió un error, el resultado
+            es desconocido: se responde 202 con `estado: DESCONOCIDO`, la reserva sigue retenida y el
+            estado real se consulta en GET /api/pagos/verificar. Un reintento con la misma clave
+            recibe la misma respuesta.
+            
+            Con `"pasarela": "auto"` se elige la pasarela habilitada con mejor latencia p95 y tasa de
+            éxito del último minuto (ver GET /api/pagos/pasarelas/estado). Con `"respaldo": true`, si
+            la elegida no admite el pago (saturada o con el circuito abierto) se prueba la siguiente;
+            la respuesta indica la pasarela usada y las `intentadas`. Un pago rechazado, con error del
+            proveedor o sin respuesta a tiempo no se reintenta en otra pasarela: pudo haberse cobrado.
             """
     )
     @ApiResponses(value = {
@@ -103,6 +155,16 @@ public class PagoController {
                       "referencia": "ORD-2024-001"
                     }
                     """))),
+        @ApiResponse(responseCode = "202", description = "⏳ Pago enviado con resultado desconocido",
+            content = @Content(mediaType = "application/json",
+                examples = @ExampleObject(value = """
+                    {
+                      "exitoso": false,
+                      "estado": "DESCONOCIDO",
+                      "mensaje": "La pasarela yape no respondió en 5000 ms",
+                      "pasarela": "yape"
+                    }
+                    """))),
         @ApiResponse(responseCode = "400", description = "❌ Error al procesar el pago",
             content = @Content(mediaType = "application/json",
                 examples = @ExampleObject(value = """
@@ -110,6 +172,14 @@ public class PagoController {
                       "exitoso": false,
                       "mensaje": "La pasarela yape no está habilitada"
                     }
+                    """))),
+        @ApiResponse(responseCode = "409", description = "⚠️ Idempotency-Key reutilizada con otros datos o pago original aún en proceso",
+            content = @Content(mediaType = "application/json",
+                examples = @ExampleObject(value = """
+                    {
+                      "exitoso": false,
+                      "mensaje": "La clave de idempotencia ya se usó con otra solicitud"
+                    }
                     """)))
     })
     @io.swagger.v3.oas.annotations.parameters.RequestBody(
@@ -137,32 +207,332 @@ public class PagoController {
                       "monto": 75.00,
                       "referencia": "ORD-2024-003"
                     }
+                    """),
+                @ExampleObject(name = "Enrutamiento automático con respaldo", value = """
+                    {
+                      "pasarela": "auto",
+                      "respaldo": true,
+                      "monto": 120.00,
+                      "referencia": "ORD-2024-004"
+                    }
                     """)
             }))
-    public ResponseEntity<Map<String, Object>> procesarPago(@RequestBody Map<String, Object> request) {
+    public ResponseEntity<Map<String, Object>> procesarPago(
+            @Parameter(description = "Clave única del intento de pago (máx. 64 caracteres)", example = "ORD-2024-001-intento-1")
+            @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia,
+            @RequestBody Map<String, Object> request) {
         try {
-            // Aceptar tanto "pasarela" como "pasarelaId"
-            String pasarela = (String) request.getOrDefault("pasarela", request.get("pasarelaId"));
-            BigDecimal monto = new BigDecimal(request.get("monto").toString());
-            String referencia = (String) request.get("referencia");
-            
-            boolean exitoso = pagoService.procesarPago(pasarela, monto, referencia);
-            
-            Map<String, Object> response = new HashMap<>();
-            response.put("exitoso", exitoso);
-            response.put("mensaje", exitoso ? "Pago procesado correctamente" : "Error al procesar el pago");
-            response.put("pasarela", pasarela);
-            response.put("monto", monto);
-            response.put("referencia", referencia);
+            if (claveIdempotencia == null || claveIdempotencia.isBlank()) {
+                return ResponseEntity.ok(ejecutarPago(request));
+            }
             
+            AlmacenIdempotencia.Resultado<Map<String, Object>> resultado = almacenIdempotencia.ejecutar(
+                claveIdempotencia.trim(), huellaPago(request), () -> ejecutarPago(request), PagoController::anteriorAlEnvio);
+            Map<String, Object> response = new HashMap<>(resultado.valor());
+            response.put("repetida", resultado.repetido());
             return ResponseEntity.ok(response);
             
         } catch (Exception e) {
-            Map<String, Object> error = new HashMap<>();
-            error.put("exitoso", false);
-            error.put("mensaje", e.getMessage());
-            return ResponseEntity.badRequest().body(error);
+            return respuestaError(e);
+        }
+    }
+    
+    /**
+     * Cobra y confirma o libera la reserva asociada
+     * Solo los errores anteriores al envío liberan la reserva y la clave de idempotencia; con un
+     * resultado desconocido la reserva sigue retenida hasta que la conciliación lo resuelva
+     */
+    private Map<String, Object> ejecutarPago(Map<String, Object> request) {
+        String pasarela = leerPasarela(request);
+        BigDecimal monto = leerMonto(request);
+        String referencia = (String) request.get("referencia");
+        String reserva = (String) request.get("reserva");
+        List<String> intentadas = null;
+        
+        boolean exitoso;
+        try {
+            if (PagoService.PASARELA_AUTOMATICA.equalsIgnoreCase(pasarela)) {
+                PagoService.PagoEnrutado enrutado = pagoService.procesarPagoEnrutado(monto, referencia, conRespaldo(request));
+                exitoso = enrutado.resultado().exitoso();
+                pasarela = enrutado.pasarela();
+                intentadas = enrutado.intentadas();
+            } else {
+                exitoso = pagoService.procesarPago(pasarela, monto, referencia);
+            }
+        } catch (RuntimeException e) {
+            if (anteriorAlEnvio(e)) {
+                if (reserva != null) {
+                    reservaStockService.liberar(reserva);
+                }
+                throw e;
+            }
+            throw registrarIncierto(incierto(pasarela, e), referencia);
+        }
+        if (referencia != null) {
+            conciliacionPagos.registrarResultado(pasarela, referencia, exitoso);
+        }
+        // Tras el cobro la reserva nunca hace fallar la respuesta: el dinero ya se movió
+        String advertencia = null;
+        if (reserva != null) {
+            if (exitoso) {
+                advertencia = reservaStockService.confirmarPagada(reserva).advertencia();
+            } else {
+                reservaStockService.liberar(reserva);
+            }
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("exitoso", exitoso);
+        response.put("mensaje", exitoso ? "Pago procesado correctamente" : "Error al procesar el pago");
+        response.put("pasarela", pasarela);
+        response.put("monto", monto);
+        response.put("referencia", referencia);
+        if (intentadas != null) {
+            response.put("intentadas", intentadas);
+        }
+        if (advertencia != null) {
+            response.put("advertencia", advertencia);
+        }
+        return response;
+    }
+    
+    /**
+     * RF1: Procesa un pago sin retener el hilo de la solicitud
+     * POST /api/pagos/procesar-async
+     */
+    @PostMapping("/procesar-async")
+    @Operation(
+        summary = "⚡ Procesar pago asíncrono (RF1 - Patrón Adapter)",
+        description = """
+            Igual que POST /api/pagos/procesar (mismo body, `reserva`, `"pasarela": "auto"` e
+            `Idempotency-Key`), pero el
+            hilo del servidor se libera mientras la pasarela responde: miles de pagos pueden quedar
+            pendientes del proveedor sin ocupar un hilo cada uno.
+            
+            La respuesta agrega el `estado` (APROBADO / RECHAZADO), el `codigoAutorizacion` entregado
+            por la pasarela y la `fecha` del resultado. Las claves de idempotencia se comparten con
+            /procesar: un reintento por cualquiera de los dos endpoints no vuelve a cobrar. Un
+            resultado desconocido se responde igual que en /procesar: 202 con `estado: DESCONOCIDO`.
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "✅ Pago procesado",
+            content = @Content(mediaType = "application/json",
+                examples = @ExampleObject(value = """
+                    {
+                      "exitoso": true,
+                      "estado": "APROBADO",
+                      "codigoAutorizacion": "YAPE-3F9A1C2B",
+                      "mensaje": "Pago procesado correctamente",
+                      "pasarela": "yape",
+                      "monto": 150.50,
+                      "referencia": "ORD-2024-001",
+                      "fecha": "2024-05-10T15:30:00",
+                      "repetida": false
+                    }
+                    """))),
+        @ApiResponse(responseCode = "202", description = "⏳ Pago enviado con resultado desconocido",
+            content = @Content(mediaType = "application/json",
+                examples = @ExampleObject(value = """
+                    {
+                      "exitoso": false,
+                      "estado": "DESCONOCIDO",
+                      "mensaje": "La pasarela yape no respondió en 5000 ms",
+                      "pasarela": "yape"
+                    }
+                    """))),
+        @ApiResponse(responseCode = "400", description = "❌ Error al procesar el pago",
+            content = @Content(mediaType = "application/json",
+                examples = @ExampleObject(value = """
+                    {
+                      "exitoso": false,
+                      "mensaje": "La pasarela yape no está habilitada"
+                    }
+                    """))),
+        @ApiResponse(responseCode = "409", description = "⚠️ Idempotency-Key reutilizada con otros datos o pago original aún en proceso")
+    })
+    public CompletableFuture<ResponseEntity<Map<String, Object>>> procesarPagoAsync(
+            @Parameter(description = "Clave única del intento de pago (máx. 64 caracteres)", example = "ORD-2024-001-intento-1")
+            @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia,
+            @RequestBody Map<String, Object> request) {
+        CompletableFuture<Map<String, Object>> pago;
+        try {
+            if (claveIdempotencia == null || claveIdempotencia.isBlank()) {
+                pago = ejecutarPagoAsync(request);
+            } else {
+                pago = almacenIdempotencia.ejecutarAsync(claveIdempotencia.trim(), huellaPago(request),
+                        () -> ejecutarPagoAsync(request), PagoController::anteriorAlEnvio)
+                    .thenApply(resultado -> {
+                        Map<String, Object> response = new HashMap<>(resultado.valor());
+                        response.put("repetida", resultado.repetido());
+                        return response;
+                    });
+            }
+        } catch (Exception e) {
+            return CompletableFuture.completedFuture(respuestaError(e));
         }
+        return pago.thenApply(ResponseEntity::ok)
+            .exceptionally(e -> respuestaError(e instanceof CompletionException ? e.getCause() : e));
+    }
+    
+    /**
+     * Variante asíncrona de ejecutarPago
+     */
+    private CompletableFuture<Map<String, Object>> ejecutarPagoAsync(Map<String, Object> request) {
+        String pasarela = leerPasarela(request);
+        BigDecimal monto = leerMonto(request);
+        String referencia = (String) request.get("referencia");
+        String reserva = (String) request.get("reserva");
+        
+        CompletableFuture<PagoService.PagoEnrutado> pago;
+        try {
+            pago = PagoService.PASARELA_AUTOMATICA.equalsIgnoreCase(pasarela)
+                ? pagoService.procesarPagoEnrutadoAsync(monto, referencia, conRespaldo(request))
+                : pagoService.procesarPagoAsync(pasarela, monto, referencia)
+                    .thenApply(resultado -> new PagoService.PagoEnrutado(pasarela, resultado, null));
+        } catch (RuntimeException e) {
+            if (reserva != null) {
+                reservaStockService.liberar(reserva);
+            }
+            throw e;
+        }
+        pago = pago.handle((enrutado, error) -> {
+            if (error == null) {
+                if (referencia != null) {
+                    conciliacionPagos.registrarResultado(enrutado.pasarela(), referencia, enrutado.resultado().exitoso());
+                }
+                return enrutado;
+            }
+            Throwable causa = error instanceof CompletionException ? error.getCause() : error;
+            if (anteriorAlEnvio(causa)) {
+                throw new CompletionException(causa);
+            }
+            throw new CompletionException(registrarIncierto(incierto(pasarela, causa), referencia));
+        });
+        if (reserva == null) {
+            return pago.thenApply(this::respuestaPago);
+        }
+        return pago.handleAsync((enrutado, error) -> {
+            String advertencia = null;
+            if (error == null && enrutado.resultado().exitoso()) {
+                advertencia = reservaStockService.confirmarPagada(reserva).advertencia();
+            } else if (error == null || anteriorAlEnvio(error.getCause())) {
+                reservaStockService.liberar(reserva);
+            }
+            if (error != null) {
+                throw error instanceof CompletionException completion ? completion : new CompletionException(error);
+            }
+            Map<String, Object> response = respuestaPago(enrutado);
+            if (advertencia != null) {
+                response.put("advertencia", advertencia);
+            }
+            return response;
+        }, ejecutorTareas);
+    }
+    
+    private Map<String, Object> respuestaPago(PagoService.PagoEnrutado enrutado) {
+        ResultadoPago resultado = enrutado.resultado();
+        Map<String, Object> response = new HashMap<>();
+        response.put("exitoso", resultado.exitoso());
+        response.put("estado", resultado.estado().name());
+        response.put("codigoAutorizacion", resultado.codigoAutorizacion());
+        response.put("mensaje", resultado.mensaje());
+        response.put("pasarela", enrutado.pasarela());
+        response.put("monto", resultado.monto());
+        response.put("referencia", resultado.referencia());
+        response.put("fecha", resultado.fecha().toString());
+        if (enrutado.intentadas() != null) {
+            response.put("intentadas", enrutado.intentadas());
+        }
+        return response;
+    }
+    
+    /**
+     * Un pago enviado sin resultado conocido (por ejemplo, sin respuesta a tiempo) pudo haberse
+     * cobrado igual: queda pendiente para que la conciliación consulte su estado real
+     * Se registra en la pasarela que recibió el pago, también con "pasarela": "auto"; las anteriores
+     * en las intentadas no lo admitieron y no tienen nada que conciliar
+     */
+    private PagoInciertoException registrarIncierto(PagoInciertoException incierto, String referencia) {
+        if (referencia != null && pagoService.existePasarela(incierto.getPasarela())) {
+            conciliacionPagos.registrarPendiente(incierto.getPasarela(), referencia);
+        }
+        return incierto;
+    }
+    
+    /**
+     * true si el pago falló antes de llegar a la pasarela: datos inválidos, pasarela inexistente,
+     * deshabilitada, saturada o con el circuito abierto. Solo entonces es seguro reintentarlo
+     */
+    private static boolean anteriorAlEnvio(Throwable error) {
+        return error instanceof IllegalArgumentException || error instanceof PagoNoEnviadoException;
+    }
+    
+    /**
+     * Un error posterior al envío deja el resultado del pago en duda
+     */
+    private static PagoInciertoException incierto(String pasarela, Throwable error) {
+        return error instanceof PagoInciertoException incierto
+            ? incierto
+            : PagoInciertoException.de(pasarela, List.of(pasarela), error);
+    }
+    
+    /**
+     * Acepta tanto "pasarela" como "pasarelaId"
+     */
+    private static String leerPasarela(Map<String, Object> request) {
+        Object pasarela = request.getOrDefault("pasarela", request.get("pasarelaId"));
+        if (pasarela == null || pasarela.toString().isBlank()) {
+            throw new IllegalArgumentException("La pasarela es requerida");
+        }
+        return pasarela.toString();
+    }
+    
+    private static BigDecimal leerMonto(Map<String, Object> request) {
+        if (request.get("monto") == null) {
+            throw new IllegalArgumentException("El monto es requerido");
+        }
+        return new BigDecimal(request.get("monto").toString());
+    }
+    
+    private ResponseEntity<Map<String, Object>> respuestaError(Throwable e) {
+        if (e instanceof ConflictoIdempotencia) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("exitoso", false, "mensaje", e.getMessage()));
+        }
+        if (e instanceof PagoInciertoException incierto) {
+            Map<String, Object> response = new HashMap<>();
+            response.put("exitoso", false);
+            response.put("estado", "DESCONOCIDO");
+            response.put("mensaje", incierto.getMessage());
+            response.put("pasarela", incierto.getPasarela());
+            response.put("intentadas", incierto.getIntentadas());
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body(response);
+        }
+        Map<String, Object> error = new HashMap<>();
+        error.put("exitoso", false);
+        error.put("mensaje", e.getMessage());
+        return ResponseEntity.badRequest().body(error);
+    }
+    
+    /**
+     * Datos que identifican el pago: la misma clave con otra huella es otra solicitud
+     * El monto se normaliza para que 150.5 y 150.50 sean el mismo pago
+     */
+    private String huellaPago(Map<String, Object> request) {
+        Object pasarela = request.getOrDefault("pasarela", request.get("pasarelaId"));
+        Object monto = request.get("monto");
+        return String.valueOf(pasarela).toLowerCase()
+            + "|" + (monto == null ? null : new BigDecimal(monto.toString()).stripTrailingZeros().toPlainString())
+            + "|" + request.get("referencia")
+            + "|" + request.get("reserva")
+            + "|" + conRespaldo(request);
+    }
+    
+    /**
+     * Con pasarela "auto", "respaldo": true prueba la siguiente pasarela si la elegida no admite el pago
+     */
+    private boolean conRespaldo(Map<String, Object> request) {
+        return Boolean.parseBoolean(String.valueOf(request.get("respaldo")));
     }
     
     /**
@@ -180,6 +550,9 @@ public class PagoController {
             **RF2**: El administrador puede habilitar/deshabilitar pasarelas desde el panel de configuración.
             
             Una pasarela deshabilitada no procesará pagos y mostrará un mensaje de error.
+            
+            Cada cambio publica una nueva versión de la configuración (ver GET /api/pagos/pasarelas/configuracion);
+            repetir el estado actual no crea una versión nueva.
             """
     )
     @ApiResponses(value = {
@@ -190,7 +563,8 @@ public class PagoController {
                       "exitoso": true,
                       "mensaje": "Pasarela yape deshabilitada",
                       "pasarela": "yape",
-                      "habilitada": false
+                      "habilitada": false,
+                      "version": 4
                     }
                     """))),
         @ApiResponse(responseCode = "400", description = "❌ Error al configurar pasarela")
@@ -225,6 +599,7 @@ public class PagoController {
             response.put("mensaje", "Pasarela " + nombre + (habilitar ? " habilitada" : " deshabilitada"));
             response.put("pasarela", nombre);
             response.put("habilitada", habilitar);
+            response.put("version", pagoService.getConfiguracion().version());
             
             return ResponseEntity.ok(response);
             
@@ -236,6 +611,44 @@ public class PagoController {
         }
     }
     
+    /**
+     * RF2: Versión vigente de la configuración de pasarelas
+     * GET /api/pagos/pasarelas/configuracion
+     */
+    @GetMapping("/pasarelas/configuracion")
+    @Operation(
+        summary = "🗂️ Configuración de pasarelas (RF2)",
+        description = """
+            Devuelve la versión vigente de la habilitación de pasarelas y las últimas versiones publicadas.
+            
+            La configuración cambia con PUT /api/pagos/pasarelas/{nombre}/configurar (`origen: api`) o
+            editando el archivo `pagos.pasarelas.configuracion.archivo` (`origen: archivo`), sin reiniciar.
+            **propagacionMs** es el tiempo entre el pedido del cambio (la llamada o la modificación del
+            archivo) y su publicación para los pagos.
+            """
+    )
+    @ApiResponse(responseCode = "200", description = "✅ Configuración obtenida",
+        content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                  "version": 3,
+                  "origen": "archivo",
+                  "habilitadas": { "paypal": true, "yape": false, "plin": true },
+                  "solicitadaEn": "2024-05-10T20:30:00Z",
+                  "publicadaEn": "2024-05-10T20:30:01.250Z",
+                  "propagacionMs": 1250,
+                  "historial": [
+                    { "version": 3, "origen": "archivo", "habilitadas": { "paypal": true, "yape": false, "plin": true },
+                      "solicitadaEn": "2024-05-10T20:30:00Z", "publicadaEn": "2024-05-10T20:30:01.250Z", "propagacionMs": 1250 },
+                    { "version": 2, "origen": "api", "habilitadas": { "paypal": true, "yape": true, "plin": false },
+                      "solicitadaEn": "2024-05-10T19:00:00Z", "publicadaEn": "2024-05-10T19:00:00Z", "propagacionMs": 0 }
+                  ]
+                }
+                """)))
+    public ResponseEntity<Map<String, Object>> obtenerConfiguracionPasarelas() {
+        return ResponseEntity.ok(pagoService.obtenerConfiguracion());
+    }
+    
     /**
      * RF2: Obtiene el estado actual de todas las pasarelas
      * GET /api/pagos/pasarelas/estado
@@ -243,18 +656,50 @@ public class PagoController {
     @GetMapping("/pasarelas/estado")
     @Operation(
         summary = "📊 Estado de pasarelas (RF2)",
-        description = "Obtiene el estado de habilitación de todas las pasarelas de pago"
+        description = """
+            Obtiene el estado de habilitación de todas las pasarelas de pago y el de su protección:
+            - **circuito**: CERRADO (normal), ABIERTO (rechaza sin llamar al proveedor) o SEMI_ABIERTO (probando)
+            - **tasaFallos**: porcentaje de fallos en la ventana de llamadas recientes
+            - **enCurso** / **maxConcurrentes**: llamadas simultáneas al proveedor y su límite
+            - **rechazadasCircuito**, **rechazadasSaturacion**, **tiemposAgotados**: contadores acumulados
+            - **llamadasRecientes**, **p95Ms**, **tasaExito**: rendimiento del último minuto, usado por `"pasarela": "auto"`
+            """
     )
     @ApiResponse(responseCode = "200", description = "✅ Estado obtenido",
         content = @Content(mediaType = "application/json",
             examples = @ExampleObject(value = """
                 {
-                  "paypal": true,
-                  "yape": true,
-                  "plin": false
+                  "yape": {
+                    "habilitada": true,
+                    "disponible": true,
+                    "circuito": "CERRADO",
+                    "tasaFallos": 0,
+                    "enCurso": 2,
+                    "maxConcurrentes": 20,
+                    "rechazadasCircuito": 0,
+                    "rechazadasSaturacion": 0,
+                    "tiemposAgotados": 0,
+                    "llamadasRecientes": 42,
+                    "p95Ms": 150,
+                    "tasaExito": 1.0
+                  },
+                  "plin": {
+                    "habilitada": true,
+                    "disponible": false,
+                    "circuito": "ABIERTO",
+                    "tasaFallos": 60,
+                    "enCurso": 0,
+                    "maxConcurrentes": 20,
+                    "rechazadasCircuito": 14,
+                    "rechazadasSaturacion": 0,
+                    "tiemposAgotados": 12,
+                    "llamadasRecientes": 20,
+                    "p95Ms": 5000,
+                    "tasaExito": 0.4
+                  }
                 }
                 """)))
-    public ResponseEntity<Map<String, Boolean>> obtenerEstadoPasarelas() {
+    public ResponseEntity<Map<String, Map<String, Object>>> obtenerEstadoPasarelas() {
         return ResponseEntity.ok(pagoService.obtenerEstadoPasarelas());
     }
     
@@ -265,19 +710,43 @@ public class PagoController {
     @GetMapping("/verificar/{pasarela}/{referencia}")
     @Operation(
         summary = "🔍 Verificar transacción",
-        description = "Verifica el estado de una transacción por su referencia y pasarela"
+        description = """
+            Devuelve el estado conocido de una transacción sin consultar a la pasarela.
+            
+            - Los pagos procesados por esta API quedan registrados con su resultado (`definitivo: true`).
+            - Un pago de resultado incierto queda en verificación: un sondeo en segundo plano lo
+              consulta a la pasarela por lotes. Mientras tanto el estado es `EN_VERIFICACION` o el
+              último informado por la pasarela (por ejemplo `PENDIENTE`), y `reintentarEnMs` sugiere
+              cuándo volver a consultar.
+            - Una referencia que no corresponde a ningún pago registrado responde `NO_ENCONTRADO` y no
+              se consulta a la pasarela.
+            - Si la pasarela no la confirma en la espera máxima el estado final es `SIN_CONFIRMAR`.
+            """
     )
     @ApiResponses(value = {
         @ApiResponse(responseCode = "200", description = "✅ Estado de transacción",
             content = @Content(mediaType = "application/json",
-                examples = @ExampleObject(value = """
-                    {
-                      "referencia": "ORD-2024-001",
-                      "pasarela": "yape",
-                      "estado": "COMPLETADO"
-                    }
-                    """))),
-        @ApiResponse(responseCode = "400", description = "❌ Error al verificar")
+                examples = {
+                    @ExampleObject(name = "Definitivo", value = """
+                        {
+                          "referencia": "ORD-2024-001",
+                          "pasarela": "yape",
+                          "estado": "COMPLETADO",
+                          "definitivo": "true",
+                          "consultadoEn": "2024-05-10T20:30:00Z"
+                        }
+                        """),
+                    @ExampleObject(name = "En verificación", value = """
+                        {
+                          "referencia": "ORD-2024-002",
+                          "pasarela": "plin",
+                          "estado": "EN_VERIFICACION",
+                          "definitivo": "false",
+                          "reintentarEnMs": "1000"
+                        }
+                        """)
+                })),
+        @ApiResponse(responseCode = "400", description = "❌ Pasarela no encontrada")
     })
     public ResponseEntity<Map<String, String>> verificarEstado(
             @Parameter(description = "Pasarela de pago", example = "yape")
@@ -285,12 +754,19 @@ public class PagoController {
             @Parameter(description = "Referencia de la transacción", example = "ORD-2024-001")
             @PathVariable String referencia) {
         try {
-            String estado = pagoService.verificarEstadoTransaccion(pasarela, referencia);
+            EstadoTransaccion transaccion = conciliacionPagos.consultar(pasarela, referencia);
             
             Map<String, String> response = new HashMap<>();
             response.put("referencia", referencia);
             response.put("pasarela", pasarela);
-            response.put("estado", estado);
+            response.put("estado", transaccion.estado());
+            response.put("definitivo", String.valueOf(transaccion.definitivo()));
+            if (transaccion.consultadoEn() != null) {
+                response.put("consultadoEn", transaccion.consultadoEn().toString());
+            }
+            if (!transaccion.definitivo() && !ConciliacionPagosService.NO_ENCONTRADO.equals(transaccion.estado())) {
+                response.put("reintentarEnMs", String.valueOf(conciliacionPagos.intervaloSugeridoMs(pasarela)));
+            }
             
             return ResponseEntity.ok(response);
             
@@ -300,4 +776,33 @@ public class PagoController {
             return ResponseEntity.badRequest().body(error);
         }
     }
+    
+    /**
+     * Estado de la conciliación de transacciones
+     * GET /api/pagos/conciliacion
+     */
+    @GetMapping("/conciliacion")
+    @Operation(
+        summary = "🔄 Estado de la conciliación",
+        description = "Transacciones en caché y, por pasarela, referencias pendientes, intervalo de sondeo actual, lotes y consultas realizadas"
+    )
+    @ApiResponse(responseCode = "200", description = "✅ Estado de la conciliación",
+        content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(value = """
+                {
+                  "transaccionesEnCache": 1250,
+                  "pasarelas": {
+                    "plin": {
+                      "pendientes": 3,
+                      "intervaloMs": 4000,
+                      "lotes": 12,
+                      "consultas": 57,
+                      "confirmadas": 54
+                    }
+                  }
+                }
+                """)))
+    public ResponseEntity<Map<String, Object>> obtenerEstadoConciliacion() {
+        return ResponseEntity.ok(conciliacionPagos.obtenerResumen());
+    }
 }
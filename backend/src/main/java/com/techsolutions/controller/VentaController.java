@@ -0,0 +1,168 @@
+package com.techsolutions.controller;
+
+import com.techsolutions.dto.CheckoutRequestDTO;
+import com.techsolutions.service.VentaService;
+import com.techsolutions.service.VentaService.ResultadoCheckout;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import io.swagger.v3.oas.annotations.media.Content;
+import io.swagger.v3.oas.annotations.media.ExampleObject;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Controlador REST del checkout de ventas
+ * El navegador envía solo el carrito; precios, stock, cobro y registro de la venta
+ * se resuelven en el servidor en una sola llamada
+ */
+@RestController
+@RequestMapping("/api/ventas")
+@Tag(name = "Ventas", description = "🧾 API de checkout - Registra ventas completas con reserva de stock, cobro e idempotencia")
+public class VentaController {
+
+    @Autowired
+    private VentaService ventaService;
+
+    /**
+     * Ejecuta el checkout de un carrito
+     * POST /api/ventas/checkout
+     */
+    @PostMapping("/checkout")
+    @Operation(
+        summary = "🛒 Checkout",
+        description = """
+            Registra una venta completa en una sola llamada:
+            1. Valora el carrito con los precios vigentes del catálogo
+            2. Reserva el stock (la venta queda PENDIENTE)
+            3. Cobra con la pasarela indicada (PROCESANDO)
+            4. Confirma la reserva (COMPLETADA) o la libera si el pago es rechazado (CANCELADA)
+
+            Si la pasarela recibió el cobro pero no respondió, la venta sigue PROCESANDO con el stock
+            retenido; se cierra sola cuando la conciliación obtiene el resultado real del cobro
+            (consultar con GET /api/ventas/{numeroVenta}), o queda en REVISION_MANUAL si la pasarela
+            no lo confirma.
+
+            Si el cobro se aprobó pero la reserva había vencido, el stock se vuelve a retener y la
+            respuesta incluye `advertencia`. Si ya no hay stock o no se encontró la reserva, la venta
+            cobrada queda en REVISION_MANUAL con la `advertencia` correspondiente.
+
+            Si no se indica `vendedor`, la venta se asigna al usuario de la tienda en línea.
+
+            Si se envía el header `Idempotency-Key`, un reintento con la misma clave devuelve
+            la venta ya registrada (`repetida: true`) sin volver a cobrar. Reutilizar la clave con
+            otro carrito, cliente, vendedor o pasarela devuelve 409.
+            """
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "✅ Checkout procesado (ver exitoso y estado)",
+            content = @Content(mediaType = "application/json",
+                examples = @ExampleObject(value = """
+                    {
+                      "exitoso": true,
+                      "mensaje": "Venta completada",
+                      "ventaId": 51,
+                      "numeroVenta": "V1462048512000004096",
+                      "estado": "COMPLETADA",
+                      "subtotal": 2649.90,
+                      "descuento": 0.00,
+                      "total": 2649.90,
+                      "pasarela": "yape",
+                      "repetida": false
+                    }
+                    """))),
+        @ApiResponse(responseCode = "400", description = "❌ Solicitud inválida",
+            content = @Content(mediaType = "application/json",
+                examples = @ExampleObject(value = """
+                    {
+                      "exitoso": false,
+                      "mensaje": "El carrito debe tener al menos un producto"
+                    }
+                    """))),
+        @ApiResponse(responseCode = "409", description = "⚠️ Stock insuficiente o Idempotency-Key reutilizada con otro carrito",
+            content = @Content(mediaType = "application/json",
+                examples = @ExampleObject(value = """
+                    {
+                      "exitoso": false,
+                      "mensaje": "Stock insuficiente para el producto: Laptop HP Pavilion 15"
+                    }
+                    """)))
+    })
+    @io.swagger.v3.oas.annotations.parameters.RequestBody(
+        description = "Carrito, cliente y pasarela",
+        required = true,
+        content = @Content(mediaType = "application/json",
+            examples = @ExampleObject(name = "Checkout con Yape", value = """
+                {
+                  "pasarela": "yape",
+                  "cliente": {
+                    "documento": "45678912",
+                    "nombre": "Ana",
+                    "apellido": "Torres",
+                    "email": "ana@correo.com"
+                  },
+                  "lineas": [
+                    { "productoId": 1, "cantidad": 1 },
+                    { "productoId": 2, "cantidad": 2 }
+                  ]
+                }
+                """)))
+    public ResponseEntity<Map<String, Object>> checkout(
+            @Parameter(description = "Clave única del intento de compra (máx. 64 caracteres)", example = "c0a8012e-7f3b-4d4a-9d7e-5b1e2f3a4c5d")
+            @RequestHeader(value = "Idempotency-Key", required = false) String claveIdempotencia,
+            @RequestBody CheckoutRequestDTO request) {
+        try {
+            return ResponseEntity.ok(respuesta(ventaService.checkout(claveIdempotencia, request)));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("exitoso", false, "mensaje", e.getMessage()));
+        } catch (IllegalStateException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("exitoso", false, "mensaje", e.getMessage()));
+        }
+    }
+
+    /**
+     * Consulta el estado de una venta
+     * GET /api/ventas/{numeroVenta}
+     */
+    @GetMapping("/{numeroVenta}")
+    @Operation(
+        summary = "🔍 Consultar venta",
+        description = "Obtiene el estado y los totales de una venta registrada por checkout"
+    )
+    @ApiResponses(value = {
+        @ApiResponse(responseCode = "200", description = "✅ Venta encontrada"),
+        @ApiResponse(responseCode = "404", description = "❌ Venta no encontrada")
+    })
+    public ResponseEntity<Map<String, Object>> consultarVenta(
+            @Parameter(description = "Número de venta", example = "V1462048512000004096", required = true)
+            @PathVariable String numeroVenta) {
+        return ventaService.consultar(numeroVenta)
+            .map(resultado -> ResponseEntity.ok(respuesta(resultado)))
+            .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    private Map<String, Object> respuesta(ResultadoCheckout resultado) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("exitoso", resultado.exitoso());
+        response.put("mensaje", resultado.mensaje());
+        response.put("ventaId", resultado.ventaId());
+        response.put("numeroVenta", resultado.numeroVenta());
+        response.put("estado", resultado.estado());
+        response.put("subtotal", resultado.subtotal());
+        response.put("descuento", resultado.descuento());
+        response.put("total", resultado.total());
+        response.put("pasarela", resultado.pasarela());
+        response.put("repetida", resultado.repetida());
+        if (resultado.advertencia() != null) {
+            response.put("advertencia", resultado.advertencia());
+        }
+        return response;
+    }
+}
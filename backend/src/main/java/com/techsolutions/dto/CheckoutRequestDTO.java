@@ -0,0 +1,92 @@
+package com.techsolutions.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DTO para la solicitud de checkout: carrito, cliente y pasarela de pago
+ * Los precios no se envían: el servidor los toma del catálogo al momento de la compra
+ */
+@Schema(description = "Solicitud de checkout")
+public class CheckoutRequestDTO {
+
+    @Schema(description = "Pasarela de pago", example = "yape",
+            allowableValues = {"paypal", "yape", "plin"}, requiredMode = RequiredMode.REQUIRED)
+    private String pasarela;
+
+    @Schema(description = "Datos del cliente; si el documento ya existe se usa ese cliente", requiredMode = RequiredMode.REQUIRED)
+    private ClienteCheckout cliente;
+
+    @Schema(description = "Usuario vendedor (por defecto el configurado para la tienda en línea)", example = "tienda_online")
+    private String vendedor;
+
+    @Schema(description = "Líneas del carrito", requiredMode = RequiredMode.REQUIRED)
+    private List<LineaCheckout> lineas = new ArrayList<>();
+
+    @Schema(description = "Cliente que realiza la compra")
+    public static class ClienteCheckout {
+
+        @Schema(description = "DNI, RUC o CE", example = "45678912", requiredMode = RequiredMode.REQUIRED)
+        private String documento;
+
+        @Schema(description = "Nombres", example = "Ana", requiredMode = RequiredMode.REQUIRED)
+        private String nombre;
+
+        @Schema(description = "Apellidos", example = "Torres", requiredMode = RequiredMode.REQUIRED)
+        private String apellido;
+
+        @Schema(description = "Correo para el comprobante", example = "ana@correo.com")
+        private String email;
+
+        public String getDocumento() { return documento; }
+        public void setDocumento(String documento) { this.documento = documento; }
+
+        public String getNombre() { return nombre; }
+        public void setNombre(String nombre) { this.nombre = nombre; }
+
+        public String getApellido() { return apellido; }
+        public void setApellido(String apellido) { this.apellido = apellido; }
+
+        public String getEmail() { return email; }
+        public void setEmail(String email) { this.email = email; }
+    }
+
+    @Schema(description = "Producto y cantidad")
+    public static class LineaCheckout {
+
+        @Schema(description = "ID del producto", example = "1", requiredMode = RequiredMode.REQUIRED)
+        private Long productoId;
+
+        @Schema(description = "Cantidad", example = "2", minimum = "1", requiredMode = RequiredMode.REQUIRED)
+        private Integer cantidad;
+
+        public LineaCheckout() {}
+
+        public LineaCheckout(Long productoId, Integer cantidad) {
+            this.productoId = productoId;
+            this.cantidad = cantidad;
+        }
+
+        public Long getProductoId() { return productoId; }
+        public void setProductoId(Long productoId) { this.productoId = productoId; }
+
+        public Integer getCantidad() { return cantidad; }
+        public void setCantidad(Integer cantidad) { this.cantidad = cantidad; }
+    }
+
+    // Getters y Setters
+    public String getPasarela() { return pasarela; }
+    public void setPasarela(String pasarela) { this.pasarela = pasarela; }
+
+    public ClienteCheckout getCliente() { return cliente; }
+    public void setCliente(ClienteCheckout cliente) { this.cliente = cliente; }
+
+    public String getVendedor() { return vendedor; }
+    public void setVendedor(String vendedor) { this.vendedor = vendedor; }
+
+    public List<LineaCheckout> getLineas() { return lineas; }
+    public void setLineas(List<LineaCheckout> lineas) { this.lineas = lineas; }
+}
@@ -0,0 +1,46 @@
+package com.techsolutions.dto;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Cursor de paginación por clave (keyset) del listado de productos
+ * Guarda el orden usado y la clave del último producto entregado: valor del campo de orden + ID.
+ * Se transporta como texto Base64 URL-safe con formato "v1|ORDEN|ASC/DESC|id|valor"
+ */
+public record CursorProductosDTO(FiltroProductosDTO.Orden orden, boolean descendente, long id, String valor) {
+    
+    private static final String VERSION = "v1";
+    
+    public String codificar() {
+        String texto = String.join("|", VERSION, orden.name(), descendente ? "DESC" : "ASC",
+            Long.toString(id), valor == null ? "" : valor);
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(texto.getBytes(StandardCharsets.UTF_8));
+    }
+    
+    /**
+     * Un cursor solo sirve para continuar el mismo orden y dirección con que se generó
+     */
+    public void validarPara(FiltroProductosDTO filtro) {
+        if (orden != filtro.getOrden() || descendente != filtro.isDescendente()) {
+            throw new IllegalArgumentException("El cursor no corresponde al orden solicitado");
+        }
+    }
+    
+    public static CursorProductosDTO decodificar(String cursor) {
+        try {
+            String texto = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+            String[] partes = texto.split("\\|", 5);
+            if (partes.length != 5 || !VERSION.equals(partes[0])) {
+                throw new IllegalArgumentException("Cursor no válido");
+            }
+            return new CursorProductosDTO(
+                FiltroProductosDTO.Orden.valueOf(partes[1]),
+                "DESC".equals(partes[2]),
+                Long.parseLong(partes[3]),
+                partes[4]);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Cursor no válido: " + cursor);
+        }
+    }
+}
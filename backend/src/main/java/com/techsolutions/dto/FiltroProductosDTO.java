@@ -0,0 +1,80 @@
+package com.techsolutions.dto;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import java.math.BigDecimal;
+import java.util.Locale;
+
+/**
+ * DTO con los filtros y el orden del listado paginado de productos
+ */
+@Schema(description = "Filtros y orden del listado paginado de productos")
+public class FiltroProductosDTO {
+    
+    /**
+     * Campos por los que se puede ordenar; el ID siempre desempata
+     */
+    public enum Orden {
+        ID("id"),
+        NOMBRE("nombre"),
+        PRECIO("precio");
+        
+        private final String campo;
+        
+        Orden(String campo) {
+            this.campo = campo;
+        }
+        
+        public String getCampo() { return campo; }
+        
+        public static Orden desde(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return ID;
+            }
+            try {
+                return valueOf(valor.trim().toUpperCase(Locale.ROOT));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Orden no válido: " + valor + " (use id, nombre o precio)");
+            }
+        }
+    }
+    
+    @Schema(description = "Nombre de la categoría (sin distinguir mayúsculas)", example = "Electrónica")
+    private String categoria;
+    
+    @Schema(description = "Solo productos activos o inactivos", example = "true")
+    private Boolean activo;
+    
+    @Schema(description = "Precio mínimo", example = "10.00")
+    private BigDecimal precioMin;
+    
+    @Schema(description = "Precio máximo", example = "500.00")
+    private BigDecimal precioMax;
+    
+    @Schema(description = "Campo de orden", example = "nombre", allowableValues = {"id", "nombre", "precio"})
+    private Orden orden = Orden.ID;
+    
+    @Schema(description = "Orden descendente", example = "false")
+    private boolean descendente;
+    
+    // Constructores
+    public FiltroProductosDTO() {}
+    
+    // Getters y Setters
+    public String getCategoria() { return categoria; }
+    public void setCategoria(String categoria) { this.categoria = categoria; }
+    
+    public Boolean getActivo() { return activo; }
+    public void setActivo(Boolean activo) { this.activo = activo; }
+    
+    public BigDecimal getPrecioMin() { return precioMin; }
+    public void setPrecioMin(BigDecimal precioMin) { this.precioMin = precioMin; }
+    
+    public BigDecimal getPrecioMax() { return precioMax; }
+    public void setPrecioMax(BigDecimal precioMax) { this.precioMax = precioMax; }
+    
+    public Orden getOrden() { return orden; }
+    public void setOrden(Orden orden) { this.orden = orden; }
+    
+    public boolean isDescendente() { return descendente; }
+    public void setDescendente(boolean descendente) { this.descendente = descendente; }
+}
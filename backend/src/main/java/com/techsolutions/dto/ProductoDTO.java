@@ -1,5 +1,6 @@
 package com.techsolutions.dto;
 
+import com.techsolutions.model.Dinero;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
 import java.math.BigDecimal;
@@ -58,6 +59,17 @@ public class ProductoDTO {
         this.activo = activo;
     }
     
+    /**
+     * Constructor usado por la proyección de ProductoRepositoryCustomImpl, donde el precio
+     * llega como Dinero (DineroConverter)
+     */
+    public ProductoDTO(Long id, String codigo, String nombre, String descripcion, 
+                       Dinero precio, Integer stock, Integer stockMinimo, 
+                       String categoria, String imagen, Boolean activo) {
+        this(id, codigo, nombre, descripcion, precio == null ? null : precio.aBigDecimal(),
+            stock, stockMinimo, categoria, imagen, activo);
+    }
+    
     // Getters y Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -0,0 +1,27 @@
+package com.techsolutions.dto;
+
+import com.techsolutions.model.Producto;
+
+/**
+ * Stock confirmado de un producto, leído directamente de la base de datos
+ */
+public record StockVigenteDTO(Long id, Integer stock, Integer stockMinimo, Boolean activo) {
+
+    /**
+     * Instantánea de la entidad, para cuando no se puede releer la base de datos
+     */
+    public static StockVigenteDTO de(Producto producto) {
+        return new StockVigenteDTO(producto.getId(), producto.getStock(), producto.getStockMinimo(), producto.getActivo());
+    }
+
+    public boolean necesitaReposicion() {
+        return stock <= stockMinimo;
+    }
+
+    /**
+     * Regla común del índice de stock bajo y de las alertas: solo cuentan los productos activos
+     */
+    public boolean stockBajo() {
+        return Boolean.TRUE.equals(activo) && necesitaReposicion();
+    }
+}
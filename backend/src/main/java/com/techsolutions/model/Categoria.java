@@ -4,12 +4,15 @@ import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import java.util.Locale;
 
 /**
  * Entidad Categoría - Agrupa productos por tipo
  */
 @Entity
-@Table(name = "categorias")
+@Table(name = "categorias", indexes = {
+    @Index(name = "uk_categoria_nombre_normalizado", columnList = "nombre_normalizado", unique = true)
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,12 +25,31 @@ public class Categoria {
     @Column(nullable = false, unique = true, length = 100)
     private String nombre;
     
+    /**
+     * Nombre sin espacios sobrantes y en minúsculas; clave única para buscar sin distinguir mayúsculas
+     */
+    @Column(name = "nombre_normalizado", length = 100)
+    private String nombreNormalizado;
+    
     @Column(length = 500)
     private String descripcion;
     
     @Column(nullable = false)
     private Boolean activa = true;
     
+    @PrePersist
+    @PreUpdate
+    protected void onGuardar() {
+        nombreNormalizado = normalizar(nombre);
+    }
+    
+    /**
+     * Normaliza un nombre de categoría: recorta, colapsa espacios y pasa a minúsculas
+     */
+    public static String normalizar(String nombre) {
+        return nombre == null ? null : nombre.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+    
     // Getters y Setters
     public Long getId() { return id; }
     public void setId(Long id) { this.id = id; }
@@ -35,6 +57,9 @@ public class Categoria {
     public String getNombre() { return nombre; }
     public void setNombre(String nombre) { this.nombre = nombre; }
     
+    public String getNombreNormalizado() { return nombreNormalizado; }
+    public void setNombreNormalizado(String nombreNormalizado) { this.nombreNormalizado = nombreNormalizado; }
+    
     public String getDescripcion() { return descripcion; }
     public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
     
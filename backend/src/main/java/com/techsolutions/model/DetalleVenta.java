@@ -1,10 +1,12 @@
 package com.techsolutions.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
+import java.util.Objects;
 
 /**
  * Entidad DetalleVenta - Representa el detalle de cada producto en una venta
@@ -17,7 +19,9 @@ import java.math.BigDecimal;
 public class DetalleVenta {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "detalle_ventas_id")
+    @TableGenerator(name = "detalle_ventas_id", table = "secuencias_id", pkColumnName = "entidad",
+        valueColumnName = "siguiente_valor", pkColumnValue = "detalle_ventas", allocationSize = 50)
     private Long id;
     
     @ManyToOne(fetch = FetchType.LAZY)
@@ -32,19 +36,29 @@ public class DetalleVenta {
     private Integer cantidad;
     
     @Column(name = "precio_unitario", nullable = false, precision = 10, scale = 2)
-    private BigDecimal precioUnitario;
+    private Dinero precioUnitario;
     
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal subtotal;
+    private Dinero subtotal;
     
     /**
      * GRASP: Information Expert - DetalleVenta calcula su propio subtotal
+     * Se recalcula al cambiar cantidad o precio (y se avisa a la venta la diferencia);
+     * antes de guardar se verifica otra vez
      */
     @PrePersist
     @PreUpdate
     protected void calcularSubtotal() {
         if (precioUnitario != null && cantidad != null) {
-            subtotal = precioUnitario.multiply(BigDecimal.valueOf(cantidad));
+            cambiarSubtotal(precioUnitario.multiplicar(cantidad));
+        }
+    }
+    
+    private void cambiarSubtotal(Dinero nuevo) {
+        Dinero anterior = subtotal;
+        subtotal = nuevo;
+        if (venta != null && !Objects.equals(anterior, nuevo)) {
+            venta.ajustarSubtotal(anterior, nuevo);
         }
     }
     
@@ -59,11 +73,27 @@ public class DetalleVenta {
     public void setProducto(Producto producto) { this.producto = producto; }
     
     public Integer getCantidad() { return cantidad; }
-    public void setCantidad(Integer cantidad) { this.cantidad = cantidad; }
+    public void setCantidad(Integer cantidad) {
+        this.cantidad = cantidad;
+        calcularSubtotal();
+    }
+    
+    public BigDecimal getPrecioUnitario() { return precioUnitario == null ? null : precioUnitario.aBigDecimal(); }
+    public void setPrecioUnitario(BigDecimal precioUnitario) {
+        setPrecioUnitarioDinero(precioUnitario == null ? null : Dinero.de(precioUnitario));
+    }
+    
+    @JsonIgnore
+    public Dinero getPrecioUnitarioDinero() { return precioUnitario; }
+    @JsonIgnore
+    public void setPrecioUnitarioDinero(Dinero precioUnitario) {
+        this.precioUnitario = precioUnitario;
+        calcularSubtotal();
+    }
     
-    public BigDecimal getPrecioUnitario() { return precioUnitario; }
-    public void setPrecioUnitario(BigDecimal precioUnitario) { this.precioUnitario = precioUnitario; }
+    public BigDecimal getSubtotal() { return subtotal == null ? null : subtotal.aBigDecimal(); }
+    public void setSubtotal(BigDecimal subtotal) { cambiarSubtotal(subtotal == null ? null : Dinero.de(subtotal)); }
     
-    public BigDecimal getSubtotal() { return subtotal; }
-    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
+    @JsonIgnore
+    public Dinero getSubtotalDinero() { return subtotal; }
 }
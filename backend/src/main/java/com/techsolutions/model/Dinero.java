@@ -0,0 +1,98 @@
+package com.techsolutions.model;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Monto en soles con dos decimales, guardado como cantidad entera de céntimos
+ * Inmutable: sumar, restar y multiplicar trabajan sobre un long, sin crear BigDecimal,
+ * y fallan con ArithmeticException si el resultado desborda en lugar de perder dígitos.
+ * Se persiste en las columnas DECIMAL(10,2) existentes mediante DineroConverter
+ */
+public final class Dinero implements Comparable<Dinero>, Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final Dinero CERO = new Dinero(0);
+
+    private final long centimos;
+
+    private Dinero(long centimos) {
+        this.centimos = centimos;
+    }
+
+    /**
+     * Siempre crea una instancia nueva: sin ramas que devuelvan instancias compartidas, el
+     * compilador JIT puede eliminar los Dinero intermedios de un cálculo (escape analysis)
+     */
+    public static Dinero deCentimos(long centimos) {
+        return new Dinero(centimos);
+    }
+
+    /**
+     * Convierte un monto redondeando al céntimo con HALF_UP (0.005 -> 0.01), el mismo
+     * redondeo que aplica MySQL al guardar en una columna DECIMAL(10,2)
+     */
+    public static Dinero de(BigDecimal monto) {
+        if (monto == null) {
+            throw new IllegalArgumentException("El monto es requerido");
+        }
+        return deCentimos(monto.setScale(2, RoundingMode.HALF_UP).unscaledValue().longValueExact());
+    }
+
+    public static Dinero de(String monto) {
+        try {
+            return de(new BigDecimal(monto.trim()));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Monto no numérico: " + monto);
+        }
+    }
+
+    public Dinero sumar(Dinero otro) {
+        return deCentimos(Math.addExact(centimos, otro.centimos));
+    }
+
+    public Dinero restar(Dinero otro) {
+        return deCentimos(Math.subtractExact(centimos, otro.centimos));
+    }
+
+    /**
+     * Multiplica por una cantidad entera (exacto, sin redondeo)
+     */
+    public Dinero multiplicar(long cantidad) {
+        return deCentimos(Math.multiplyExact(centimos, cantidad));
+    }
+
+    public long getCentimos() {
+        return centimos;
+    }
+
+    public BigDecimal aBigDecimal() {
+        return BigDecimal.valueOf(centimos, 2);
+    }
+
+    public boolean esNegativo() {
+        return centimos < 0;
+    }
+
+    @Override
+    public int compareTo(Dinero otro) {
+        return Long.compare(centimos, otro.centimos);
+    }
+
+    @Override
+    public boolean equals(Object otro) {
+        return otro instanceof Dinero dinero && dinero.centimos == centimos;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(centimos);
+    }
+
+    @Override
+    public String toString() {
+        return aBigDecimal().toPlainString();
+    }
+}
@@ -0,0 +1,24 @@
+package com.techsolutions.model;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+import java.math.BigDecimal;
+
+/**
+ * Convierte Dinero a la columna DECIMAL(10,2) y viceversa
+ * Se aplica automáticamente a todos los atributos de tipo Dinero
+ */
+@Converter(autoApply = true)
+public class DineroConverter implements AttributeConverter<Dinero, BigDecimal> {
+
+    @Override
+    public BigDecimal convertToDatabaseColumn(Dinero dinero) {
+        return dinero == null ? null : dinero.aBigDecimal();
+    }
+
+    @Override
+    public Dinero convertToEntityAttribute(BigDecimal columna) {
+        return columna == null ? null : Dinero.de(columna);
+    }
+}
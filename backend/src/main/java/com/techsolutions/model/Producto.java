@@ -1,5 +1,6 @@
 package com.techsolutions.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
 import jakarta.persistence.*;
@@ -14,7 +15,10 @@ import java.time.LocalDateTime;
  * Aplicando GRASP: Information Expert - conoce su propio stock y precio
  */
 @Entity
-@Table(name = "productos")
+@Table(name = "productos", indexes = {
+    @Index(name = "idx_producto_nombre_id", columnList = "nombre, id"),
+    @Index(name = "idx_producto_precio_id", columnList = "precio, id")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -22,7 +26,9 @@ import java.time.LocalDateTime;
 public class Producto {
     
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "productos_id")
+    @TableGenerator(name = "productos_id", table = "secuencias_id", pkColumnName = "entidad",
+        valueColumnName = "siguiente_valor", pkColumnValue = "productos", allocationSize = 50)
     @Schema(description = "ID único del producto", example = "1")
     private Long id;
     
@@ -40,7 +46,7 @@ public class Producto {
     
     @Column(nullable = false, precision = 10, scale = 2)
     @Schema(description = "Precio del producto en soles", example = "2599.99", requiredMode = RequiredMode.REQUIRED)
-    private BigDecimal precio;
+    private Dinero precio;
     
     @Column(nullable = false)
     @Schema(description = "Cantidad en stock", example = "25", minimum = "0")
@@ -113,8 +119,13 @@ public class Producto {
     public String getDescripcion() { return descripcion; }
     public void setDescripcion(String descripcion) { this.descripcion = descripcion; }
     
-    public BigDecimal getPrecio() { return precio; }
-    public void setPrecio(BigDecimal precio) { this.precio = precio; }
+    public BigDecimal getPrecio() { return precio == null ? null : precio.aBigDecimal(); }
+    public void setPrecio(BigDecimal precio) { this.precio = precio == null ? null : Dinero.de(precio); }
+    
+    @JsonIgnore
+    public Dinero getPrecioDinero() { return precio; }
+    @JsonIgnore
+    public void setPrecioDinero(Dinero precio) { this.precio = precio; }
     
     public Integer getStock() { return stock; }
     public void setStock(Integer stock) { this.stock = stock; }
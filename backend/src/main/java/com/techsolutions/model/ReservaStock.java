@@ -0,0 +1,88 @@
+package com.techsolutions.model;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import java.time.LocalDateTime;
+
+/**
+ * Entidad ReservaStock - Stock retenido temporalmente para un checkout
+ * El stock ya fue descontado de Producto; la reserva lo devuelve si se libera o expira
+ * El índice (estado, expira_en) permite barrer solo las reservas activas vencidas
+ */
+@Entity
+@Table(name = "reservas_stock", indexes = {
+    @Index(name = "idx_reserva_estado_expira", columnList = "estado, expira_en"),
+    @Index(name = "idx_reserva_referencia", columnList = "referencia")
+})
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReservaStock {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 50)
+    private String referencia;
+
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "producto_id", nullable = false)
+    private Producto producto;
+
+    @Column(nullable = false)
+    private Integer cantidad;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 20)
+    private EstadoReserva estado = EstadoReserva.ACTIVA;
+
+    @Column(name = "fecha_creacion", nullable = false)
+    private LocalDateTime fechaCreacion;
+
+    @Column(name = "expira_en", nullable = false)
+    private LocalDateTime expiraEn;
+
+    @PrePersist
+    protected void onCreate() {
+        if (fechaCreacion == null) {
+            fechaCreacion = LocalDateTime.now();
+        }
+    }
+
+    // Getters y Setters
+    public Long getId() { return id; }
+    public void setId(Long id) { this.id = id; }
+
+    public String getReferencia() { return referencia; }
+    public void setReferencia(String referencia) { this.referencia = referencia; }
+
+    public Producto getProducto() { return producto; }
+    public void setProducto(Producto producto) { this.producto = producto; }
+
+    public Integer getCantidad() { return cantidad; }
+    public void setCantidad(Integer cantidad) { this.cantidad = cantidad; }
+
+    public EstadoReserva getEstado() { return estado; }
+    public void setEstado(EstadoReserva estado) { this.estado = estado; }
+
+    public LocalDateTime getFechaCreacion() { return fechaCreacion; }
+    public void setFechaCreacion(LocalDateTime fechaCreacion) { this.fechaCreacion = fechaCreacion; }
+
+    public LocalDateTime getExpiraEn() { return expiraEn; }
+    public void setExpiraEn(LocalDateTime expiraEn) { this.expiraEn = expiraEn; }
+
+    public enum EstadoReserva {
+        ACTIVA,
+        CONFIRMADA,
+        LIBERADA,
+        EXPIRADA,
+        /**
+         * Pedido cobrado cuya reserva ya no estaba activa y sin stock para volver a retenerlo:
+         * requiere atención manual
+         */
+        PAGADA_SIN_STOCK
+    }
+}
@@ -1,5 +1,8 @@
 package com.techsolutions.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.techsolutions.util.GeneradorNumeroVenta;
+import com.techsolutions.util.GeneradorNumeroVentaSecuencial;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Data;
@@ -7,21 +10,34 @@ import lombok.NoArgsConstructor;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Objects;
 
 /**
  * Entidad Venta - Representa una transacción de venta
  * Aplicando GRASP: Creator - Venta crea DetalleVenta
+ * El índice (estado, fecha) permite a la recuperación de checkouts leer solo las ventas sin cerrar
  */
 @Entity
-@Table(name = "ventas")
+@Table(name = "ventas", indexes = {
+    @Index(name = "idx_venta_estado_fecha", columnList = "estado, fecha")
+})
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
 public class Venta {
     
+    /**
+     * Generador usado en @PrePersist; la aplicación instala el configurado para su nodo
+     * (ventas.numeracion.nodo) al arrancar
+     */
+    private static volatile GeneradorNumeroVenta generadorNumero = new GeneradorNumeroVentaSecuencial(0);
+    
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "ventas_id")
+    @TableGenerator(name = "ventas_id", table = "secuencias_id", pkColumnName = "entidad",
+        valueColumnName = "siguiente_valor", pkColumnValue = "ventas", allocationSize = 50)
     private Long id;
     
     @Column(nullable = false, unique = true, length = 20)
@@ -42,13 +58,13 @@ public class Venta {
     private LocalDateTime fecha;
     
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal subtotal = BigDecimal.ZERO;
+    private Dinero subtotal = Dinero.CERO;
     
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal descuento = BigDecimal.ZERO;
+    private Dinero descuento = Dinero.CERO;
     
     @Column(nullable = false, precision = 10, scale = 2)
-    private BigDecimal total = BigDecimal.ZERO;
+    private Dinero total = Dinero.CERO;
     
     @Enumerated(EnumType.STRING)
     @Column(nullable = false, length = 20)
@@ -60,6 +76,19 @@ public class Venta {
     @Column(name = "estrategia_precio", length = 50)
     private String estrategiaPrecio; // ESTANDAR, DESCUENTO, DINAMICO
     
+    /**
+     * Clave enviada por el cliente en el header Idempotency-Key: un reintento del mismo
+     * checkout encuentra esta venta en lugar de cobrar dos veces
+     */
+    @Column(name = "clave_idempotencia", unique = true, length = 64)
+    private String claveIdempotencia;
+    
+    /**
+     * Resumen del carrito enviado con la clave: la misma clave con otro carrito es un error del cliente
+     */
+    @Column(name = "huella_idempotencia", length = 64)
+    private String huellaIdempotencia;
+    
     @PrePersist
     protected void onCreate() {
         if (fecha == null) {
@@ -72,26 +101,65 @@ public class Venta {
     
     /**
      * GRASP: Creator - Venta crea y gestiona sus detalles
+     * Los totales se actualizan de forma incremental: agregar una línea suma solo su subtotal
      */
     public void agregarDetalle(DetalleVenta detalle) {
         detalles.add(detalle);
         detalle.setVenta(this);
-        calcularTotales();
+        ajustarSubtotal(null, detalle.getSubtotalDinero());
+    }
+    
+    /**
+     * Quita un detalle y resta su subtotal
+     * Se compara por identidad: dos líneas con los mismos datos son detalles distintos
+     */
+    public void removerDetalle(DetalleVenta detalle) {
+        Iterator<DetalleVenta> iterador = detalles.iterator();
+        while (iterador.hasNext()) {
+            if (iterador.next() == detalle) {
+                iterador.remove();
+                detalle.setVenta(null);
+                ajustarSubtotal(detalle.getSubtotalDinero(), null);
+                return;
+            }
+        }
+    }
+    
+    /**
+     * Reemplaza el aporte de un detalle al subtotal (lo llama DetalleVenta al cambiar
+     * cantidad, precio o subtotal)
+     */
+    void ajustarSubtotal(Dinero anterior, Dinero nuevo) {
+        if (anterior != null) {
+            subtotal = subtotal.restar(anterior);
+        }
+        if (nuevo != null) {
+            subtotal = subtotal.sumar(nuevo);
+        }
+        total = subtotal.restar(descuento);
     }
     
     /**
      * GRASP: Information Expert - Venta calcula sus propios totales
+     * Recalcula desde cero recorriendo todos los detalles; agregarDetalle, removerDetalle y los
+     * cambios en cada detalle ya mantienen los totales, por lo que solo hace falta tras
+     * modificar la lista de detalles directamente
      */
     public void calcularTotales() {
         subtotal = detalles.stream()
-            .map(DetalleVenta::getSubtotal)
-            .reduce(BigDecimal.ZERO, BigDecimal::add);
+            .map(DetalleVenta::getSubtotalDinero)
+            .filter(Objects::nonNull)
+            .reduce(Dinero.CERO, Dinero::sumar);
         
-        total = subtotal.subtract(descuento);
+        total = subtotal.restar(descuento);
     }
     
     private String generarNumeroVenta() {
-        return "V" + System.currentTimeMillis();
+        return generadorNumero.generar();
+    }
+    
+    public static void usarGeneradorNumero(GeneradorNumeroVenta generador) {
+        generadorNumero = generador;
     }
     
     // Getters y Setters
@@ -113,14 +181,28 @@ public class Venta {
     public LocalDateTime getFecha() { return fecha; }
     public void setFecha(LocalDateTime fecha) { this.fecha = fecha; }
     
-    public BigDecimal getSubtotal() { return subtotal; }
-    public void setSubtotal(BigDecimal subtotal) { this.subtotal = subtotal; }
+    public BigDecimal getSubtotal() { return subtotal.aBigDecimal(); }
+    public void setSubtotal(BigDecimal subtotal) { this.subtotal = Dinero.de(subtotal); }
+    
+    @JsonIgnore
+    public Dinero getSubtotalDinero() { return subtotal; }
     
-    public BigDecimal getDescuento() { return descuento; }
-    public void setDescuento(BigDecimal descuento) { this.descuento = descuento; }
+    public BigDecimal getDescuento() { return descuento.aBigDecimal(); }
+    public void setDescuento(BigDecimal descuento) { setDescuentoDinero(Dinero.de(descuento)); }
+    
+    @JsonIgnore
+    public Dinero getDescuentoDinero() { return descuento; }
+    @JsonIgnore
+    public void setDescuentoDinero(Dinero descuento) {
+        this.descuento = descuento;
+        this.total = subtotal.restar(descuento);
+    }
     
-    public BigDecimal getTotal() { return total; }
-    public void setTotal(BigDecimal total) { this.total = total; }
+    public BigDecimal getTotal() { return total.aBigDecimal(); }
+    public void setTotal(BigDecimal total) { this.total = Dinero.de(total); }
+    
+    @JsonIgnore
+    public Dinero getTotalDinero() { return total; }
     
     public EstadoVenta getEstado() { return estado; }
     public void setEstado(EstadoVenta estado) { this.estado = estado; }
@@ -131,10 +213,20 @@ public class Venta {
     public String getEstrategiaPrecio() { return estrategiaPrecio; }
     public void setEstrategiaPrecio(String estrategiaPrecio) { this.estrategiaPrecio = estrategiaPrecio; }
     
+    public String getClaveIdempotencia() { return claveIdempotencia; }
+    public void setClaveIdempotencia(String claveIdempotencia) { this.claveIdempotencia = claveIdempotencia; }
+    
+    public String getHuellaIdempotencia() { return huellaIdempotencia; }
+    public void setHuellaIdempotencia(String huellaIdempotencia) { this.huellaIdempotencia = huellaIdempotencia; }
+    
     public enum EstadoVenta {
         PENDIENTE,
         PROCESANDO,
         COMPLETADA,
-        CANCELADA
+        CANCELADA,
+        /**
+         * La pasarela no confirmó el cobro dentro de la espera máxima: requiere atención manual
+         */
+        REVISION_MANUAL
     }
 }
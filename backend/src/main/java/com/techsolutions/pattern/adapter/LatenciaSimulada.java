@@ -0,0 +1,41 @@
+package com.techsolutions.pattern.adapter;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Latencia del proveedor en las pasarelas simuladas (pagos.pasarelas.latencia-simulada-ms)
+ * Permite medir la aplicación con tiempos de respuesta realistas; en 0 las pasarelas responden al instante
+ */
+final class LatenciaSimulada {
+
+    private LatenciaSimulada() {
+    }
+
+    /**
+     * Camino bloqueante: el hilo que llama espera la respuesta
+     */
+    static void esperar(long latenciaMs) {
+        if (latenciaMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(latenciaMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Llamada a la pasarela interrumpida");
+        }
+    }
+
+    /**
+     * Camino asíncrono: la respuesta se programa y ningún hilo queda esperando
+     */
+    static <T> CompletableFuture<T> diferir(long latenciaMs, Supplier<T> respuesta) {
+        if (latenciaMs <= 0) {
+            return CompletableFuture.completedFuture(respuesta.get());
+        }
+        return CompletableFuture.supplyAsync(respuesta,
+            CompletableFuture.delayedExecutor(latenciaMs, TimeUnit.MILLISECONDS));
+    }
+}
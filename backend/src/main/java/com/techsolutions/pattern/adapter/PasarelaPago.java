@@ -1,11 +1,15 @@
 package com.techsolutions.pattern.adapter;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Patrón Adapter - Interfaz común para todas las pasarelas de pago
  * Permite integrar múltiples pasarelas de pago con una interfaz unificada
  * RF1: El sistema debe integrar múltiples pasarelas de pago mediante un adaptador común
+ * La habilitación (RF2) no es del adaptador: la decide la versión vigente de ConfiguracionPasarelas en PagoService
  */
 public interface PasarelaPago {
     
@@ -25,14 +29,22 @@ public interface PasarelaPago {
     String verificarEstado(String referencia);
     
     /**
-     * Obtiene el nombre de la pasarela
-     * @return Nombre de la pasarela
+     * Verifica el estado de varias transacciones en una sola consulta
+     * Por defecto las consulta una a una; el adaptador de un proveedor con consulta por lote la reemplaza
+     * @param referencias Referencias de las transacciones
+     * @return Estado de cada referencia, en el mismo orden
      */
-    String getNombre();
+    default Map<String, String> verificarEstados(List<String> referencias) {
+        Map<String, String> estados = new LinkedHashMap<>();
+        for (String referencia : referencias) {
+            estados.put(referencia, verificarEstado(referencia));
+        }
+        return estados;
+    }
     
     /**
-     * Verifica si la pasarela está habilitada
-     * @return true si está habilitada
+     * Obtiene el nombre de la pasarela
+     * @return Nombre de la pasarela
      */
-    boolean estaHabilitada();
+    String getNombre();
 }
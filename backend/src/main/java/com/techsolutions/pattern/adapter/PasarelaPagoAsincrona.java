@@ -0,0 +1,27 @@
+package com.techsolutions.pattern.adapter;
+
+import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Variante asíncrona de PasarelaPago
+ * Las operaciones devuelven un futuro en lugar de bloquear el hilo que llama: miles de pagos
+ * pueden quedar pendientes de la respuesta del proveedor sin ocupar un hilo cada uno
+ */
+public interface PasarelaPagoAsincrona {
+
+    /**
+     * Procesa un pago sin bloquear
+     * @param monto Monto a procesar
+     * @param referencia Referencia de la transacción
+     * @return Futuro con el resultado; se completa con excepción si el proveedor falla
+     */
+    CompletableFuture<ResultadoPago> procesarPagoAsync(BigDecimal monto, String referencia);
+
+    /**
+     * Verifica el estado de una transacción sin bloquear
+     * @param referencia Referencia de la transacción
+     * @return Futuro con el estado de la transacción
+     */
+    CompletableFuture<String> verificarEstadoAsync(String referencia);
+}
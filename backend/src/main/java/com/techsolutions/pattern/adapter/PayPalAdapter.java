@@ -1,26 +1,23 @@
 package com.techsolutions.pattern.adapter;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Adaptador para PayPal - implementa la interfaz común PasarelaPago
  * Patrón Adapter: Adapta la API de PayPal a nuestra interfaz común
  */
-public class PayPalAdapter implements PasarelaPago {
+public class PayPalAdapter implements PasarelaPago, PasarelaPagoAsincrona {
     
-    private boolean habilitada;
-    
-    public PayPalAdapter() {
-        this.habilitada = true; // Por defecto habilitada
-    }
+    private long latenciaSimuladaMs;
     
     @Override
     public boolean procesarPago(BigDecimal monto, String referencia) {
-        if (!habilitada) {
-            System.out.println("PayPal no está habilitada");
-            return false;
-        }
-        
+        LatenciaSimulada.esperar(latenciaSimuladaMs);
+        return cobrar(monto, referencia);
+    }
+    
+    private boolean cobrar(BigDecimal monto, String referencia) {
         // Simulación de llamada a API de PayPal
         System.out.println("Procesando pago con PayPal...");
         System.out.println("Monto: " + monto);
@@ -35,17 +32,30 @@ public class PayPalAdapter implements PasarelaPago {
         return "COMPLETADO - PayPal";
     }
     
+    /**
+     * La simulación programa la respuesta tras la latencia configurada sin ocupar un hilo; un
+     * cliente HTTP no bloqueante completaría el futuro al llegar la respuesta de PayPal
+     */
     @Override
-    public String getNombre() {
-        return "PayPal";
+    public CompletableFuture<ResultadoPago> procesarPagoAsync(BigDecimal monto, String referencia) {
+        return LatenciaSimulada.diferir(latenciaSimuladaMs,
+            () -> ResultadoPago.de(getNombre(), referencia, monto, cobrar(monto, referencia)));
+    }
+    
+    @Override
+    public CompletableFuture<String> verificarEstadoAsync(String referencia) {
+        return CompletableFuture.completedFuture(verificarEstado(referencia));
     }
     
     @Override
-    public boolean estaHabilitada() {
-        return habilitada;
+    public String getNombre() {
+        return "PayPal";
     }
     
-    public void setHabilitada(boolean habilitada) {
-        this.habilitada = habilitada;
+    /**
+     * Tiempo de respuesta simulado del proveedor (0 responde al instante)
+     */
+    public void setLatenciaSimulada(long latenciaMs) {
+        this.latenciaSimuladaMs = latenciaMs;
     }
 }
@@ -1,26 +1,23 @@
 package com.techsolutions.pattern.adapter;
 
 import java.math.BigDecimal;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Adaptador para Plin - implementa la interfaz común PasarelaPago
  * Patrón Adapter: Adapta la API de Plin a nuestra interfaz común
  */
-public class PlinAdapter implements PasarelaPago {
+public class PlinAdapter implements PasarelaPago, PasarelaPagoAsincrona {
     
-    private boolean habilitada;
-    
-    public PlinAdapter() {
-        this.habilitada = true;
-    }
+    private long latenciaSimuladaMs;
     
     @Override
     public boolean procesarPago(BigDecimal monto, String referencia) {
-        if (!habilitada) {
-            System.out.println("Plin no está habilitada");
-            return false;
-        }
-        
+        LatenciaSimulada.esperar(latenciaSimuladaMs);
+        return cobrar(monto, referencia);
+    }
+    
+    private boolean cobrar(BigDecimal monto, String referencia) {
         // Simulación de llamada a API de Plin
         System.out.println("Procesando pago con Plin...");
         System.out.println("Monto: S/ " + monto);
@@ -34,17 +31,30 @@ public class PlinAdapter implements PasarelaPago {
         return "COMPLETADO - Plin";
     }
     
+    /**
+     * La simulación programa la respuesta tras la latencia configurada sin ocupar un hilo; un
+     * cliente HTTP no bloqueante completaría el futuro al llegar la respuesta de Plin
+     */
     @Override
-    public String getNombre() {
-        return "Plin";
+    public CompletableFuture<ResultadoPago> procesarPagoAsync(BigDecimal monto, String referencia) {
+        return LatenciaSimulada.diferir(latenciaSimuladaMs,
+            () -> ResultadoPago.de(getNombre(), referencia, monto, cobrar(monto, referencia)));
+    }
+    
+    @Override
+    public CompletableFuture<String> verificarEstadoAsync(String referencia) {
+        return CompletableFuture.completedFuture(verificarEstado(referencia));
     }
     
     @Override
-    public boolean estaHabilitada() {
-        return habilitada;
+    public String getNombre() {
+        return "Plin";
     }
     
-    public void setHabilitada(boolean habilitada) {
-        this.habilitada = habilitada;
+    /**
+     * Tiempo de respuesta simulado del proveedor (0 responde al instante)
+     */
+    public void setLatenciaSimulada(long latenciaMs) {
+        this.latenciaSimuladaMs = latenciaMs;
     }
 }
@@ -0,0 +1,36 @@
+package com.techsolutions.pattern.adapter;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+/**
+ * Resultado de un pago procesado por una pasarela
+ * Un pago rechazado es un resultado; los errores del proveedor completan el futuro con una excepción
+ * @param codigoAutorizacion Código entregado por la pasarela al aprobar (null si fue rechazado)
+ */
+public record ResultadoPago(String pasarela, String referencia, BigDecimal monto, EstadoPago estado,
+                            String codigoAutorizacion, String mensaje, LocalDateTime fecha) {
+
+    public enum EstadoPago {
+        APROBADO,
+        RECHAZADO
+    }
+
+    public boolean exitoso() {
+        return estado == EstadoPago.APROBADO;
+    }
+
+    /**
+     * Arma el resultado a partir de la respuesta de una pasarela
+     */
+    public static ResultadoPago de(String pasarela, String referencia, BigDecimal monto, boolean aprobado) {
+        if (aprobado) {
+            String codigo = pasarela.toUpperCase() + "-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase();
+            return new ResultadoPago(pasarela, referencia, monto, EstadoPago.APROBADO, codigo,
+                "Pago procesado correctamente", LocalDateTime.now());
+        }
+        return new ResultadoPago(pasarela, referencia, monto, EstadoPago.RECHAZADO, null,
+            "Pago rechazado por " + pasarela, LocalDateTime.now());
+    }
+}
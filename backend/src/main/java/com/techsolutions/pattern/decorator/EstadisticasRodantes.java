@@ -0,0 +1,117 @@
+package com.techsolutions.pattern.decorator;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Estadísticas recientes de una pasarela sin bloqueos: latencia p95 y tasa de éxito
+ * La ventana se divide en ranuras de tiempo; cada ranura guarda un histograma de latencias por
+ * cubetas fijas y los contadores de éxitos y fallos en un AtomicLongArray. Registrar una llamada es
+ * un incremento atómico y consultar recorre un número fijo de cubetas y ranuras, sin importar cuántas
+ * llamadas hubo. Al reutilizar una ranura vencida se pueden perder los registros que compitan con
+ * su reinicio: los valores son aproximados, suficientes para enrutar
+ */
+public class EstadisticasRodantes {
+
+    /**
+     * Límite superior (ms) de cada cubeta; la última recibe todo lo que exceda el anterior
+     */
+    private static final long[] LIMITES_MS = {
+        1, 2, 5, 10, 20, 35, 50, 75, 100, 150, 200, 300, 400, 500, 750,
+        1000, 1500, 2000, 3000, 5000, 7500, 10000, Long.MAX_VALUE
+    };
+    private static final int EXITOS = LIMITES_MS.length;
+    private static final int FALLOS = LIMITES_MS.length + 1;
+
+    private static final class Ranura {
+        private final AtomicLong epoca = new AtomicLong(-1);
+        private final AtomicLongArray contadores = new AtomicLongArray(LIMITES_MS.length + 2);
+    }
+
+    /**
+     * Resumen de la ventana
+     * @param p95Ms Límite superior de la cubeta donde cae el percentil 95 (0 sin llamadas)
+     * @param tasaExito Fracción de llamadas sin error ni tiempo agotado (1.0 sin llamadas)
+     */
+    public record Resumen(long llamadas, long p95Ms, double tasaExito) {}
+
+    private final Ranura[] ranuras;
+    private final long duracionRanuraMs;
+
+    /**
+     * @param ventana Tiempo que abarcan las estadísticas
+     * @param numeroRanuras Ranuras en que se divide la ventana (más ranuras, descarte más gradual)
+     */
+    public EstadisticasRodantes(Duration ventana, int numeroRanuras) {
+        if (numeroRanuras <= 0 || ventana.toMillis() < numeroRanuras) {
+            throw new IllegalArgumentException("La ventana debe tener al menos un milisegundo por ranura");
+        }
+        this.ranuras = new Ranura[numeroRanuras];
+        for (int i = 0; i < numeroRanuras; i++) {
+            ranuras[i] = new Ranura();
+        }
+        this.duracionRanuraMs = ventana.toMillis() / numeroRanuras;
+    }
+
+    /**
+     * Registra una llamada terminada
+     * @param exito false si la llamada falló o agotó el tiempo
+     */
+    public void registrar(long latenciaMs, boolean exito) {
+        Ranura ranura = ranuraActual(System.currentTimeMillis() / duracionRanuraMs);
+        ranura.contadores.incrementAndGet(cubeta(latenciaMs));
+        ranura.contadores.incrementAndGet(exito ? EXITOS : FALLOS);
+    }
+
+    public Resumen resumen() {
+        long epocaActual = System.currentTimeMillis() / duracionRanuraMs;
+        long[] histograma = new long[LIMITES_MS.length + 2];
+        for (Ranura ranura : ranuras) {
+            long epoca = ranura.epoca.get();
+            if (epoca <= epocaActual && epocaActual - epoca < ranuras.length) {
+                for (int i = 0; i < histograma.length; i++) {
+                    histograma[i] += ranura.contadores.get(i);
+                }
+            }
+        }
+
+        long llamadas = histograma[EXITOS] + histograma[FALLOS];
+        if (llamadas == 0) {
+            return new Resumen(0, 0, 1.0);
+        }
+        long total = Arrays.stream(histograma, 0, LIMITES_MS.length).sum();
+        long objetivo = (long) Math.ceil(total * 0.95);
+        long acumulado = 0;
+        long p95 = LIMITES_MS[LIMITES_MS.length - 2];
+        for (int i = 0; i < LIMITES_MS.length; i++) {
+            acumulado += histograma[i];
+            if (acumulado >= objetivo) {
+                // La última cubeta no tiene límite: se informa el último límite finito
+                p95 = Math.min(LIMITES_MS[i], LIMITES_MS[LIMITES_MS.length - 2]);
+                break;
+            }
+        }
+        return new Resumen(llamadas, p95, (double) histograma[EXITOS] / llamadas);
+    }
+
+    /**
+     * Ranura de la época dada; si guarda una época anterior, el hilo que gana el CAS la reinicia
+     */
+    private Ranura ranuraActual(long epoca) {
+        Ranura ranura = ranuras[(int) (epoca % ranuras.length)];
+        long guardada = ranura.epoca.get();
+        if (guardada < epoca && ranura.epoca.compareAndSet(guardada, epoca)) {
+            for (int i = 0; i < ranura.contadores.length(); i++) {
+                ranura.contadores.set(i, 0);
+            }
+        }
+        return ranura;
+    }
+
+    private static int cubeta(long latenciaMs) {
+        int indice = Arrays.binarySearch(LIMITES_MS, latenciaMs);
+        return indice >= 0 ? indice : -indice - 1;
+    }
+}
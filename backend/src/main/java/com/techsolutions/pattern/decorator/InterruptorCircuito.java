@@ -0,0 +1,178 @@
+package com.techsolutions.pattern.decorator;
+
+import java.time.Duration;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Interruptor de circuito con ventana deslizante de las últimas N llamadas
+ * CERRADO: las llamadas pasan y se registra su resultado; si la tasa de fallos de la ventana
+ * alcanza el umbral (con un mínimo de llamadas) el circuito se abre.
+ * ABIERTO: las llamadas se rechazan sin tocar la pasarela hasta que vence la espera.
+ * SEMI_ABIERTO: se deja pasar un número fijo de llamadas de prueba; si todas salen bien el
+ * circuito se cierra y si una falla vuelve a abrirse.
+ * Se sincroniza con ReentrantLock y no con synchronized: en Java 21 un hilo virtual que espera un
+ * monitor bloquea también su hilo portador, y todos los pagos de la pasarela pasan por aquí
+ */
+public class InterruptorCircuito {
+
+    public enum Estado {
+        CERRADO,
+        ABIERTO,
+        SEMI_ABIERTO
+    }
+
+    private final boolean[] ventana;
+    private final int minimoLlamadas;
+    private final int umbralFallosPorcentaje;
+    private final long esperaAbiertoNanos;
+    private final int llamadasPrueba;
+    private final ReentrantLock candado = new ReentrantLock();
+
+    private Estado estado = Estado.CERRADO;
+    private int posicion;
+    private int registradas;
+    private int fallos;
+    private long abiertoHasta;
+    private int pruebasEnCurso;
+    private int pruebasExitosas;
+
+    /**
+     * @param tamanoVentana Llamadas que recuerda la ventana
+     * @param minimoLlamadas Llamadas registradas necesarias antes de evaluar la tasa de fallos
+     * @param umbralFallosPorcentaje Porcentaje de fallos (1-100) que abre el circuito
+     * @param esperaAbierto Tiempo que el circuito permanece abierto
+     * @param llamadasPrueba Llamadas de prueba en estado semiabierto
+     */
+    public InterruptorCircuito(int tamanoVentana, int minimoLlamadas, int umbralFallosPorcentaje,
+                               Duration esperaAbierto, int llamadasPrueba) {
+        if (tamanoVentana <= 0 || minimoLlamadas <= 0 || minimoLlamadas > tamanoVentana) {
+            throw new IllegalArgumentException("El mínimo de llamadas debe estar entre 1 y el tamaño de la ventana");
+        }
+        if (umbralFallosPorcentaje < 1 || umbralFallosPorcentaje > 100) {
+            throw new IllegalArgumentException("El umbral de fallos debe estar entre 1 y 100");
+        }
+        if (llamadasPrueba <= 0) {
+            throw new IllegalArgumentException("Las llamadas de prueba deben ser mayores a cero");
+        }
+        this.ventana = new boolean[tamanoVentana];
+        this.minimoLlamadas = minimoLlamadas;
+        this.umbralFallosPorcentaje = umbralFallosPorcentaje;
+        this.esperaAbiertoNanos = esperaAbierto.toNanos();
+        this.llamadasPrueba = llamadasPrueba;
+    }
+
+    /**
+     * Indica si una llamada puede pasar; en estado semiabierto reserva una de las llamadas de prueba
+     */
+    public boolean permitirLlamada() {
+        candado.lock();
+        try {
+            if (estado == Estado.ABIERTO) {
+                if (System.nanoTime() - abiertoHasta < 0) {
+                    return false;
+                }
+                estado = Estado.SEMI_ABIERTO;
+                pruebasEnCurso = 0;
+                pruebasExitosas = 0;
+            }
+            if (estado == Estado.SEMI_ABIERTO) {
+                if (pruebasEnCurso >= llamadasPrueba) {
+                    return false;
+                }
+                pruebasEnCurso++;
+            }
+            return true;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    public void registrarExito() {
+        candado.lock();
+        try {
+            switch (estado) {
+                case CERRADO -> registrar(false);
+                case SEMI_ABIERTO -> {
+                    if (++pruebasExitosas >= llamadasPrueba) {
+                        cerrar();
+                    }
+                }
+                case ABIERTO -> {}
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    public void registrarFallo() {
+        candado.lock();
+        try {
+            switch (estado) {
+                case CERRADO -> {
+                    registrar(true);
+                    if (registradas >= minimoLlamadas && fallos * 100 >= umbralFallosPorcentaje * registradas) {
+                        abrir();
+                    }
+                }
+                case SEMI_ABIERTO -> abrir();
+                case ABIERTO -> {}
+            }
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Estado que verá la próxima llamada (un circuito abierto con la espera vencida se informa semiabierto)
+     */
+    public Estado getEstado() {
+        candado.lock();
+        try {
+            if (estado == Estado.ABIERTO && System.nanoTime() - abiertoHasta >= 0) {
+                return Estado.SEMI_ABIERTO;
+            }
+            return estado;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    /**
+     * Porcentaje de fallos en la ventana actual
+     */
+    public int getTasaFallos() {
+        candado.lock();
+        try {
+            return registradas == 0 ? 0 : fallos * 100 / registradas;
+        } finally {
+            candado.unlock();
+        }
+    }
+
+    private void registrar(boolean fallo) {
+        if (registradas == ventana.length) {
+            if (ventana[posicion]) {
+                fallos--;
+            }
+        } else {
+            registradas++;
+        }
+        ventana[posicion] = fallo;
+        if (fallo) {
+            fallos++;
+        }
+        posicion = (posicion + 1) % ventana.length;
+    }
+
+    private void abrir() {
+        estado = Estado.ABIERTO;
+        abiertoHasta = System.nanoTime() + esperaAbiertoNanos;
+    }
+
+    private void cerrar() {
+        estado = Estado.CERRADO;
+        posicion = 0;
+        registradas = 0;
+        fallos = 0;
+    }
+}
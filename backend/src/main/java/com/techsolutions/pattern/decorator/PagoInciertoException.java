@@ -0,0 +1,52 @@
+package com.techsolutions.pattern.decorator;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * El pago llegó al proveedor pero no se conoce su resultado (sin respuesta a tiempo, error del
+ * proveedor o llamada interrumpida): pudo haberse cobrado. No debe reintentarse en otra pasarela
+ * ni darse por rechazado; su estado real se obtiene conciliando con la pasarela
+ */
+public class PagoInciertoException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String pasarela;
+
+    /**
+     * ArrayList y no List: el campo debe ser serializable como la excepción
+     */
+    private final ArrayList<String> intentadas;
+
+    /**
+     * @param pasarela Pasarela que recibió el pago
+     * @param intentadas Pasarelas probadas en orden; la última es la que recibió el pago
+     */
+    public PagoInciertoException(String mensaje, String pasarela, List<String> intentadas, Throwable causa) {
+        super(mensaje, causa);
+        this.pasarela = pasarela;
+        this.intentadas = new ArrayList<>(intentadas);
+    }
+
+    public PagoInciertoException(String mensaje, String pasarela) {
+        this(mensaje, pasarela, List.of(pasarela), null);
+    }
+
+    /**
+     * Envuelve el error de una llamada ya enviada, conservando su mensaje
+     */
+    public static PagoInciertoException de(String pasarela, List<String> intentadas, Throwable error) {
+        return new PagoInciertoException(error.getMessage(), pasarela, intentadas,
+            error instanceof PagoInciertoException ? error.getCause() : error);
+    }
+
+    public String getPasarela() {
+        return pasarela;
+    }
+
+    public List<String> getIntentadas() {
+        return Collections.unmodifiableList(intentadas);
+    }
+}
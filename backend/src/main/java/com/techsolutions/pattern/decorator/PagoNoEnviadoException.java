@@ -0,0 +1,18 @@
+package com.techsolutions.pattern.decorator;
+
+/**
+ * El pago se rechazó antes de enviarlo al proveedor: pasarela deshabilitada, saturada o con el
+ * circuito abierto. No se cobró nada, así que es seguro reintentarlo o probar otra pasarela
+ */
+public class PagoNoEnviadoException extends IllegalStateException {
+
+    private static final long serialVersionUID = 1L;
+
+    public PagoNoEnviadoException(String mensaje) {
+        super(mensaje);
+    }
+
+    public PagoNoEnviadoException(String mensaje, Throwable causa) {
+        super(mensaje, causa);
+    }
+}
@@ -0,0 +1,255 @@
+package com.techsolutions.pattern.decorator;
+
+import com.techsolutions.pattern.adapter.PasarelaPago;
+import com.techsolutions.pattern.adapter.PasarelaPagoAsincrona;
+import com.techsolutions.pattern.adapter.ResultadoPago;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Patrón Decorator - Protege una pasarela de pago sin cambiar su interfaz
+ * Cada pasarela tiene su propio límite de llamadas simultáneas (bulkhead), un tiempo máximo
+ * por llamada y un interruptor de circuito: un proveedor lento o caído rechaza rápido en lugar
+ * de retener los hilos de todas las solicitudes.
+ * La variante asíncrona aplica los mismos límites sin bloquear: el permiso se libera y el
+ * resultado se registra en el circuito cuando el futuro de la pasarela se completa
+ */
+public class PasarelaPagoProtegida implements PasarelaPago, PasarelaPagoAsincrona {
+
+    /**
+     * Límites de protección de una pasarela
+     */
+    public record Limites(int maxConcurrentes, Duration timeout, int tamanoVentana, int minimoLlamadas,
+                          int umbralFallosPorcentaje, Duration esperaAbierto, int llamadasPrueba) {
+
+        public static Limites porDefecto() {
+            return new Limites(20, Duration.ofSeconds(5), 20, 10, 50, Duration.ofSeconds(30), 3);
+        }
+    }
+
+    private final PasarelaPago delegada;
+    private final ExecutorService ejecutor;
+    private final Semaphore permisos;
+    private final int maxConcurrentes;
+    private final long timeoutMs;
+    private final InterruptorCircuito circuito;
+
+    private final LongAdder rechazadasCircuito = new LongAdder();
+    private final LongAdder rechazadasSaturacion = new LongAdder();
+    private final LongAdder tiemposAgotados = new LongAdder();
+
+    /**
+     * Latencia y tasa de éxito del último minuto, usadas para enrutar pagos
+     */
+    private final EstadisticasRodantes recientes = new EstadisticasRodantes(Duration.ofMinutes(1), 6);
+
+    /**
+     * @param delegada Pasarela real
+     * @param limites Límites de protección
+     * @param ejecutor Ejecutor de las llamadas a la pasarela (el hilo de la solicitud solo espera el timeout)
+     */
+    public PasarelaPagoProtegida(PasarelaPago delegada, Limites limites, ExecutorService ejecutor) {
+        if (limites.maxConcurrentes() <= 0) {
+            throw new IllegalArgumentException("El máximo de llamadas simultáneas debe ser mayor a cero");
+        }
+        this.delegada = delegada;
+        this.ejecutor = ejecutor;
+        this.permisos = new Semaphore(limites.maxConcurrentes());
+        this.maxConcurrentes = limites.maxConcurrentes();
+        this.timeoutMs = limites.timeout().toMillis();
+        this.circuito = new InterruptorCircuito(limites.tamanoVentana(), limites.minimoLlamadas(),
+            limites.umbralFallosPorcentaje(), limites.esperaAbierto(), limites.llamadasPrueba());
+    }
+
+    /**
+     * Un pago rechazado por la pasarela (false) es una respuesta válida; solo las excepciones y
+     * los tiempos agotados cuentan como fallos del proveedor
+     * @throws PagoNoEnviadoException si la pasarela está saturada o con el circuito abierto: no se envió
+     * @throws PagoInciertoException si no respondió a tiempo o la llamada se interrumpió: pudo haberse cobrado
+     */
+    @Override
+    public boolean procesarPago(BigDecimal monto, String referencia) {
+        admitir();
+
+        Future<Boolean> llamada;
+        try {
+            llamada = ejecutor.submit(() -> {
+                try {
+                    return delegada.procesarPago(monto, referencia);
+                } finally {
+                    permisos.release();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            permisos.release();
+            circuito.registrarFallo();
+            throw new PagoNoEnviadoException("La pasarela " + getNombre() + " no está disponible", e);
+        }
+
+        long inicio = System.nanoTime();
+        try {
+            boolean resultado = llamada.get(timeoutMs, TimeUnit.MILLISECONDS);
+            circuito.registrarExito();
+            recientes.registrar(milisegundosDesde(inicio), true);
+            return resultado;
+        } catch (TimeoutException e) {
+            llamada.cancel(true);
+            tiemposAgotados.increment();
+            circuito.registrarFallo();
+            recientes.registrar(timeoutMs, false);
+            throw new PagoInciertoException("La pasarela " + getNombre() + " no respondió en " + timeoutMs + " ms", getNombre());
+        } catch (ExecutionException e) {
+            circuito.registrarFallo();
+            recientes.registrar(milisegundosDesde(inicio), false);
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw new PagoInciertoException("Error en la pasarela " + getNombre(), getNombre(), List.of(getNombre()), e.getCause());
+        } catch (InterruptedException e) {
+            llamada.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new PagoInciertoException("Pago interrumpido en la pasarela " + getNombre(), getNombre());
+        }
+    }
+
+    @Override
+    public String verificarEstado(String referencia) {
+        return delegada.verificarEstado(referencia);
+    }
+
+    @Override
+    public Map<String, String> verificarEstados(List<String> referencias) {
+        return delegada.verificarEstados(referencias);
+    }
+
+    /**
+     * Si la pasarela delegada no tiene variante asíncrona su llamada bloqueante corre en el ejecutor.
+     * Los errores completan el futuro en lugar de lanzarse: PagoNoEnviadoException si la pasarela
+     * está saturada o con el circuito abierto y PagoInciertoException si no respondió a tiempo
+     */
+    @Override
+    public CompletableFuture<ResultadoPago> procesarPagoAsync(BigDecimal monto, String referencia) {
+        try {
+            admitir();
+        } catch (PagoNoEnviadoException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        long inicio = System.nanoTime();
+        CompletableFuture<ResultadoPago> llamada;
+        try {
+            llamada = delegada instanceof PasarelaPagoAsincrona asincrona
+                ? asincrona.procesarPagoAsync(monto, referencia)
+                : CompletableFuture.supplyAsync(() -> ResultadoPago.de(getNombre(), referencia, monto,
+                    delegada.procesarPago(monto, referencia)), ejecutor);
+        } catch (RuntimeException e) {
+            llamada = CompletableFuture.failedFuture(e);
+        }
+        llamada.whenComplete((resultado, error) -> permisos.release());
+
+        // El timeout se aplica sobre una copia: la llamada original conserva su permiso hasta terminar
+        return llamada.copy()
+            .orTimeout(timeoutMs, TimeUnit.MILLISECONDS)
+            .handle((resultado, error) -> {
+                if (error == null) {
+                    circuito.registrarExito();
+                    recientes.registrar(milisegundosDesde(inicio), true);
+                    return resultado;
+                }
+                circuito.registrarFallo();
+                recientes.registrar(milisegundosDesde(inicio), false);
+                Throwable causa = error instanceof CompletionException ? error.getCause() : error;
+                if (causa instanceof TimeoutException) {
+                    tiemposAgotados.increment();
+                    throw new PagoInciertoException("La pasarela " + getNombre() + " no respondió en " + timeoutMs + " ms", getNombre());
+                }
+                throw causa instanceof RuntimeException runtime ? runtime : new CompletionException(causa);
+            });
+    }
+
+    @Override
+    public CompletableFuture<String> verificarEstadoAsync(String referencia) {
+        if (delegada instanceof PasarelaPagoAsincrona asincrona) {
+            return asincrona.verificarEstadoAsync(referencia);
+        }
+        return CompletableFuture.supplyAsync(() -> delegada.verificarEstado(referencia), ejecutor);
+    }
+
+    @Override
+    public String getNombre() {
+        return delegada.getNombre();
+    }
+
+    /**
+     * Pasarela decorada (para configurar el adaptador concreto)
+     */
+    public PasarelaPago getDelegada() {
+        return delegada;
+    }
+
+    public InterruptorCircuito.Estado getEstadoCircuito() {
+        return circuito.getEstado();
+    }
+
+    /**
+     * Latencia p95 y tasa de éxito del último minuto
+     */
+    public EstadisticasRodantes.Resumen getEstadisticasRecientes() {
+        return recientes.resumen();
+    }
+
+    /**
+     * Reserva un lugar en el bulkhead y pasa por el circuito
+     * El permiso se libera cuando la llamada real termina, no al agotarse el tiempo:
+     * las llamadas colgadas siguen ocupando su lugar y no se acumulan sin límite
+     * @throws PagoNoEnviadoException si no se admite: el pago no llega al proveedor
+     */
+    private void admitir() {
+        if (!permisos.tryAcquire()) {
+            rechazadasSaturacion.increment();
+            throw new PagoNoEnviadoException("La pasarela " + getNombre() + " está saturada, intente nuevamente");
+        }
+        if (!circuito.permitirLlamada()) {
+            permisos.release();
+            rechazadasCircuito.increment();
+            throw new PagoNoEnviadoException("La pasarela " + getNombre() + " no está disponible temporalmente");
+        }
+    }
+
+    /**
+     * Estado de la protección: circuito, tasa de fallos, llamadas en curso y rechazos
+     */
+    public Map<String, Object> obtenerEstadisticas() {
+        Map<String, Object> estadisticas = new HashMap<>();
+        estadisticas.put("circuito", circuito.getEstado().name());
+        estadisticas.put("tasaFallos", circuito.getTasaFallos());
+        estadisticas.put("enCurso", maxConcurrentes - permisos.availablePermits());
+        estadisticas.put("maxConcurrentes", maxConcurrentes);
+        estadisticas.put("rechazadasCircuito", rechazadasCircuito.sum());
+        estadisticas.put("rechazadasSaturacion", rechazadasSaturacion.sum());
+        estadisticas.put("tiemposAgotados", tiemposAgotados.sum());
+        EstadisticasRodantes.Resumen resumen = recientes.resumen();
+        estadisticas.put("llamadasRecientes", resumen.llamadas());
+        estadisticas.put("p95Ms", resumen.p95Ms());
+        estadisticas.put("tasaExito", resumen.tasaExito());
+        return estadisticas;
+    }
+
+    private static long milisegundosDesde(long inicioNanos) {
+        return (System.nanoTime() - inicioNanos) / 1_000_000;
+    }
+}
@@ -0,0 +1,113 @@
+package com.techsolutions.pattern.observer;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Despachador asíncrono de notificaciones de inventario
+ * Ejecuta las notificaciones de los observadores en hilos virtuales con una cola acotada,
+ * para que un observador lento no alargue la transacción que modificó el stock
+ */
+@Component
+public class DespachadorNotificaciones {
+
+    /**
+     * Qué hacer cuando la cola está llena
+     * DESCARTAR: se pierde la notificación y se contabiliza
+     * EJECUTAR_EN_LLAMADOR: el hilo que notifica la ejecuta (contrapresión)
+     */
+    public enum PoliticaSaturacion {
+        DESCARTAR,
+        EJECUTAR_EN_LLAMADOR
+    }
+
+    private final ThreadPoolExecutor executor;
+    private final PoliticaSaturacion politica;
+    private final int capacidadCola;
+
+    private final LongAdder despachadas = new LongAdder();
+    private final LongAdder descartadas = new LongAdder();
+    private final LongAdder fallidas = new LongAdder();
+    private final LongAdder latenciaTotalNanos = new LongAdder();
+    private final AtomicLong latenciaMaximaNanos = new AtomicLong();
+
+    public DespachadorNotificaciones(
+            @Value("${inventario.notificaciones.hilos:2}") int hilos,
+            @Value("${inventario.notificaciones.capacidad-cola:1000}") int capacidadCola,
+            @Value("${inventario.notificaciones.politica-saturacion:DESCARTAR}") PoliticaSaturacion politica) {
+        this.politica = politica;
+        this.capacidadCola = capacidadCola;
+        this.executor = new ThreadPoolExecutor(
+            hilos, hilos, 0L, TimeUnit.MILLISECONDS,
+            new ArrayBlockingQueue<>(capacidadCola),
+            Thread.ofVirtual().name("notificacion-inventario-", 0).factory(),
+            crearManejadorSaturacion(politica));
+    }
+
+    /**
+     * Encola una notificación; la latencia se mide desde el encolado hasta que termina
+     */
+    public void despachar(Runnable notificacion) {
+        long encolada = System.nanoTime();
+        executor.execute(() -> {
+            try {
+                notificacion.run();
+                despachadas.increment();
+            } catch (RuntimeException e) {
+                fallidas.increment();
+                System.out.println("⚠️ Error al notificar observador: " + e.getMessage());
+            } finally {
+                registrarLatencia(System.nanoTime() - encolada);
+            }
+        });
+    }
+
+    /**
+     * Métricas de la cola y de la latencia de despacho
+     */
+    public Map<String, Object> obtenerMetricas() {
+        long total = despachadas.sum() + fallidas.sum();
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        metricas.put("politicaSaturacion", politica.name());
+        metricas.put("capacidadCola", capacidadCola);
+        metricas.put("profundidadCola", executor.getQueue().size());
+        metricas.put("enEjecucion", executor.getActiveCount());
+        metricas.put("despachadas", despachadas.sum());
+        metricas.put("fallidas", fallidas.sum());
+        metricas.put("descartadas", descartadas.sum());
+        metricas.put("latenciaPromedioMs", total == 0 ? 0.0 : latenciaTotalNanos.sum() / 1_000_000.0 / total);
+        metricas.put("latenciaMaximaMs", latenciaMaximaNanos.get() / 1_000_000.0);
+        return metricas;
+    }
+
+    @PreDestroy
+    public void detener() throws InterruptedException {
+        executor.shutdown();
+        executor.awaitTermination(5, TimeUnit.SECONDS);
+    }
+
+    private void registrarLatencia(long nanos) {
+        latenciaTotalNanos.add(nanos);
+        latenciaMaximaNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    private RejectedExecutionHandler crearManejadorSaturacion(PoliticaSaturacion politica) {
+        return switch (politica) {
+            case EJECUTAR_EN_LLAMADOR -> new ThreadPoolExecutor.CallerRunsPolicy();
+            case DESCARTAR -> (tarea, ejecutor) -> {
+                descartadas.increment();
+                System.out.println("⚠️ Cola de notificaciones llena, notificación descartada");
+            };
+        };
+    }
+}
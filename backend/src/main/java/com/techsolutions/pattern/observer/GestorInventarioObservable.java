@@ -1,9 +1,23 @@
 package com.techsolutions.pattern.observer;
 
+import com.techsolutions.dto.StockVigenteDTO;
 import com.techsolutions.model.Producto;
+import com.techsolutions.repository.ProductoRepository;
+import com.techsolutions.util.CerrojosPorId;
+import com.techsolutions.util.Transacciones;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 
 /**
  * Sujeto Observable - Gestiona observadores de inventario
@@ -13,15 +27,77 @@ import java.util.List;
 @Component
 public class GestorInventarioObservable {
     
-    private final List<ObservadorInventario> observadores = new ArrayList<>();
+    /**
+     * RF5: Solo los roles GERENTE y COMPRAS reciben notificaciones de stock bajo
+     */
+    private static final Set<String> ROLES_NOTIFICADOS = Set.of("GERENTE", "COMPRAS");
+    
+    /**
+     * Observadores indexados por rol
+     * Las listas copy-on-write permiten registrar observadores desde cualquier hilo mientras
+     * otros notifican: la iteración recorre una instantánea inmutable sin bloqueos
+     */
+    private final Map<String, CopyOnWriteArrayList<ObservadorInventario>> observadoresPorRol = new ConcurrentHashMap<>();
+    
+    /**
+     * Productos que ya dispararon su alerta y siguen bajo el mínimo
+     * Solo se notifica al cruzar el mínimo hacia abajo; al recuperarse el producto sale del
+     * conjunto y la alerta se rearma
+     */
+    private final Set<Long> productosEnAlerta = ConcurrentHashMap.newKeySet();
+    
+    /**
+     * Alertas acumuladas durante la ventana de agrupación, por ID de producto
+     */
+    private final Map<Long, Producto> alertasPendientes = new ConcurrentHashMap<>();
+    
+    /**
+     * Serializa la reevaluación de un mismo producto entre callbacks de distintas transacciones
+     */
+    private final CerrojosPorId cerrojos = new CerrojosPorId(64);
+    
+    private final DespachadorNotificaciones despachador;
+    
+    private final ProductoRepository productoRepository;
+    
+    private final ScheduledExecutorService agrupador;
+    
+    public GestorInventarioObservable(DespachadorNotificaciones despachador) {
+        this(despachador, 0);
+    }
+    
+    public GestorInventarioObservable(DespachadorNotificaciones despachador, long ventanaMs) {
+        this(despachador, ventanaMs, null);
+    }
+    
+    /**
+     * @param ventanaMs Ventana de agrupación: con 0 cada alerta se envía de inmediato; con un valor
+     *                  mayor las alertas se acumulan y cada observador recibe un único resumen por ventana
+     * @param productoRepository Lectura del stock confirmado; sin él se evalúa la instantánea recibida
+     */
+    @Autowired
+    public GestorInventarioObservable(DespachadorNotificaciones despachador,
+                                      @Value("${inventario.notificaciones.ventana-ms:0}") long ventanaMs,
+                                      ProductoRepository productoRepository) {
+        this.despachador = despachador;
+        this.productoRepository = productoRepository;
+        if (ventanaMs > 0) {
+            this.agrupador = Executors.newSingleThreadScheduledExecutor(
+                Thread.ofVirtual().name("resumen-stock-bajo").factory());
+            this.agrupador.scheduleWithFixedDelay(this::enviarResumen, ventanaMs, ventanaMs, TimeUnit.MILLISECONDS);
+        } else {
+            this.agrupador = null;
+        }
+    }
     
     /**
      * Agrega un observador
      * GRASP: Controller - gestiona la lista de observadores
      */
     public void agregarObservador(ObservadorInventario observador) {
-        if (!observadores.contains(observador)) {
-            observadores.add(observador);
+        CopyOnWriteArrayList<ObservadorInventario> delRol = observadoresPorRol.computeIfAbsent(
+            observador.getRol(), rol -> new CopyOnWriteArrayList<>());
+        if (delRol.addIfAbsent(observador)) {
             System.out.println("Observador agregado: " + observador.getRol());
         }
     }
@@ -30,37 +106,152 @@ public class GestorInventarioObservable {
      * Remueve un observador
      */
     public void removerObservador(ObservadorInventario observador) {
-        observadores.remove(observador);
+        observadoresPorRol.values().forEach(delRol -> delRol.remove(observador));
     }
     
     /**
      * Verifica el stock y notifica si es necesario
-     * Este método se llamará después de cada operación que reduzca el stock
+     * Este método se llamará después de cada operación que modifique el stock o el mínimo.
+     * La evaluación ocurre recién al confirmar la transacción (si se revierte no cambia nada)
+     * y solo notifica en el flanco: cuando el producto cruza el mínimo hacia abajo.
+     * Los callbacks de transacciones concurrentes pueden llegar en otro orden que sus commits,
+     * así que se relee el stock confirmado bajo el cerrojo del producto en lugar de usar la instantánea
      */
     public void verificarYNotificarStock(Producto producto) {
-        if (producto.necesitaReposicion()) {
-            notificarStockBajo(producto);
+        Transacciones.despuesDelCommit(() -> {
+            Long id = producto.getId();
+            if (id == null) {
+                if (StockVigenteDTO.de(producto).stockBajo()) {
+                    notificarStockBajo(producto);
+                }
+                return;
+            }
+            cerrojos.ejecutar(id, () -> aplicarStock(producto, leerStockVigente(producto)));
+        });
+    }
+    
+    /**
+     * Evalúa un producto con el stock confirmado que ya leyó quien coordina la transacción
+     * InventarioService lo llama después del commit, con la misma lectura que usa el índice de
+     * stock bajo, para no volver a consultar el mismo producto
+     * @param vigente Stock confirmado, o null si el producto ya no existe
+     */
+    public void evaluarStockConfirmado(Producto producto, StockVigenteDTO vigente) {
+        cerrojos.ejecutar(producto.getId(), () -> aplicarStock(producto, vigente));
+    }
+    
+    /**
+     * Dispara la alerta en el flanco, con la misma regla que IndiceStockBajo:
+     * un producto inactivo o eliminado no necesita reposición
+     */
+    private void aplicarStock(Producto producto, StockVigenteDTO vigente) {
+        Long id = producto.getId();
+        if (vigente == null || !vigente.stockBajo()) {
+            productosEnAlerta.remove(id);
+        } else if (productosEnAlerta.add(id)) {
+            if (agrupador != null) {
+                alertasPendientes.put(id, producto);
+            } else {
+                notificarStockBajo(producto);
+            }
+        }
+    }
+    
+    /**
+     * Último stock confirmado; sin repositorio, o si la lectura falla, la instantánea recibida
+     */
+    private StockVigenteDTO leerStockVigente(Producto producto) {
+        if (productoRepository == null) {
+            return StockVigenteDTO.de(producto);
+        }
+        try {
+            return productoRepository.findStockVigente(producto.getId()).orElse(null);
+        } catch (RuntimeException e) {
+            System.out.println("⚠️ No se pudo releer el stock de " + producto.getNombre() + ": " + e.getMessage());
+            return StockVigenteDTO.de(producto);
         }
     }
     
     /**
      * Notifica a todos los observadores con roles GERENTE o COMPRAS
+     * Se ejecuta en el despachador asíncrono, fuera de la transacción y sin retener bloqueos de fila
      */
     private void notificarStockBajo(Producto producto) {
         System.out.println("\n>>> Notificando stock bajo para producto: " + producto.getNombre());
         
-        for (ObservadorInventario observador : observadores) {
-            // RF5: Solo notificar a GERENTE y COMPRAS
-            if ("GERENTE".equals(observador.getRol()) || "COMPRAS".equals(observador.getRol())) {
+        // RF5: Solo se recorren las listas de GERENTE y COMPRAS, una tarea por rol
+        for (String rol : ROLES_NOTIFICADOS) {
+            List<ObservadorInventario> delRol = observadoresPorRol.get(rol);
+            if (delRol != null && !delRol.isEmpty()) {
+                despachador.despachar(() -> notificarA(delRol, producto));
+            }
+        }
+    }
+    
+    /**
+     * Envía las alertas acumuladas en la ventana como un único resumen por observador
+     */
+    private void enviarResumen() {
+        List<Producto> resumen = new ArrayList<>();
+        for (Long id : alertasPendientes.keySet()) {
+            Producto producto = alertasPendientes.remove(id);
+            if (producto != null) {
+                resumen.add(producto);
+            }
+        }
+        if (resumen.isEmpty()) {
+            return;
+        }
+        
+        System.out.println("\n>>> Notificando resumen de stock bajo: " + resumen.size() + " productos");
+        for (String rol : ROLES_NOTIFICADOS) {
+            List<ObservadorInventario> delRol = observadoresPorRol.get(rol);
+            if (delRol != null && !delRol.isEmpty()) {
+                despachador.despachar(() -> delRol.forEach(observador -> {
+                    try {
+                        observador.notificarResumenStockBajo(resumen);
+                    } catch (RuntimeException e) {
+                        System.out.println("⚠️ Error al notificar a " + observador.getRol() + ": " + e.getMessage());
+                    }
+                }));
+            }
+        }
+    }
+    
+    /**
+     * Recorre la instantánea de observadores; un observador que falla no impide notificar al resto
+     */
+    private void notificarA(List<ObservadorInventario> delRol, Producto producto) {
+        for (ObservadorInventario observador : delRol) {
+            try {
                 observador.notificarStockBajo(producto);
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Error al notificar a " + observador.getRol() + ": " + e.getMessage());
             }
         }
     }
     
+    /**
+     * Métricas del despachador de notificaciones (cola, descartes y latencia)
+     */
+    public Map<String, Object> obtenerMetricasNotificacion() {
+        return despachador.obtenerMetricas();
+    }
+    
+    @PreDestroy
+    public void detener() {
+        if (agrupador != null) {
+            agrupador.shutdown();
+            enviarResumen();
+        }
+    }
+    
     /**
      * Obtiene la lista de observadores (para testing)
      */
     public List<ObservadorInventario> getObservadores() {
-        return new ArrayList<>(observadores);
+        List<ObservadorInventario> todos = new ArrayList<>();
+        observadoresPorRol.values().forEach(todos::addAll);
+        return todos;
     }
 }
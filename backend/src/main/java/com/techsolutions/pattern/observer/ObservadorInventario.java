@@ -1,6 +1,7 @@
 package com.techsolutions.pattern.observer;
 
 import com.techsolutions.model.Producto;
+import java.util.List;
 
 /**
  * Patrón Observer - Interfaz para observadores de inventario
@@ -14,6 +15,15 @@ public interface ObservadorInventario {
      */
     void notificarStockBajo(Producto producto);
     
+    /**
+     * Notifica en un solo mensaje los productos que cayeron bajo el mínimo durante la ventana de agrupación
+     * Por defecto envía una notificación por producto
+     * @param productos Productos con stock bajo
+     */
+    default void notificarResumenStockBajo(List<Producto> productos) {
+        productos.forEach(this::notificarStockBajo);
+    }
+    
     /**
      * Obtiene el rol del observador
      * @return Rol del observador (GERENTE, COMPRAS)
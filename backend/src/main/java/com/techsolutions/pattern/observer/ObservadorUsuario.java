@@ -2,6 +2,7 @@ package com.techsolutions.pattern.observer;
 
 import com.techsolutions.model.Producto;
 import com.techsolutions.model.Usuario;
+import java.util.List;
 
 /**
  * Observador concreto para usuarios
@@ -27,6 +28,20 @@ public class ObservadorUsuario implements ObservadorInventario {
         System.out.println("====================================");
     }
     
+    @Override
+    public void notificarResumenStockBajo(List<Producto> productos) {
+        System.out.println("====================================");
+        System.out.println("RESUMEN DE STOCK BAJO (" + productos.size() + " productos)");
+        System.out.println("Para: " + usuario.getNombreCompleto() + " (" + usuario.getRoles() + ")");
+        for (Producto producto : productos) {
+            System.out.println("• " + producto.getNombre() + 
+                             " | Stock: " + producto.getStock() + 
+                             " | Mínimo: " + producto.getStockMinimo());
+        }
+        System.out.println("¡ACCIÓN REQUERIDA: Reponer inventario!");
+        System.out.println("====================================");
+    }
+    
     @Override
     public String getRol() {
         // Retorna el primer rol del usuario
@@ -4,6 +4,7 @@ import com.techsolutions.model.Categoria;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para la entidad Categoria
@@ -15,4 +16,14 @@ public interface CategoriaRepository extends JpaRepository<Categoria, Long> {
      * Busca categorías activas
      */
     List<Categoria> findByActivaTrue();
+    
+    /**
+     * Busca una categoría por su nombre normalizado (índice único)
+     */
+    Optional<Categoria> findByNombreNormalizado(String nombreNormalizado);
+    
+    /**
+     * Categorías creadas antes de existir la columna nombre_normalizado
+     */
+    List<Categoria> findByNombreNormalizadoIsNull();
 }
@@ -1,10 +1,15 @@
 package com.techsolutions.repository;
 
+import com.techsolutions.dto.StockVigenteDTO;
 import com.techsolutions.model.Producto;
 import com.techsolutions.model.Categoria;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -12,7 +17,7 @@ import java.util.Optional;
  * Repositorio para la entidad Producto
  */
 @Repository
-public interface ProductoRepository extends JpaRepository<Producto, Long> {
+public interface ProductoRepository extends JpaRepository<Producto, Long>, ProductoRepositoryCustom {
     
     /**
      * Busca un producto por su código
@@ -20,10 +25,29 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     Optional<Producto> findByCodigo(String codigo);
     
     /**
-     * Busca productos activos
+     * De los códigos dados, devuelve los que ya existen (usado por la importación masiva)
      */
+    @Query("SELECT p.codigo FROM Producto p WHERE p.codigo IN :codigos")
+    List<String> findCodigosExistentes(Collection<String> codigos);
+    
+    /**
+     * Busca productos activos, con su categoría cargada en la misma consulta
+     */
+    @EntityGraph(attributePaths = "categoria")
     List<Producto> findByActivoTrue();
     
+    /**
+     * Busca un producto por ID, con su categoría cargada en la misma consulta
+     */
+    @EntityGraph(attributePaths = "categoria")
+    Optional<Producto> findConCategoriaById(Long id);
+    
+    /**
+     * Busca productos por ID, con su categoría cargada en la misma consulta
+     */
+    @EntityGraph(attributePaths = "categoria")
+    List<Producto> findByIdIn(Collection<Long> ids);
+    
     /**
      * Busca productos por categoría
      */
@@ -36,8 +60,50 @@ public interface ProductoRepository extends JpaRepository<Producto, Long> {
     @Query("SELECT p FROM Producto p WHERE p.stock <= p.stockMinimo AND p.activo = true")
     List<Producto> findProductosConStockBajo();
     
+    /**
+     * IDs de productos con stock bajo
+     * Recorre toda la tabla: solo se usa para reconstruir IndiceStockBajo al iniciar
+     */
+    @Query("SELECT p.id FROM Producto p WHERE p.stock <= p.stockMinimo AND p.activo = true")
+    List<Long> findIdsConStockBajo();
+    
+    /**
+     * Stock y mínimo confirmados de un producto, leídos de la base de datos y no del contexto de persistencia
+     * Se usa después del commit: los callbacks de transacciones concurrentes pueden ejecutarse en
+     * otro orden que sus commits, así que la instantánea de la entidad puede estar desactualizada
+     */
+    @Query("SELECT new com.techsolutions.dto.StockVigenteDTO(p.id, p.stock, p.stockMinimo, p.activo) FROM Producto p WHERE p.id = :id")
+    Optional<StockVigenteDTO> findStockVigente(Long id);
+    
+    /**
+     * Stock confirmado de varios productos en una sola consulta
+     * InventarioService la usa una vez por transacción para todos los productos que modificó
+     */
+    @Query("SELECT new com.techsolutions.dto.StockVigenteDTO(p.id, p.stock, p.stockMinimo, p.activo) FROM Producto p WHERE p.id IN :ids")
+    List<StockVigenteDTO> findStockVigenteByIdIn(Collection<Long> ids);
+    
     /**
      * Busca productos por nombre (búsqueda parcial)
      */
     List<Producto> findByNombreContainingIgnoreCase(String nombre);
+    
+    /**
+     * Descuenta stock en una sola sentencia, solo si hay stock suficiente
+     * La condición stock >= cantidad se evalúa en la base de datos bajo el bloqueo de fila,
+     * por lo que dos ventas concurrentes nunca pueden dejar el stock en negativo
+     * @return Filas afectadas: 1 si se descontó, 0 si no existe o no hay stock suficiente
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock - :cantidad WHERE p.id = :id AND p.stock >= :cantidad")
+    int descontarStockSiDisponible(Long id, int cantidad);
+    
+    /**
+     * Incrementa stock en una sola sentencia
+     * @return Filas afectadas: 1 si se incrementó, 0 si el producto no existe
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query("UPDATE Producto p SET p.stock = p.stock + :cantidad WHERE p.id = :id")
+    int incrementarStock(Long id, int cantidad);
 }
@@ -0,0 +1,25 @@
+package com.techsolutions.repository;
+
+import com.techsolutions.dto.CursorProductosDTO;
+import com.techsolutions.dto.FiltroProductosDTO;
+import com.techsolutions.dto.ProductoDTO;
+import java.util.List;
+
+/**
+ * Consultas de productos que no se pueden expresar como métodos derivados
+ * Implementado en ProductoRepositoryCustomImpl con Criteria API
+ */
+public interface ProductoRepositoryCustom {
+    
+    /**
+     * Busca una página de productos con paginación por clave (keyset)
+     * En lugar de OFFSET filtra por la clave del último producto entregado, de modo que
+     * el costo de cada página no crece con la profundidad del listado
+     * @param filtro Filtros y orden
+     * @param despues Cursor de la página anterior, generado con el mismo orden (nulo para la primera página)
+     * @param limite Cantidad máxima de productos a devolver
+     * @return Proyección de los productos con el nombre de su categoría, en el orden pedido,
+     *         obtenida en una sola sentencia SQL
+     */
+    List<ProductoDTO> buscarPagina(FiltroProductosDTO filtro, CursorProductosDTO despues, int limite);
+}
@@ -0,0 +1,109 @@
+package com.techsolutions.repository;
+
+import com.techsolutions.dto.CursorProductosDTO;
+import com.techsolutions.dto.FiltroProductosDTO;
+import com.techsolutions.dto.ProductoDTO;
+import com.techsolutions.dto.FiltroProductosDTO.Orden;
+import com.techsolutions.model.Categoria;
+import com.techsolutions.model.Dinero;
+import com.techsolutions.model.Producto;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.JoinType;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación con Criteria API de ProductoRepositoryCustom
+ */
+public class ProductoRepositoryCustomImpl implements ProductoRepositoryCustom {
+    
+    @PersistenceContext
+    private EntityManager entityManager;
+    
+    @Override
+    public List<ProductoDTO> buscarPagina(FiltroProductosDTO filtro, CursorProductosDTO despues, int limite) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<ProductoDTO> consulta = cb.createQuery(ProductoDTO.class);
+        Root<Producto> producto = consulta.from(Producto.class);
+        Join<Producto, Categoria> categoria = producto.join("categoria", JoinType.LEFT);
+        
+        List<Predicate> condiciones = new ArrayList<>();
+        if (filtro.getCategoria() != null && !filtro.getCategoria().isBlank()) {
+            // Se compara con el nombre normalizado, que tiene índice único, en lugar de aplicar lower() a la columna
+            condiciones.add(cb.equal(categoria.get("nombreNormalizado"), Categoria.normalizar(filtro.getCategoria())));
+        }
+        if (filtro.getActivo() != null) {
+            condiciones.add(cb.equal(producto.get("activo"), filtro.getActivo()));
+        }
+        if (filtro.getPrecioMin() != null) {
+            condiciones.add(cb.greaterThanOrEqualTo(producto.get("precio"), Dinero.de(filtro.getPrecioMin())));
+        }
+        if (filtro.getPrecioMax() != null) {
+            condiciones.add(cb.lessThanOrEqualTo(producto.get("precio"), Dinero.de(filtro.getPrecioMax())));
+        }
+        
+        Orden orden = filtro.getOrden();
+        boolean descendente = filtro.isDescendente();
+        Expression<Long> id = producto.get("id");
+        if (despues != null) {
+            condiciones.add(switch (orden) {
+                case ID -> despuesDe(cb, id, despues.id(), descendente);
+                case NOMBRE -> despuesDe(cb, producto.get("nombre"), despues.valor(), id, despues.id(), descendente);
+                case PRECIO -> despuesDe(cb, producto.get("precio"), Dinero.de(despues.valor()), id, despues.id(), descendente);
+            });
+        }
+        
+        // Proyección por constructor: solo las columnas listadas, con la categoría en el mismo JOIN.
+        // No se hidratan entidades ni se registran en el contexto de persistencia
+        consulta.select(cb.construct(ProductoDTO.class,
+                id,
+                producto.get("codigo"),
+                producto.get("nombre"),
+                producto.get("descripcion"),
+                producto.get("precio"),
+                producto.get("stock"),
+                producto.get("stockMinimo"),
+                categoria.get("nombre"),
+                producto.get("imagenUrl"),
+                producto.get("activo")))
+            .where(condiciones.toArray(Predicate[]::new));
+        if (orden == Orden.ID) {
+            consulta.orderBy(descendente ? cb.desc(id) : cb.asc(id));
+        } else {
+            Expression<?> campo = producto.get(orden.getCampo());
+            consulta.orderBy(
+                descendente ? cb.desc(campo) : cb.asc(campo),
+                descendente ? cb.desc(id) : cb.asc(id));
+        }
+        
+        return entityManager.createQuery(consulta)
+            .setMaxResults(limite)
+            .getResultList();
+    }
+    
+    /**
+     * Condición de keyset para el orden por ID
+     */
+    private Predicate despuesDe(CriteriaBuilder cb, Expression<Long> id, long ultimoId, boolean descendente) {
+        return descendente ? cb.lessThan(id, ultimoId) : cb.greaterThan(id, ultimoId);
+    }
+    
+    /**
+     * Condición de keyset para orden por un campo con desempate por ID:
+     * (campo, id) posterior a (ultimoValor, ultimoId) en la dirección pedida
+     */
+    private <T extends Comparable<? super T>> Predicate despuesDe(CriteriaBuilder cb, Expression<T> campo, T ultimoValor,
+                                                                   Expression<Long> id, long ultimoId, boolean descendente) {
+        Predicate posterior = descendente ? cb.lessThan(campo, ultimoValor) : cb.greaterThan(campo, ultimoValor);
+        Predicate empate = cb.and(cb.equal(campo, ultimoValor), despuesDe(cb, id, ultimoId, descendente));
+        return cb.or(posterior, empate);
+    }
+}
@@ -0,0 +1,55 @@
+package com.techsolutions.repository;
+
+import com.techsolutions.model.ReservaStock;
+import com.techsolutions.model.ReservaStock.EstadoReserva;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Repositorio para la entidad ReservaStock
+ */
+@Repository
+public interface ReservaStockRepository extends JpaRepository<ReservaStock, Long> {
+
+    /**
+     * Busca las reservas de una referencia de checkout en un estado dado
+     */
+    List<ReservaStock> findByReferenciaAndEstado(String referencia, EstadoReserva estado);
+
+    /**
+     * Busca las reservas de una referencia de checkout en cualquiera de los estados dados
+     */
+    List<ReservaStock> findByReferenciaAndEstadoIn(String referencia, Collection<EstadoReserva> estados);
+
+    /**
+     * Busca un lote acotado de reservas vencidas, servido por el índice (estado, expira_en)
+     */
+    List<ReservaStock> findByEstadoAndExpiraEnBeforeOrderByExpiraEnAsc(EstadoReserva estado, LocalDateTime limite, Pageable lote);
+
+    /**
+     * Posterga hasta expiraEn las reservas de una referencia en el estado dado que vencen antes
+     * @return Reservas actualizadas
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ReservaStock r SET r.expiraEn = :expiraEn "
+        + "WHERE r.referencia = :referencia AND r.estado = :estado AND r.expiraEn < :expiraEn")
+    int postergarVencimiento(String referencia, EstadoReserva estado, LocalDateTime expiraEn);
+
+    /**
+     * Cambia el estado de una reserva solo si sigue en el estado esperado
+     * Garantiza que confirmar, liberar y expirar no se pisen entre sí
+     * @return 1 si esta llamada ganó la transición, 0 si otra ya la había cambiado
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE ReservaStock r SET r.estado = :nuevo WHERE r.id = :id AND r.estado = :actual")
+    int cambiarEstado(Long id, EstadoReserva actual, EstadoReserva nuevo);
+}
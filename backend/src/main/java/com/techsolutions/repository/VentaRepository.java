@@ -3,11 +3,16 @@ package com.techsolutions.repository;
 import com.techsolutions.model.Venta;
 import com.techsolutions.model.Cliente;
 import com.techsolutions.model.Usuario;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Repositorio para la entidad Venta
@@ -40,4 +45,30 @@ public interface VentaRepository extends JpaRepository<Venta, Long> {
      */
     @Query("SELECT SUM(v.total) FROM Venta v WHERE v.fecha BETWEEN :inicio AND :fin AND v.estado = 'COMPLETADA'")
     Double getTotalVentasPorPeriodo(LocalDateTime inicio, LocalDateTime fin);
+    
+    /**
+     * Busca la venta creada con una clave de idempotencia
+     */
+    Optional<Venta> findByClaveIdempotencia(String claveIdempotencia);
+    
+    /**
+     * Busca una venta por su número
+     */
+    Optional<Venta> findByNumeroVenta(String numeroVenta);
+    
+    /**
+     * Busca un lote de ventas en los estados dados registradas antes del límite, servido por el
+     * índice (estado, fecha)
+     */
+    List<Venta> findByEstadoInAndFechaBeforeOrderByFechaAsc(Collection<Venta.EstadoVenta> estados,
+                                                            LocalDateTime limite, Pageable lote);
+    
+    /**
+     * Cambia el estado de una venta solo si sigue en el estado esperado
+     * @return 1 si esta llamada ganó la transición, 0 si la venta ya estaba en otro estado
+     */
+    @Transactional
+    @Modifying(flushAutomatically = true)
+    @Query("UPDATE Venta v SET v.estado = :nuevo WHERE v.id = :id AND v.estado = :actual")
+    int cambiarEstado(Long id, Venta.EstadoVenta actual, Venta.EstadoVenta nuevo);
 }
@@ -0,0 +1,247 @@
+package com.techsolutions.service;
+
+import com.techsolutions.model.Producto;
+import com.techsolutions.util.Transacciones;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+/**
+ * Caché en memoria del catálogo de productos
+ * LRU acotado por tamaño estimado en bytes (no por cantidad de entradas), delante de
+ * InventarioService.obtenerProducto y obtenerProductosActivos. InventarioService invalida
+ * la entrada de cada producto que modifica, en el momento y otra vez al confirmar la transacción.
+ *
+ * Las cargas se hacen fuera del candado; una generación que avanza con cada invalidación
+ * evita guardar un valor leído antes de una escritura concurrente.
+ * Se entregan copias, por lo que quien las modifique no altera la caché
+ */
+@Component
+public class CacheCatalogo {
+
+    /**
+     * Costo fijo aproximado de un Producto en memoria (cabeceras, números, fechas)
+     */
+    private static final int BYTES_BASE_PRODUCTO = 200;
+
+    private final long capacidadBytes;
+
+    // Orden de acceso: la primera entrada es la menos usada recientemente
+    private final LinkedHashMap<Long, Entrada> entradas = new LinkedHashMap<>(64, 0.75f, true);
+    private List<Long> idsActivos;
+    private long bytesOcupados;
+    private long generacion;
+
+    private final LongAdder aciertos = new LongAdder();
+    private final LongAdder fallos = new LongAdder();
+    private final LongAdder desalojos = new LongAdder();
+    private final LongAdder invalidaciones = new LongAdder();
+
+    private record Entrada(Producto producto, int bytes) {}
+
+    public CacheCatalogo(@Value("${inventario.cache.capacidad-kb:1024}") long capacidadKb) {
+        this.capacidadBytes = capacidadKb * 1024;
+    }
+
+    /**
+     * Obtiene un producto de la caché o lo carga con el cargador dado
+     */
+    public Producto obtener(Long productoId, Function<Long, Producto> cargador) {
+        long generacionLeida;
+        synchronized (this) {
+            Entrada entrada = entradas.get(productoId);
+            if (entrada != null) {
+                aciertos.increment();
+                return copiar(entrada.producto());
+            }
+            fallos.increment();
+            generacionLeida = generacion;
+        }
+
+        Producto producto = cargador.apply(productoId);
+        synchronized (this) {
+            if (generacion == generacionLeida) {
+                guardar(producto);
+            }
+        }
+        return copiar(producto);
+    }
+
+    /**
+     * Obtiene los productos activos
+     * La lista de IDs activos se guarda aparte; si algún producto fue invalidado solo se
+     * recargan los que faltan, sin volver a consultar el catálogo completo
+     */
+    public List<Producto> obtenerActivos(Supplier<List<Producto>> cargarActivos,
+                                         Function<Collection<Long>, List<Producto>> cargarPorIds) {
+        long generacionLeida;
+        boolean listaEnCache;
+        List<Producto> productos = new ArrayList<>();
+        List<Long> faltantes = new ArrayList<>();
+        synchronized (this) {
+            generacionLeida = generacion;
+            listaEnCache = idsActivos != null;
+            if (listaEnCache) {
+                for (Long id : idsActivos) {
+                    Entrada entrada = entradas.get(id);
+                    if (entrada != null) {
+                        productos.add(entrada.producto());
+                    } else {
+                        faltantes.add(id);
+                    }
+                }
+            }
+        }
+
+        if (!listaEnCache) {
+            fallos.increment();
+            List<Producto> activos = cargarActivos.get();
+            synchronized (this) {
+                if (generacion == generacionLeida && idsActivos == null) {
+                    idsActivos = activos.stream().map(Producto::getId).toList();
+                    bytesOcupados += 16L * idsActivos.size();
+                    activos.forEach(this::guardar);
+                }
+            }
+            return activos.stream().map(this::copiar).toList();
+        }
+
+        if (faltantes.isEmpty()) {
+            aciertos.increment();
+        } else {
+            fallos.increment();
+            List<Producto> recargados = cargarPorIds.apply(faltantes);
+            synchronized (this) {
+                if (generacion == generacionLeida) {
+                    recargados.forEach(this::guardar);
+                }
+            }
+            productos.addAll(recargados);
+        }
+        return productos.stream().map(this::copiar).toList();
+    }
+
+    /**
+     * Invalida un producto cuyo stock o datos cambiaron
+     * La lista de activos se conserva: el cambio no altera qué productos están activos
+     */
+    public void invalidar(Long productoId) {
+        Runnable invalidacion = () -> {
+            synchronized (this) {
+                remover(productoId);
+                generacion++;
+            }
+            invalidaciones.increment();
+        };
+        invalidacion.run();
+        Transacciones.despuesDelCommit(invalidacion);
+    }
+
+    /**
+     * Invalida un producto que se agregó, eliminó o pudo cambiar de estado activo
+     * Además del producto descarta la lista de activos
+     */
+    public void invalidarCatalogo(Long productoId) {
+        Runnable invalidacion = () -> {
+            synchronized (this) {
+                if (productoId != null) {
+                    remover(productoId);
+                }
+                if (idsActivos != null) {
+                    bytesOcupados -= 16L * idsActivos.size();
+                    idsActivos = null;
+                }
+                generacion++;
+            }
+            invalidaciones.increment();
+        };
+        invalidacion.run();
+        Transacciones.despuesDelCommit(invalidacion);
+    }
+
+    /**
+     * Métricas de aciertos, fallos, desalojos y ocupación
+     */
+    public Map<String, Object> obtenerMetricas() {
+        long totalAciertos = aciertos.sum();
+        long total = totalAciertos + fallos.sum();
+        Map<String, Object> metricas = new LinkedHashMap<>();
+        synchronized (this) {
+            metricas.put("entradas", entradas.size());
+            metricas.put("listaActivosEnCache", idsActivos != null);
+            metricas.put("bytesOcupados", bytesOcupados);
+        }
+        metricas.put("capacidadBytes", capacidadBytes);
+        metricas.put("aciertos", totalAciertos);
+        metricas.put("fallos", fallos.sum());
+        metricas.put("tasaAciertos", total == 0 ? 0.0 : (double) totalAciertos / total);
+        metricas.put("desalojos", desalojos.sum());
+        metricas.put("invalidaciones", invalidaciones.sum());
+        return metricas;
+    }
+
+    /**
+     * Guarda una entrada y desaloja las menos usadas hasta volver bajo la capacidad
+     * Debe llamarse con el candado tomado
+     */
+    private void guardar(Producto producto) {
+        int bytes = estimarBytes(producto);
+        if (bytes > capacidadBytes) {
+            return;
+        }
+        remover(producto.getId());
+        entradas.put(producto.getId(), new Entrada(copiar(producto), bytes));
+        bytesOcupados += bytes;
+
+        Iterator<Entrada> iterador = entradas.values().iterator();
+        while (bytesOcupados > capacidadBytes && iterador.hasNext()) {
+            bytesOcupados -= iterador.next().bytes();
+            iterador.remove();
+            desalojos.increment();
+        }
+    }
+
+    private void remover(Long productoId) {
+        Entrada anterior = entradas.remove(productoId);
+        if (anterior != null) {
+            bytesOcupados -= anterior.bytes();
+        }
+    }
+
+    /**
+     * Tamaño aproximado: costo fijo más los textos (2 bytes por carácter)
+     */
+    private int estimarBytes(Producto producto) {
+        return BYTES_BASE_PRODUCTO + 2 * (longitud(producto.getCodigo()) + longitud(producto.getNombre())
+            + longitud(producto.getDescripcion()) + longitud(producto.getImagenUrl()));
+    }
+
+    private int longitud(String texto) {
+        return texto == null ? 0 : texto.length();
+    }
+
+    private Producto copiar(Producto origen) {
+        Producto copia = new Producto();
+        copia.setId(origen.getId());
+        copia.setCodigo(origen.getCodigo());
+        copia.setNombre(origen.getNombre());
+        copia.setDescripcion(origen.getDescripcion());
+        copia.setPrecioDinero(origen.getPrecioDinero());
+        copia.setStock(origen.getStock());
+        copia.setStockMinimo(origen.getStockMinimo());
+        copia.setCategoria(origen.getCategoria());
+        copia.setImagenUrl(origen.getImagenUrl());
+        copia.setActivo(origen.getActivo());
+        copia.setFechaCreacion(origen.getFechaCreacion());
+        return copia;
+    }
+}
@@ -0,0 +1,384 @@
+package com.techsolutions.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Servicio de conciliación de pagos
+ * Los clientes consultan el estado de sus transacciones en una caché en memoria: sus consultas
+ * nunca llegan a la pasarela. El resultado de cada pago se guarda al procesarlo; las referencias
+ * de resultado incierto (pago enviado sin respuesta) quedan pendientes por pasarela, hasta un
+ * máximo, y un sondeo programado las verifica por lotes. Consultar una referencia desconocida no
+ * la registra: la consulta es pública y no debe poder llenar la memoria ni el sondeo.
+ * El intervalo de cada pasarela se adapta: vuelve al mínimo cuando una ronda confirma alguna
+ * transacción y se duplica, hasta el máximo, mientras las respuestas no cambian
+ */
+@Service
+public class ConciliacionPagosService {
+
+    /**
+     * Estado de una referencia registrada que aún no se consultó a la pasarela
+     */
+    public static final String EN_VERIFICACION = "EN_VERIFICACION";
+
+    /**
+     * Estado de una referencia que la pasarela no confirmó dentro de la espera máxima
+     */
+    public static final String SIN_CONFIRMAR = "SIN_CONFIRMAR";
+
+    /**
+     * Estado de una referencia que no corresponde a ningún pago registrado
+     */
+    public static final String NO_ENCONTRADO = "NO_ENCONTRADO";
+
+    private static final Set<String> ESTADOS_DEFINITIVOS = Set.of(
+        "COMPLETADO", "APROBADO", "RECHAZADO", "FALLIDO", "CANCELADO", "REEMBOLSADO", SIN_CONFIRMAR);
+
+    private static final long INTERVALO_LIMPIEZA_MS = 60_000;
+
+    /**
+     * Estado conocido de una transacción
+     * @param estado Código del estado (COMPLETADO, RECHAZADO, PENDIENTE, EN_VERIFICACION...)
+     * @param detalle Respuesta de la pasarela (null si el estado viene del propio pago)
+     * @param definitivo true si el estado ya no cambia y la referencia dejó de sondearse
+     * @param consultadoEn Última respuesta de la pasarela o momento del pago (null si aún no se consultó)
+     */
+    public record EstadoTransaccion(String pasarela, String referencia, String estado, String detalle,
+                                    boolean definitivo, Instant registradoEn, Instant consultadoEn) {}
+
+    /**
+     * Referencias pendientes de una pasarela
+     * La cola da la vuelta (las no resueltas vuelven al final) para que un lote no repita siempre las
+     * mismas referencias; el conjunto evita duplicados y descarta las que se resolvieron por otra vía
+     */
+    private final class Sondeo {
+        private final Set<String> pendientes = ConcurrentHashMap.newKeySet();
+        private final Queue<String> cola = new ConcurrentLinkedQueue<>();
+        private final AtomicLong consultas = new AtomicLong();
+        private final AtomicLong lotes = new AtomicLong();
+        private final AtomicLong confirmadas = new AtomicLong();
+        private volatile long intervaloMs = intervaloMinimoMs;
+        private volatile long proximaConsultaMs;
+    }
+
+    private final PagoService pagoService;
+
+    private final long intervaloMinimoMs;
+
+    private final long intervaloMaximoMs;
+
+    private final int tamanoLote;
+
+    private final int maxLotesPorRonda;
+
+    private final long esperaMaximaMs;
+
+    private final long retencionMs;
+
+    private final int maxPendientes;
+
+    private final Map<String, EstadoTransaccion> estados = new ConcurrentHashMap<>();
+
+    private final Map<String, Sondeo> sondeos = new ConcurrentHashMap<>();
+
+    private volatile long proximaLimpiezaMs;
+
+    @Autowired
+    public ConciliacionPagosService(
+            PagoService pagoService,
+            @Value("${pagos.conciliacion.intervalo-minimo-ms:1000}") long intervaloMinimoMs,
+            @Value("${pagos.conciliacion.intervalo-maximo-ms:30000}") long intervaloMaximoMs,
+            @Value("${pagos.conciliacion.tamano-lote:50}") int tamanoLote,
+            @Value("${pagos.conciliacion.max-lotes-por-ronda:10}") int maxLotesPorRonda,
+            @Value("${pagos.conciliacion.espera-maxima-minutos:30}") long esperaMaximaMinutos,
+            @Value("${pagos.conciliacion.retencion-minutos:60}") long retencionMinutos,
+            @Value("${pagos.conciliacion.max-pendientes:10000}") int maxPendientes) {
+        if (intervaloMinimoMs <= 0 || intervaloMaximoMs < intervaloMinimoMs) {
+            throw new IllegalArgumentException("El intervalo mínimo debe ser positivo y no mayor que el máximo");
+        }
+        if (tamanoLote <= 0 || maxLotesPorRonda <= 0) {
+            throw new IllegalArgumentException("El tamaño de lote y los lotes por ronda deben ser mayores a cero");
+        }
+        if (maxPendientes <= 0) {
+            throw new IllegalArgumentException("El máximo de pendientes debe ser mayor a cero");
+        }
+        this.pagoService = pagoService;
+        this.intervaloMinimoMs = intervaloMinimoMs;
+        this.intervaloMaximoMs = intervaloMaximoMs;
+        this.tamanoLote = tamanoLote;
+        this.maxLotesPorRonda = maxLotesPorRonda;
+        this.esperaMaximaMs = Duration.ofMinutes(esperaMaximaMinutos).toMillis();
+        this.retencionMs = Duration.ofMinutes(retencionMinutos).toMillis();
+        this.maxPendientes = maxPendientes;
+    }
+
+    /**
+     * Estado de una transacción desde la caché
+     * Una referencia desconocida se informa NO_ENCONTRADO sin guardarla ni sondearla
+     * @throws IllegalArgumentException si la pasarela no existe o la referencia está vacía
+     */
+    public EstadoTransaccion consultar(String pasarela, String referencia) {
+        String nombre = validar(pasarela, referencia);
+        EstadoTransaccion conocido = estados.get(clave(nombre, referencia));
+        return conocido != null ? conocido
+            : new EstadoTransaccion(nombre, referencia, NO_ENCONTRADO, null, false, null, null);
+    }
+
+    /**
+     * Registra una referencia cuyo resultado no se conoce para verificarla en la próxima ronda
+     * Con el máximo de pendientes alcanzado no se registra: se informa SIN_CONFIRMAR, sin guardarla,
+     * para que quien llama la derive a atención manual
+     * @return Estado actual de la referencia (el ya conocido si estaba registrada)
+     */
+    public EstadoTransaccion registrarPendiente(String pasarela, String referencia) {
+        String nombre = validar(pasarela, referencia);
+        String clave = clave(nombre, referencia);
+        if (!estados.containsKey(clave) && totalPendientes() >= maxPendientes) {
+            System.out.println("⚠️ Conciliación " + nombre + ": máximo de " + maxPendientes
+                + " pendientes alcanzado, " + referencia + " queda para atención manual");
+            return new EstadoTransaccion(nombre, referencia, SIN_CONFIRMAR, null, true, Instant.now(), null);
+        }
+        EstadoTransaccion estado = estados.computeIfAbsent(clave,
+            k -> new EstadoTransaccion(nombre, referencia, EN_VERIFICACION, null, false, Instant.now(), null));
+        if (!estado.definitivo()) {
+            Sondeo sondeo = sondeo(nombre);
+            if (sondeo.pendientes.add(referencia)) {
+                if (sondeo.pendientes.size() == 1) {
+                    // La pasarela estaba inactiva: la primera referencia se consulta sin esperar el intervalo acumulado
+                    sondeo.intervaloMs = intervaloMinimoMs;
+                    sondeo.proximaConsultaMs = 0;
+                }
+                sondeo.cola.add(referencia);
+            }
+        }
+        return estado;
+    }
+
+    /**
+     * Guarda el resultado conocido de un pago; la referencia deja de sondearse
+     */
+    public void registrarResultado(String pasarela, String referencia, boolean aprobado) {
+        String nombre = validar(pasarela, referencia);
+        Instant ahora = Instant.now();
+        estados.put(clave(nombre, referencia), new EstadoTransaccion(nombre, referencia,
+            aprobado ? "COMPLETADO" : "RECHAZADO", null, true, ahora, ahora));
+        Sondeo sondeo = sondeos.get(nombre);
+        if (sondeo != null) {
+            sondeo.pendientes.remove(referencia);
+        }
+    }
+
+    /**
+     * Intervalo con que se consulta hoy la pasarela: sugerencia de espera para el próximo sondeo del cliente
+     */
+    public long intervaloSugeridoMs(String pasarela) {
+        Sondeo sondeo = sondeos.get(pasarela.toLowerCase());
+        return sondeo != null ? sondeo.intervaloMs : intervaloMinimoMs;
+    }
+
+    /**
+     * Ronda programada de conciliación
+     */
+    @Scheduled(fixedDelayString = "${pagos.conciliacion.tick-ms:500}")
+    public void conciliar() {
+        conciliar(System.currentTimeMillis());
+    }
+
+    /**
+     * Consulta por lotes las pasarelas cuyo intervalo venció
+     * @param ahoraMs Momento de la ronda en milisegundos de época
+     * @return Transacciones que quedaron con estado definitivo
+     */
+    public int conciliar(long ahoraMs) {
+        int total = 0;
+        for (Map.Entry<String, Sondeo> entrada : sondeos.entrySet()) {
+            Sondeo sondeo = entrada.getValue();
+            if (!sondeo.pendientes.isEmpty() && ahoraMs >= sondeo.proximaConsultaMs) {
+                total += conciliar(entrada.getKey(), sondeo, ahoraMs);
+            }
+        }
+        if (ahoraMs >= proximaLimpiezaMs) {
+            limpiar(ahoraMs);
+            proximaLimpiezaMs = ahoraMs + INTERVALO_LIMPIEZA_MS;
+        }
+        return total;
+    }
+
+    /**
+     * Una ronda de una pasarela: recorre sus pendientes (hasta el máximo de lotes) y ajusta el intervalo
+     */
+    private int conciliar(String pasarela, Sondeo sondeo, long ahoraMs) {
+        int porRevisar = Math.min(sondeo.pendientes.size(), tamanoLote * maxLotesPorRonda);
+        int cambios = 0;
+        int confirmadas = 0;
+        boolean error = false;
+
+        while (porRevisar > 0) {
+            List<String> lote = tomarLote(pasarela, sondeo, Math.min(porRevisar, tamanoLote), ahoraMs);
+            if (lote.isEmpty()) {
+                break;
+            }
+            porRevisar -= lote.size();
+            Map<String, String> respuestas;
+            try {
+                respuestas = pagoService.verificarEstados(pasarela, lote);
+            } catch (RuntimeException e) {
+                System.out.println("⚠️ Conciliación " + pasarela + ": error al verificar " + lote.size()
+                    + " transacciones - " + e.getMessage());
+                sondeo.cola.addAll(lote);
+                error = true;
+                break;
+            }
+            sondeo.lotes.incrementAndGet();
+            sondeo.consultas.addAndGet(lote.size());
+
+            Instant consultadoEn = Instant.ofEpochMilli(ahoraMs);
+            for (String referencia : lote) {
+                String respuesta = respuestas.get(referencia);
+                String clave = clave(pasarela, referencia);
+                EstadoTransaccion anterior = estados.get(clave);
+                if (respuesta == null || anterior == null || anterior.definitivo()) {
+                    // Sin respuesta se reintenta; si ya es definitivo, el resultado llegó por otra vía
+                    if (respuesta == null && anterior != null && !anterior.definitivo()) {
+                        sondeo.cola.add(referencia);
+                    }
+                    continue;
+                }
+                String codigo = codigoEstado(respuesta);
+                boolean definitivo = ESTADOS_DEFINITIVOS.contains(codigo);
+                // replace condicional: no pisa un resultado que registrarResultado guardó mientras tanto
+                if (!estados.replace(clave, anterior, new EstadoTransaccion(pasarela, referencia, codigo, respuesta,
+                        definitivo, anterior.registradoEn(), consultadoEn))) {
+                    continue;
+                }
+                if (!codigo.equals(anterior.estado())) {
+                    cambios++;
+                }
+                if (definitivo) {
+                    sondeo.pendientes.remove(referencia);
+                    confirmadas++;
+                } else {
+                    sondeo.cola.add(referencia);
+                }
+            }
+        }
+
+        sondeo.intervaloMs = cambios > 0 && !error
+            ? intervaloMinimoMs
+            : Math.min(sondeo.intervaloMs * 2, intervaloMaximoMs);
+        sondeo.proximaConsultaMs = ahoraMs + sondeo.intervaloMs;
+        sondeo.confirmadas.addAndGet(confirmadas);
+        if (confirmadas > 0) {
+            System.out.println("🔄 Conciliación " + pasarela + ": " + confirmadas + " transacciones confirmadas"
+                + " | Pendientes: " + sondeo.pendientes.size() + " | Próxima consulta en " + sondeo.intervaloMs + " ms");
+        }
+        return confirmadas;
+    }
+
+    /**
+     * Saca de la cola hasta 'cantidad' referencias aún pendientes
+     * Las que superaron la espera máxima se cierran como SIN_CONFIRMAR en lugar de consultarse
+     */
+    private List<String> tomarLote(String pasarela, Sondeo sondeo, int cantidad, long ahoraMs) {
+        List<String> lote = new ArrayList<>(cantidad);
+        String referencia;
+        while (lote.size() < cantidad && (referencia = sondeo.cola.poll()) != null) {
+            if (!sondeo.pendientes.contains(referencia)) {
+                continue;
+            }
+            EstadoTransaccion estado = estados.get(clave(pasarela, referencia));
+            if (estado == null || estado.definitivo()) {
+                sondeo.pendientes.remove(referencia);
+            } else if (ahoraMs - estado.registradoEn().toEpochMilli() > esperaMaximaMs) {
+                estados.put(clave(pasarela, referencia), new EstadoTransaccion(pasarela, referencia, SIN_CONFIRMAR,
+                    estado.detalle(), true, estado.registradoEn(), estado.consultadoEn()));
+                sondeo.pendientes.remove(referencia);
+                System.out.println("⚠️ Conciliación " + pasarela + ": " + referencia + " sin confirmar tras la espera máxima");
+            } else if (!lote.contains(referencia)) {
+                lote.add(referencia);
+            }
+        }
+        return lote;
+    }
+
+    /**
+     * Descarta los estados definitivos más antiguos que la retención
+     */
+    private void limpiar(long ahoraMs) {
+        estados.values().removeIf(estado -> estado.definitivo()
+            && ahoraMs - (estado.consultadoEn() != null ? estado.consultadoEn() : estado.registradoEn()).toEpochMilli() > retencionMs);
+    }
+
+    /**
+     * Estado del sondeo por pasarela
+     */
+    public Map<String, Object> obtenerResumen() {
+        Map<String, Object> pasarelas = new TreeMap<>();
+        sondeos.forEach((nombre, sondeo) -> {
+            Map<String, Object> info = new LinkedHashMap<>();
+            info.put("pendientes", sondeo.pendientes.size());
+            info.put("intervaloMs", sondeo.intervaloMs);
+            info.put("lotes", sondeo.lotes.get());
+            info.put("consultas", sondeo.consultas.get());
+            info.put("confirmadas", sondeo.confirmadas.get());
+            pasarelas.put(nombre, info);
+        });
+        Map<String, Object> resumen = new LinkedHashMap<>();
+        resumen.put("transaccionesEnCache", estados.size());
+        resumen.put("pasarelas", pasarelas);
+        return resumen;
+    }
+
+    /**
+     * Código del estado en la respuesta de la pasarela: "COMPLETADO - Yape" -> COMPLETADO
+     */
+    static String codigoEstado(String respuesta) {
+        String texto = respuesta.trim().toUpperCase();
+        int fin = 0;
+        while (fin < texto.length() && (Character.isLetterOrDigit(texto.charAt(fin)) || texto.charAt(fin) == '_')) {
+            fin++;
+        }
+        return fin == 0 ? texto : texto.substring(0, fin);
+    }
+
+    private int totalPendientes() {
+        int total = 0;
+        for (Sondeo sondeo : sondeos.values()) {
+            total += sondeo.pendientes.size();
+        }
+        return total;
+    }
+
+    private Sondeo sondeo(String pasarela) {
+        return sondeos.computeIfAbsent(pasarela, k -> new Sondeo());
+    }
+
+    private String validar(String pasarela, String referencia) {
+        if (!pagoService.existePasarela(pasarela)) {
+            throw new IllegalArgumentException("Pasarela no encontrada: " + pasarela);
+        }
+        if (referencia == null || referencia.isBlank()) {
+            throw new IllegalArgumentException("La referencia es requerida");
+        }
+        return pasarela.toLowerCase();
+    }
+
+    private static String clave(String pasarela, String referencia) {
+        return pasarela + ":" + referencia;
+    }
+}
@@ -0,0 +1,63 @@
+package com.techsolutions.service;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Configuración de las pasarelas en un instante: qué pasarelas están habilitadas
+ * Es inmutable y versionada; PagoService la publica completa en un AtomicReference, así quien
+ * procesa un pago lee una versión coherente sin bloqueos y un cambio nunca queda a medias
+ * @param version Número de versión; cada cambio publicado lo incrementa en uno
+ * @param origen Quién pidió el cambio (inicio, api, archivo)
+ * @param solicitadaEn Momento en que se pidió el cambio (la llamada a la API o la modificación del archivo)
+ * @param publicadaEn Momento en que quedó visible para los pagos
+ */
+public record ConfiguracionPasarelas(long version, Map<String, Boolean> habilitadas, String origen,
+                                     Instant solicitadaEn, Instant publicadaEn) {
+
+    public ConfiguracionPasarelas {
+        habilitadas = Collections.unmodifiableMap(new LinkedHashMap<>(habilitadas));
+    }
+
+    /**
+     * Versión 1: todas las pasarelas habilitadas
+     */
+    public static ConfiguracionPasarelas inicial(Collection<String> pasarelas) {
+        Map<String, Boolean> habilitadas = new LinkedHashMap<>();
+        pasarelas.forEach(nombre -> habilitadas.put(nombre, true));
+        Instant ahora = Instant.now();
+        return new ConfiguracionPasarelas(1, habilitadas, "inicio", ahora, ahora);
+    }
+
+    public boolean habilitada(String pasarela) {
+        return Boolean.TRUE.equals(habilitadas.get(pasarela));
+    }
+
+    /**
+     * true si aplicar los cambios no modificaría ninguna pasarela
+     */
+    public boolean incluye(Map<String, Boolean> cambios) {
+        return cambios.entrySet().stream()
+            .allMatch(cambio -> cambio.getValue().equals(habilitadas.get(cambio.getKey())));
+    }
+
+    /**
+     * Siguiente versión con los cambios aplicados; las pasarelas no mencionadas conservan su estado
+     */
+    public ConfiguracionPasarelas con(Map<String, Boolean> cambios, String origen, Instant solicitadaEn) {
+        Map<String, Boolean> nuevas = new LinkedHashMap<>(habilitadas);
+        nuevas.putAll(cambios);
+        return new ConfiguracionPasarelas(version + 1, nuevas, origen, solicitadaEn, Instant.now());
+    }
+
+    /**
+     * Tiempo entre la solicitud del cambio y su publicación
+     */
+    public long propagacionMs() {
+        return Math.max(0, Duration.between(solicitadaEn, publicadaEn).toMillis());
+    }
+}
@@ -0,0 +1,161 @@
+package com.techsolutions.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Locale;
+
+/**
+ * Servicio de exportación del catálogo de productos
+ * Recorre la tabla con un cursor JDBC de solo avance y escribe cada fila directamente en
+ * la salida: la memoria usada no depende de la cantidad de productos (sin findAll,
+ * sin entidades y sin un Map por fila)
+ */
+@Service
+public class ExportacionProductosService {
+
+    private static final String SQL_EXPORTAR = """
+        SELECT p.id, p.codigo, p.nombre, p.descripcion, p.precio, p.stock, p.stock_minimo,
+               c.nombre AS categoria, p.imagen_url, p.activo
+        FROM productos p
+        LEFT JOIN categorias c ON c.id = p.categoria_id
+        ORDER BY p.id
+        """;
+
+    private static final String CABECERA_CSV = "id,codigo,nombre,descripcion,precio,stock,stockMinimo,categoria,imagen,activo";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${inventario.exportacion.fetch-size:1000}")
+    private int fetchSize;
+
+    /**
+     * Exporta en CSV con cabecera, compatible con la importación masiva
+     * @return Filas exportadas
+     */
+    public long exportarCsv(OutputStream salida) throws IOException {
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(salida, StandardCharsets.UTF_8), 64 * 1024);
+        escritor.write(CABECERA_CSV);
+        escritor.write('\n');
+
+        long filas = recorrer(rs -> {
+            escribirCsv(escritor, rs.getLong("id"));
+            escritor.write(',');
+            escribirCsv(escritor, rs.getString("codigo"));
+            escritor.write(',');
+            escribirCsv(escritor, rs.getString("nombre"));
+            escritor.write(',');
+            escribirCsv(escritor, rs.getString("descripcion"));
+            escritor.write(',');
+            escribirCsv(escritor, rs.getBigDecimal("precio").toPlainString());
+            escritor.write(',');
+            escribirCsv(escritor, rs.getInt("stock"));
+            escritor.write(',');
+            escribirCsv(escritor, rs.getInt("stock_minimo"));
+            escritor.write(',');
+            escribirCsv(escritor, rs.getString("categoria"));
+            escritor.write(',');
+            escribirCsv(escritor, rs.getString("imagen_url"));
+            escritor.write(',');
+            escribirCsv(escritor, rs.getBoolean("activo"));
+            escritor.write('\n');
+        });
+        escritor.flush();
+        return filas;
+    }
+
+    /**
+     * Exporta en NDJSON: un objeto JSON por línea
+     * @return Filas exportadas
+     */
+    public long exportarNdjson(OutputStream salida) throws IOException {
+        JsonGenerator json = objectMapper.getFactory().createGenerator(salida);
+        // Sin separador entre objetos de nivel raíz: cada línea la termina el '\n' explícito
+        json.setRootValueSeparator(null);
+        long filas = recorrer(rs -> {
+            json.writeStartObject();
+            json.writeNumberField("id", rs.getLong("id"));
+            json.writeStringField("codigo", rs.getString("codigo"));
+            json.writeStringField("nombre", rs.getString("nombre"));
+            json.writeStringField("descripcion", rs.getString("descripcion"));
+            json.writeNumberField("precio", rs.getBigDecimal("precio"));
+            json.writeNumberField("stock", rs.getInt("stock"));
+            json.writeNumberField("stockMinimo", rs.getInt("stock_minimo"));
+            json.writeStringField("categoria", rs.getString("categoria"));
+            json.writeStringField("imagen", rs.getString("imagen_url"));
+            json.writeBooleanField("activo", rs.getBoolean("activo"));
+            json.writeEndObject();
+            json.writeRaw('\n');
+        });
+        json.flush();
+        return filas;
+    }
+
+    @FunctionalInterface
+    private interface EscritorFila {
+        void escribir(ResultSet rs) throws SQLException, IOException;
+    }
+
+    /**
+     * Recorre la consulta de exportación fila por fila
+     * MySQL Connector/J solo transmite las filas sin cargarlas todas en memoria cuando el
+     * fetch size es Integer.MIN_VALUE; otras bases de datos usan el fetch size configurado
+     */
+    private long recorrer(EscritorFila escritor) {
+        long inicio = System.nanoTime();
+        long[] filas = {0};
+        jdbcTemplate.query(
+            conexion -> {
+                PreparedStatement sentencia = conexion.prepareStatement(SQL_EXPORTAR,
+                    ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                boolean mysql = conexion.getMetaData().getDatabaseProductName().toLowerCase(Locale.ROOT).contains("mysql");
+                sentencia.setFetchSize(mysql ? Integer.MIN_VALUE : fetchSize);
+                return sentencia;
+            },
+            rs -> {
+                try {
+                    escritor.escribir(rs);
+                    filas[0]++;
+                } catch (IOException e) {
+                    // Normalmente el cliente cerró la conexión: se corta el recorrido
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+        double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+        System.out.printf("📤 Exportación terminada - Filas: %d | %.2f s%n", filas[0], segundos);
+        return filas[0];
+    }
+
+    private void escribirCsv(Writer escritor, Object valor) throws IOException {
+        if (valor == null) {
+            return;
+        }
+        String texto = valor.toString();
+        if (texto.indexOf(',') < 0 && texto.indexOf('"') < 0 && texto.indexOf('\n') < 0 && texto.indexOf('\r') < 0) {
+            escritor.write(texto);
+            return;
+        }
+        escritor.write('"');
+        escritor.write(texto.replace("\"", "\"\""));
+        escritor.write('"');
+    }
+}
@@ -0,0 +1,388 @@
+package com.techsolutions.service;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techsolutions.model.Categoria;
+import com.techsolutions.model.Producto;
+import com.techsolutions.repository.CategoriaRepository;
+import com.techsolutions.repository.ProductoRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * Servicio de importación masiva de productos
+ * Lee el archivo CSV o JSON de forma incremental (fila por fila, nunca completo en memoria),
+ * valida cada fila, descarta códigos repetidos o ya existentes y escribe por lotes, un lote
+ * por transacción. Los IDs se asignan por bloques (tabla secuencias_id), así Hibernate agrupa
+ * los INSERT en lotes JDBC de hibernate.jdbc.batch_size
+ */
+@Service
+public class ImportacionProductosService {
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private ResolutorCategorias resolutorCategorias;
+
+    @Autowired
+    private IndiceStockBajo indiceStockBajo;
+
+    @Autowired
+    private CacheCatalogo cacheCatalogo;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Value("${inventario.importacion.tamano-lote:500}")
+    private int tamanoLote;
+
+    @Value("${inventario.importacion.max-errores-reportados:100}")
+    private int maxErroresReportados;
+
+    /**
+     * Error de una fila: número de línea (CSV) o posición (JSON), código y motivo
+     */
+    public record ErrorFila(long linea, String codigo, String mensaje) {}
+
+    /**
+     * Resumen de una importación
+     * Los errores detallados se acotan a max-errores-reportados; filasRechazadas los cuenta todos
+     */
+    public record ResultadoImportacion(long filasLeidas, long filasImportadas, long filasRechazadas,
+                                       double segundos, double filasPorSegundo, List<ErrorFila> errores) {}
+
+    private record FilaImportacion(long linea, String codigo, String nombre, String descripcion, BigDecimal precio,
+                                   int stock, int stockMinimo, String categoria, String imagenUrl) {}
+
+    /**
+     * Importa productos desde CSV con cabecera
+     * Columnas: codigo, nombre, descripcion, precio, stock, stockMinimo, categoria, imagen
+     * (solo codigo, nombre y precio son obligatorias). Admite campos entre comillas dobles
+     * con comas o saltos de línea; los errores se reportan con la línea donde empieza el registro
+     */
+    public ResultadoImportacion importarCsv(InputStream entrada) throws IOException {
+        Importacion importacion = new Importacion();
+        try (BufferedReader lector = new BufferedReader(new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+            String cabecera = lector.readLine();
+            if (cabecera == null) {
+                throw new IllegalArgumentException("El archivo CSV está vacío");
+            }
+            List<String> columnas = separarCsv(cabecera.replace("\uFEFF", "")).stream()
+                .map(c -> c.trim().toLowerCase(Locale.ROOT))
+                .toList();
+            if (!columnas.containsAll(List.of("codigo", "nombre", "precio"))) {
+                throw new IllegalArgumentException("La cabecera CSV debe incluir las columnas codigo, nombre y precio");
+            }
+
+            String linea;
+            long numeroLinea = 1;
+            while ((linea = lector.readLine()) != null) {
+                numeroLinea++;
+                long lineaInicial = numeroLinea;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                // Con comillas sin cerrar el campo contiene saltos de línea: el registro sigue en las líneas siguientes
+                int comillas = contarComillas(linea);
+                if (comillas % 2 != 0) {
+                    StringBuilder registro = new StringBuilder(linea);
+                    String continuacion;
+                    while (comillas % 2 != 0 && (continuacion = lector.readLine()) != null) {
+                        numeroLinea++;
+                        registro.append('\n').append(continuacion);
+                        comillas += contarComillas(continuacion);
+                    }
+                    linea = registro.toString();
+                }
+                List<String> valores = separarCsv(linea);
+                Map<String, String> campos = new HashMap<>();
+                for (int i = 0; i < columnas.size() && i < valores.size(); i++) {
+                    campos.put(columnas.get(i), valores.get(i));
+                }
+                importacion.procesar(lineaInicial, campos::get);
+            }
+        }
+        return importacion.terminar();
+    }
+
+    /**
+     * Importa productos desde un arreglo JSON de objetos con los mismos campos que el CSV
+     * (los nombres de campo no distinguen mayúsculas)
+     * Se recorre con el parser de streaming de Jackson: un objeto en memoria a la vez
+     */
+    public ResultadoImportacion importarJson(InputStream entrada) throws IOException {
+        Importacion importacion = new Importacion();
+        try (JsonParser parser = objectMapper.getFactory().createParser(entrada)) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("El JSON debe ser un arreglo de productos");
+            }
+            long posicion = 0;
+            while (parser.nextToken() == JsonToken.START_OBJECT) {
+                posicion++;
+                JsonNode nodo = parser.readValueAsTree();
+                Map<String, String> campos = new HashMap<>();
+                nodo.properties().forEach(campo -> campos.put(
+                    campo.getKey().toLowerCase(Locale.ROOT),
+                    campo.getValue().isNull() ? null : campo.getValue().asText()));
+                importacion.procesar(posicion, campos::get);
+            }
+        }
+        return importacion.terminar();
+    }
+
+    /**
+     * Estado de una importación en curso
+     */
+    private class Importacion {
+
+        private final long inicio = System.nanoTime();
+        private final Set<String> codigosVistos = new HashSet<>();
+        private final List<FilaImportacion> lote = new ArrayList<>(tamanoLote);
+        private final List<ErrorFila> errores = new ArrayList<>();
+        private long filasLeidas;
+        private long filasImportadas;
+        private long filasRechazadas;
+
+        void procesar(long linea, Function<String, String> campos) {
+            filasLeidas++;
+            String codigo = texto(campos.apply("codigo"));
+            try {
+                FilaImportacion fila = validar(linea, codigo, campos);
+                if (!codigosVistos.add(fila.codigo())) {
+                    throw new IllegalArgumentException("Código repetido en el archivo");
+                }
+                lote.add(fila);
+            } catch (IllegalArgumentException e) {
+                rechazar(linea, codigo, e.getMessage());
+            }
+            if (lote.size() >= tamanoLote) {
+                escribirLote();
+            }
+        }
+
+        ResultadoImportacion terminar() {
+            escribirLote();
+            if (filasImportadas > 0) {
+                indiceStockBajo.reconstruir();
+                cacheCatalogo.invalidarCatalogo(null);
+            }
+
+            double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+            double filasPorSegundo = segundos == 0 ? 0.0 : filasLeidas / segundos;
+            System.out.printf("📥 Importación terminada - Leídas: %d | Importadas: %d | Rechazadas: %d | %.0f filas/s%n",
+                filasLeidas, filasImportadas, filasRechazadas, filasPorSegundo);
+            return new ResultadoImportacion(filasLeidas, filasImportadas, filasRechazadas,
+                segundos, filasPorSegundo, List.copyOf(errores));
+        }
+
+        /**
+         * Descarta los códigos que ya existen con una sola consulta y escribe el resto
+         * Si el lote choca con la base de datos (por ejemplo, un alta concurrente del mismo
+         * código) se reintenta fila por fila para aislar las que fallan
+         */
+        private void escribirLote() {
+            if (lote.isEmpty()) {
+                return;
+            }
+            Set<String> existentes = new HashSet<>(productoRepository.findCodigosExistentes(
+                lote.stream().map(FilaImportacion::codigo).toList()));
+            List<FilaImportacion> nuevas = new ArrayList<>(lote.size());
+            for (FilaImportacion fila : lote) {
+                if (existentes.contains(fila.codigo())) {
+                    rechazar(fila.linea(), fila.codigo(), "Ya existe un producto con el código: " + fila.codigo());
+                } else {
+                    nuevas.add(fila);
+                }
+            }
+            lote.clear();
+            if (nuevas.isEmpty()) {
+                return;
+            }
+
+            try {
+                transactionTemplate.executeWithoutResult(status -> insertar(nuevas));
+                filasImportadas += nuevas.size();
+            } catch (DataAccessException e) {
+                for (FilaImportacion fila : nuevas) {
+                    try {
+                        transactionTemplate.executeWithoutResult(status -> insertar(List.of(fila)));
+                        filasImportadas++;
+                    } catch (DataAccessException errorFila) {
+                        rechazar(fila.linea(), fila.codigo(), "Error al guardar: " + errorFila.getMostSpecificCause().getMessage());
+                    }
+                }
+            }
+        }
+
+        private void rechazar(long linea, String codigo, String mensaje) {
+            filasRechazadas++;
+            if (errores.size() < maxErroresReportados) {
+                errores.add(new ErrorFila(linea, codigo, mensaje));
+            }
+        }
+    }
+
+    /**
+     * Persiste el lote y lo envía dentro de la transacción (flush), para que un choque con la
+     * base de datos se reporte aquí y no al confirmar
+     * Las categorías se resuelven recién aquí, solo para las filas que se escriben: las que no
+     * existen se crean en la misma transacción y desaparecen con ella si el lote se revierte
+     */
+    private void insertar(List<FilaImportacion> filas) {
+        Map<String, Long> categoriasCreadas = new HashMap<>();
+        List<Producto> productos = new ArrayList<>(filas.size());
+        for (FilaImportacion fila : filas) {
+            Producto producto = new Producto();
+            producto.setCodigo(fila.codigo());
+            producto.setNombre(fila.nombre());
+            producto.setDescripcion(fila.descripcion());
+            producto.setPrecio(fila.precio());
+            producto.setStock(fila.stock());
+            producto.setStockMinimo(fila.stockMinimo());
+            if (fila.categoria() != null) {
+                Long categoriaId = resolutorCategorias.buscarId(fila.categoria())
+                    .orElseGet(() -> categoriasCreadas.computeIfAbsent(Categoria.normalizar(fila.categoria()),
+                        clave -> resolutorCategorias.crearEnTransaccion(fila.categoria())));
+                producto.setCategoria(categoriaRepository.getReferenceById(categoriaId));
+            }
+            producto.setImagenUrl(fila.imagenUrl());
+            producto.setActivo(true);
+            productos.add(producto);
+        }
+        productoRepository.saveAll(productos);
+        productoRepository.flush();
+    }
+
+    private FilaImportacion validar(long linea, String codigo, Function<String, String> campos) {
+        String nombre = texto(campos.apply("nombre"));
+        String descripcion = texto(campos.apply("descripcion"));
+        String imagenUrl = texto(campos.apply("imagen"));
+        String categoria = texto(campos.apply("categoria"));
+
+        requerido(codigo, "codigo", 50);
+        requerido(nombre, "nombre", 200);
+        maximo(descripcion, "descripcion", 1000);
+        maximo(imagenUrl, "imagen", 500);
+        maximo(categoria, "categoria", 100);
+
+        BigDecimal precio = decimal(campos.apply("precio"));
+        if (precio.signum() < 0 || precio.scale() > 2 || precio.precision() - precio.scale() > 8) {
+            throw new IllegalArgumentException("Precio inválido: " + precio);
+        }
+        int stock = entero(campos.apply("stock"), "stock", 0);
+        int stockMinimo = entero(campos.apply("stockminimo"), "stockMinimo", 5);
+
+        return new FilaImportacion(linea, codigo, nombre, descripcion, precio, stock, stockMinimo, categoria, imagenUrl);
+    }
+
+    private void requerido(String valor, String campo, int longitudMaxima) {
+        if (valor == null) {
+            throw new IllegalArgumentException("El campo " + campo + " es requerido");
+        }
+        maximo(valor, campo, longitudMaxima);
+    }
+
+    private void maximo(String valor, String campo, int longitudMaxima) {
+        if (valor != null && valor.length() > longitudMaxima) {
+            throw new IllegalArgumentException("El campo " + campo + " supera " + longitudMaxima + " caracteres");
+        }
+    }
+
+    private BigDecimal decimal(String valor) {
+        if (texto(valor) == null) {
+            throw new IllegalArgumentException("El campo precio es requerido");
+        }
+        try {
+            return new BigDecimal(valor.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Precio no numérico: " + valor);
+        }
+    }
+
+    private int entero(String valor, String campo, int porDefecto) {
+        if (texto(valor) == null) {
+            return porDefecto;
+        }
+        try {
+            int numero = Integer.parseInt(valor.trim());
+            if (numero < 0) {
+                throw new IllegalArgumentException("El campo " + campo + " no puede ser negativo");
+            }
+            return numero;
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El campo " + campo + " no es un entero: " + valor);
+        }
+    }
+
+    private static String texto(String valor) {
+        return valor == null || valor.isBlank() ? null : valor.trim();
+    }
+
+    private static int contarComillas(String linea) {
+        int comillas = 0;
+        for (int i = 0; i < linea.length(); i++) {
+            if (linea.charAt(i) == '"') {
+                comillas++;
+            }
+        }
+        return comillas;
+    }
+
+    /**
+     * Separa un registro CSV respetando comillas dobles ("" dentro de comillas es una comilla literal)
+     */
+    static List<String> separarCsv(String linea) {
+        List<String> valores = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"' && i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                    actual.append('"');
+                    i++;
+                } else if (c == '"') {
+                    entreComillas = false;
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                valores.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+        valores.add(actual.toString());
+        return valores;
+    }
+}
@@ -0,0 +1,67 @@
+package com.techsolutions.service;
+
+import com.techsolutions.dto.StockVigenteDTO;
+import com.techsolutions.repository.ProductoRepository;
+import com.techsolutions.util.Transacciones;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Índice en memoria de productos activos con stock bajo (stock <= stockMinimo)
+ * La condición compara dos columnas y ningún índice de la base de datos la resuelve,
+ * así que el conjunto se mantiene de forma incremental desde las operaciones de
+ * InventarioService y se reconstruye una sola vez al iniciar la aplicación
+ */
+@Component
+public class IndiceStockBajo {
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    private final Set<Long> productosConStockBajo = ConcurrentHashMap.newKeySet();
+
+    /**
+     * Reconstruye el índice al arrancar (después de la carga de datos iniciales)
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void reconstruir() {
+        List<Long> ids = productoRepository.findIdsConStockBajo();
+        productosConStockBajo.clear();
+        productosConStockBajo.addAll(ids);
+        System.out.println("📇 Índice de stock bajo reconstruido: " + ids.size() + " productos");
+    }
+
+    /**
+     * Reevalúa un producto con su stock confirmado
+     * InventarioService lo llama después del commit, con el stock que releyó bajo el cerrojo del
+     * producto y que comparte con las alertas de stock bajo
+     * @param vigente Stock confirmado, o null si el producto ya no existe
+     */
+    public void actualizar(Long productoId, StockVigenteDTO vigente) {
+        if (vigente != null && vigente.stockBajo()) {
+            productosConStockBajo.add(productoId);
+        } else {
+            productosConStockBajo.remove(productoId);
+        }
+    }
+
+    /**
+     * Quita un producto eliminado cuando se confirme la transacción
+     */
+    public void remover(Long productoId) {
+        Transacciones.despuesDelCommit(() -> productosConStockBajo.remove(productoId));
+    }
+
+    /**
+     * IDs de los productos que necesitan reposición
+     */
+    public Set<Long> obtenerIds() {
+        return Set.copyOf(productosConStockBajo);
+    }
+}
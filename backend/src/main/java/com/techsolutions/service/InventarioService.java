@@ -1,16 +1,28 @@
 package com.techsolutions.service;
 
+import com.techsolutions.dto.CursorProductosDTO;
+import com.techsolutions.dto.FiltroProductosDTO;
+import com.techsolutions.dto.ProductoDTO;
+import com.techsolutions.dto.StockVigenteDTO;
 import com.techsolutions.model.Producto;
-import com.techsolutions.model.Categoria;
 import com.techsolutions.pattern.observer.GestorInventarioObservable;
 import com.techsolutions.repository.ProductoRepository;
-import com.techsolutions.repository.CategoriaRepository;
+import com.techsolutions.util.CerrojosPorId;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import java.math.BigDecimal;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
 
 /**
  * Servicio de Gestión de Inventario
@@ -25,32 +37,52 @@ public class InventarioService {
     private ProductoRepository productoRepository;
     
     @Autowired
-    private CategoriaRepository categoriaRepository;
+    private ResolutorCategorias resolutorCategorias;
     
     @Autowired
     private GestorInventarioObservable gestorInventario;
     
+    @Autowired
+    private IndiceStockBajo indiceStockBajo;
+    
+    @Autowired
+    private CacheCatalogo cacheCatalogo;
+    
+    /**
+     * Serializa la reevaluación del stock bajo de un mismo producto entre commits concurrentes
+     */
+    private final CerrojosPorId cerrojos = new CerrojosPorId(64);
+    
+    /**
+     * Tamaño máximo de página del listado de productos
+     */
+    public static final int TAMANO_PAGINA_MAXIMO = 200;
+    
+    /**
+     * Página del listado de productos; siguienteCursor es nulo en la última página
+     */
+    public record PaginaProductos(List<ProductoDTO> productos, String siguienteCursor) {}
+    
     /**
      * Reduce el stock de un producto y verifica si necesita notificación
+     * El descuento es un UPDATE condicional atómico (stock >= cantidad), sin lectura previa,
+     * por lo que las ventas concurrentes del mismo producto no pueden sobrevender
      * @param productoId ID del producto
      * @param cantidad Cantidad a reducir
      */
     @Transactional
     public void reducirStock(Long productoId, Integer cantidad) {
-        Producto producto = productoRepository.findById(productoId)
-            .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado: " + productoId));
+        descontarStock(productoId, cantidad);
         
-        int stockAnterior = producto.getStock();
-        producto.reducirStock(cantidad);
-        productoRepository.save(producto);
+        Producto producto = cargarProducto(productoId);
         
         System.out.println("📦 Stock reducido - Producto: " + producto.getNombre() + 
-                         " | Stock anterior: " + stockAnterior + 
+                         " | Cantidad: " + cantidad + 
                          " | Stock actual: " + producto.getStock() + 
                          " | Stock mínimo: " + producto.getStockMinimo());
         
         // Verificar y notificar si el stock cayó por debajo del mínimo
-        gestorInventario.verificarYNotificarStock(producto);
+        evaluarStock(producto);
     }
     
     /**
@@ -60,14 +92,149 @@ public class InventarioService {
      */
     @Transactional
     public void aumentarStock(Long productoId, Integer cantidad) {
-        Producto producto = productoRepository.findById(productoId)
-            .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado: " + productoId));
+        validarCantidad(cantidad);
         
-        producto.aumentarStock(cantidad);
-        productoRepository.save(producto);
+        if (productoRepository.incrementarStock(productoId, cantidad) == 0) {
+            throw new IllegalArgumentException("Producto no encontrado: " + productoId);
+        }
+        cacheCatalogo.invalidar(productoId);
         
+        Producto producto = cargarProducto(productoId);
         System.out.println("📦 Stock aumentado - Producto: " + producto.getNombre() + 
                          " | Nuevo stock: " + producto.getStock());
+        
+        // Si el producto se recuperó, la alerta de stock bajo vuelve a armarse
+        evaluarStock(producto);
+    }
+    
+    /**
+     * Reserva el stock de todas las líneas de un carrito en una sola transacción
+     * Todo o nada: si alguna línea no tiene stock suficiente se revierte el carrito completo.
+     * Los productos se bloquean en orden ascendente de ID para que dos carritos con
+     * productos en común nunca se bloqueen mutuamente (deadlock)
+     * @param lineas Cantidades por ID de producto (las líneas repetidas se acumulan)
+     * @return Productos reservados, en el orden en que fueron bloqueados
+     */
+    @Transactional
+    public List<Producto> reservarStock(Map<Long, Integer> lineas) {
+        if (lineas == null || lineas.isEmpty()) {
+            throw new IllegalArgumentException("La reserva debe tener al menos un producto");
+        }
+        
+        TreeMap<Long, Integer> lineasOrdenadas = new TreeMap<>(lineas);
+        lineasOrdenadas.forEach(this::descontarStock);
+        
+        // Una sola lectura de los productos tocados y una sola pasada de verificación
+        List<Producto> productos = productoRepository.findAllById(lineasOrdenadas.keySet()).stream()
+            .sorted(Comparator.comparing(Producto::getId))
+            .toList();
+        productos.forEach(this::evaluarStock);
+        
+        System.out.println("🛒 Stock reservado - Productos: " + productos.size() + 
+                         " | Unidades: " + lineasOrdenadas.values().stream().mapToInt(Integer::intValue).sum());
+        
+        return productos;
+    }
+    
+    /**
+     * Descuenta stock con el UPDATE condicional del repositorio
+     * Si no se afectó ninguna fila distingue entre producto inexistente y stock insuficiente
+     */
+    private void descontarStock(Long productoId, Integer cantidad) {
+        validarCantidad(cantidad);
+        
+        if (productoRepository.descontarStockSiDisponible(productoId, cantidad) == 0) {
+            Producto producto = cargarProducto(productoId);
+            throw new IllegalStateException("Stock insuficiente para el producto: " + producto.getNombre());
+        }
+        cacheCatalogo.invalidar(productoId);
+    }
+    
+    /**
+     * Registra un cambio de stock o de mínimo: al confirmar la transacción actualiza el índice
+     * de stock bajo y evalúa la notificación a los observadores
+     */
+    private void evaluarStock(Producto producto) {
+        reevaluarAlConfirmar(producto, true);
+    }
+    
+    /**
+     * Productos modificados por la transacción en curso, reevaluados una sola vez al confirmarla
+     */
+    private final class ReevaluacionStock implements TransactionSynchronization {
+        
+        private final Map<Long, Producto> productos = new LinkedHashMap<>();
+        
+        private final Set<Long> notificables = new HashSet<>();
+        
+        @Override
+        public void afterCommit() {
+            reevaluar(productos, notificables);
+        }
+    }
+    
+    /**
+     * Agrega el producto a la reevaluación de la transacción en curso (una por transacción);
+     * sin transacción activa lo reevalúa de inmediato
+     * @param notificar false para solo actualizar el índice, sin evaluar alertas
+     */
+    private void reevaluarAlConfirmar(Producto producto, boolean notificar) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reevaluar(Map.of(producto.getId(), producto), notificar ? Set.of(producto.getId()) : Set.of());
+            return;
+        }
+        ReevaluacionStock reevaluacion = TransactionSynchronizationManager.getSynchronizations().stream()
+            .filter(ReevaluacionStock.class::isInstance)
+            .map(ReevaluacionStock.class::cast)
+            .findFirst()
+            .orElseGet(() -> {
+                ReevaluacionStock nueva = new ReevaluacionStock();
+                TransactionSynchronizationManager.registerSynchronization(nueva);
+                return nueva;
+            });
+        reevaluacion.productos.put(producto.getId(), producto);
+        if (notificar) {
+            reevaluacion.notificables.add(producto.getId());
+        }
+    }
+    
+    /**
+     * Relee el stock confirmado de todos los productos en una sola consulta, bajo sus cerrojos,
+     * y la comparte entre el índice de stock bajo y las alertas
+     * Los callbacks de transacciones concurrentes pueden ejecutarse en otro orden que sus commits:
+     * releer bajo el cerrojo garantiza que el último en correr aplique el último valor confirmado
+     */
+    private void reevaluar(Map<Long, Producto> productos, Set<Long> notificables) {
+        cerrojos.ejecutar(productos.keySet(), () -> {
+            Map<Long, StockVigenteDTO> vigentes = leerStockVigente(productos);
+            productos.forEach((id, producto) -> {
+                StockVigenteDTO vigente = vigentes.get(id);
+                indiceStockBajo.actualizar(id, vigente);
+                if (notificables.contains(id)) {
+                    gestorInventario.evaluarStockConfirmado(producto, vigente);
+                }
+            });
+        });
+    }
+    
+    /**
+     * Stock confirmado por ID; un producto eliminado no aparece. Si la lectura falla se usan las instantáneas
+     */
+    private Map<Long, StockVigenteDTO> leerStockVigente(Map<Long, Producto> productos) {
+        try {
+            return productoRepository.findStockVigenteByIdIn(productos.keySet()).stream()
+                .collect(Collectors.toMap(StockVigenteDTO::id, vigente -> vigente));
+        } catch (RuntimeException e) {
+            System.out.println("⚠️ No se pudo releer el stock de " + productos.size() + " productos: " + e.getMessage());
+            return productos.values().stream()
+                .collect(Collectors.toMap(Producto::getId, StockVigenteDTO::de));
+        }
+    }
+    
+    private void validarCantidad(Integer cantidad) {
+        if (cantidad == null || cantidad <= 0) {
+            throw new IllegalArgumentException("La cantidad debe ser mayor a 0");
+        }
     }
     
     /**
@@ -88,23 +255,44 @@ public class InventarioService {
         Integer stockMinimoAnterior = producto.getStockMinimo();
         producto.setStockMinimo(stockMinimo);
         productoRepository.save(producto);
+        cacheCatalogo.invalidar(productoId);
         
         System.out.println("⚙️ Stock mínimo configurado - Producto: " + producto.getNombre() + 
                          " | Anterior: " + stockMinimoAnterior + 
                          " | Nuevo: " + stockMinimo);
         
         // Verificar si con el nuevo stock mínimo se debe notificar
-        gestorInventario.verificarYNotificarStock(producto);
+        evaluarStock(producto);
     }
     
     /**
-     * Obtiene un producto por ID
+     * Obtiene un producto por ID, con su categoría ya cargada
+     * Se sirve desde CacheCatalogo; la copia devuelta no está asociada a la sesión
      */
     public Producto obtenerProducto(Long productoId) {
+        return cacheCatalogo.obtener(productoId, id -> productoRepository.findConCategoriaById(id)
+            .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado: " + id)));
+    }
+    
+    /**
+     * Lee el producto de la base de datos sin pasar por la caché
+     * Lo usan las operaciones de stock, que necesitan el valor recién actualizado
+     */
+    private Producto cargarProducto(Long productoId) {
         return productoRepository.findById(productoId)
             .orElseThrow(() -> new IllegalArgumentException("Producto no encontrado: " + productoId));
     }
     
+    /**
+     * Obtiene los productos que necesitan reposición
+     * Consulta solo los IDs del índice de stock bajo en lugar de recorrer toda la tabla
+     */
+    public List<Producto> obtenerProductosConStockBajo() {
+        return productoRepository.findAllById(indiceStockBajo.obtenerIds()).stream()
+            .sorted(Comparator.comparing(Producto::getId))
+            .toList();
+    }
+    
     /**
      * Obtiene todos los productos
      */
@@ -113,10 +301,54 @@ public class InventarioService {
     }
     
     /**
-     * Obtiene productos activos
+     * Lista productos filtrados y ordenados con paginación por clave (keyset)
+     * Pide un producto más que el tamaño de página para saber si hay página siguiente
+     * sin ejecutar un COUNT
+     * @param filtro Filtros y orden
+     * @param cursor Cursor devuelto por la página anterior (nulo para la primera)
+     * @param tamano Productos por página (se acota a TAMANO_PAGINA_MAXIMO)
+     */
+    @Transactional(readOnly = true)
+    public PaginaProductos listarProductos(FiltroProductosDTO filtro, String cursor, int tamano) {
+        if (tamano <= 0) {
+            throw new IllegalArgumentException("El tamaño de página debe ser mayor a 0");
+        }
+        int limite = Math.min(tamano, TAMANO_PAGINA_MAXIMO);
+        CursorProductosDTO despues = null;
+        if (cursor != null && !cursor.isBlank()) {
+            despues = CursorProductosDTO.decodificar(cursor);
+            despues.validarPara(filtro);
+        }
+        
+        List<ProductoDTO> productos = productoRepository.buscarPagina(filtro, despues, limite + 1);
+        if (productos.size() <= limite) {
+            return new PaginaProductos(productos, null);
+        }
+        
+        List<ProductoDTO> pagina = productos.subList(0, limite);
+        ProductoDTO ultimo = pagina.get(limite - 1);
+        String valor = switch (filtro.getOrden()) {
+            case ID -> null;
+            case NOMBRE -> ultimo.getNombre();
+            case PRECIO -> ultimo.getPrecio().toPlainString();
+        };
+        String siguiente = new CursorProductosDTO(filtro.getOrden(), filtro.isDescendente(), ultimo.getId(), valor).codificar();
+        return new PaginaProductos(List.copyOf(pagina), siguiente);
+    }
+    
+    /**
+     * Obtiene productos activos, con su categoría ya cargada
+     * Se sirven desde CacheCatalogo
      */
     public List<Producto> obtenerProductosActivos() {
-        return productoRepository.findByActivoTrue();
+        return cacheCatalogo.obtenerActivos(productoRepository::findByActivoTrue, productoRepository::findByIdIn);
+    }
+    
+    /**
+     * Métricas de la caché del catálogo
+     */
+    public Map<String, Object> obtenerMetricasCache() {
+        return cacheCatalogo.obtenerMetricas();
     }
     
     /**
@@ -142,23 +374,14 @@ public class InventarioService {
         producto.setImagenUrl(imagenUrl);
         producto.setActivo(true);
         
-        // Buscar categoría por nombre
-        if (categoriaNombre != null && !categoriaNombre.isEmpty()) {
-            List<Categoria> categorias = categoriaRepository.findByActivaTrue();
-            Categoria categoria = categorias.stream()
-                .filter(c -> c.getNombre().equalsIgnoreCase(categoriaNombre))
-                .findFirst()
-                .orElseGet(() -> {
-                    Categoria nuevaCategoria = new Categoria();
-                    nuevaCategoria.setNombre(categoriaNombre);
-                    nuevaCategoria.setDescripcion("Categoría " + categoriaNombre);
-                    nuevaCategoria.setActiva(true);
-                    return categoriaRepository.save(nuevaCategoria);
-                });
-            producto.setCategoria(categoria);
+        // Buscar categoría por nombre (la crea si no existe)
+        if (categoriaNombre != null && !categoriaNombre.isBlank()) {
+            producto.setCategoria(resolutorCategorias.resolver(categoriaNombre));
         }
         
         Producto productoGuardado = productoRepository.save(producto);
+        reevaluarAlConfirmar(productoGuardado, false);
+        cacheCatalogo.invalidarCatalogo(productoGuardado.getId());
         System.out.println("✅ Producto agregado al inventario: " + nombre + " (Código: " + codigo + ")");
         
         return productoGuardado;
@@ -174,6 +397,8 @@ public class InventarioService {
         
         producto.setActivo(false);
         productoRepository.save(producto);
+        indiceStockBajo.remover(productoId);
+        cacheCatalogo.invalidarCatalogo(productoId);
         System.out.println("🗑️ Producto eliminado del inventario: " + producto.getNombre());
     }
     
@@ -187,6 +412,8 @@ public class InventarioService {
         
         String nombreProducto = producto.getNombre();
         productoRepository.delete(producto);
+        indiceStockBajo.remover(productoId);
+        cacheCatalogo.invalidarCatalogo(productoId);
         System.out.println("🗑️ Producto eliminado PERMANENTEMENTE: " + nombreProducto);
     }
     
@@ -209,26 +436,16 @@ public class InventarioService {
         if (imagenUrl != null) producto.setImagenUrl(imagenUrl);
         if (activo != null) producto.setActivo(activo);
         
-        if (categoriaNombre != null && !categoriaNombre.isEmpty()) {
-            List<Categoria> categorias = categoriaRepository.findByActivaTrue();
-            Categoria categoria = categorias.stream()
-                .filter(c -> c.getNombre().equalsIgnoreCase(categoriaNombre))
-                .findFirst()
-                .orElseGet(() -> {
-                    Categoria nuevaCategoria = new Categoria();
-                    nuevaCategoria.setNombre(categoriaNombre);
-                    nuevaCategoria.setDescripcion("Categoría " + categoriaNombre);
-                    nuevaCategoria.setActiva(true);
-                    return categoriaRepository.save(nuevaCategoria);
-                });
-            producto.setCategoria(categoria);
+        if (categoriaNombre != null && !categoriaNombre.isBlank()) {
+            producto.setCategoria(resolutorCategorias.resolver(categoriaNombre));
         }
         
         Producto productoActualizado = productoRepository.save(producto);
+        cacheCatalogo.invalidarCatalogo(productoId);
         System.out.println("✏️ Producto actualizado: " + producto.getNombre());
         
         // Verificar si necesita notificación de stock bajo
-        gestorInventario.verificarYNotificarStock(productoActualizado);
+        evaluarStock(productoActualizado);
         
         return productoActualizado;
     }
@@ -4,35 +4,159 @@ import com.techsolutions.pattern.adapter.PasarelaPago;
 import com.techsolutions.pattern.adapter.PayPalAdapter;
 import com.techsolutions.pattern.adapter.YapeAdapter;
 import com.techsolutions.pattern.adapter.PlinAdapter;
+import com.techsolutions.pattern.adapter.ResultadoPago;
+import com.techsolutions.pattern.decorator.EstadisticasRodantes;
+import com.techsolutions.pattern.decorator.InterruptorCircuito;
+import com.techsolutions.pattern.decorator.PagoInciertoException;
+import com.techsolutions.pattern.decorator.PagoNoEnviadoException;
+import com.techsolutions.pattern.decorator.PasarelaPagoProtegida;
+import com.techsolutions.pattern.decorator.PasarelaPagoProtegida.Limites;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicReference;
 
 /**
  * Servicio que gestiona las pasarelas de pago
  * GRASP: Controller - Coordina las operaciones de pago
  * RF1: Integra múltiples pasarelas mediante un adaptador común
  * RF2: Permite habilitar/deshabilitar pasarelas
+ * Cada adaptador se envuelve en un decorador con límite de llamadas simultáneas, tiempo máximo
+ * e interruptor de circuito propios: un proveedor lento no bloquea los pagos de los demás.
+ * Con la pasarela "auto" el pago se enruta a la de mejor latencia p95 y tasa de éxito recientes.
+ * La habilitación de las pasarelas vive en una ConfiguracionPasarelas inmutable y versionada que
+ * se reemplaza completa con compareAndSet (API o archivo vigilado): los pagos la leen sin bloqueos
  */
 @Service
 public class PagoService {
     
-    private final Map<String, PasarelaPago> pasarelas;
+    /**
+     * Nombre de pasarela que activa el enrutamiento automático
+     */
+    public static final String PASARELA_AUTOMATICA = "auto";
+    
+    /**
+     * Llamadas recientes necesarias para confiar en las estadísticas de una pasarela; con menos
+     * se la prueba primero para que las acumule
+     */
+    private static final long MINIMO_MUESTRAS = 5;
+    
+    private static final int MAX_HISTORIAL_CONFIGURACION = 20;
+    
+    /**
+     * Pago enrutado automáticamente
+     * @param pasarela Pasarela que respondió
+     * @param intentadas Pasarelas probadas en orden; todas salvo la última fallaron
+     */
+    public record PagoEnrutado(String pasarela, ResultadoPago resultado, List<String> intentadas) {}
+    
+    private final Map<String, PasarelaPagoProtegida> pasarelas;
+    
+    /**
+     * Versión vigente de la configuración; se lee una vez por operación y se reemplaza completa
+     */
+    private final AtomicReference<ConfiguracionPasarelas> configuracion;
     
-    public PagoService() {
-        this.pasarelas = new HashMap<>();
-        // Inicializar las pasarelas disponibles
-        pasarelas.put("paypal", new PayPalAdapter());
-        pasarelas.put("yape", new YapeAdapter());
-        pasarelas.put("plin", new PlinAdapter());
+    /**
+     * Últimas versiones publicadas, con su origen y tiempo de propagación
+     */
+    private final ConcurrentLinkedDeque<ConfiguracionPasarelas> historialConfiguracion = new ConcurrentLinkedDeque<>();
+    
+    /**
+     * Costo de un fallo al puntuar pasarelas: el timeout de las llamadas
+     */
+    private final long penalizacionFalloMs;
+    
+    /**
+     * Ejecutor de las llamadas bloqueantes a los proveedores. Con spring.threads.virtual.enabled
+     * cada llamada corre en un hilo virtual y esperar a un proveedor lento no ocupa un hilo de
+     * plataforma; sin él se usa un pool de hilos de plataforma, acotado por el bulkhead de cada pasarela
+     */
+    private final ExecutorService ejecutorPasarelas;
+    
+    @Autowired
+    public PagoService(
+            @Value("${pagos.pasarelas.max-concurrentes:20}") int maxConcurrentes,
+            @Value("${pagos.pasarelas.timeout-ms:5000}") long timeoutMs,
+            @Value("${pagos.pasarelas.circuito.ventana:20}") int tamanoVentana,
+            @Value("${pagos.pasarelas.circuito.minimo-llamadas:10}") int minimoLlamadas,
+            @Value("${pagos.pasarelas.circuito.umbral-fallos:50}") int umbralFallos,
+            @Value("${pagos.pasarelas.circuito.espera-abierto-ms:30000}") long esperaAbiertoMs,
+            @Value("${pagos.pasarelas.circuito.llamadas-prueba:3}") int llamadasPrueba,
+            @Value("${spring.threads.virtual.enabled:false}") boolean hilosVirtuales,
+            @Value("${pagos.pasarelas.latencia-simulada-ms:0}") long latenciaSimuladaMs) {
+        this(new Limites(maxConcurrentes, Duration.ofMillis(timeoutMs), tamanoVentana, minimoLlamadas,
+            umbralFallos, Duration.ofMillis(esperaAbiertoMs), llamadasPrueba), hilosVirtuales, latenciaSimuladaMs);
+    }
+    
+    public PagoService(Limites limites) {
+        this(limites, true, 0);
+    }
+    
+    public PagoService(Limites limites, boolean hilosVirtuales, long latenciaSimuladaMs) {
+        this(adaptadores(latenciaSimuladaMs), limites, hilosVirtuales);
+    }
+    
+    /**
+     * @param adaptadores Pasarelas por nombre; su orden desempata el enrutamiento entre pasarelas sin estadísticas
+     */
+    public PagoService(Map<String, ? extends PasarelaPago> adaptadores, Limites limites, boolean hilosVirtuales) {
+        this.ejecutorPasarelas = hilosVirtuales
+            ? Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("pasarela-", 0).factory())
+            : Executors.newCachedThreadPool(Thread.ofPlatform().name("pasarela-", 0).daemon().factory());
+        this.penalizacionFalloMs = limites.timeout().toMillis();
+        this.pasarelas = new LinkedHashMap<>();
+        adaptadores.forEach((nombre, adaptador) ->
+            pasarelas.put(nombre, new PasarelaPagoProtegida(adaptador, limites, ejecutorPasarelas)));
+        this.configuracion = new AtomicReference<>(ConfiguracionPasarelas.inicial(pasarelas.keySet()));
+        historialConfiguracion.add(configuracion.get());
+    }
+    
+    /**
+     * Inicializa las pasarelas disponibles
+     */
+    private static Map<String, PasarelaPago> adaptadores(long latenciaSimuladaMs) {
+        PayPalAdapter paypal = new PayPalAdapter();
+        YapeAdapter yape = new YapeAdapter();
+        PlinAdapter plin = new PlinAdapter();
+        paypal.setLatenciaSimulada(latenciaSimuladaMs);
+        yape.setLatenciaSimulada(latenciaSimuladaMs);
+        plin.setLatenciaSimulada(latenciaSimuladaMs);
+        
+        Map<String, PasarelaPago> adaptadores = new LinkedHashMap<>();
+        adaptadores.put("paypal", paypal);
+        adaptadores.put("yape", yape);
+        adaptadores.put("plin", plin);
+        return adaptadores;
+    }
+    
+    @PreDestroy
+    public void cerrar() {
+        ejecutorPasarelas.shutdownNow();
     }
     
     /**
      * RF1: Procesa un pago utilizando la pasarela especificada
      * Gracias al patrón Adapter, todas las pasarelas tienen la misma interfaz
+     * @throws IllegalArgumentException si la pasarela no existe
+     * @throws PagoNoEnviadoException si la pasarela no está habilitada, está saturada o con el circuito abierto
+     * @throws PagoInciertoException si no respondió a tiempo; otros errores del proveedor se propagan tal cual
      */
     public boolean procesarPago(String nombrePasarela, BigDecimal monto, String referencia) {
         PasarelaPago pasarela = pasarelas.get(nombrePasarela.toLowerCase());
@@ -41,37 +165,215 @@ public class PagoService {
             throw new IllegalArgumentException("Pasarela no encontrada: " + nombrePasarela);
         }
         
-        if (!pasarela.estaHabilitada()) {
-            throw new IllegalStateException("La pasarela " + nombrePasarela + " no está habilitada");
+        if (!configuracion.get().habilitada(nombrePasarela.toLowerCase())) {
+            throw new PagoNoEnviadoException("La pasarela " + nombrePasarela + " no está habilitada");
         }
         
         return pasarela.procesarPago(monto, referencia);
     }
     
+    /**
+     * RF1: Variante asíncrona de procesarPago
+     * El hilo que llama no espera al proveedor: el futuro se completa con el resultado, con
+     * PagoNoEnviadoException si la pasarela está saturada o con el circuito abierto, o con
+     * PagoInciertoException si no respondió
+     * @throws IllegalArgumentException si la pasarela no existe
+     * @throws PagoNoEnviadoException si la pasarela no está habilitada
+     */
+    public CompletableFuture<ResultadoPago> procesarPagoAsync(String nombrePasarela, BigDecimal monto, String referencia) {
+        PasarelaPagoProtegida pasarela = pasarelas.get(nombrePasarela.toLowerCase());
+        
+        if (pasarela == null) {
+            throw new IllegalArgumentException("Pasarela no encontrada: " + nombrePasarela);
+        }
+        
+        if (!configuracion.get().habilitada(nombrePasarela.toLowerCase())) {
+            throw new PagoNoEnviadoException("La pasarela " + nombrePasarela + " no está habilitada");
+        }
+        
+        return pasarela.procesarPagoAsync(monto, referencia);
+    }
+    
+    /**
+     * RF1: Procesa un pago en la pasarela con mejor rendimiento reciente
+     * Con respaldo, si la elegida rechaza el pago antes de enviarlo (saturada o circuito abierto)
+     * se prueba la siguiente. Una vez enviado no se prueba otra: tras un tiempo agotado o un error
+     * del proveedor el primer cobro pudo haberse hecho, y enviarlo a otra pasarela cobraría dos veces,
+     * el mismo motivo por el que no se envía en paralelo. Un pago rechazado tampoco se reintenta
+     * @throws PagoNoEnviadoException si no hay pasarelas disponibles o todas rechazaron el pago sin enviarlo
+     * @throws PagoInciertoException si el pago se envió y no se conoce su resultado
+     */
+    public PagoEnrutado procesarPagoEnrutado(BigDecimal monto, String referencia, boolean conRespaldo) {
+        List<String> candidatas = ordenarPorRendimiento();
+        List<String> intentadas = new ArrayList<>();
+        PagoNoEnviadoException ultimoRechazo = null;
+        for (String nombre : candidatas) {
+            intentadas.add(nombre);
+            PasarelaPagoProtegida pasarela = pasarelas.get(nombre);
+            try {
+                boolean aprobado = pasarela.procesarPago(monto, referencia);
+                return new PagoEnrutado(nombre, ResultadoPago.de(pasarela.getNombre(), referencia, monto, aprobado),
+                    List.copyOf(intentadas));
+            } catch (PagoNoEnviadoException e) {
+                if (!conRespaldo) {
+                    throw e;
+                }
+                System.out.println("⚠️ Pasarela " + nombre + " no admitió el pago (" + e.getMessage() + "), probando la siguiente");
+                ultimoRechazo = e;
+            } catch (RuntimeException e) {
+                throw PagoInciertoException.de(nombre, intentadas, e);
+            }
+        }
+        throw ultimoRechazo;
+    }
+    
+    /**
+     * RF1: Variante asíncrona de procesarPagoEnrutado; el respaldo se encadena al futuro fallido
+     * solo si la pasarela no admitió el pago
+     */
+    public CompletableFuture<PagoEnrutado> procesarPagoEnrutadoAsync(BigDecimal monto, String referencia, boolean conRespaldo) {
+        return intentarAsync(ordenarPorRendimiento(), 0, monto, referencia, conRespaldo, new ArrayList<>());
+    }
+    
+    private CompletableFuture<PagoEnrutado> intentarAsync(List<String> candidatas, int indice, BigDecimal monto,
+                                                          String referencia, boolean conRespaldo, List<String> intentadas) {
+        String nombre = candidatas.get(indice);
+        intentadas.add(nombre);
+        return pasarelas.get(nombre).procesarPagoAsync(monto, referencia)
+            .thenApply(resultado -> new PagoEnrutado(nombre, resultado, List.copyOf(intentadas)))
+            .exceptionallyCompose(error -> {
+                Throwable causa = error instanceof CompletionException ? error.getCause() : error;
+                if (!(causa instanceof PagoNoEnviadoException)) {
+                    return CompletableFuture.failedFuture(PagoInciertoException.de(nombre, intentadas, causa));
+                }
+                if (!conRespaldo || indice + 1 >= candidatas.size()) {
+                    return CompletableFuture.failedFuture(causa);
+                }
+                System.out.println("⚠️ Pasarela " + nombre + " no admitió el pago (" + causa.getMessage() + "), probando la siguiente");
+                return intentarAsync(candidatas, indice + 1, monto, referencia, true, intentadas);
+            });
+    }
+    
+    /**
+     * Pasarelas habilitadas con el circuito no abierto, de mejor a peor puntaje
+     * Cada puntaje sale de un resumen de tamaño fijo: el costo no depende del tráfico registrado
+     */
+    private List<String> ordenarPorRendimiento() {
+        ConfiguracionPasarelas actual = configuracion.get();
+        List<String> candidatas = pasarelas.entrySet().stream()
+            .filter(e -> actual.habilitada(e.getKey())
+                && e.getValue().getEstadoCircuito() != InterruptorCircuito.Estado.ABIERTO)
+            .map(e -> Map.entry(e.getKey(), puntaje(e.getValue().getEstadisticasRecientes())))
+            .sorted(Map.Entry.comparingByValue())
+            .map(Map.Entry::getKey)
+            .toList();
+        if (candidatas.isEmpty()) {
+            throw new PagoNoEnviadoException("No hay pasarelas de pago disponibles");
+        }
+        return candidatas;
+    }
+    
+    /**
+     * Tiempo estimado de un pago, menor es mejor: la latencia p95 más la probabilidad de fallo por
+     * lo que cuesta un fallo en el peor caso (esperar el timeout antes de probar otra pasarela)
+     */
+    private double puntaje(EstadisticasRodantes.Resumen resumen) {
+        if (resumen.llamadas() < MINIMO_MUESTRAS) {
+            return 0;
+        }
+        return resumen.p95Ms() + (1 - resumen.tasaExito()) * penalizacionFalloMs;
+    }
+    
     /**
      * RF2: Habilita o deshabilita una pasarela de pago
      */
     public void configurarPasarela(String nombrePasarela, boolean habilitar) {
-        PasarelaPago pasarela = pasarelas.get(nombrePasarela.toLowerCase());
-
-        // Cambiar estado con switch pattern matching (Java 21)
-        switch (pasarela) {
-            case null -> throw new IllegalArgumentException("Pasarela no encontrada: " + nombrePasarela);
-            case PayPalAdapter p -> p.setHabilitada(habilitar);
-            case YapeAdapter y -> y.setHabilitada(habilitar);
-            case PlinAdapter pl -> pl.setHabilitada(habilitar);
-            default -> {}
+        aplicarConfiguracion(Map.of(nombrePasarela, habilitar), "api", Instant.now());
+    }
+    
+    /**
+     * Publica una nueva versión de la configuración con los cambios indicados
+     * El reemplazo es un compareAndSet: si otro cambio se publicó mientras tanto, se vuelve a
+     * aplicar sobre esa versión. Si los cambios no modifican nada no se crea una versión nueva
+     * @param cambios Habilitación por nombre de pasarela; las no mencionadas no cambian
+     * @param origen Quién pide el cambio (api, archivo)
+     * @param solicitadaEn Momento del pedido, para medir cuánto tarda en propagarse
+     * @return La versión vigente tras el cambio
+     * @throws IllegalArgumentException si alguna pasarela no existe
+     */
+    public ConfiguracionPasarelas aplicarConfiguracion(Map<String, Boolean> cambios, String origen, Instant solicitadaEn) {
+        Map<String, Boolean> normalizados = new LinkedHashMap<>();
+        cambios.forEach((nombre, habilitar) -> {
+            if (nombre == null || !pasarelas.containsKey(nombre.toLowerCase())) {
+                throw new IllegalArgumentException("Pasarela no encontrada: " + nombre);
+            }
+            if (habilitar == null) {
+                throw new IllegalArgumentException("Falta el estado de la pasarela " + nombre);
+            }
+            normalizados.put(nombre.toLowerCase(), habilitar);
+        });
+        
+        while (true) {
+            ConfiguracionPasarelas actual = configuracion.get();
+            if (actual.incluye(normalizados)) {
+                return actual;
+            }
+            ConfiguracionPasarelas nueva = actual.con(normalizados, origen, solicitadaEn);
+            if (configuracion.compareAndSet(actual, nueva)) {
+                historialConfiguracion.addFirst(nueva);
+                while (historialConfiguracion.size() > MAX_HISTORIAL_CONFIGURACION) {
+                    historialConfiguracion.pollLast();
+                }
+                System.out.println("⚙️ Configuración de pasarelas v" + nueva.version() + " (" + origen + "): "
+                    + normalizados + " | Propagada en " + nueva.propagacionMs() + " ms");
+                return nueva;
+            }
         }
     }
     
+    public ConfiguracionPasarelas getConfiguracion() {
+        return configuracion.get();
+    }
+    
+    /**
+     * Versión vigente de la configuración y las últimas versiones publicadas
+     */
+    public Map<String, Object> obtenerConfiguracion() {
+        ConfiguracionPasarelas actual = configuracion.get();
+        Map<String, Object> respuesta = new LinkedHashMap<>(descripcion(actual));
+        respuesta.put("historial", historialConfiguracion.stream()
+            .sorted(Comparator.comparingLong(ConfiguracionPasarelas::version).reversed())
+            .map(this::descripcion)
+            .toList());
+        return respuesta;
+    }
+    
+    private Map<String, Object> descripcion(ConfiguracionPasarelas version) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("version", version.version());
+        info.put("origen", version.origen());
+        info.put("habilitadas", version.habilitadas());
+        info.put("solicitadaEn", version.solicitadaEn().toString());
+        info.put("publicadaEn", version.publicadaEn().toString());
+        info.put("propagacionMs", version.propagacionMs());
+        return info;
+    }
+    
     /**
-     * Obtiene el estado de todas las pasarelas
+     * Obtiene el estado de todas las pasarelas: habilitación (RF2) y estado de su protección
+     * (circuito, tasa de fallos, llamadas en curso y rechazos)
      */
-    public Map<String, Boolean> obtenerEstadoPasarelas() {
-        Map<String, Boolean> estados = new HashMap<>();
-        pasarelas.forEach((nombre, pasarela) -> 
-            estados.put(nombre, pasarela.estaHabilitada())
-        );
+    public Map<String, Map<String, Object>> obtenerEstadoPasarelas() {
+        ConfiguracionPasarelas actual = configuracion.get();
+        Map<String, Map<String, Object>> estados = new HashMap<>();
+        pasarelas.forEach((nombre, pasarela) -> {
+            Map<String, Object> estado = pasarela.obtenerEstadisticas();
+            boolean habilitada = actual.habilitada(nombre);
+            estado.put("habilitada", habilitada);
+            estado.put("disponible", habilitada
+                && pasarela.getEstadoCircuito() != InterruptorCircuito.Estado.ABIERTO);
+            estados.put(nombre, estado);
+        });
         return estados;
     }
     
@@ -79,12 +381,13 @@ public class PagoService {
      * Obtiene información de todas las pasarelas disponibles
      */
     public List<Map<String, Object>> listarPasarelas() {
+        ConfiguracionPasarelas actual = configuracion.get();
         return pasarelas.entrySet().stream()
             .map(entry -> {
                 Map<String, Object> info = new HashMap<>();
                 info.put("id", entry.getKey());
                 info.put("nombre", entry.getValue().getNombre());
-                info.put("habilitada", entry.getValue().estaHabilitada());
+                info.put("habilitada", actual.habilitada(entry.getKey()));
                 return info;
             })
             .toList();
@@ -102,4 +405,22 @@ public class PagoService {
         
         return pasarela.verificarEstado(referencia);
     }
+    
+    /**
+     * Verifica el estado de varias transacciones de una pasarela en una sola consulta
+     * @throws IllegalArgumentException si la pasarela no existe
+     */
+    public Map<String, String> verificarEstados(String nombrePasarela, List<String> referencias) {
+        PasarelaPago pasarela = pasarelas.get(nombrePasarela.toLowerCase());
+        
+        if (pasarela == null) {
+            throw new IllegalArgumentException("Pasarela no encontrada: " + nombrePasarela);
+        }
+        
+        return pasarela.verificarEstados(referencias);
+    }
+    
+    public boolean existePasarela(String nombrePasarela) {
+        return nombrePasarela != null && pasarelas.containsKey(nombrePasarela.toLowerCase());
+    }
 }
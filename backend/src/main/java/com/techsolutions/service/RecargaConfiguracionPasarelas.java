@@ -0,0 +1,101 @@
+package com.techsolutions.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Properties;
+
+/**
+ * Recarga en caliente la habilitación de las pasarelas desde un archivo local
+ * El archivo (pagos.pasarelas.configuracion.archivo) tiene una línea por pasarela, por ejemplo
+ * "yape=false"; las pasarelas que no aparecen conservan su estado. Se revisa periódicamente
+ * y, si su contenido cambió, se publica una nueva versión de ConfiguracionPasarelas.
+ * Un archivo inválido se rechaza completo y sigue vigente la versión anterior
+ */
+@Component
+public class RecargaConfiguracionPasarelas {
+
+    private final PagoService pagoService;
+
+    private final String archivo;
+
+    private volatile byte[] ultimoContenido;
+
+    @Autowired
+    public RecargaConfiguracionPasarelas(PagoService pagoService,
+                                         @Value("${pagos.pasarelas.configuracion.archivo:}") String archivo) {
+        this.pagoService = pagoService;
+        this.archivo = archivo == null ? "" : archivo.trim();
+    }
+
+    @Scheduled(fixedDelayString = "${pagos.pasarelas.configuracion.revision-ms:2000}")
+    public void revisar() {
+        if (!archivo.isEmpty()) {
+            recargar(Path.of(archivo));
+        }
+    }
+
+    /**
+     * Aplica el archivo si su contenido cambió desde la última lectura
+     * Se compara el contenido y no solo la fecha de modificación: una escritura no atómica puede
+     * leerse a medias y terminar dentro del mismo instante de fecha, y el resto no se vería nunca
+     * @return true si se publicó una nueva versión
+     */
+    public boolean recargar(Path ruta) {
+        FileTime modificacion;
+        byte[] contenido;
+        try {
+            modificacion = Files.getLastModifiedTime(ruta);
+            contenido = Files.readAllBytes(ruta);
+        } catch (NoSuchFileException e) {
+            return false;
+        } catch (IOException e) {
+            System.out.println("⚠️ No se pudo revisar " + ruta + ": " + e.getMessage());
+            return false;
+        }
+        if (Arrays.equals(contenido, ultimoContenido)) {
+            return false;
+        }
+        // Se registra antes de aplicar: un contenido inválido no se vuelve a procesar hasta que cambie
+        ultimoContenido = contenido;
+
+        long version = pagoService.getConfiguracion().version();
+        try {
+            return pagoService.aplicarConfiguracion(leer(contenido), "archivo", modificacion.toInstant()).version() != version;
+        } catch (IOException | IllegalArgumentException e) {
+            System.out.println("⚠️ Configuración de pasarelas inválida en " + ruta + ": " + e.getMessage()
+                + " | Sigue vigente la v" + version);
+            return false;
+        }
+    }
+
+    private static Map<String, Boolean> leer(byte[] contenido) throws IOException {
+        Properties propiedades = new Properties();
+        try (Reader lector = new InputStreamReader(new ByteArrayInputStream(contenido), StandardCharsets.UTF_8)) {
+            propiedades.load(lector);
+        }
+        Map<String, Boolean> cambios = new LinkedHashMap<>();
+        for (String nombre : propiedades.stringPropertyNames()) {
+            String valor = propiedades.getProperty(nombre).trim();
+            if (!valor.equalsIgnoreCase("true") && !valor.equalsIgnoreCase("false")) {
+                throw new IllegalArgumentException("Valor inválido para " + nombre + ": " + valor + " (use true o false)");
+            }
+            cambios.put(nombre.trim(), Boolean.parseBoolean(valor));
+        }
+        return cambios;
+    }
+}
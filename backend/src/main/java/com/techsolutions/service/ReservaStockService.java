@@ -0,0 +1,246 @@
+package com.techsolutions.service;
+
+import com.techsolutions.model.Producto;
+import com.techsolutions.model.ReservaStock;
+import com.techsolutions.model.ReservaStock.EstadoReserva;
+import com.techsolutions.repository.ReservaStockRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+/**
+ * Servicio de reservas temporales de stock
+ * Retiene el stock de un checkout mientras se procesa el pago y luego lo confirma o lo libera.
+ * Las reservas abandonadas se devuelven al inventario con un barrido programado por lotes
+ */
+@Service
+@SuppressWarnings("null")
+public class ReservaStockService {
+
+    @Autowired
+    private ReservaStockRepository reservaStockRepository;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Value("${inventario.reservas.minutos-expiracion:15}")
+    private long minutosExpiracion;
+
+    @Value("${inventario.reservas.tamano-lote:200}")
+    private int tamanoLote;
+
+    @Value("${inventario.reservas.max-lotes-por-barrido:10}")
+    private int maxLotesPorBarrido;
+
+    /**
+     * Resultado de una reserva: referencia del checkout, vencimiento y productos retenidos
+     */
+    public record Reserva(String referencia, LocalDateTime expiraEn, List<Producto> productos) {}
+
+    /**
+     * Resultado de confirmar la reserva de un pedido cobrado
+     * @param advertencia Aviso para el cliente, o null si la reserva se confirmó tal como estaba
+     * @param requiereRevision true si el pedido quedó sin stock o sin reserva y necesita atención manual
+     */
+    public record ConfirmacionPagada(String advertencia, boolean requiereRevision) {
+
+        private static final ConfirmacionPagada CONFIRMADA = new ConfirmacionPagada(null, false);
+    }
+
+    /**
+     * Descuenta el stock del carrito y registra la retención con vencimiento
+     * @param referencia Referencia del checkout (si es nula se genera una)
+     * @param lineas Cantidades por ID de producto
+     */
+    @Transactional
+    public Reserva reservar(String referencia, Map<Long, Integer> lineas) {
+        String ref = (referencia == null || referencia.isBlank())
+            ? "RES-" + UUID.randomUUID().toString().substring(0, 8).toUpperCase()
+            : referencia;
+        LocalDateTime expiraEn = LocalDateTime.now().plusMinutes(minutosExpiracion);
+
+        List<Producto> productos = inventarioService.reservarStock(lineas);
+        List<ReservaStock> reservas = productos.stream()
+            .map(producto -> {
+                ReservaStock reserva = new ReservaStock();
+                reserva.setReferencia(ref);
+                reserva.setProducto(producto);
+                reserva.setCantidad(lineas.get(producto.getId()));
+                reserva.setEstado(EstadoReserva.ACTIVA);
+                reserva.setExpiraEn(expiraEn);
+                return reserva;
+            })
+            .toList();
+        reservaStockRepository.saveAll(reservas);
+
+        System.out.println("⏳ Reserva creada: " + ref + " | Líneas: " + reservas.size() + " | Expira: " + expiraEn);
+        return new Reserva(ref, expiraEn, productos);
+    }
+
+    /**
+     * Confirma la reserva tras un pago exitoso: el stock descontado queda vendido
+     * Falla si alguna línea de la referencia ya venció o se liberó: su stock volvió al inventario
+     */
+    @Transactional
+    public void confirmar(String referencia) {
+        if (confirmarActivas(referencia) == 0) {
+            throw new IllegalStateException("No hay reservas activas para la referencia: " + referencia);
+        }
+        List<ReservaStock> devueltas = reservaStockRepository.findByReferenciaAndEstadoIn(referencia,
+            List.of(EstadoReserva.EXPIRADA, EstadoReserva.LIBERADA));
+        if (!devueltas.isEmpty()) {
+            throw new IllegalStateException("La reserva " + referencia + " tiene " + devueltas.size()
+                + " línea(s) vencidas o liberadas");
+        }
+        System.out.println("✅ Reserva confirmada: " + referencia);
+    }
+
+    /**
+     * Confirma la reserva de un pedido ya cobrado
+     * No falla por el estado de la reserva: el dinero ya se movió. Las líneas que vencieron o se
+     * liberaron (todas o solo algunas) vuelven a retener el mismo stock; si ya no alcanza, quedan
+     * en PAGADA_SIN_STOCK para atención manual
+     * @return Advertencia si la reserva no se pudo confirmar tal como estaba
+     */
+    public ConfirmacionPagada confirmarPagada(String referencia) {
+        Integer confirmadas = transactionTemplate.execute(status -> confirmarActivas(referencia));
+
+        List<ReservaStock> anteriores = reservaStockRepository.findByReferenciaAndEstadoIn(referencia,
+            List.of(EstadoReserva.CONFIRMADA, EstadoReserva.EXPIRADA, EstadoReserva.LIBERADA, EstadoReserva.PAGADA_SIN_STOCK));
+        List<ReservaStock> devueltas = anteriores.stream()
+            .filter(reserva -> reserva.getEstado() == EstadoReserva.EXPIRADA || reserva.getEstado() == EstadoReserva.LIBERADA)
+            .toList();
+        if (devueltas.isEmpty()) {
+            if (anteriores.stream().anyMatch(reserva -> reserva.getEstado() == EstadoReserva.PAGADA_SIN_STOCK)) {
+                return sinStock(referencia);
+            }
+            if (confirmadas == 0 && anteriores.isEmpty()) {
+                System.out.println("🚨 Pago sin reserva: " + referencia + " | Requiere atención manual");
+                return new ConfirmacionPagada("El pago se procesó, pero no se encontró la reserva " + referencia
+                    + "; el pedido quedó para revisión manual", true);
+            }
+            if (confirmadas > 0) {
+                System.out.println("✅ Reserva confirmada: " + referencia);
+            }
+            return ConfirmacionPagada.CONFIRMADA;
+        }
+
+        try {
+            transactionTemplate.executeWithoutResult(status -> volverAReservar(devueltas));
+            System.out.println("🔁 Reserva retenida nuevamente tras el pago: " + referencia + " | Líneas: " + devueltas.size());
+            return new ConfirmacionPagada("La reserva " + referencia
+                + " había vencido; el stock se volvió a retener para el pedido", false);
+        } catch (IllegalStateException | IllegalArgumentException e) {
+            transactionTemplate.executeWithoutResult(status -> devueltas.forEach(reserva ->
+                reservaStockRepository.cambiarEstado(reserva.getId(), reserva.getEstado(), EstadoReserva.PAGADA_SIN_STOCK)));
+            System.out.println("🚨 Pedido cobrado sin stock: " + referencia + " - " + e.getMessage()
+                + " | Requiere atención manual");
+            return sinStock(referencia);
+        }
+    }
+
+    /**
+     * Extiende el vencimiento de una reserva activa; un vencimiento anterior nunca la acorta
+     * Se usa cuando el resultado del pago es desconocido: el stock sigue retenido hasta que la
+     * conciliación confirme o rechace el cobro
+     * @return Líneas de reserva extendidas
+     */
+    public int prolongar(String referencia, LocalDateTime hasta) {
+        int extendidas = reservaStockRepository.postergarVencimiento(referencia, EstadoReserva.ACTIVA, hasta);
+        if (extendidas > 0) {
+            System.out.println("⏳ Reserva retenida hasta " + hasta + ": " + referencia);
+        }
+        return extendidas;
+    }
+
+    /**
+     * Libera la reserva (pago fallido o carrito cancelado) y devuelve el stock
+     * Las líneas se devuelven en orden ascendente de producto, el mismo en que se reservan
+     */
+    @Transactional
+    public void liberar(String referencia) {
+        reservaStockRepository.findByReferenciaAndEstado(referencia, EstadoReserva.ACTIVA).stream()
+            .sorted(Comparator.comparing(reserva -> reserva.getProducto().getId()))
+            .forEach(reserva -> devolver(reserva, EstadoReserva.LIBERADA));
+        System.out.println("↩️ Reserva liberada: " + referencia);
+    }
+
+    /**
+     * Barrido programado de reservas vencidas
+     * Lee lotes acotados y devuelve cada reserva en su propia transacción: solo se retiene el
+     * bloqueo de un producto a la vez, sin competir con los checkouts que bloquean en orden de ID.
+     * Se detiene al vaciar la cola o al alcanzar el máximo de lotes por ejecución
+     */
+    @Scheduled(fixedDelayString = "${inventario.reservas.barrido-ms:30000}")
+    public void liberarExpiradas() {
+        int total = 0;
+        for (int lote = 0; lote < maxLotesPorBarrido; lote++) {
+            List<ReservaStock> vencidas = reservaStockRepository.findByEstadoAndExpiraEnBeforeOrderByExpiraEnAsc(
+                EstadoReserva.ACTIVA, LocalDateTime.now(), PageRequest.of(0, tamanoLote));
+            for (ReservaStock reserva : vencidas) {
+                if (Boolean.TRUE.equals(transactionTemplate.execute(status -> devolver(reserva, EstadoReserva.EXPIRADA)))) {
+                    total++;
+                }
+            }
+            if (vencidas.size() < tamanoLote) {
+                break;
+            }
+        }
+        if (total > 0) {
+            System.out.println("🧹 Reservas expiradas liberadas: " + total);
+        }
+    }
+
+    private ConfirmacionPagada sinStock(String referencia) {
+        return new ConfirmacionPagada("El pago se procesó, pero ya no hay stock para el pedido " + referencia
+            + "; quedó registrado para atención manual", true);
+    }
+
+    private int confirmarActivas(String referencia) {
+        int confirmadas = 0;
+        for (ReservaStock reserva : reservaStockRepository.findByReferenciaAndEstado(referencia, EstadoReserva.ACTIVA)) {
+            confirmadas += reservaStockRepository.cambiarEstado(reserva.getId(), EstadoReserva.ACTIVA, EstadoReserva.CONFIRMADA);
+        }
+        return confirmadas;
+    }
+
+    /**
+     * Vuelve a descontar el stock de reservas vencidas o liberadas y las deja confirmadas
+     */
+    private void volverAReservar(List<ReservaStock> reservas) {
+        Map<Long, Integer> lineas = new HashMap<>();
+        reservas.forEach(reserva -> lineas.merge(reserva.getProducto().getId(), reserva.getCantidad(), Integer::sum));
+        inventarioService.reservarStock(lineas);
+        for (ReservaStock reserva : reservas) {
+            if (reservaStockRepository.cambiarEstado(reserva.getId(), reserva.getEstado(), EstadoReserva.CONFIRMADA) == 0) {
+                throw new IllegalStateException("La reserva " + reserva.getReferencia() + " cambió mientras se volvía a retener");
+            }
+        }
+    }
+
+    /**
+     * Devuelve el stock solo si esta llamada gana la transición desde ACTIVA
+     * @return true si se devolvió el stock
+     */
+    private boolean devolver(ReservaStock reserva, EstadoReserva estadoFinal) {
+        if (reservaStockRepository.cambiarEstado(reserva.getId(), EstadoReserva.ACTIVA, estadoFinal) == 1) {
+            inventarioService.aumentarStock(reserva.getProducto().getId(), reserva.getCantidad());
+            return true;
+        }
+        return false;
+    }
+}
@@ -0,0 +1,146 @@
+package com.techsolutions.service;
+
+import com.techsolutions.model.Categoria;
+import com.techsolutions.repository.CategoriaRepository;
+import com.techsolutions.util.Transacciones;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Resuelve categorías por nombre sin distinguir mayúsculas
+ * Mantiene en memoria el mapa nombre normalizado -> ID, respaldado por el índice único
+ * categorias.nombre_normalizado: una categoría conocida se resuelve sin consultar la base
+ * de datos y una nueva se crea una sola vez aunque varias escrituras la pidan a la vez
+ */
+@Component
+public class ResolutorCategorias {
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    private final TransactionTemplate transaccionNueva;
+
+    private final Map<String, Long> idsPorNombre = new ConcurrentHashMap<>();
+
+    public ResolutorCategorias(PlatformTransactionManager transactionManager) {
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Completa el nombre normalizado de categorías anteriores y carga el mapa al arrancar
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void cargar() {
+        List<Categoria> sinNormalizar = categoriaRepository.findByNombreNormalizadoIsNull();
+        if (!sinNormalizar.isEmpty()) {
+            sinNormalizar.forEach(c -> c.setNombreNormalizado(Categoria.normalizar(c.getNombre())));
+            categoriaRepository.saveAll(sinNormalizar);
+        }
+
+        idsPorNombre.clear();
+        categoriaRepository.findAll().forEach(c -> idsPorNombre.put(Categoria.normalizar(c.getNombre()), c.getId()));
+        System.out.println("📇 Categorías indexadas por nombre: " + idsPorNombre.size()
+            + (sinNormalizar.isEmpty() ? "" : " (normalizadas: " + sinNormalizar.size() + ")"));
+    }
+
+    /**
+     * Obtiene la categoría con ese nombre o la crea si no existe
+     * La creación corre en su propia transacción: la categoría queda disponible para otras
+     * escrituras de inmediato y un choque con el índice único no invalida la transacción del llamador
+     * @return Referencia a la categoría, lista para asignar a un producto
+     */
+    public Categoria resolver(String nombre) {
+        return categoriaRepository.getReferenceById(resolverId(nombre));
+    }
+
+    /**
+     * Igual que resolver, pero devuelve solo el ID (para escrituras JDBC por lotes)
+     */
+    public Long resolverId(String nombre) {
+        String clave = Categoria.normalizar(nombre);
+        if (clave == null || clave.isEmpty()) {
+            throw new IllegalArgumentException("El nombre de la categoría es requerido");
+        }
+
+        Long id = idsPorNombre.get(clave);
+        if (id == null) {
+            id = buscarOCrear(nombre.trim(), clave);
+            idsPorNombre.put(clave, id);
+        }
+        return id;
+    }
+
+    /**
+     * Busca la categoría por nombre sin crearla
+     * @return ID de la categoría, o vacío si no existe
+     */
+    public Optional<Long> buscarId(String nombre) {
+        String clave = Categoria.normalizar(nombre);
+        if (clave == null || clave.isEmpty()) {
+            throw new IllegalArgumentException("El nombre de la categoría es requerido");
+        }
+
+        Long id = idsPorNombre.get(clave);
+        if (id != null) {
+            return Optional.of(id);
+        }
+        Optional<Long> existente = categoriaRepository.findByNombreNormalizado(clave).map(Categoria::getId);
+        existente.ifPresent(encontrado -> idsPorNombre.put(clave, encontrado));
+        return existente;
+    }
+
+    /**
+     * Crea la categoría dentro de la transacción del llamador, que debe estar activa
+     * Si esa transacción se revierte la categoría no queda creada; se incorpora al mapa recién
+     * al confirmar. Un alta concurrente del mismo nombre hace fallar la escritura del llamador
+     */
+    public Long crearEnTransaccion(String nombre) {
+        Categoria nuevaCategoria = new Categoria();
+        nuevaCategoria.setNombre(nombre.trim());
+        nuevaCategoria.setDescripcion("Categoría " + nombre.trim());
+        nuevaCategoria.setActiva(true);
+        Long nuevoId = categoriaRepository.saveAndFlush(nuevaCategoria).getId();
+        String clave = Categoria.normalizar(nombre);
+        Transacciones.despuesDelCommit(() -> {
+            idsPorNombre.put(clave, nuevoId);
+            System.out.println("🏷️ Categoría creada: " + nombre.trim());
+        });
+        return nuevoId;
+    }
+
+    private Long buscarOCrear(String nombre, String clave) {
+        return categoriaRepository.findByNombreNormalizado(clave)
+            .map(Categoria::getId)
+            .orElseGet(() -> {
+                try {
+                    return transaccionNueva.execute(status -> {
+                        Categoria nuevaCategoria = new Categoria();
+                        nuevaCategoria.setNombre(nombre);
+                        nuevaCategoria.setDescripcion("Categoría " + nombre);
+                        nuevaCategoria.setActiva(true);
+                        Long nuevoId = categoriaRepository.saveAndFlush(nuevaCategoria).getId();
+                        System.out.println("🏷️ Categoría creada: " + nombre);
+                        return nuevoId;
+                    });
+                } catch (DataIntegrityViolationException e) {
+                    // Otra escritura la creó primero: el índice único rechazó el duplicado.
+                    // Se relee en una transacción nueva para ver la fila ya confirmada
+                    return transaccionNueva.execute(status -> categoriaRepository.findByNombreNormalizado(clave))
+                        .map(Categoria::getId)
+                        .orElseThrow(() -> e);
+                }
+            });
+    }
+}
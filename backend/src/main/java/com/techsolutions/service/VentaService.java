@@ -0,0 +1,508 @@
+package com.techsolutions.service;
+
+import com.techsolutions.dto.CheckoutRequestDTO;
+import com.techsolutions.dto.CheckoutRequestDTO.ClienteCheckout;
+import com.techsolutions.dto.CheckoutRequestDTO.LineaCheckout;
+import com.techsolutions.model.Cliente;
+import com.techsolutions.model.DetalleVenta;
+import com.techsolutions.model.Producto;
+import com.techsolutions.model.Usuario;
+import com.techsolutions.model.Venta;
+import com.techsolutions.model.Venta.EstadoVenta;
+import com.techsolutions.pattern.decorator.PagoNoEnviadoException;
+import com.techsolutions.repository.ClienteRepository;
+import com.techsolutions.repository.UsuarioRepository;
+import com.techsolutions.repository.VentaRepository;
+import com.techsolutions.service.ConciliacionPagosService.EstadoTransaccion;
+import com.techsolutions.service.ReservaStockService.ConfirmacionPagada;
+import com.techsolutions.util.AlmacenIdempotencia.ConflictoIdempotencia;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Motor de checkout del lado del servidor
+ * En una sola llamada valora el carrito con los precios del catálogo, reserva el stock, cobra
+ * con PagoService y registra la venta con sus detalles (PENDIENTE -> PROCESANDO -> COMPLETADA).
+ * Ninguna transacción queda abierta durante el cobro: los bloqueos de fila del stock se liberan
+ * al confirmar la venta PENDIENTE y la reserva se confirma o libera en una segunda transacción corta.
+ * Si el resultado del cobro es desconocido la venta sigue PROCESANDO con el stock retenido; una
+ * recuperación programada la cierra cuando la conciliación obtiene el estado real del cobro, y
+ * también cierra las ventas que quedaron a medias por una caída entre pasos
+ */
+@Service
+@SuppressWarnings("null")
+public class VentaService {
+
+    @Autowired
+    private VentaRepository ventaRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private ReservaStockService reservaStockService;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private ConciliacionPagosService conciliacionPagos;
+
+    @Value("${ventas.checkout.vendedor:tienda_online}")
+    private String vendedorPorDefecto;
+
+    @Value("${ventas.recuperacion.minutos-antiguedad:10}")
+    private long minutosAntiguedad;
+
+    @Value("${ventas.recuperacion.minutos-retencion:60}")
+    private long minutosRetencion;
+
+    @Value("${ventas.recuperacion.tamano-lote:100}")
+    private int tamanoLoteRecuperacion;
+
+    @Value("${ventas.recuperacion.max-lotes:10}")
+    private int maxLotesRecuperacion;
+
+    private final Map<String, Long> idsVendedor = new ConcurrentHashMap<>();
+
+    private final TransactionTemplate transaccion;
+
+    private final TransactionTemplate transaccionNueva;
+
+    public VentaService(PlatformTransactionManager transactionManager) {
+        this.transaccion = new TransactionTemplate(transactionManager);
+        this.transaccionNueva = new TransactionTemplate(transactionManager);
+        this.transaccionNueva.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * Resultado de un cobro: solo un rechazo seguro permite cancelar la venta y liberar el stock
+     */
+    private enum ResultadoCobro {
+        APROBADO,
+        RECHAZADO,
+        DESCONOCIDO
+    }
+
+    /**
+     * Cierre de una venta cobrada o rechazada
+     * @param advertencia Aviso de la confirmación de la reserva, o null si se confirmó tal como estaba
+     */
+    private record Cierre(EstadoVenta estado, String advertencia) {}
+
+    /**
+     * Resultado del checkout
+     * @param advertencia Aviso sobre la reserva de un pedido cobrado, o null si no hubo novedades
+     * @param repetida true si la clave de idempotencia ya tenía una venta y no se volvió a cobrar
+     */
+    public record ResultadoCheckout(Long ventaId, String numeroVenta, EstadoVenta estado, BigDecimal subtotal,
+                                    BigDecimal descuento, BigDecimal total, String pasarela, String mensaje,
+                                    String advertencia, boolean repetida) {
+
+        public boolean exitoso() {
+            return estado == EstadoVenta.COMPLETADA;
+        }
+    }
+
+    /**
+     * Ejecuta el checkout completo
+     * @param claveIdempotencia Clave del cliente (header Idempotency-Key); un reintento con la
+     *                          misma clave devuelve la venta ya registrada sin volver a cobrar
+     * @throws IllegalArgumentException si la solicitud es inválida
+     * @throws ConflictoIdempotencia si la clave ya se usó con otro carrito, cliente, vendedor o pasarela
+     * @throws IllegalStateException si no hay stock suficiente
+     */
+    public ResultadoCheckout checkout(String claveIdempotencia, CheckoutRequestDTO request) {
+        String clave = normalizarClave(claveIdempotencia);
+        String pasarela = validarPasarela(request);
+        Map<Long, Integer> lineas = agruparLineas(request);
+        String huella = clave == null ? null : huella(pasarela, request, lineas);
+        if (clave != null) {
+            Optional<Venta> existente = ventaRepository.findByClaveIdempotencia(clave);
+            if (existente.isPresent()) {
+                return repetida(existente.get(), huella);
+            }
+        }
+
+        Long clienteId = resolverCliente(request.getCliente());
+        Long usuarioId = resolverVendedor(request.getVendedor());
+
+        Venta venta;
+        try {
+            venta = registrarPendiente(clave, huella, pasarela, lineas, clienteId, usuarioId);
+        } catch (DataIntegrityViolationException e) {
+            // Otro reintento con la misma clave registró la venta primero
+            if (clave == null) {
+                throw e;
+            }
+            return ventaRepository.findByClaveIdempotencia(clave)
+                .map(v -> repetida(v, huella))
+                .orElseThrow(() -> e);
+        }
+
+        // PROCESANDO se confirma antes de cobrar: una venta PENDIENTE nunca llegó a la pasarela
+        if (ventaRepository.cambiarEstado(venta.getId(), EstadoVenta.PENDIENTE, EstadoVenta.PROCESANDO) == 0) {
+            return resultado(ventaRepository.findById(venta.getId()).orElseThrow(), null, false);
+        }
+        ResultadoCobro cobro = cobrar(pasarela, venta);
+        if (cobro == ResultadoCobro.DESCONOCIDO) {
+            reservaStockService.prolongar(venta.getNumeroVenta(), LocalDateTime.now().plusMinutes(minutosRetencion));
+            venta.setEstado(EstadoVenta.PROCESANDO);
+            System.out.println("⏳ Venta en verificación: " + venta.getNumeroVenta() + " | Total: " + venta.getTotal()
+                + " | Pasarela: " + pasarela);
+            return resultado(venta, null, false);
+        }
+        Cierre cierre = cerrar(venta, cobro == ResultadoCobro.APROBADO);
+        venta.setEstado(cierre.estado());
+
+        String etiqueta = switch (cierre.estado()) {
+            case COMPLETADA -> "🧾 Venta completada: ";
+            case CANCELADA -> "🚫 Venta cancelada: ";
+            default -> "🚨 Venta en " + cierre.estado() + ": ";
+        };
+        System.out.println(etiqueta + venta.getNumeroVenta() + " | Total: " + venta.getTotal() + " | Pasarela: " + pasarela);
+        return resultado(venta, cierre.advertencia(), false);
+    }
+
+    /**
+     * Recuperación programada de checkouts sin cerrar
+     */
+    @Scheduled(fixedDelayString = "${ventas.recuperacion.intervalo-ms:60000}")
+    public void recuperarVentas() {
+        recuperarVentas(LocalDateTime.now().minusMinutes(minutosAntiguedad));
+    }
+
+    /**
+     * Cierra las ventas PENDIENTE o PROCESANDO registradas antes del límite
+     * Una venta PENDIENTE nunca se cobró y se cancela. Una PROCESANDO se cierra según el estado
+     * definitivo del cobro en la conciliación, que la consulta a la pasarela si no lo conocía;
+     * si la pasarela no lo confirma dentro de la espera máxima queda en REVISION_MANUAL
+     * @param limite Antigüedad mínima: un checkout en curso no se toca
+     * @return Ventas cerradas
+     */
+    public int recuperarVentas(LocalDateTime limite) {
+        int cerradas = 0;
+        // Las cerradas salen de la consulta y desplazan las páginas: lo que se salte se toma en la próxima ejecución
+        for (int lote = 0; lote < maxLotesRecuperacion; lote++) {
+            List<Venta> ventas = ventaRepository.findByEstadoInAndFechaBeforeOrderByFechaAsc(
+                List.of(EstadoVenta.PENDIENTE, EstadoVenta.PROCESANDO), limite,
+                PageRequest.of(lote, tamanoLoteRecuperacion));
+            for (Venta venta : ventas) {
+                try {
+                    if (recuperar(venta)) {
+                        cerradas++;
+                    }
+                } catch (RuntimeException e) {
+                    System.out.println("⚠️ No se pudo recuperar la venta " + venta.getNumeroVenta() + ": " + e.getMessage());
+                }
+            }
+            if (ventas.size() < tamanoLoteRecuperacion) {
+                break;
+            }
+        }
+        if (cerradas > 0) {
+            System.out.println("🩹 Ventas recuperadas: " + cerradas);
+        }
+        return cerradas;
+    }
+
+    /**
+     * @return true si la venta quedó cerrada
+     */
+    private boolean recuperar(Venta venta) {
+        if (venta.getEstado() == EstadoVenta.PENDIENTE) {
+            return cancelar(venta, EstadoVenta.PENDIENTE) == EstadoVenta.CANCELADA;
+        }
+        EstadoTransaccion cobro = conciliacionPagos.registrarPendiente(venta.getMetodoPago(), venta.getNumeroVenta());
+        if (!cobro.definitivo()) {
+            return false;
+        }
+        EstadoVenta estadoFinal = switch (cobro.estado()) {
+            case "COMPLETADO", "APROBADO" -> cerrar(venta, true).estado();
+            case "RECHAZADO", "FALLIDO", "CANCELADO", "REEMBOLSADO" -> cerrar(venta, false).estado();
+            default -> {
+                if (ventaRepository.cambiarEstado(venta.getId(), EstadoVenta.PROCESANDO, EstadoVenta.REVISION_MANUAL) == 0) {
+                    yield estadoActual(venta);
+                }
+                System.out.println("🚨 Cobro sin confirmar: " + venta.getNumeroVenta() + " (" + cobro.estado()
+                    + ") | Requiere atención manual");
+                yield EstadoVenta.REVISION_MANUAL;
+            }
+        };
+        return estadoFinal != EstadoVenta.PROCESANDO;
+    }
+
+    /**
+     * Busca una venta por su número
+     */
+    public Optional<ResultadoCheckout> consultar(String numeroVenta) {
+        return ventaRepository.findByNumeroVenta(numeroVenta).map(venta -> resultado(venta, null, false));
+    }
+
+    /**
+     * Transacción 1: registra la venta PENDIENTE, reserva el stock con UPDATE condicionales
+     * y arma los detalles con los precios vigentes de los productos reservados
+     */
+    private Venta registrarPendiente(String clave, String huella, String pasarela, Map<Long, Integer> lineas,
+                                     Long clienteId, Long usuarioId) {
+        return transaccion.execute(status -> {
+            Venta venta = new Venta();
+            venta.setClaveIdempotencia(clave);
+            venta.setHuellaIdempotencia(huella);
+            venta.setMetodoPago(pasarela);
+            venta.setEstrategiaPrecio("ESTANDAR");
+            venta.setEstado(EstadoVenta.PENDIENTE);
+            venta.setCliente(clienteRepository.getReferenceById(clienteId));
+            venta.setUsuario(usuarioRepository.getReferenceById(usuarioId));
+            // El flush inmediato detecta una clave repetida antes de tocar el stock
+            ventaRepository.saveAndFlush(venta);
+
+            for (Producto producto : reservaStockService.reservar(venta.getNumeroVenta(), lineas).productos()) {
+                DetalleVenta detalle = new DetalleVenta();
+                detalle.setProducto(producto);
+                detalle.setPrecioUnitarioDinero(producto.getPrecioDinero());
+                detalle.setCantidad(lineas.get(producto.getId()));
+                venta.agregarDetalle(detalle);
+            }
+            return ventaRepository.save(venta);
+        });
+    }
+
+    /**
+     * Cobra fuera de toda transacción
+     * Es un rechazo seguro la respuesta negativa de la pasarela o un error anterior al envío
+     * (pasarela deshabilitada, saturada o con el circuito abierto). Cualquier otro error deja el
+     * cobro en duda: la referencia queda pendiente para confirmar con la pasarela si se realizó
+     */
+    private ResultadoCobro cobrar(String pasarela, Venta venta) {
+        try {
+            boolean pagado = pagoService.procesarPago(pasarela, venta.getTotal(), venta.getNumeroVenta());
+            conciliacionPagos.registrarResultado(pasarela, venta.getNumeroVenta(), pagado);
+            return pagado ? ResultadoCobro.APROBADO : ResultadoCobro.RECHAZADO;
+        } catch (PagoNoEnviadoException | IllegalArgumentException e) {
+            System.out.println("⚠️ Pago no enviado: " + venta.getNumeroVenta() + " - " + e.getMessage());
+            return ResultadoCobro.RECHAZADO;
+        } catch (RuntimeException e) {
+            System.out.println("⚠️ Pago sin resultado: " + venta.getNumeroVenta() + " - " + e.getMessage());
+            conciliacionPagos.registrarPendiente(pasarela, venta.getNumeroVenta());
+            return ResultadoCobro.DESCONOCIDO;
+        }
+    }
+
+    /**
+     * Cierra una venta PROCESANDO según el resultado del cobro
+     * Tras un cobro la reserva se confirma fuera de la transacción de la venta: confirmarPagada usa
+     * las suyas y nunca falla, porque el dinero ya se movió. Un pedido cobrado que quedó sin stock
+     * o sin reserva pasa a REVISION_MANUAL en lugar de COMPLETADA
+     * @return Estado final y advertencia de la reserva; si otra llamada ya la cerró, el estado que dejó
+     */
+    private Cierre cerrar(Venta venta, boolean pagado) {
+        if (!pagado) {
+            return new Cierre(cancelar(venta, EstadoVenta.PROCESANDO), null);
+        }
+        ConfirmacionPagada confirmacion = reservaStockService.confirmarPagada(venta.getNumeroVenta());
+        EstadoVenta estadoFinal = confirmacion.requiereRevision() ? EstadoVenta.REVISION_MANUAL : EstadoVenta.COMPLETADA;
+        EstadoVenta estado = ventaRepository.cambiarEstado(venta.getId(), EstadoVenta.PROCESANDO, estadoFinal) == 1
+            ? estadoFinal
+            : estadoActual(venta);
+        return new Cierre(estado, confirmacion.advertencia());
+    }
+
+    /**
+     * Transacción 2: cancela la venta y libera la reserva, solo si la venta sigue en el estado esperado
+     */
+    private EstadoVenta cancelar(Venta venta, EstadoVenta actual) {
+        return transaccion.execute(status -> {
+            if (ventaRepository.cambiarEstado(venta.getId(), actual, EstadoVenta.CANCELADA) == 0) {
+                return estadoActual(venta);
+            }
+            reservaStockService.liberar(venta.getNumeroVenta());
+            return EstadoVenta.CANCELADA;
+        });
+    }
+
+    private EstadoVenta estadoActual(Venta venta) {
+        return ventaRepository.findById(venta.getId()).map(Venta::getEstado).orElse(venta.getEstado());
+    }
+
+    private String normalizarClave(String claveIdempotencia) {
+        if (claveIdempotencia == null || claveIdempotencia.isBlank()) {
+            return null;
+        }
+        String clave = claveIdempotencia.trim();
+        if (clave.length() > 64) {
+            throw new IllegalArgumentException("La clave de idempotencia no puede superar 64 caracteres");
+        }
+        return clave;
+    }
+
+    private String validarPasarela(CheckoutRequestDTO request) {
+        if (request.getPasarela() == null || request.getPasarela().isBlank()) {
+            throw new IllegalArgumentException("La pasarela de pago es requerida");
+        }
+        String pasarela = request.getPasarela().trim().toLowerCase();
+        if (!pagoService.existePasarela(pasarela)) {
+            throw new IllegalArgumentException("Pasarela no encontrada: " + request.getPasarela());
+        }
+        return pasarela;
+    }
+
+    /**
+     * Venta ya registrada con la clave; solo se devuelve si la solicitud es la misma
+     * Las ventas anteriores a la huella no la tienen y se aceptan
+     */
+    private ResultadoCheckout repetida(Venta venta, String huella) {
+        if (venta.getHuellaIdempotencia() != null && !venta.getHuellaIdempotencia().equals(huella)) {
+            throw new ConflictoIdempotencia("La clave de idempotencia ya se usó con otro carrito");
+        }
+        return resultado(venta, null, true);
+    }
+
+    /**
+     * SHA-256 de los datos que identifican el checkout: pasarela, documento del cliente, vendedor
+     * y líneas agrupadas en orden de producto, así el orden o la división de las líneas no la cambian
+     */
+    private String huella(String pasarela, CheckoutRequestDTO request, Map<Long, Integer> lineas) {
+        StringBuilder datos = new StringBuilder(pasarela)
+            .append('|').append(request.getCliente() == null || request.getCliente().getDocumento() == null
+                ? "" : request.getCliente().getDocumento().trim())
+            .append('|').append(request.getVendedor() == null || request.getVendedor().isBlank()
+                ? vendedorPorDefecto : request.getVendedor().trim());
+        new TreeMap<>(lineas).forEach((productoId, cantidad) -> datos.append('|').append(productoId).append('x').append(cantidad));
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256")
+                .digest(datos.toString().getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 no disponible", e);
+        }
+    }
+
+    /**
+     * Suma las cantidades de líneas repetidas del mismo producto
+     */
+    private Map<Long, Integer> agruparLineas(CheckoutRequestDTO request) {
+        if (request.getLineas() == null || request.getLineas().isEmpty()) {
+            throw new IllegalArgumentException("El carrito debe tener al menos un producto");
+        }
+        Map<Long, Integer> lineas = new LinkedHashMap<>();
+        for (LineaCheckout linea : request.getLineas()) {
+            if (linea == null || linea.getProductoId() == null) {
+                throw new IllegalArgumentException("Cada línea debe indicar el producto");
+            }
+            if (linea.getCantidad() == null || linea.getCantidad() <= 0) {
+                throw new IllegalArgumentException("La cantidad debe ser mayor a cero");
+            }
+            lineas.merge(linea.getProductoId(), linea.getCantidad(), Math::addExact);
+        }
+        return lineas;
+    }
+
+    /**
+     * Obtiene el cliente por documento o lo registra
+     */
+    private Long resolverCliente(ClienteCheckout datos) {
+        if (datos == null || datos.getDocumento() == null || datos.getDocumento().isBlank()) {
+            throw new IllegalArgumentException("El documento del cliente es requerido");
+        }
+        String documento = datos.getDocumento().trim();
+        return obtenerOCrear(
+            () -> clienteRepository.findByDocumento(documento).map(Cliente::getId),
+            () -> {
+                if (datos.getNombre() == null || datos.getNombre().isBlank()
+                        || datos.getApellido() == null || datos.getApellido().isBlank()) {
+                    throw new IllegalArgumentException("Nombre y apellido son requeridos para un cliente nuevo");
+                }
+                Cliente cliente = new Cliente();
+                cliente.setDocumento(documento);
+                cliente.setNombre(datos.getNombre().trim());
+                cliente.setApellido(datos.getApellido().trim());
+                cliente.setEmail(datos.getEmail());
+                return clienteRepository.saveAndFlush(cliente).getId();
+            });
+    }
+
+    /**
+     * Obtiene el ID del vendedor; el usuario de la tienda en línea se registra la primera vez
+     * Los IDs quedan en memoria: el vendedor de cada venta no cuesta una consulta
+     */
+    private Long resolverVendedor(String vendedor) {
+        String username = (vendedor == null || vendedor.isBlank()) ? vendedorPorDefecto : vendedor.trim();
+        Long id = idsVendedor.get(username);
+        if (id != null) {
+            return id;
+        }
+        id = obtenerOCrear(
+            () -> usuarioRepository.findByUsername(username).map(Usuario::getId),
+            () -> {
+                if (!username.equals(vendedorPorDefecto)) {
+                    throw new IllegalArgumentException("Vendedor no encontrado: " + username);
+                }
+                // Usuario técnico: solo identifica las ventas en línea, el inicio de sesión no usa esta tabla
+                Usuario tienda = new Usuario();
+                tienda.setUsername(username);
+                tienda.setPassword(UUID.randomUUID().toString());
+                tienda.setNombreCompleto("Tienda en línea");
+                tienda.setEmail(username + "@techsolutions.com");
+                tienda.getRoles().add("VENDEDOR");
+                Long nuevoId = usuarioRepository.saveAndFlush(tienda).getId();
+                System.out.println("👤 Vendedor de la tienda en línea registrado: " + username);
+                return nuevoId;
+            });
+        idsVendedor.put(username, id);
+        return id;
+    }
+
+    /**
+     * Busca un registro y, si no existe, lo crea en su propia transacción
+     * Si otro checkout lo creó a la vez, el índice único rechaza el duplicado y se relee
+     * el ya confirmado
+     */
+    private Long obtenerOCrear(Supplier<Optional<Long>> buscar, Supplier<Long> crear) {
+        return buscar.get().orElseGet(() -> {
+            try {
+                return transaccionNueva.execute(status -> crear.get());
+            } catch (DataIntegrityViolationException e) {
+                return transaccionNueva.execute(status -> buscar.get()).orElseThrow(() -> e);
+            }
+        });
+    }
+
+    private ResultadoCheckout resultado(Venta venta, String advertencia, boolean repetida) {
+        String mensaje = switch (venta.getEstado()) {
+            case COMPLETADA -> "Venta completada";
+            case CANCELADA -> "Pago rechazado: la venta fue cancelada y el stock liberado";
+            case PENDIENTE, PROCESANDO -> "La venta se está procesando";
+            case REVISION_MANUAL -> "No se pudo confirmar el pago o el stock del pedido: la venta quedó para revisión manual";
+        };
+        if (advertencia != null) {
+            mensaje = mensaje + ". " + advertencia;
+        }
+        return new ResultadoCheckout(venta.getId(), venta.getNumeroVenta(), venta.getEstado(), venta.getSubtotal(),
+            venta.getDescuento(), venta.getTotal(), venta.getMetodoPago(), mensaje, advertencia, repetida);
+    }
+}
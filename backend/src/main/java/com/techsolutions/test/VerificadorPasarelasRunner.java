@@ -82,7 +82,7 @@ public class VerificadorPasarelasRunner implements CommandLineRunner {
         System.out.println("🔧 Deshabilitando pasarela Yape...");
         pagoService.configurarPasarela("yape", false);
         var estados = pagoService.obtenerEstadoPasarelas();
-        System.out.println("   • Yape: " + (Boolean.FALSE.equals(estados.get("yape")) ? "✓ Deshabilitada correctamente" : "✗ Error"));
+        System.out.println("   • Yape: " + (Boolean.FALSE.equals(estados.get("yape").get("habilitada")) ? "✓ Deshabilitada correctamente" : "✗ Error"));
         
         // Intentar procesar con pasarela deshabilitada
         System.out.println("\n🚫 Intentando procesar pago con pasarela deshabilitada:");
@@ -97,7 +97,7 @@ public class VerificadorPasarelasRunner implements CommandLineRunner {
         System.out.println("\n🔧 Habilitando nuevamente Yape...");
         pagoService.configurarPasarela("yape", true);
         estados = pagoService.obtenerEstadoPasarelas();
-        System.out.println("   • Yape: " + (Boolean.TRUE.equals(estados.get("yape")) ? "✓ Habilitada correctamente" : "✗ Error"));
+        System.out.println("   • Yape: " + (Boolean.TRUE.equals(estados.get("yape").get("habilitada")) ? "✓ Habilitada correctamente" : "✗ Error"));
         
         // Verificar que ahora sí funciona
         System.out.println("\n✔️ Verificando que Yape ahora funciona:");
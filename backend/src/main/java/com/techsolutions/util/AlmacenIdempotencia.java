@@ -0,0 +1,285 @@
+package com.techsolutions.util;
+
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Almacén en memoria de resultados por clave de idempotencia
+ * La primera solicitud con una clave ejecuta la operación; las repetidas que llegan mientras tanto
+ * esperan ese mismo resultado y las posteriores lo reciben sin volver a ejecutarla.
+ * Un resultado vence tras el TTL contado desde que terminó la operación y el número de claves
+ * está acotado: al llenarse se descartan primero las vencidas y luego las terminadas más antiguas.
+ * Si la operación lanza una excepción la clave se libera para que un reintento vuelva a ejecutarla,
+ * salvo que quien llama indique lo contrario: un pago que ya llegó a la pasarela pudo cobrarse, y
+ * su error se guarda igual que un resultado para que el reintento lo reciba sin volver a cobrar
+ */
+public class AlmacenIdempotencia<T> {
+
+    public static final int LONGITUD_MAXIMA_CLAVE = 64;
+
+    /**
+     * Resultado de la operación
+     * @param repetido true si se reutilizó el resultado de otra solicitud con la misma clave
+     */
+    public record Resultado<T>(T valor, boolean repetido) {}
+
+    /**
+     * La clave ya se usó con otra solicitud o la solicitud original sigue en proceso
+     */
+    public static class ConflictoIdempotencia extends IllegalStateException {
+        private static final long serialVersionUID = 1L;
+
+        public ConflictoIdempotencia(String mensaje) {
+            super(mensaje);
+        }
+    }
+
+    private static final class Entrada<T> {
+        private final String huella;
+        private final CompletableFuture<T> futuro = new CompletableFuture<>();
+        private volatile long venceEn;
+
+        private Entrada(String huella) {
+            this.huella = huella;
+        }
+
+        private boolean vencida(long ahora) {
+            return futuro.isDone() && ahora - venceEn >= 0;
+        }
+    }
+
+    private static final Predicate<Throwable> LIBERAR_SIEMPRE = error -> true;
+
+    private final Map<String, Entrada<T>> entradas = new ConcurrentHashMap<>();
+    private final long ttlNanos;
+    private final int maxClaves;
+    private final long esperaMs;
+
+    /**
+     * @param ttl Tiempo que se conserva un resultado terminado
+     * @param maxClaves Máximo de claves en memoria
+     * @param espera Tiempo máximo que una solicitud repetida espera a la original
+     */
+    public AlmacenIdempotencia(Duration ttl, int maxClaves, Duration espera) {
+        if (maxClaves <= 0) {
+            throw new IllegalArgumentException("El máximo de claves debe ser mayor a cero");
+        }
+        this.ttlNanos = ttl.toNanos();
+        this.maxClaves = maxClaves;
+        this.esperaMs = espera.toMillis();
+    }
+
+    /**
+     * Ejecuta la operación una sola vez por clave
+     * @param clave Clave de idempotencia enviada por el cliente
+     * @param huella Resumen de la solicitud: una clave repetida con otra huella es un error del cliente
+     * @throws ConflictoIdempotencia si la huella no coincide, si la original no termina dentro
+     *                               de la espera o si el almacén está lleno de operaciones en curso
+     */
+    public Resultado<T> ejecutar(String clave, String huella, Supplier<T> operacion) {
+        return ejecutar(clave, huella, operacion, LIBERAR_SIEMPRE);
+    }
+
+    /**
+     * Igual que ejecutar, pero solo los errores que cumplen liberaClave liberan la clave; los demás
+     * se guardan hasta el TTL y cada reintento recibe la misma excepción
+     * @param liberaClave true si el error ocurrió antes de que la operación tuviera efecto
+     */
+    public Resultado<T> ejecutar(String clave, String huella, Supplier<T> operacion,
+                                 Predicate<Throwable> liberaClave) {
+        validarClave(clave);
+
+        Entrada<T> nueva = new Entrada<>(huella);
+        while (true) {
+            Entrada<T> actual = entradas.putIfAbsent(clave, nueva);
+            if (actual == null) {
+                hacerEspacio(clave, nueva);
+                return new Resultado<>(ejecutarPropia(clave, nueva, operacion, liberaClave), false);
+            }
+            if (actual.vencida(System.nanoTime())) {
+                entradas.remove(clave, actual);
+                continue;
+            }
+            if (!Objects.equals(actual.huella, huella)) {
+                throw new ConflictoIdempotencia("La clave de idempotencia ya se usó con otra solicitud");
+            }
+            return new Resultado<>(esperar(actual), true);
+        }
+    }
+
+    /**
+     * Variante asíncrona de ejecutar: la operación devuelve un futuro y ningún hilo espera
+     * Las solicitudes repetidas se encadenan al futuro de la original; si no termina dentro de
+     * la espera el futuro devuelto se completa con ConflictoIdempotencia
+     * @throws ConflictoIdempotencia si la huella no coincide o el almacén está lleno de operaciones en curso
+     */
+    public CompletableFuture<Resultado<T>> ejecutarAsync(String clave, String huella,
+                                                        Supplier<CompletableFuture<T>> operacion) {
+        return ejecutarAsync(clave, huella, operacion, LIBERAR_SIEMPRE);
+    }
+
+    /**
+     * Variante asíncrona de ejecutar con liberaClave
+     */
+    public CompletableFuture<Resultado<T>> ejecutarAsync(String clave, String huella,
+                                                        Supplier<CompletableFuture<T>> operacion,
+                                                        Predicate<Throwable> liberaClave) {
+        validarClave(clave);
+
+        Entrada<T> nueva = new Entrada<>(huella);
+        while (true) {
+            Entrada<T> actual = entradas.putIfAbsent(clave, nueva);
+            if (actual == null) {
+                hacerEspacio(clave, nueva);
+                return ejecutarPropiaAsync(clave, nueva, operacion, liberaClave)
+                    .thenApply(valor -> new Resultado<>(valor, false));
+            }
+            if (actual.vencida(System.nanoTime())) {
+                entradas.remove(clave, actual);
+                continue;
+            }
+            if (!Objects.equals(actual.huella, huella)) {
+                throw new ConflictoIdempotencia("La clave de idempotencia ya se usó con otra solicitud");
+            }
+            return actual.futuro.thenApply(valor -> new Resultado<>(valor, true))
+                .orTimeout(esperaMs, TimeUnit.MILLISECONDS)
+                .exceptionally(error -> {
+                    Throwable causa = error instanceof CompletionException ? error.getCause() : error;
+                    if (causa instanceof TimeoutException) {
+                        throw new ConflictoIdempotencia("La solicitud original con esta clave sigue en proceso");
+                    }
+                    throw error instanceof CompletionException completion ? completion : new CompletionException(causa);
+                });
+        }
+    }
+
+    /**
+     * Número de claves en memoria (en curso y terminadas)
+     */
+    public int tamano() {
+        return entradas.size();
+    }
+
+    /**
+     * Quita los resultados vencidos
+     * @return Claves descartadas
+     */
+    public int purgarVencidas() {
+        long ahora = System.nanoTime();
+        int antes = entradas.size();
+        entradas.values().removeIf(entrada -> entrada.vencida(ahora));
+        return Math.max(0, antes - entradas.size());
+    }
+
+    private T ejecutarPropia(String clave, Entrada<T> entrada, Supplier<T> operacion,
+                             Predicate<Throwable> liberaClave) {
+        try {
+            T valor = operacion.get();
+            entrada.venceEn = System.nanoTime() + ttlNanos;
+            entrada.futuro.complete(valor);
+            return valor;
+        } catch (RuntimeException | Error e) {
+            fallar(clave, entrada, e, liberaClave);
+            throw e;
+        }
+    }
+
+    private CompletableFuture<T> ejecutarPropiaAsync(String clave, Entrada<T> entrada,
+                                                     Supplier<CompletableFuture<T>> operacion,
+                                                     Predicate<Throwable> liberaClave) {
+        CompletableFuture<T> futuro;
+        try {
+            futuro = operacion.get();
+        } catch (RuntimeException | Error e) {
+            fallar(clave, entrada, e, liberaClave);
+            throw e;
+        }
+        futuro.whenComplete((valor, error) -> {
+            if (error == null) {
+                entrada.venceEn = System.nanoTime() + ttlNanos;
+                entrada.futuro.complete(valor);
+            } else {
+                fallar(clave, entrada, error instanceof CompletionException ? error.getCause() : error, liberaClave);
+            }
+        });
+        return entrada.futuro;
+    }
+
+    /**
+     * Libera la clave o guarda el error como resultado, según liberaClave
+     */
+    private void fallar(String clave, Entrada<T> entrada, Throwable error, Predicate<Throwable> liberaClave) {
+        if (liberaClave.test(error)) {
+            entradas.remove(clave, entrada);
+        } else {
+            entrada.venceEn = System.nanoTime() + ttlNanos;
+        }
+        entrada.futuro.completeExceptionally(error);
+    }
+
+    /**
+     * Espera el resultado de la solicitud original; si esta falló se propaga la misma excepción
+     */
+    private T esperar(Entrada<T> entrada) {
+        try {
+            return entrada.futuro.get(esperaMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new ConflictoIdempotencia("La solicitud original con esta clave sigue en proceso");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ConflictoIdempotencia("Espera interrumpida por la solicitud original");
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private static void validarClave(String clave) {
+        if (clave == null || clave.isBlank()) {
+            throw new IllegalArgumentException("La clave de idempotencia es requerida");
+        }
+        if (clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            throw new IllegalArgumentException("La clave de idempotencia no puede superar "
+                + LONGITUD_MAXIMA_CLAVE + " caracteres");
+        }
+    }
+
+    /**
+     * Mantiene el almacén dentro del máximo; libera hasta el 90% para no recorrerlo en cada alta
+     * Las operaciones en curso nunca se descartan: si solo quedan esas, la nueva se rechaza
+     */
+    private void hacerEspacio(String clave, Entrada<T> nueva) {
+        if (entradas.size() <= maxClaves) {
+            return;
+        }
+        purgarVencidas();
+        int objetivo = maxClaves - maxClaves / 10;
+        if (entradas.size() > objetivo) {
+            entradas.entrySet().stream()
+                .filter(e -> e.getValue().futuro.isDone())
+                .sorted(Comparator.comparingLong(e -> e.getValue().venceEn))
+                .limit(entradas.size() - objetivo)
+                .toList()
+                .forEach(e -> entradas.remove(e.getKey(), e.getValue()));
+        }
+        if (entradas.size() > maxClaves) {
+            entradas.remove(clave, nueva);
+            throw new ConflictoIdempotencia("Demasiadas solicitudes en curso, intente nuevamente");
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.techsolutions.util;
+
+import java.util.Collection;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Cerrojos por ID repartidos en un número fijo de franjas
+ * Serializa las operaciones sobre un mismo ID sin crear un cerrojo por cada uno; usa
+ * ReentrantLock para no fijar el hilo portador cuando la operación corre en un hilo virtual
+ */
+public final class CerrojosPorId {
+
+    private final ReentrantLock[] franjas;
+
+    public CerrojosPorId(int franjas) {
+        if (franjas <= 0) {
+            throw new IllegalArgumentException("El número de franjas debe ser mayor a cero");
+        }
+        this.franjas = new ReentrantLock[franjas];
+        for (int i = 0; i < franjas; i++) {
+            this.franjas[i] = new ReentrantLock();
+        }
+    }
+
+    /**
+     * Ejecuta la acción con el cerrojo del ID tomado
+     */
+    public void ejecutar(long id, Runnable accion) {
+        ReentrantLock cerrojo = franjas[franja(id)];
+        cerrojo.lock();
+        try {
+            accion.run();
+        } finally {
+            cerrojo.unlock();
+        }
+    }
+
+    /**
+     * Ejecuta la acción con los cerrojos de todos los IDs tomados
+     * Las franjas se toman en orden ascendente: dos llamadas con IDs en común no se bloquean mutuamente
+     */
+    public void ejecutar(Collection<Long> ids, Runnable accion) {
+        int[] tomadas = ids.stream().mapToInt(this::franja).distinct().sorted().toArray();
+        int bloqueadas = 0;
+        try {
+            for (int franja : tomadas) {
+                franjas[franja].lock();
+                bloqueadas++;
+            }
+            accion.run();
+        } finally {
+            for (int i = bloqueadas - 1; i >= 0; i--) {
+                franjas[tomadas[i]].unlock();
+            }
+        }
+    }
+
+    private int franja(long id) {
+        return Math.floorMod(Long.hashCode(id), franjas.length);
+    }
+}
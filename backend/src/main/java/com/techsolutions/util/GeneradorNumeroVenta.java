@@ -0,0 +1,17 @@
+package com.techsolutions.util;
+
+/**
+ * Estrategia de generación del número de venta (columna ventas.numero_venta, única, 20 caracteres)
+ * Las implementaciones deben ser seguras para uso concurrente y no repetir valores,
+ * tampoco entre varias instancias de la aplicación
+ */
+@FunctionalInterface
+public interface GeneradorNumeroVenta {
+
+    /**
+     * Longitud máxima de la columna numero_venta
+     */
+    int LONGITUD_MAXIMA = 20;
+
+    String generar();
+}
@@ -0,0 +1,65 @@
+package com.techsolutions.util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generador de números de venta sin candados: "V" + un long de 63 bits
+ * <pre>
+ *   41 bits: milisegundos desde 2025-01-01 (alcanza ~69 años)
+ *   10 bits: nodo (0-1023), uno distinto por instancia de la aplicación
+ *   12 bits: secuencia dentro del milisegundo (4096 por ms y nodo)
+ * </pre>
+ * Milisegundo y secuencia viven juntos en un AtomicLong que solo avanza (compareAndSet):
+ * si la secuencia de un milisegundo se agota, el acarreo pasa al milisegundo siguiente en
+ * lugar de esperar, y si el reloj retrocede se sigue desde el último valor entregado.
+ * Así los números de un nodo nunca se repiten y crecen con el tiempo
+ */
+public class GeneradorNumeroVentaSecuencial implements GeneradorNumeroVenta {
+
+    static final long EPOCA_MS = Instant.parse("2025-01-01T00:00:00Z").toEpochMilli();
+
+    private static final int BITS_NODO = 10;
+    private static final int BITS_SECUENCIA = 12;
+    public static final int NODO_MAXIMO = (1 << BITS_NODO) - 1;
+
+    private final long nodo;
+
+    /**
+     * (milisegundos desde la época << BITS_SECUENCIA) | secuencia del último número entregado
+     */
+    private final AtomicLong ultimo = new AtomicLong();
+
+    public GeneradorNumeroVentaSecuencial(int nodo) {
+        if (nodo < 0 || nodo > NODO_MAXIMO) {
+            throw new IllegalArgumentException("El nodo debe estar entre 0 y " + NODO_MAXIMO + ": " + nodo);
+        }
+        this.nodo = nodo;
+    }
+
+    @Override
+    public String generar() {
+        return "V" + siguiente();
+    }
+
+    /**
+     * Siguiente identificador numérico de este nodo
+     */
+    public long siguiente() {
+        long ahora = (System.currentTimeMillis() - EPOCA_MS) << BITS_SECUENCIA;
+        long anterior;
+        long nuevo;
+        do {
+            anterior = ultimo.get();
+            nuevo = ahora > anterior ? ahora : anterior + 1;
+        } while (!ultimo.compareAndSet(anterior, nuevo));
+
+        long milisegundos = nuevo >>> BITS_SECUENCIA;
+        long secuencia = nuevo & ((1L << BITS_SECUENCIA) - 1);
+        return (milisegundos << (BITS_NODO + BITS_SECUENCIA)) | (nodo << BITS_SECUENCIA) | secuencia;
+    }
+
+    public int getNodo() {
+        return (int) nodo;
+    }
+}
@@ -144,14 +144,21 @@ function eliminarPromocion(id) {
 async function loadProductos() {
     console.log('📦 Cargando productos...');
     try {
-        const response = await fetch('/api/inventario/productos');
-        if (response.ok) {
-            productos = await response.json();
-            console.log('✅ Productos cargados:', productos.length);
-        } else {
-            console.error('❌ Error cargando productos:', response.status);
-            productos = [];
-        }
+        // El listado es paginado: se siguen los cursores hasta la última página
+        let cargados = [];
+        let cursor = null;
+        do {
+            const url = '/api/inventario/productos?tamano=200' + (cursor ? '&cursor=' + encodeURIComponent(cursor) : '');
+            const response = await fetch(url);
+            if (!response.ok) {
+                console.error('❌ Error cargando productos:', response.status);
+                break;
+            }
+            cargados = cargados.concat(await response.json());
+            cursor = response.headers.get('X-Siguiente-Cursor');
+        } while (cursor);
+        productos = cargados;
+        console.log('✅ Productos cargados:', productos.length);
     } catch (error) {
         console.error('❌ Error de red:', error);
         productos = [];
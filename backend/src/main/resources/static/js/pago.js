@@ -21,17 +21,23 @@
       if (!res.ok) throw new Error('No se pudo obtener estados');
       const data = await res.json();
       const entries = Object.entries(data);
-      estadoCont.innerHTML = entries.map(([nombre, habilitada]) => `
+      estadoCont.innerHTML = entries.map(([nombre, estado]) => {
+        const habilitada = estado.habilitada;
+        const circuito = estado.circuito === 'ABIERTO' ? 'No disponible'
+          : estado.circuito === 'SEMI_ABIERTO' ? 'Recuperándose' : '';
+        return `
         <div class="card" style="padding:12px;">
           <div class="flex-between">
             <strong>${nombre}</strong>
             <span class="badge ${habilitada ? 'badge-success' : 'badge-warning'}">${habilitada ? 'Habilitada' : 'Deshabilitada'}</span>
           </div>
+          ${habilitada && circuito ? `<div style="margin-top:6px;"><span class="badge badge-warning">${circuito} · fallos ${estado.tasaFallos}%</span></div>` : ''}
           <div class="flex-between" style="margin-top:8px;">
             <button class="btn btn-secondary" data-toggle="${nombre}">${habilitada ? 'Deshabilitar' : 'Habilitar'}</button>
           </div>
         </div>
-      `).join('');
+      `;
+      }).join('');
     } catch (e) {
       showResult('err', e.message);
     }
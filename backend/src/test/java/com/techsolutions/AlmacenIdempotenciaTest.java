@@ -0,0 +1,319 @@
+package com.techsolutions;
+
+import com.techsolutions.util.AlmacenIdempotencia;
+import com.techsolutions.util.AlmacenIdempotencia.ConflictoIdempotencia;
+import com.techsolutions.util.AlmacenIdempotencia.Resultado;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del almacén de idempotencia usado por /api/pagos/procesar
+ * Incluye una tormenta de reintentos que mide las llamadas a la pasarela evitadas
+ */
+@SuppressWarnings("all")
+@DisplayName("Tests de Idempotencia de Pagos")
+class AlmacenIdempotenciaTest {
+
+    private static final int HILOS = 32;
+
+    private AlmacenIdempotencia<String> almacen(Duration ttl, int maxClaves) {
+        return new AlmacenIdempotencia<>(ttl, maxClaves, Duration.ofSeconds(5));
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Solicitudes repetidas")
+    class RepetidasTests {
+
+        @Test
+        @DisplayName("Los duplicados simultáneos esperan a la primera ejecución en lugar de repetirla")
+        void duplicadosSimultaneos_unaSolaEjecucion() throws Exception {
+            // Arrange
+            AlmacenIdempotencia<String> almacen = almacen(Duration.ofMinutes(1), 100);
+            AtomicInteger ejecuciones = new AtomicInteger();
+            CountDownLatch largada = new CountDownLatch(1);
+            ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+            List<Future<Resultado<String>>> tareas = new ArrayList<>();
+
+            // Act
+            for (int h = 0; h < HILOS; h++) {
+                tareas.add(ejecutor.submit(() -> {
+                    largada.await();
+                    return almacen.ejecutar("pago-1", "yape|150.5", () -> {
+                        ejecuciones.incrementAndGet();
+                        dormir(200);
+                        return "TX-" + ejecuciones.get();
+                    });
+                }));
+            }
+            largada.countDown();
+            int originales = 0;
+            for (Future<Resultado<String>> tarea : tareas) {
+                Resultado<String> resultado = tarea.get(10, TimeUnit.SECONDS);
+                assertEquals("TX-1", resultado.valor());
+                originales += resultado.repetido() ? 0 : 1;
+            }
+            ejecutor.shutdown();
+
+            // Assert
+            assertEquals(1, ejecuciones.get());
+            assertEquals(1, originales);
+        }
+
+        @Test
+        @DisplayName("Un reintento posterior recibe el resultado guardado")
+        void reintentoPosterior_reutilizaResultado() {
+            // Arrange
+            AlmacenIdempotencia<String> almacen = almacen(Duration.ofMinutes(1), 100);
+            AtomicInteger ejecuciones = new AtomicInteger();
+
+            // Act
+            Resultado<String> primero = almacen.ejecutar("pago-2", "h", () -> "TX-" + ejecuciones.incrementAndGet());
+            Resultado<String> reintento = almacen.ejecutar("pago-2", "h", () -> "TX-" + ejecuciones.incrementAndGet());
+
+            // Assert
+            assertFalse(primero.repetido());
+            assertTrue(reintento.repetido());
+            assertEquals("TX-1", reintento.valor());
+            assertEquals(1, ejecuciones.get());
+        }
+
+        @Test
+        @DisplayName("La misma clave con otros datos es un conflicto")
+        void mismaClaveOtraHuella_lanzaConflicto() {
+            // Arrange
+            AlmacenIdempotencia<String> almacen = almacen(Duration.ofMinutes(1), 100);
+            almacen.ejecutar("pago-3", "yape|100", () -> "TX-1");
+
+            // Act & Assert
+            assertThrows(ConflictoIdempotencia.class, () -> almacen.ejecutar("pago-3", "yape|200", () -> "TX-2"));
+        }
+
+        @Test
+        @DisplayName("Si la operación falla, los que esperaban reciben el error y un reintento vuelve a ejecutar")
+        void operacionFallida_liberaLaClave() throws Exception {
+            // Arrange
+            AlmacenIdempotencia<String> almacen = almacen(Duration.ofMinutes(1), 100);
+            CountDownLatch enCurso = new CountDownLatch(1);
+            ExecutorService ejecutor = Executors.newSingleThreadExecutor();
+            Future<?> original = ejecutor.submit(() -> almacen.ejecutar("pago-4", "h", () -> {
+                enCurso.countDown();
+                dormir(200);
+                throw new IllegalStateException("La pasarela yape no está habilitada");
+            }));
+            enCurso.await();
+
+            // Act & Assert
+            IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> almacen.ejecutar("pago-4", "h", () -> "no debe ejecutarse"));
+            assertEquals("La pasarela yape no está habilitada", error.getMessage());
+            assertThrows(Exception.class, () -> original.get());
+            assertEquals("TX-ok", almacen.ejecutar("pago-4", "h", () -> "TX-ok").valor());
+            ejecutor.shutdown();
+        }
+
+        @Test
+        @DisplayName("Un error posterior al efecto se guarda y el reintento lo recibe sin volver a ejecutar")
+        void errorGuardado_noVuelveAEjecutar() {
+            // Arrange: solo los IllegalArgumentException (validación) liberan la clave
+            AlmacenIdempotencia<String> almacen = almacen(Duration.ofMinutes(1), 100);
+            AtomicInteger ejecuciones = new AtomicInteger();
+            IllegalStateException timeout = new IllegalStateException("La pasarela yape no respondió en 5000 ms");
+
+            // Act
+            assertThrows(IllegalStateException.class, () -> almacen.ejecutar("pago-5", "h", () -> {
+                ejecuciones.incrementAndGet();
+                throw timeout;
+            }, error -> error instanceof IllegalArgumentException));
+            IllegalStateException repetido = assertThrows(IllegalStateException.class,
+                () -> almacen.ejecutar("pago-5", "h", () -> {
+                    ejecuciones.incrementAndGet();
+                    return "TX-doble";
+                }, error -> error instanceof IllegalArgumentException));
+
+            // Assert
+            assertSame(timeout, repetido);
+            assertEquals(1, ejecuciones.get());
+            assertEquals(1, almacen.tamano());
+        }
+
+        @Test
+        @DisplayName("Un error anterior al efecto libera la clave también con el criterio de liberación")
+        void errorDeValidacion_liberaLaClave() {
+            // Arrange
+            AlmacenIdempotencia<String> almacen = almacen(Duration.ofMinutes(1), 100);
+            CompletableFuture<Resultado<String>> fallido = almacen.ejecutarAsync("pago-6", "h",
+                () -> CompletableFuture.failedFuture(new IllegalArgumentException("Pasarela no encontrada: visa")),
+                error -> error instanceof IllegalArgumentException);
+
+            // Act
+            Resultado<String> reintento = almacen.ejecutarAsync("pago-6", "h",
+                () -> CompletableFuture.completedFuture("TX-6"), error -> error instanceof IllegalArgumentException).join();
+
+            // Assert
+            assertTrue(fallido.isCompletedExceptionally());
+            assertFalse(reintento.repetido());
+            assertEquals("TX-6", reintento.valor());
+        }
+
+        @Test
+        @DisplayName("Una clave inválida se rechaza")
+        void claveInvalida_lanzaExcepcion() {
+            // Arrange
+            AlmacenIdempotencia<String> almacen = almacen(Duration.ofMinutes(1), 100);
+
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> almacen.ejecutar(" ", "h", () -> "x"));
+            assertThrows(IllegalArgumentException.class, () -> almacen.ejecutar("k".repeat(65), "h", () -> "x"));
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Vencimiento y límite")
+    class LimiteTests {
+
+        @Test
+        @DisplayName("Tras el TTL la clave vuelve a ejecutar la operación")
+        void ttlVencido_vuelveAEjecutar() {
+            // Arrange
+            AlmacenIdempotencia<String> almacen = almacen(Duration.ofMillis(50), 100);
+            almacen.ejecutar("pago-5", "h", () -> "TX-1");
+            dormir(100);
+
+            // Act
+            Resultado<String> resultado = almacen.ejecutar("pago-5", "h", () -> "TX-2");
+
+            // Assert
+            assertFalse(resultado.repetido());
+            assertEquals("TX-2", resultado.valor());
+        }
+
+        @Test
+        @DisplayName("El número de claves no supera el máximo y se descartan las más antiguas")
+        void maximoDeClaves_descartaLasMasAntiguas() {
+            // Arrange
+            AlmacenIdempotencia<String> almacen = almacen(Duration.ofMinutes(1), 100);
+
+            // Act
+            for (int i = 0; i < 1000; i++) {
+                almacen.ejecutar("pago-" + i, "h", () -> "TX");
+            }
+
+            // Assert
+            assertTrue(almacen.tamano() <= 100, "Claves: " + almacen.tamano());
+            assertTrue(almacen.ejecutar("pago-999", "h", () -> "otra").repetido());
+            assertFalse(almacen.ejecutar("pago-0", "h", () -> "otra").repetido());
+        }
+
+        @Test
+        @DisplayName("Con el almacén lleno de pagos en curso, una clave nueva se rechaza")
+        void almacenLlenoEnCurso_rechazaNueva() throws Exception {
+            // Arrange
+            AlmacenIdempotencia<String> almacen = almacen(Duration.ofMinutes(1), 2);
+            CountDownLatch liberar = new CountDownLatch(1);
+            CountDownLatch enCurso = new CountDownLatch(2);
+            ExecutorService ejecutor = Executors.newFixedThreadPool(2);
+            for (int i = 0; i < 2; i++) {
+                String clave = "lento-" + i;
+                ejecutor.submit(() -> almacen.ejecutar(clave, "h", () -> {
+                    enCurso.countDown();
+                    esperar(liberar);
+                    return "TX";
+                }));
+            }
+            enCurso.await();
+
+            // Act & Assert
+            assertThrows(ConflictoIdempotencia.class, () -> almacen.ejecutar("nueva", "h", () -> "TX"));
+            liberar.countDown();
+            ejecutor.shutdown();
+            assertTrue(ejecutor.awaitTermination(5, TimeUnit.SECONDS));
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Rendimiento")
+    class RendimientoTests {
+
+        @Test
+        @DisplayName("Con Idempotency-Key una tormenta de reintentos llama 50 veces a la pasarela y termina antes")
+        void medicion_tormentaDeReintentos() throws Exception {
+            // Arrange: 50 pagos, cada uno reintentado 20 veces a la vez; la pasarela tarda 20 ms
+            AlmacenIdempotencia<String> almacen = almacen(Duration.ofMinutes(1), 10_000);
+            AtomicInteger llamadasSinClave = new AtomicInteger();
+            AtomicInteger llamadasConClave = new AtomicInteger();
+
+            // Act
+            long sinClave = tormenta(pago -> {
+                llamadasSinClave.incrementAndGet();
+                dormir(20);
+            });
+            long conClave = tormenta(pago -> almacen.ejecutar("pago-" + pago, "h", () -> {
+                llamadasConClave.incrementAndGet();
+                dormir(20);
+                return "TX";
+            }));
+
+            // Assert
+            assertEquals(1000, llamadasSinClave.get());
+            assertEquals(50, llamadasConClave.get());
+            // Sin clave las 1000 llamadas de 20 ms se reparten entre los hilos: ese es el piso
+            assertTrue(sinClave >= TimeUnit.MILLISECONDS.toNanos(1000 * 20 / HILOS));
+            assertTrue(conClave < sinClave,
+                "Con clave: " + conClave / 1_000_000 + " ms, sin clave: " + sinClave / 1_000_000 + " ms");
+        }
+
+        /**
+         * @return nanosegundos
+         */
+        private long tormenta(java.util.function.IntConsumer intento) throws Exception {
+            ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+            List<Future<?>> tareas = new ArrayList<>();
+            long inicio = System.nanoTime();
+            for (int reintento = 0; reintento < 20; reintento++) {
+                for (int pago = 0; pago < 50; pago++) {
+                    int numero = pago;
+                    tareas.add(ejecutor.submit(() -> intento.accept(numero)));
+                }
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            long nanos = System.nanoTime() - inicio;
+            ejecutor.shutdown();
+            return nanos;
+        }
+    }
+
+    private static void dormir(long ms) {
+        try {
+            Thread.sleep(ms);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void esperar(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
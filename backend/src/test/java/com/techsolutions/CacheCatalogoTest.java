@@ -0,0 +1,153 @@
+package com.techsolutions;
+
+import com.techsolutions.model.Producto;
+import com.techsolutions.service.CacheCatalogo;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios de la caché del catálogo de productos
+ */
+@SuppressWarnings("all")
+@DisplayName("Tests de Caché del Catálogo")
+class CacheCatalogoTest {
+
+    private CacheCatalogo cache;
+    private AtomicInteger cargas;
+
+    @SuppressWarnings("unused")
+    @BeforeEach
+    void setUp() {
+        cache = new CacheCatalogo(1);
+        cargas = new AtomicInteger();
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Lectura e invalidación")
+    class LecturaTests {
+
+        @Test
+        @DisplayName("La segunda lectura de un producto es un acierto y no consulta la base de datos")
+        void segundaLectura_esAcierto() {
+            // Act
+            cache.obtener(1L, id -> cargar(id, 10));
+            Producto producto = cache.obtener(1L, id -> cargar(id, 10));
+
+            // Assert
+            assertEquals(1, cargas.get());
+            assertEquals(10, producto.getStock());
+            assertEquals(1L, cache.obtenerMetricas().get("aciertos"));
+            assertEquals(1L, cache.obtenerMetricas().get("fallos"));
+        }
+
+        @Test
+        @DisplayName("Modificar la copia entregada no altera la caché")
+        void copiaModificada_noAlteraCache() {
+            // Arrange
+            cache.obtener(1L, id -> cargar(id, 10)).setStock(0);
+
+            // Act
+            Producto producto = cache.obtener(1L, id -> cargar(id, 10));
+
+            // Assert
+            assertEquals(10, producto.getStock());
+        }
+
+        @Test
+        @DisplayName("Tras invalidar, la siguiente lectura trae el valor nuevo")
+        void invalidar_recargaValorNuevo() {
+            // Arrange
+            cache.obtener(1L, id -> cargar(id, 10));
+
+            // Act
+            cache.invalidar(1L);
+            Producto producto = cache.obtener(1L, id -> cargar(id, 7));
+
+            // Assert
+            assertEquals(7, producto.getStock());
+            assertEquals(2, cargas.get());
+        }
+
+        @Test
+        @DisplayName("Un valor leído antes de una invalidación concurrente no se guarda")
+        void cargaConcurrenteConInvalidacion_noGuardaValorViejo() {
+            // Act: la invalidación ocurre mientras se carga el valor viejo
+            cache.obtener(1L, id -> {
+                Producto viejo = cargar(id, 10);
+                cache.invalidar(id);
+                return viejo;
+            });
+            Producto producto = cache.obtener(1L, id -> cargar(id, 7));
+
+            // Assert
+            assertEquals(7, producto.getStock());
+        }
+
+        @Test
+        @DisplayName("Un cambio de stock solo recarga ese producto de la lista de activos")
+        void invalidarProducto_recargaSoloEseProductoDeActivos() {
+            // Arrange
+            CacheCatalogo cacheAmplia = new CacheCatalogo(64);
+            AtomicInteger recargados = new AtomicInteger();
+            cacheAmplia.obtenerActivos(() -> List.of(cargar(1L, 10), cargar(2L, 20), cargar(3L, 30)), ids -> List.of());
+
+            // Act
+            cacheAmplia.invalidar(2L);
+            List<Producto> activos = cacheAmplia.obtenerActivos(
+                () -> fail("No debe recargar el catálogo completo"),
+                (Collection<Long> ids) -> {
+                    recargados.addAndGet(ids.size());
+                    return ids.stream().map(id -> cargar(id, 5)).toList();
+                });
+
+            // Assert
+            assertEquals(3, activos.size());
+            assertEquals(1, recargados.get());
+            assertTrue(activos.stream().anyMatch(p -> p.getId() == 2L && p.getStock() == 5));
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Capacidad acotada por tamaño")
+    class CapacidadTests {
+
+        @Test
+        @DisplayName("Al superar la capacidad en bytes se desalojan los menos usados")
+        void superarCapacidad_desalojaMenosUsados() {
+            // Act: 1 KB alcanza para pocos productos de ~400 bytes
+            for (long id = 1; id <= 10; id++) {
+                cache.obtener(id, i -> cargar(i, 1));
+            }
+
+            // Assert
+            long bytes = (long) cache.obtenerMetricas().get("bytesOcupados");
+            assertTrue(bytes <= 1024);
+            assertTrue((long) cache.obtenerMetricas().get("desalojos") > 0);
+            cache.obtener(10L, i -> cargar(i, 1));
+            assertEquals(10, cargas.get());
+        }
+    }
+
+    private Producto cargar(Long id, int stock) {
+        cargas.incrementAndGet();
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setCodigo("CACHE-" + id);
+        producto.setNombre("Producto de prueba " + id);
+        producto.setDescripcion("Descripción de prueba para estimar el tamaño de la entrada");
+        producto.setPrecio(BigDecimal.TEN);
+        producto.setStock(stock);
+        return producto;
+    }
+}
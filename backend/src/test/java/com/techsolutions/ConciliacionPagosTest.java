@@ -0,0 +1,338 @@
+package com.techsolutions;
+
+import com.techsolutions.pattern.adapter.PasarelaPago;
+import com.techsolutions.pattern.decorator.PasarelaPagoProtegida.Limites;
+import com.techsolutions.service.ConciliacionPagosService;
+import com.techsolutions.service.ConciliacionPagosService.EstadoTransaccion;
+import com.techsolutions.service.PagoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la conciliación de pagos: caché de estados, sondeo por lotes e intervalo adaptativo
+ */
+@SuppressWarnings("all")
+@DisplayName("Tests de Conciliación de Pagos")
+class ConciliacionPagosTest {
+
+    private static final long INTERVALO_MINIMO_MS = 1000;
+    private static final long INTERVALO_MAXIMO_MS = 8000;
+
+    /**
+     * Pasarela con estados configurables que registra cada consulta por lote
+     */
+    static class PasarelaConLotes implements PasarelaPago {
+        final Map<String, String> estados = new ConcurrentHashMap<>();
+        final List<Integer> lotes = new CopyOnWriteArrayList<>();
+        final AtomicInteger consultas = new AtomicInteger();
+        volatile boolean fallar;
+
+        @Override
+        public boolean procesarPago(BigDecimal monto, String referencia) {
+            return true;
+        }
+
+        @Override
+        public String verificarEstado(String referencia) {
+            consultas.incrementAndGet();
+            return estados.getOrDefault(referencia, "PENDIENTE - Lotes");
+        }
+
+        @Override
+        public Map<String, String> verificarEstados(List<String> referencias) {
+            if (fallar) {
+                throw new IllegalStateException("Proveedor caído");
+            }
+            lotes.add(referencias.size());
+            return PasarelaPago.super.verificarEstados(referencias);
+        }
+
+        @Override
+        public String getNombre() {
+            return "Lotes";
+        }
+    }
+
+    private PasarelaConLotes pasarela;
+    private PagoService pagoService;
+    private ConciliacionPagosService conciliacion;
+
+    @BeforeEach
+    void setUp() {
+        pasarela = new PasarelaConLotes();
+        pagoService = new PagoService(Map.of("yape", pasarela), Limites.porDefecto(), true);
+        conciliacion = servicio(30);
+    }
+
+    @AfterEach
+    void cerrar() {
+        pagoService.cerrar();
+    }
+
+    private ConciliacionPagosService servicio(long esperaMaximaMinutos) {
+        return servicio(esperaMaximaMinutos, 10_000);
+    }
+
+    private ConciliacionPagosService servicio(long esperaMaximaMinutos, int maxPendientes) {
+        return new ConciliacionPagosService(pagoService, INTERVALO_MINIMO_MS, INTERVALO_MAXIMO_MS,
+            50, 10, esperaMaximaMinutos, 60, maxPendientes);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> resumenYape() {
+        return (Map<String, Object>) ((Map<String, Object>) conciliacion.obtenerResumen().get("pasarelas")).get("yape");
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Caché de estados")
+    class CacheTests {
+
+        @Test
+        @DisplayName("Una referencia desconocida se informa no encontrada sin guardarla ni sondearla")
+        void referenciaDesconocida_noSeRegistra() {
+            // Act
+            EstadoTransaccion estado = conciliacion.consultar("YAPE", "ORD-1");
+            conciliacion.conciliar(System.currentTimeMillis());
+
+            // Assert
+            assertEquals(ConciliacionPagosService.NO_ENCONTRADO, estado.estado());
+            assertFalse(estado.definitivo());
+            assertNull(estado.consultadoEn());
+            assertEquals(0, pasarela.consultas.get());
+            assertEquals(0, conciliacion.obtenerResumen().get("transaccionesEnCache"));
+        }
+
+        @Test
+        @DisplayName("Una referencia registrada como pendiente queda en verificación sin consultar a la pasarela")
+        void referenciaPendiente_quedaEnVerificacion() {
+            // Act
+            conciliacion.registrarPendiente("YAPE", "ORD-1");
+            EstadoTransaccion estado = conciliacion.consultar("yape", "ORD-1");
+
+            // Assert
+            assertEquals(ConciliacionPagosService.EN_VERIFICACION, estado.estado());
+            assertFalse(estado.definitivo());
+            assertEquals(0, pasarela.consultas.get());
+            assertEquals(1, resumenYape().get("pendientes"));
+        }
+
+        @Test
+        @DisplayName("Con el máximo de pendientes alcanzado la referencia queda sin confirmar y no se guarda")
+        void maximoDePendientes_noRegistraMas() {
+            // Arrange
+            conciliacion = servicio(30, 2);
+            conciliacion.registrarPendiente("yape", "ORD-1");
+            conciliacion.registrarPendiente("yape", "ORD-2");
+
+            // Act
+            EstadoTransaccion excedida = conciliacion.registrarPendiente("yape", "ORD-3");
+            EstadoTransaccion repetida = conciliacion.registrarPendiente("yape", "ORD-1");
+
+            // Assert
+            assertEquals(ConciliacionPagosService.SIN_CONFIRMAR, excedida.estado());
+            assertEquals(ConciliacionPagosService.NO_ENCONTRADO, conciliacion.consultar("yape", "ORD-3").estado());
+            assertEquals(ConciliacionPagosService.EN_VERIFICACION, repetida.estado());
+            assertEquals(2, resumenYape().get("pendientes"));
+        }
+
+        @Test
+        @DisplayName("La ronda de conciliación guarda el estado informado por la pasarela")
+        void conciliar_guardaEstadoDefinitivo() {
+            // Arrange
+            pasarela.estados.put("ORD-2", "COMPLETADO - Lotes");
+            conciliacion.registrarPendiente("yape", "ORD-2");
+
+            // Act
+            int confirmadas = conciliacion.conciliar(System.currentTimeMillis());
+            EstadoTransaccion estado = conciliacion.consultar("yape", "ORD-2");
+
+            // Assert
+            assertEquals(1, confirmadas);
+            assertEquals("COMPLETADO", estado.estado());
+            assertEquals("COMPLETADO - Lotes", estado.detalle());
+            assertTrue(estado.definitivo());
+            assertEquals(0, resumenYape().get("pendientes"));
+        }
+
+        @Test
+        @DisplayName("El resultado de un pago se responde desde la caché y nunca se sondea")
+        void resultadoRegistrado_noConsultaLaPasarela() {
+            // Arrange
+            conciliacion.registrarResultado("yape", "ORD-3", false);
+
+            // Act
+            conciliacion.conciliar(System.currentTimeMillis());
+            EstadoTransaccion estado = conciliacion.consultar("yape", "ORD-3");
+
+            // Assert
+            assertEquals("RECHAZADO", estado.estado());
+            assertTrue(estado.definitivo());
+            assertEquals(0, pasarela.consultas.get());
+        }
+
+        @Test
+        @DisplayName("Un resultado que llega mientras la referencia está pendiente la saca del sondeo")
+        void resultadoTardio_cancelaElSondeo() {
+            // Arrange
+            conciliacion.registrarPendiente("yape", "ORD-4");
+
+            // Act
+            conciliacion.registrarResultado("yape", "ORD-4", true);
+            conciliacion.conciliar(System.currentTimeMillis());
+
+            // Assert
+            assertEquals("COMPLETADO", conciliacion.consultar("yape", "ORD-4").estado());
+            assertEquals(0, pasarela.consultas.get());
+        }
+
+        @Test
+        @DisplayName("Una pasarela inexistente se rechaza")
+        void pasarelaInexistente_lanzaExcepcion() {
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> conciliacion.consultar("bitcoin", "ORD-5"));
+            assertThrows(IllegalArgumentException.class, () -> conciliacion.consultar("yape", " "));
+        }
+
+        @Test
+        @DisplayName("Los sondeos de los clientes no llegan a la pasarela")
+        void medicion_sondeosDeClientes() {
+            // Arrange: 100 transacciones inciertas, cada cliente consulta 10 veces
+            for (int i = 0; i < 100; i++) {
+                pasarela.estados.put("ORD-" + i, "COMPLETADO - Lotes");
+                conciliacion.registrarPendiente("yape", "ORD-" + i);
+            }
+            long ahora = System.currentTimeMillis();
+
+            // Act
+            for (int sondeo = 0; sondeo < 10; sondeo++) {
+                for (int i = 0; i < 100; i++) {
+                    conciliacion.consultar("yape", "ORD-" + i);
+                }
+                conciliacion.conciliar(ahora + sondeo * INTERVALO_MINIMO_MS);
+            }
+
+            // Assert
+            assertEquals(100, pasarela.consultas.get());
+            assertEquals(List.of(50, 50), pasarela.lotes);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Sondeo por lotes")
+    class SondeoTests {
+
+        @Test
+        @DisplayName("Las referencias pendientes se consultan en lotes del tamaño configurado")
+        void pendientes_seConsultanPorLotes() {
+            // Arrange
+            for (int i = 0; i < 120; i++) {
+                conciliacion.registrarPendiente("yape", "LOTE-" + i);
+            }
+
+            // Act
+            conciliacion.conciliar(System.currentTimeMillis());
+
+            // Assert
+            assertEquals(List.of(50, 50, 20), pasarela.lotes);
+            assertEquals(120, resumenYape().get("pendientes"));
+            assertEquals("PENDIENTE", conciliacion.consultar("yape", "LOTE-0").estado());
+        }
+
+        @Test
+        @DisplayName("Sin cambios el intervalo se duplica hasta el máximo y antes de vencer no se consulta")
+        void sinCambios_intervaloCrece() {
+            // Arrange
+            conciliacion.registrarPendiente("yape", "ORD-1");
+            long ahora = System.currentTimeMillis();
+
+            // Act & Assert: la primera consulta pasa de EN_VERIFICACION a PENDIENTE (un cambio)
+            conciliacion.conciliar(ahora);
+            assertEquals(INTERVALO_MINIMO_MS, conciliacion.intervaloSugeridoMs("yape"));
+
+            conciliacion.conciliar(ahora + 500);
+            assertEquals(1, pasarela.lotes.size());
+
+            long[] esperados = {2000, 4000, 8000, 8000};
+            for (long esperado : esperados) {
+                ahora += conciliacion.intervaloSugeridoMs("yape");
+                conciliacion.conciliar(ahora);
+                assertEquals(esperado, conciliacion.intervaloSugeridoMs("yape"));
+            }
+            assertEquals(5, pasarela.lotes.size());
+        }
+
+        @Test
+        @DisplayName("Cuando una transacción se confirma el intervalo vuelve al mínimo")
+        void confirmacion_reiniciaIntervalo() {
+            // Arrange
+            conciliacion.registrarPendiente("yape", "ORD-1");
+            conciliacion.registrarPendiente("yape", "ORD-2");
+            long ahora = System.currentTimeMillis();
+            for (int i = 0; i < 4; i++) {
+                conciliacion.conciliar(ahora);
+                ahora += conciliacion.intervaloSugeridoMs("yape");
+            }
+            assertEquals(8000, conciliacion.intervaloSugeridoMs("yape"));
+
+            // Act
+            pasarela.estados.put("ORD-1", "COMPLETADO - Lotes");
+            int confirmadas = conciliacion.conciliar(ahora);
+
+            // Assert
+            assertEquals(1, confirmadas);
+            assertEquals(INTERVALO_MINIMO_MS, conciliacion.intervaloSugeridoMs("yape"));
+            assertEquals(1, resumenYape().get("pendientes"));
+        }
+
+        @Test
+        @DisplayName("Un error de la pasarela conserva las referencias y espera más antes de reintentar")
+        void errorDePasarela_conservaPendientes() {
+            // Arrange
+            conciliacion.registrarPendiente("yape", "ORD-1");
+            pasarela.fallar = true;
+            long ahora = System.currentTimeMillis();
+
+            // Act
+            conciliacion.conciliar(ahora);
+            pasarela.fallar = false;
+            pasarela.estados.put("ORD-1", "RECHAZADO - Lotes");
+            conciliacion.conciliar(ahora + INTERVALO_MINIMO_MS);
+            int confirmadas = conciliacion.conciliar(ahora + 2 * INTERVALO_MINIMO_MS);
+
+            // Assert
+            assertEquals(1, confirmadas);
+            assertEquals("RECHAZADO", conciliacion.consultar("yape", "ORD-1").estado());
+        }
+
+        @Test
+        @DisplayName("Una referencia que no se confirma en la espera máxima queda SIN_CONFIRMAR")
+        void esperaMaximaVencida_quedaSinConfirmar() {
+            // Arrange
+            conciliacion = servicio(0);
+            conciliacion.registrarPendiente("yape", "ORD-1");
+
+            // Act
+            conciliacion.conciliar(System.currentTimeMillis() + 1000);
+            EstadoTransaccion estado = conciliacion.consultar("yape", "ORD-1");
+
+            // Assert
+            assertEquals(ConciliacionPagosService.SIN_CONFIRMAR, estado.estado());
+            assertTrue(estado.definitivo());
+            assertEquals(0, pasarela.consultas.get());
+        }
+    }
+}
@@ -0,0 +1,279 @@
+package com.techsolutions;
+
+import com.techsolutions.PasarelaPagoProtegidaTest.PasarelaSimulada;
+import com.techsolutions.pattern.decorator.PasarelaPagoProtegida.Limites;
+import com.techsolutions.service.ConfiguracionPasarelas;
+import com.techsolutions.service.PagoService;
+import com.techsolutions.service.RecargaConfiguracionPasarelas;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la configuración versionada de pasarelas y de su recarga desde archivo
+ */
+@SuppressWarnings("all")
+@DisplayName("Tests de Configuración de Pasarelas")
+class ConfiguracionPasarelasTest {
+
+    private static final BigDecimal MONTO = new BigDecimal("100.00");
+
+    private PagoService pagoService;
+
+    @BeforeEach
+    void setUp() {
+        pagoService = new PagoService(Limites.porDefecto());
+    }
+
+    @AfterEach
+    void cerrar() {
+        pagoService.cerrar();
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Versiones")
+    class VersionesTests {
+
+        @Test
+        @DisplayName("Cada cambio publica una versión nueva que los pagos respetan")
+        void configurarPasarela_publicaVersion() {
+            // Act
+            pagoService.configurarPasarela("YAPE", false);
+            ConfiguracionPasarelas actual = pagoService.getConfiguracion();
+
+            // Assert
+            assertEquals(2, actual.version());
+            assertEquals("api", actual.origen());
+            assertFalse(actual.habilitada("yape"));
+            assertTrue(actual.habilitada("plin"));
+            assertThrows(IllegalStateException.class, () -> pagoService.procesarPago("yape", MONTO, "ORD-1"));
+            assertEquals(false, pagoService.obtenerEstadoPasarelas().get("yape").get("habilitada"));
+        }
+
+        @Test
+        @DisplayName("Repetir el estado vigente no crea una versión")
+        void sinCambios_mantieneVersion() {
+            // Act
+            pagoService.configurarPasarela("plin", true);
+
+            // Assert
+            assertEquals(1, pagoService.getConfiguracion().version());
+        }
+
+        @Test
+        @DisplayName("Una pasarela de cualquier tipo se habilita y deshabilita sin conocer su adaptador")
+        void adaptadorNuevo_seConfiguraSinCambiarCodigo() {
+            // Arrange
+            Map<String, PasarelaSimulada> simuladas = new LinkedHashMap<>();
+            simuladas.put("visa", new PasarelaSimulada());
+            PagoService servicio = new PagoService(simuladas, Limites.porDefecto(), true);
+
+            // Act
+            servicio.configurarPasarela("visa", false);
+
+            // Assert
+            assertThrows(IllegalStateException.class, () -> servicio.procesarPago("visa", MONTO, "ORD-2"));
+            assertEquals(0, simuladas.get("visa").llamadas.get());
+            servicio.cerrar();
+        }
+
+        @Test
+        @DisplayName("Un cambio con una pasarela inexistente no aplica ninguno de sus cambios")
+        void pasarelaInexistente_noAplicaNada() {
+            // Arrange
+            Map<String, Boolean> cambios = new LinkedHashMap<>();
+            cambios.put("yape", false);
+            cambios.put("visa", false);
+
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class,
+                () -> pagoService.aplicarConfiguracion(cambios, "api", Instant.now()));
+            assertEquals(1, pagoService.getConfiguracion().version());
+            assertTrue(pagoService.getConfiguracion().habilitada("yape"));
+        }
+
+        @Test
+        @DisplayName("El historial conserva las últimas versiones, de la más reciente a la más antigua")
+        void historial_ordenadoYAcotado() {
+            // Act
+            for (int i = 0; i < 30; i++) {
+                pagoService.configurarPasarela("paypal", i % 2 == 1);
+            }
+            List<?> historial = (List<?>) pagoService.obtenerConfiguracion().get("historial");
+
+            // Assert
+            assertEquals(31L, pagoService.getConfiguracion().version());
+            assertEquals(20, historial.size());
+            assertEquals(31L, ((Map<?, ?>) historial.get(0)).get("version"));
+            assertEquals(12L, ((Map<?, ?>) historial.get(19)).get("version"));
+        }
+
+        @Test
+        @DisplayName("Cambios concurrentes sin perder versiones y lecturas sin bloqueos")
+        void medicion_cambiosConcurrentes() throws Exception {
+            // Arrange: cada escritor alterna su propia pasarela, así todos sus cambios son efectivos
+            String[] nombres = {"paypal", "yape", "plin"};
+            int cambiosPorEscritor = 1000;
+            AtomicBoolean escribiendo = new AtomicBoolean(true);
+            ExecutorService hilos = Executors.newFixedThreadPool(nombres.length + 2);
+            List<Future<long[]>> lectores = new ArrayList<>();
+
+            // Act
+            for (int l = 0; l < 2; l++) {
+                lectores.add(hilos.submit(() -> {
+                    long lecturas = 0;
+                    long retrocesos = 0;
+                    long ultima = 0;
+                    while (escribiendo.get()) {
+                        long version = pagoService.getConfiguracion().version();
+                        if (version < ultima) {
+                            retrocesos++;
+                        }
+                        ultima = version;
+                        lecturas++;
+                    }
+                    return new long[]{lecturas, retrocesos};
+                }));
+            }
+            long inicio = System.nanoTime();
+            List<Future<?>> escritores = new ArrayList<>();
+            for (String nombre : nombres) {
+                escritores.add(hilos.submit(() -> {
+                    for (int i = 0; i < cambiosPorEscritor; i++) {
+                        pagoService.configurarPasarela(nombre, i % 2 == 1);
+                    }
+                }));
+            }
+            for (Future<?> escritor : escritores) {
+                escritor.get();
+            }
+            long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+            escribiendo.set(false);
+            long lecturas = 0;
+            long retrocesos = 0;
+            for (Future<long[]> lector : lectores) {
+                lecturas += lector.get()[0];
+                retrocesos += lector.get()[1];
+            }
+            hilos.shutdown();
+
+            // Assert
+            assertTrue(milisegundos < 10_000, nombres.length * cambiosPorEscritor + " versiones tardaron " + milisegundos + " ms");
+            assertTrue(lecturas > 0);
+            assertEquals(1 + nombres.length * cambiosPorEscritor, pagoService.getConfiguracion().version());
+            assertEquals(0, retrocesos);
+            for (String nombre : nombres) {
+                assertTrue(pagoService.getConfiguracion().habilitada(nombre));
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Recarga desde archivo")
+    class RecargaTests {
+
+        @TempDir
+        Path directorio;
+
+        @Test
+        @DisplayName("Al modificar el archivo se publica una versión con su tiempo de propagación")
+        void archivoModificado_publicaVersion() throws Exception {
+            // Arrange
+            Path archivo = directorio.resolve("pasarelas.properties");
+            Files.writeString(archivo, "yape=false\nPLIN = false\n");
+            Files.setLastModifiedTime(archivo, FileTime.from(Instant.now().minusMillis(1500)));
+            RecargaConfiguracionPasarelas recarga = new RecargaConfiguracionPasarelas(pagoService, archivo.toString());
+
+            // Act
+            boolean aplicada = recarga.recargar(archivo);
+
+            // Assert
+            ConfiguracionPasarelas actual = pagoService.getConfiguracion();
+            assertTrue(aplicada);
+            assertEquals(2, actual.version());
+            assertEquals("archivo", actual.origen());
+            assertFalse(actual.habilitada("yape"));
+            assertFalse(actual.habilitada("plin"));
+            assertTrue(actual.habilitada("paypal"));
+            assertTrue(actual.propagacionMs() >= 1500);
+        }
+
+        @Test
+        @DisplayName("Si el archivo no cambió no se vuelve a aplicar")
+        void archivoSinCambios_noSeRelee() throws Exception {
+            // Arrange
+            Path archivo = directorio.resolve("pasarelas.properties");
+            Files.writeString(archivo, "yape=false\n");
+            RecargaConfiguracionPasarelas recarga = new RecargaConfiguracionPasarelas(pagoService, archivo.toString());
+            recarga.recargar(archivo);
+            pagoService.configurarPasarela("yape", true);
+
+            // Act
+            boolean aplicada = recarga.recargar(archivo);
+
+            // Assert
+            assertFalse(aplicada);
+            assertTrue(pagoService.getConfiguracion().habilitada("yape"));
+        }
+
+        @Test
+        @DisplayName("Una escritura que termina con la misma fecha de modificación se vuelve a leer")
+        void escrituraAMedias_seReleeConMismaFecha() throws Exception {
+            // Arrange: la primera lectura ve el archivo a medias
+            Path archivo = directorio.resolve("pasarelas.properties");
+            FileTime fecha = FileTime.from(Instant.now().minusMillis(500));
+            Files.writeString(archivo, "yape=false\n");
+            Files.setLastModifiedTime(archivo, fecha);
+            RecargaConfiguracionPasarelas recarga = new RecargaConfiguracionPasarelas(pagoService, archivo.toString());
+            recarga.recargar(archivo);
+
+            // Act: el resto de la escritura conserva la misma fecha
+            Files.writeString(archivo, "yape=false\nplin=false\n");
+            Files.setLastModifiedTime(archivo, fecha);
+            boolean aplicada = recarga.recargar(archivo);
+
+            // Assert
+            assertTrue(aplicada);
+            assertEquals(3, pagoService.getConfiguracion().version());
+            assertFalse(pagoService.getConfiguracion().habilitada("plin"));
+        }
+
+        @Test
+        @DisplayName("Un archivo inválido se rechaza completo y sigue vigente la versión anterior")
+        void archivoInvalido_conservaVersion() throws Exception {
+            // Arrange
+            Path valorInvalido = directorio.resolve("valor.properties");
+            Files.writeString(valorInvalido, "yape=false\nplin=quizas\n");
+            Path pasarelaInvalida = directorio.resolve("pasarela.properties");
+            Files.writeString(pasarelaInvalida, "yape=false\nvisa=true\n");
+
+            // Act & Assert
+            assertFalse(new RecargaConfiguracionPasarelas(pagoService, "").recargar(valorInvalido));
+            assertFalse(new RecargaConfiguracionPasarelas(pagoService, "").recargar(pasarelaInvalida));
+            assertFalse(new RecargaConfiguracionPasarelas(pagoService, "").recargar(directorio.resolve("no-existe.properties")));
+            assertEquals(1, pagoService.getConfiguracion().version());
+            assertTrue(pagoService.getConfiguracion().habilitada("yape"));
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.techsolutions;
+
+import com.techsolutions.model.Dinero;
+import com.techsolutions.model.DineroConverter;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios del tipo Dinero (céntimos en un long)
+ * Incluye una medición de tiempo y memoria frente a BigDecimal en el cálculo de subtotales
+ */
+@SuppressWarnings("all")
+@DisplayName("Tests de Dinero")
+class DineroTest {
+
+    private static final int LINEAS = 200_000;
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Aritmética y redondeo")
+    class AritmeticaTests {
+
+        @Test
+        @DisplayName("Suma, resta y multiplicación son exactas en céntimos")
+        void operaciones_sonExactas() {
+            // Arrange
+            Dinero precio = Dinero.de("19.99");
+
+            // Act
+            Dinero subtotal = precio.multiplicar(3).sumar(Dinero.de("0.03")).restar(Dinero.de("10.00"));
+
+            // Assert
+            assertEquals(5000, subtotal.getCentimos());
+            assertEquals(0, new BigDecimal("50.00").compareTo(subtotal.aBigDecimal()));
+            assertEquals("50.00", subtotal.toString());
+        }
+
+        @Test
+        @DisplayName("Los montos con más de dos decimales se redondean HALF_UP al céntimo")
+        void conversion_redondeaHalfUp() {
+            // Act & Assert
+            assertEquals(1, Dinero.de("0.005").getCentimos());
+            assertEquals(0, Dinero.de("0.004").getCentimos());
+            assertEquals(-1, Dinero.de("-0.005").getCentimos());
+            assertEquals(1235, Dinero.de(new BigDecimal("12.345")).getCentimos());
+        }
+
+        @Test
+        @DisplayName("Un desborde lanza ArithmeticException en lugar de perder dígitos")
+        void desborde_lanzaExcepcion() {
+            // Arrange
+            Dinero enorme = Dinero.deCentimos(Long.MAX_VALUE / 2 + 1);
+
+            // Act & Assert
+            assertThrows(ArithmeticException.class, () -> enorme.multiplicar(2));
+            assertThrows(ArithmeticException.class, () -> enorme.sumar(enorme));
+        }
+
+        @Test
+        @DisplayName("La igualdad no depende de la escala del BigDecimal de origen")
+        void igualdad_independienteDeEscala() {
+            // Act & Assert
+            assertEquals(Dinero.de("10"), Dinero.de("10.00"));
+            assertEquals(Dinero.CERO, Dinero.de("0.00"));
+            assertTrue(Dinero.de("9.99").compareTo(Dinero.de("10")) < 0);
+        }
+
+        @Test
+        @DisplayName("Un monto no numérico se rechaza")
+        void montoNoNumerico_lanzaExcepcion() {
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> Dinero.de("abc"));
+            assertThrows(IllegalArgumentException.class, () -> Dinero.de((BigDecimal) null));
+        }
+
+        @Test
+        @DisplayName("El converter guarda DECIMAL con escala 2 y lee el mismo monto")
+        void converter_idaYVuelta() {
+            // Arrange
+            DineroConverter converter = new DineroConverter();
+
+            // Act
+            BigDecimal columna = converter.convertToDatabaseColumn(Dinero.de("2599.9"));
+
+            // Assert
+            assertEquals(new BigDecimal("2599.90"), columna);
+            assertEquals(Dinero.de("2599.90"), converter.convertToEntityAttribute(columna));
+            assertNull(converter.convertToDatabaseColumn(null));
+            assertNull(converter.convertToEntityAttribute(null));
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Rendimiento")
+    class RendimientoTests {
+
+        @Test
+        @DisplayName("Acumular precio x cantidad con Dinero asigna menos memoria que con BigDecimal")
+        void medicion_dineroVsBigDecimal() {
+            // Arrange: calentamiento
+            for (int i = 0; i < 10; i++) {
+                acumularDinero(20_000);
+                acumularBigDecimal(20_000);
+            }
+
+            // Act
+            long[] dinero = medir(() -> acumularDinero(LINEAS));
+            long[] bigDecimal = medir(() -> acumularBigDecimal(LINEAS));
+
+            // Assert
+            assertTrue(dinero[0] < TimeUnit.SECONDS.toNanos(1), LINEAS + " líneas tardaron " + dinero[0] / 1000 + " µs");
+            assertTrue(dinero[1] < bigDecimal[1]);
+            assertEquals(0, acumularDinero(1000).aBigDecimal().compareTo(acumularBigDecimal(1000)));
+        }
+
+        private Dinero acumularDinero(int lineas) {
+            Dinero precio = Dinero.de("19.90");
+            Dinero total = Dinero.CERO;
+            for (int i = 0; i < lineas; i++) {
+                total = total.sumar(precio.multiplicar(1 + i % 5));
+            }
+            return total;
+        }
+
+        private BigDecimal acumularBigDecimal(int lineas) {
+            BigDecimal precio = new BigDecimal("19.90");
+            BigDecimal total = BigDecimal.ZERO;
+            for (int i = 0; i < lineas; i++) {
+                total = total.add(precio.multiply(BigDecimal.valueOf(1 + i % 5)));
+            }
+            return total;
+        }
+
+        /**
+         * @return {nanosegundos, bytes asignados por el hilo}
+         */
+        private long[] medir(Runnable operacion) {
+            com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long hilo = Thread.currentThread().threadId();
+            long bytesInicio = hilos.getThreadAllocatedBytes(hilo);
+            long inicio = System.nanoTime();
+            operacion.run();
+            return new long[] {System.nanoTime() - inicio, hilos.getThreadAllocatedBytes(hilo) - bytesInicio};
+        }
+    }
+}
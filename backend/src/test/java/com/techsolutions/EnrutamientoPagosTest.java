@@ -0,0 +1,340 @@
+package com.techsolutions;
+
+import com.techsolutions.PasarelaPagoProtegidaTest.PasarelaSimulada;
+import com.techsolutions.pattern.decorator.EstadisticasRodantes;
+import com.techsolutions.pattern.decorator.PagoInciertoException;
+import com.techsolutions.pattern.decorator.PagoNoEnviadoException;
+import com.techsolutions.pattern.decorator.PasarelaPagoProtegida.Limites;
+import com.techsolutions.service.PagoService;
+import com.techsolutions.service.PagoService.PagoEnrutado;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del enrutamiento automático de pagos ("pasarela": "auto") y de las estadísticas
+ * recientes por pasarela en las que se basa
+ */
+@SuppressWarnings("all")
+@DisplayName("Tests de Enrutamiento de Pagos")
+class EnrutamientoPagosTest {
+
+    private static final BigDecimal MONTO = new BigDecimal("100.00");
+
+    private final List<PagoService> servicios = new ArrayList<>();
+
+    @AfterEach
+    void cerrar() {
+        servicios.forEach(PagoService::cerrar);
+    }
+
+    private PagoService servicio(Map<String, PasarelaSimulada> simuladas) {
+        Limites limites = new Limites(20, Duration.ofMillis(300), 10, 5, 50, Duration.ofSeconds(30), 2);
+        PagoService servicio = new PagoService(simuladas, limites, true);
+        servicios.add(servicio);
+        return servicio;
+    }
+
+    private Map<String, PasarelaSimulada> simuladas(String... nombres) {
+        Map<String, PasarelaSimulada> simuladas = new LinkedHashMap<>();
+        for (String nombre : nombres) {
+            simuladas.put(nombre, new PasarelaSimulada());
+        }
+        return simuladas;
+    }
+
+    /**
+     * Da a cada pasarela las llamadas mínimas para que el enrutador confíe en sus estadísticas
+     */
+    private void calentar(PagoService servicio, String... nombres) {
+        for (String nombre : nombres) {
+            for (int i = 0; i < 5; i++) {
+                try {
+                    servicio.procesarPago(nombre, MONTO, "CAL-" + i);
+                } catch (RuntimeException e) {
+                    // Los fallos también cuentan como muestras
+                }
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Estadísticas recientes")
+    class EstadisticasTests {
+
+        @Test
+        @DisplayName("El p95 y la tasa de éxito reflejan las llamadas registradas")
+        void resumen_calculaP95YTasaExito() {
+            // Arrange
+            EstadisticasRodantes estadisticas = new EstadisticasRodantes(Duration.ofMinutes(1), 6);
+            for (int i = 0; i < 95; i++) {
+                estadisticas.registrar(8, true);
+            }
+            for (int i = 0; i < 5; i++) {
+                estadisticas.registrar(900, false);
+            }
+
+            // Act
+            EstadisticasRodantes.Resumen resumen = estadisticas.resumen();
+
+            // Assert
+            assertEquals(100, resumen.llamadas());
+            assertEquals(10, resumen.p95Ms());
+            assertEquals(0.95, resumen.tasaExito(), 0.0001);
+        }
+
+        @Test
+        @DisplayName("Las llamadas fuera de la ventana dejan de contar")
+        void ventanaVencida_descartaLlamadas() throws Exception {
+            // Arrange
+            EstadisticasRodantes estadisticas = new EstadisticasRodantes(Duration.ofMillis(100), 2);
+            estadisticas.registrar(20, false);
+
+            // Act
+            Thread.sleep(250);
+            EstadisticasRodantes.Resumen resumen = estadisticas.resumen();
+
+            // Assert
+            assertEquals(0, resumen.llamadas());
+            assertEquals(1.0, resumen.tasaExito());
+        }
+
+        @Test
+        @DisplayName("Registros concurrentes sin bloqueos y consulta de costo fijo")
+        void medicion_registrosConcurrentes() throws Exception {
+            // Arrange
+            EstadisticasRodantes estadisticas = new EstadisticasRodantes(Duration.ofMinutes(10), 10);
+            ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+            List<Future<?>> tareas = new ArrayList<>();
+            long consultaVacia = medirConsulta(estadisticas);
+
+            // Act
+            long inicio = System.nanoTime();
+            for (int h = 0; h < 8; h++) {
+                tareas.add(ejecutor.submit(() -> {
+                    for (int i = 0; i < 100_000; i++) {
+                        estadisticas.registrar(i % 300, i % 50 != 0);
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            long nanosRegistro = System.nanoTime() - inicio;
+            ejecutor.shutdown();
+            long consultaLlena = medirConsulta(estadisticas);
+
+            // Assert
+            assertTrue(nanosRegistro < TimeUnit.SECONDS.toNanos(10),
+                "800000 registros tardaron " + nanosRegistro / 1_000_000 + " ms");
+            // La consulta recorre cubetas, no registros: con 800000 registros sigue por debajo de 100 µs
+            assertTrue(consultaLlena < 100_000,
+                "Consulta: " + consultaVacia + " ns vacía, " + consultaLlena + " ns llena");
+            EstadisticasRodantes.Resumen resumen = estadisticas.resumen();
+            assertEquals(800_000, resumen.llamadas());
+            assertEquals(0.98, resumen.tasaExito(), 0.0001);
+        }
+
+        private long medirConsulta(EstadisticasRodantes estadisticas) {
+            for (int i = 0; i < 10_000; i++) {
+                estadisticas.resumen();
+            }
+            long inicio = System.nanoTime();
+            for (int i = 0; i < 10_000; i++) {
+                estadisticas.resumen();
+            }
+            return (System.nanoTime() - inicio) / 10_000;
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Enrutamiento automático")
+    class EnrutamientoTests {
+
+        @Test
+        @DisplayName("Elige la pasarela con menor latencia p95")
+        void eligeLaMasRapida() {
+            // Arrange
+            Map<String, PasarelaSimulada> simuladas = simuladas("yape", "plin");
+            simuladas.get("yape").latenciaMs = 120;
+            PagoService servicio = servicio(simuladas);
+            calentar(servicio, "yape", "plin");
+
+            // Act
+            PagoEnrutado enrutado = servicio.procesarPagoEnrutado(MONTO, "ORD-1", false);
+
+            // Assert
+            assertEquals("plin", enrutado.pasarela());
+            assertTrue(enrutado.resultado().exitoso());
+            assertEquals(List.of("plin"), enrutado.intentadas());
+        }
+
+        @Test
+        @DisplayName("Una pasarela rápida pero con fallos pierde ante una más lenta y confiable")
+        void penalizaLaTasaDeFallos() {
+            // Arrange
+            Map<String, PasarelaSimulada> simuladas = simuladas("yape", "plin");
+            simuladas.get("yape").latenciaMs = 40;
+            PasarelaSimulada plin = simuladas.get("plin");
+            PagoService servicio = servicio(simuladas);
+            calentar(servicio, "yape");
+            plin.fallar = true;
+            for (int i = 0; i < 3; i++) {
+                assertThrows(RuntimeException.class, () -> servicio.procesarPago("plin", MONTO, "ERR"));
+            }
+            plin.fallar = false;
+            calentar(servicio, "plin");
+
+            // Act
+            PagoEnrutado enrutado = servicio.procesarPagoEnrutado(MONTO, "ORD-2", false);
+
+            // Assert
+            assertEquals("yape", enrutado.pasarela());
+        }
+
+        @Test
+        @DisplayName("Con respaldo, si la elegida está saturada se usa la siguiente")
+        void conRespaldo_saturadaPasaALaSiguiente() throws Exception {
+            // Arrange: una sola llamada simultánea por pasarela y yape ocupada
+            Map<String, PasarelaSimulada> simuladas = simuladas("yape", "plin");
+            simuladas.get("yape").latenciaMs = 200;
+            PagoService servicio = new PagoService(simuladas,
+                new Limites(1, Duration.ofMillis(1000), 10, 5, 50, Duration.ofSeconds(30), 2), true);
+            servicios.add(servicio);
+            ExecutorService hilo = Executors.newSingleThreadExecutor();
+            Future<Boolean> ocupada = hilo.submit(() -> servicio.procesarPago("yape", MONTO, "OCUPADA"));
+            while (simuladas.get("yape").llamadas.get() == 0) {
+                Thread.onSpinWait();
+            }
+
+            // Act
+            PagoEnrutado enrutado = servicio.procesarPagoEnrutado(MONTO, "ORD-3", true);
+
+            // Assert
+            assertEquals("plin", enrutado.pasarela());
+            assertEquals(List.of("yape", "plin"), enrutado.intentadas());
+            assertEquals(1, simuladas.get("yape").llamadas.get());
+            assertTrue(ocupada.get());
+            hilo.shutdown();
+        }
+
+        @Test
+        @DisplayName("Con respaldo, un error del proveedor no pasa a la siguiente: el resultado es incierto")
+        void conRespaldo_errorDelProveedorEsIncierto() {
+            // Arrange
+            Map<String, PasarelaSimulada> simuladas = simuladas("yape", "plin");
+            simuladas.get("yape").fallar = true;
+            PagoService servicio = servicio(simuladas);
+
+            // Act
+            PagoInciertoException error = assertThrows(PagoInciertoException.class,
+                () -> servicio.procesarPagoEnrutado(MONTO, "ORD-4", true));
+
+            // Assert
+            assertEquals("yape", error.getPasarela());
+            assertEquals(List.of("yape"), error.getIntentadas());
+            assertEquals(0, simuladas.get("plin").llamadas.get());
+        }
+
+        @Test
+        @DisplayName("Con respaldo, un tiempo agotado no pasa a la siguiente: el resultado es incierto")
+        void conRespaldo_timeoutEsIncierto() {
+            // Arrange
+            Map<String, PasarelaSimulada> simuladas = simuladas("yape", "plin");
+            simuladas.get("yape").latenciaMs = 1000;
+            PagoService servicio = servicio(simuladas);
+
+            // Act
+            CompletionException error = assertThrows(CompletionException.class,
+                () -> servicio.procesarPagoEnrutadoAsync(MONTO, "ORD-4", true).join());
+
+            // Assert
+            PagoInciertoException incierto = assertInstanceOf(PagoInciertoException.class, error.getCause());
+            assertEquals("yape", incierto.getPasarela());
+            assertEquals(List.of("yape"), incierto.getIntentadas());
+            assertEquals(0, simuladas.get("plin").llamadas.get());
+        }
+
+        @Test
+        @DisplayName("Sin respaldo el fallo de la elegida se propaga")
+        void sinRespaldo_propagaElFallo() {
+            // Arrange
+            Map<String, PasarelaSimulada> simuladas = simuladas("yape", "plin");
+            simuladas.get("yape").fallar = true;
+            PagoService servicio = servicio(simuladas);
+
+            // Act & Assert
+            assertThrows(RuntimeException.class, () -> servicio.procesarPagoEnrutado(MONTO, "ORD-5", false));
+            assertEquals(0, simuladas.get("plin").llamadas.get());
+        }
+
+        @Test
+        @DisplayName("Un pago rechazado no se reintenta en otra pasarela")
+        void pagoRechazado_noSeReintenta() {
+            // Arrange
+            Map<String, PasarelaSimulada> simuladas = simuladas("yape", "plin");
+            simuladas.get("yape").rechazar = true;
+            PagoService servicio = servicio(simuladas);
+
+            // Act
+            PagoEnrutado enrutado = servicio.procesarPagoEnrutado(MONTO, "ORD-6", true);
+
+            // Assert
+            assertEquals("yape", enrutado.pasarela());
+            assertFalse(enrutado.resultado().exitoso());
+            assertEquals(0, simuladas.get("plin").llamadas.get());
+        }
+
+        @Test
+        @DisplayName("Una pasarela con el circuito abierto queda fuera del enrutamiento")
+        void circuitoAbierto_quedaFuera() {
+            // Arrange
+            Map<String, PasarelaSimulada> simuladas = simuladas("yape", "plin");
+            PagoService servicio = servicio(simuladas);
+            simuladas.get("yape").fallar = true;
+            calentar(servicio, "yape");
+            int llamadasYape = simuladas.get("yape").llamadas.get();
+
+            // Act
+            PagoEnrutado enrutado = servicio.procesarPagoEnrutado(MONTO, "ORD-7", false);
+
+            // Assert
+            assertEquals("ABIERTO", servicio.obtenerEstadoPasarelas().get("yape").get("circuito"));
+            assertEquals("plin", enrutado.pasarela());
+            assertEquals(llamadasYape, simuladas.get("yape").llamadas.get());
+        }
+
+        @Test
+        @DisplayName("Sin pasarelas disponibles se informa el error")
+        void sinPasarelas_lanzaExcepcion() {
+            // Arrange
+            PagoService servicio = new PagoService(Limites.porDefecto());
+            servicios.add(servicio);
+            servicio.configurarPasarela("paypal", false);
+            servicio.configurarPasarela("yape", false);
+            servicio.configurarPasarela("plin", false);
+
+            // Act & Assert
+            PagoNoEnviadoException error = assertThrows(PagoNoEnviadoException.class,
+                () -> servicio.procesarPagoEnrutado(MONTO, "ORD-8", true));
+            assertEquals("No hay pasarelas de pago disponibles", error.getMessage());
+        }
+    }
+}
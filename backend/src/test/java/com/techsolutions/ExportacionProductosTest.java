@@ -0,0 +1,155 @@
+package com.techsolutions;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.techsolutions.model.Producto;
+import com.techsolutions.repository.CategoriaRepository;
+import com.techsolutions.repository.ProductoRepository;
+import com.techsolutions.service.CacheCatalogo;
+import com.techsolutions.service.ExportacionProductosService;
+import com.techsolutions.service.ImportacionProductosService;
+import com.techsolutions.service.ImportacionProductosService.ResultadoImportacion;
+import com.techsolutions.service.IndiceStockBajo;
+import com.techsolutions.service.ResolutorCategorias;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la exportación del catálogo de productos
+ */
+@SuppressWarnings("all")
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN",
+    "inventario.exportacion.fetch-size=100"
+})
+@Import({ExportacionProductosService.class, ImportacionProductosService.class, ResolutorCategorias.class,
+    IndiceStockBajo.class, CacheCatalogo.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests de Exportación del Catálogo")
+class ExportacionProductosTest {
+
+    private static final int FILAS = 1_000;
+
+    @Autowired
+    private ExportacionProductosService exportacionProductosService;
+
+    @Autowired
+    private ImportacionProductosService importacionProductosService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private ResolutorCategorias resolutorCategorias;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        StringBuilder csv = new StringBuilder("codigo,nombre,descripcion,precio,stock,categoria\n");
+        csv.append("EXP-0,\"Laptop, 8GB\",\"Dice \"\"oficina\"\"\",2599.99,5,Electrónicos\n");
+        for (int i = 1; i < FILAS; i++) {
+            csv.append("EXP-").append(i).append(",Producto ").append(i).append(",,").append(i).append(".50,1,\n");
+        }
+        importacionProductosService.importarCsv(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @AfterEach
+    void limpiar() {
+        productoRepository.deleteAllInBatch();
+        categoriaRepository.deleteAllInBatch();
+        resolutorCategorias.cargar();
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Formatos")
+    class FormatoTests {
+
+        @Test
+        @DisplayName("El CSV tiene cabecera, una línea por producto y campos con comas entre comillas")
+        void exportarCsv_escribeTodasLasFilas() throws Exception {
+            // Arrange
+            ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+            // Act
+            long filas = exportacionProductosService.exportarCsv(salida);
+
+            // Assert
+            String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(FILAS, filas);
+            assertEquals(FILAS + 1, lineas.length);
+            assertTrue(lineas[0].startsWith("id,codigo,nombre"));
+            assertTrue(lineas[1].contains(",EXP-0,\"Laptop, 8GB\",\"Dice \"\"oficina\"\"\",2599.99,5,"));
+            assertTrue(lineas[1].contains(",Electrónicos,"));
+        }
+
+        @Test
+        @DisplayName("Un producto con saltos de línea en la descripción se exporta y se vuelve a importar igual")
+        void exportarCsv_descripcionMultilinea_seReimporta() throws Exception {
+            // Arrange
+            Producto producto = productoRepository.findByCodigo("EXP-0").orElseThrow();
+            producto.setDescripcion("Línea 1, con coma\r\nLínea \"2\"\nLínea 3");
+            productoRepository.save(producto);
+            ByteArrayOutputStream salida = new ByteArrayOutputStream();
+            exportacionProductosService.exportarCsv(salida);
+            productoRepository.deleteAllInBatch();
+
+            // Act
+            ResultadoImportacion resultado = importacionProductosService.importarCsv(
+                new ByteArrayInputStream(salida.toByteArray()));
+
+            // Assert
+            assertEquals(FILAS, resultado.filasImportadas());
+            assertEquals(0, resultado.filasRechazadas());
+            assertEquals("Línea 1, con coma\nLínea \"2\"\nLínea 3",
+                productoRepository.findByCodigo("EXP-0").orElseThrow().getDescripcion());
+            assertEquals("Producto 1", productoRepository.findByCodigo("EXP-1").orElseThrow().getNombre());
+        }
+
+        @Test
+        @DisplayName("El NDJSON tiene un objeto JSON válido por línea")
+        void exportarNdjson_unObjetoPorLinea() throws Exception {
+            // Arrange
+            ByteArrayOutputStream salida = new ByteArrayOutputStream();
+
+            // Act
+            long filas = exportacionProductosService.exportarNdjson(salida);
+
+            // Assert
+            String[] lineas = salida.toString(StandardCharsets.UTF_8).split("\n");
+            assertEquals(FILAS, filas);
+            assertEquals(FILAS, lineas.length);
+            JsonNode primero = objectMapper.readTree(lineas[0]);
+            assertEquals("EXP-0", primero.get("codigo").asText());
+            assertEquals("Dice \"oficina\"", primero.get("descripcion").asText());
+            assertEquals(0, primero.get("precio").decimalValue().compareTo(new BigDecimal("2599.99")));
+            assertEquals("Electrónicos", primero.get("categoria").asText());
+            assertTrue(objectMapper.readTree(lineas[FILAS - 1]).get("categoria").isNull());
+        }
+    }
+}
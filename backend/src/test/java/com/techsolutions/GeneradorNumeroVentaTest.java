@@ -0,0 +1,152 @@
+package com.techsolutions;
+
+import com.techsolutions.util.GeneradorNumeroVenta;
+import com.techsolutions.util.GeneradorNumeroVentaSecuencial;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del generador de números de venta
+ * Incluye una medición de números generados por segundo
+ */
+@SuppressWarnings("all")
+@DisplayName("Tests de Generador de Números de Venta")
+class GeneradorNumeroVentaTest {
+
+    private static final int HILOS = 8;
+    private static final int POR_HILO = 250_000;
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Unicidad")
+    class UnicidadTests {
+
+        @Test
+        @DisplayName("Varios hilos generan millones de números sin repetir")
+        void generacionConcurrente_sinRepetidos() throws Exception {
+            // Arrange
+            GeneradorNumeroVentaSecuencial generador = new GeneradorNumeroVentaSecuencial(7);
+            Set<Long> generados = ConcurrentHashMap.newKeySet(HILOS * POR_HILO);
+            CountDownLatch largada = new CountDownLatch(1);
+            ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+
+            // Act
+            List<Future<?>> tareas = new ArrayList<>();
+            for (int h = 0; h < HILOS; h++) {
+                tareas.add(ejecutor.submit(() -> {
+                    largada.await();
+                    long previo = -1;
+                    for (int i = 0; i < POR_HILO; i++) {
+                        long numero = generador.siguiente();
+                        // Dentro de un hilo los números siempre crecen
+                        assertTrue(numero > previo);
+                        previo = numero;
+                        generados.add(numero);
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            ejecutor.shutdown();
+
+            // Assert
+            assertEquals(HILOS * POR_HILO, generados.size());
+        }
+
+        @Test
+        @DisplayName("Dos nodos nunca generan el mismo número")
+        void nodosDistintos_noChocan() {
+            // Arrange
+            GeneradorNumeroVentaSecuencial nodoA = new GeneradorNumeroVentaSecuencial(1);
+            GeneradorNumeroVentaSecuencial nodoB = new GeneradorNumeroVentaSecuencial(2);
+            Set<String> generados = new HashSet<>();
+
+            // Act
+            for (int i = 0; i < 100_000; i++) {
+                generados.add(nodoA.generar());
+                generados.add(nodoB.generar());
+            }
+
+            // Assert
+            assertEquals(200_000, generados.size());
+        }
+
+        @Test
+        @DisplayName("El número cabe en la columna y empieza con V")
+        void formato_cabeEnLaColumna() {
+            // Act
+            String numero = new GeneradorNumeroVentaSecuencial(GeneradorNumeroVentaSecuencial.NODO_MAXIMO).generar();
+
+            // Assert
+            assertTrue(numero.startsWith("V"));
+            assertTrue(numero.length() <= GeneradorNumeroVenta.LONGITUD_MAXIMA);
+        }
+
+        @Test
+        @DisplayName("Un nodo fuera de rango se rechaza")
+        void nodoFueraDeRango_lanzaExcepcion() {
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> new GeneradorNumeroVentaSecuencial(1024));
+            assertThrows(IllegalArgumentException.class, () -> new GeneradorNumeroVentaSecuencial(-1));
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Rendimiento")
+    class RendimientoTests {
+
+        @Test
+        @DisplayName("Genera más de 100.000 números por segundo con uno y varios hilos")
+        void medicion_numerosPorSegundo() throws Exception {
+            // Arrange
+            GeneradorNumeroVentaSecuencial generador = new GeneradorNumeroVentaSecuencial(3);
+            for (int i = 0; i < 1_000_000; i++) {
+                generador.generar();
+            }
+
+            // Act
+            long inicio = System.nanoTime();
+            for (int i = 0; i < 2_000_000; i++) {
+                generador.generar();
+            }
+            double unHilo = 2_000_000 / ((System.nanoTime() - inicio) / 1_000_000_000.0);
+
+            ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+            List<Future<?>> tareas = new ArrayList<>();
+            inicio = System.nanoTime();
+            for (int h = 0; h < HILOS; h++) {
+                tareas.add(ejecutor.submit(() -> {
+                    for (int i = 0; i < POR_HILO; i++) {
+                        generador.generar();
+                    }
+                }));
+            }
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            double variosHilos = (double) HILOS * POR_HILO / ((System.nanoTime() - inicio) / 1_000_000_000.0);
+            ejecutor.shutdown();
+
+            // Assert
+            assertTrue(unHilo > 100_000, "1 hilo: " + unHilo + " números/s");
+            assertTrue(variosHilos > 100_000, HILOS + " hilos: " + variosHilos + " números/s");
+        }
+    }
+}
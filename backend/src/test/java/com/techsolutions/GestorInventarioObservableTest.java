@@ -0,0 +1,316 @@
+package com.techsolutions;
+
+import com.techsolutions.dto.StockVigenteDTO;
+import com.techsolutions.model.Producto;
+import com.techsolutions.pattern.observer.DespachadorNotificaciones;
+import com.techsolutions.pattern.observer.DespachadorNotificaciones.PoliticaSaturacion;
+import com.techsolutions.pattern.observer.GestorInventarioObservable;
+import com.techsolutions.pattern.observer.ObservadorInventario;
+import com.techsolutions.repository.ProductoRepository;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios para el Patrón Observer - Gestor de Inventario
+ * RF5: Solo los roles GERENTE y COMPRAS reciben notificaciones de stock bajo
+ */
+@SuppressWarnings("all")
+@DisplayName("Tests de Patrón Observer - Gestor de Inventario (RF5)")
+class GestorInventarioObservableTest {
+
+    private DespachadorNotificaciones despachador;
+    private GestorInventarioObservable gestor;
+    private AtomicInteger notificaciones;
+    private AtomicInteger resumenes;
+
+    @SuppressWarnings("unused")
+    @BeforeEach
+    void setUp() {
+        despachador = new DespachadorNotificaciones(2, 100, PoliticaSaturacion.EJECUTAR_EN_LLAMADOR);
+        gestor = new GestorInventarioObservable(despachador);
+        notificaciones = new AtomicInteger();
+        resumenes = new AtomicInteger();
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Registro indexado por rol")
+    class RegistroPorRolTests {
+
+        @Test
+        @DisplayName("Con 10.000 observadores solo se notifica a GERENTE y COMPRAS")
+        void diezMilObservadores_soloNotificaRolesAutorizados() throws Exception {
+            // Arrange
+            for (int i = 0; i < 10_000; i++) {
+                String rol = switch (i % 4) {
+                    case 0 -> "GERENTE";
+                    case 1 -> "COMPRAS";
+                    default -> "VENTAS";
+                };
+                gestor.agregarObservador(new ObservadorContador(rol));
+            }
+
+            // Act
+            long inicio = System.nanoTime();
+            gestor.verificarYNotificarStock(productoConStockBajo());
+            despachador.detener();
+            long nanos = System.nanoTime() - inicio;
+
+            // Assert
+            assertEquals(10_000, gestor.getObservadores().size());
+            assertEquals(5_000, notificaciones.get());
+            assertTrue(nanos < TimeUnit.SECONDS.toNanos(5),
+                "El fan-out tardó " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms");
+        }
+
+        @Test
+        @DisplayName("Un observador repetido se registra una sola vez")
+        void observadorRepetido_seRegistraUnaVez() {
+            // Arrange
+            ObservadorContador gerente = new ObservadorContador("GERENTE");
+
+            // Act
+            gestor.agregarObservador(gerente);
+            gestor.agregarObservador(gerente);
+
+            // Assert
+            assertEquals(1, gestor.getObservadores().size());
+        }
+
+        @Test
+        @DisplayName("Un observador removido deja de recibir notificaciones")
+        void observadorRemovido_noRecibeNotificaciones() throws Exception {
+            // Arrange
+            ObservadorContador gerente = new ObservadorContador("GERENTE");
+            gestor.agregarObservador(gerente);
+            gestor.removerObservador(gerente);
+
+            // Act
+            gestor.verificarYNotificarStock(productoConStockBajo());
+            despachador.detener();
+
+            // Assert
+            assertEquals(0, notificaciones.get());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Alertas por flanco y agrupación")
+    class AlertasPorFlancoTests {
+
+        @Test
+        @DisplayName("Un producto que sigue bajo el mínimo se notifica una sola vez")
+        void productoBajoMinimo_seNotificaUnaVez() throws Exception {
+            // Arrange
+            gestor.agregarObservador(new ObservadorContador("GERENTE"));
+            Producto producto = productoConStockBajo(1L);
+
+            // Act
+            for (int venta = 0; venta < 50; venta++) {
+                producto.setStock(producto.getStock() > 0 ? producto.getStock() - 1 : 0);
+                gestor.verificarYNotificarStock(producto);
+            }
+            despachador.detener();
+
+            // Assert
+            assertEquals(1, notificaciones.get());
+        }
+
+        @Test
+        @DisplayName("Al recuperarse el stock la alerta se rearma")
+        void productoRecuperado_rearmaLaAlerta() throws Exception {
+            // Arrange
+            gestor.agregarObservador(new ObservadorContador("COMPRAS"));
+            Producto producto = productoConStockBajo(2L);
+
+            // Act
+            gestor.verificarYNotificarStock(producto);
+            producto.setStock(50);
+            gestor.verificarYNotificarStock(producto);
+            producto.setStock(2);
+            gestor.verificarYNotificarStock(producto);
+            despachador.detener();
+
+            // Assert
+            assertEquals(2, notificaciones.get());
+        }
+
+        @Test
+        @DisplayName("Un callback que llega tarde con una instantánea vieja no deja el producto en alerta")
+        void callbackFueraDeOrden_usaElStockConfirmado() throws Exception {
+            // Arrange: T1 bajó el stock y T2 lo repuso; el último valor confirmado es el de T2
+            Map<Long, StockVigenteDTO> confirmado = new ConcurrentHashMap<>();
+            GestorInventarioObservable gestorConLectura = new GestorInventarioObservable(despachador, 0,
+                repositorioConStock(confirmado));
+            gestorConLectura.agregarObservador(new ObservadorContador("GERENTE"));
+            Producto bajadaT1 = productoConStockBajo(3L);
+            Producto reposicionT2 = productoConStockBajo(3L);
+            reposicionT2.setStock(50);
+            confirmado.put(3L, new StockVigenteDTO(3L, 50, 10, true));
+
+            // Act: el callback de T2 corre antes que el de T1
+            gestorConLectura.verificarYNotificarStock(reposicionT2);
+            gestorConLectura.verificarYNotificarStock(bajadaT1);
+            int antesDeLaBajada = notificaciones.get();
+            confirmado.put(3L, new StockVigenteDTO(3L, 2, 10, true));
+            gestorConLectura.verificarYNotificarStock(productoConStockBajo(3L));
+            despachador.detener();
+
+            // Assert: la siguiente bajada real sí dispara la alerta
+            assertEquals(0, antesDeLaBajada);
+            assertEquals(1, notificaciones.get());
+        }
+
+        @Test
+        @DisplayName("Un producto inactivo con stock bajo no dispara alertas, igual que en el índice")
+        void productoInactivo_noNotifica() throws Exception {
+            // Arrange
+            Map<Long, StockVigenteDTO> confirmado = new ConcurrentHashMap<>();
+            GestorInventarioObservable gestorConLectura = new GestorInventarioObservable(despachador, 0,
+                repositorioConStock(confirmado));
+            gestorConLectura.agregarObservador(new ObservadorContador("GERENTE"));
+            confirmado.put(4L, new StockVigenteDTO(4L, 2, 10, false));
+            Producto inactivo = productoConStockBajo();
+            inactivo.setActivo(false);
+
+            // Act
+            gestorConLectura.verificarYNotificarStock(productoConStockBajo(4L));
+            gestorConLectura.verificarYNotificarStock(inactivo);
+            despachador.detener();
+
+            // Assert
+            assertEquals(0, notificaciones.get());
+        }
+
+        @Test
+        @DisplayName("Con ventana de agrupación cada observador recibe un único resumen")
+        void ventanaDeAgrupacion_enviaUnResumenPorObservador() throws Exception {
+            // Arrange
+            GestorInventarioObservable gestorAgrupado = new GestorInventarioObservable(despachador, 60_000);
+            gestorAgrupado.agregarObservador(new ObservadorContador("GERENTE"));
+            gestorAgrupado.agregarObservador(new ObservadorContador("COMPRAS"));
+
+            // Act
+            for (long id = 1; id <= 100; id++) {
+                gestorAgrupado.verificarYNotificarStock(productoConStockBajo(id));
+            }
+            gestorAgrupado.detener();
+            despachador.detener();
+
+            // Assert
+            assertEquals(2, resumenes.get());
+            assertEquals(200, notificaciones.get());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Concurrencia")
+    class ConcurrenciaTests {
+
+        @Test
+        @DisplayName("Registrar observadores mientras se notifica no lanza excepciones")
+        void registrarMientrasSeNotifica_esSeguro() throws Exception {
+            // Arrange
+            ExecutorService executor = Executors.newFixedThreadPool(8);
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<?>> tareas = new ArrayList<>();
+
+            // Act
+            for (int hilo = 0; hilo < 8; hilo++) {
+                boolean registra = hilo % 2 == 0;
+                tareas.add(executor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < 500; i++) {
+                        if (registra) {
+                            gestor.agregarObservador(new ObservadorContador("COMPRAS"));
+                        } else {
+                            gestor.verificarYNotificarStock(productoConStockBajo());
+                        }
+                    }
+                    return null;
+                }));
+            }
+            largada.countDown();
+
+            // Assert
+            for (Future<?> tarea : tareas) {
+                assertDoesNotThrow(() -> tarea.get(30, TimeUnit.SECONDS));
+            }
+            executor.shutdown();
+            assertEquals(2_000, gestor.getObservadores().size());
+        }
+    }
+
+    /**
+     * ProductoRepository que solo responde findStockVigente desde el mapa dado
+     */
+    private ProductoRepository repositorioConStock(Map<Long, StockVigenteDTO> confirmado) {
+        return (ProductoRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+            new Class<?>[]{ProductoRepository.class}, (proxy, metodo, argumentos) -> {
+                if (metodo.getName().equals("findStockVigente")) {
+                    return Optional.ofNullable(confirmado.get((Long) argumentos[0]));
+                }
+                throw new UnsupportedOperationException(metodo.getName());
+            });
+    }
+
+    private Producto productoConStockBajo() {
+        return productoConStockBajo(null);
+    }
+
+    private Producto productoConStockBajo(Long id) {
+        Producto producto = new Producto();
+        producto.setId(id);
+        producto.setNombre("Mouse Inalámbrico");
+        producto.setStock(3);
+        producto.setStockMinimo(10);
+        return producto;
+    }
+
+    /**
+     * Observador de prueba que solo cuenta las notificaciones recibidas
+     */
+    private class ObservadorContador implements ObservadorInventario {
+
+        private final String rol;
+
+        ObservadorContador(String rol) {
+            this.rol = rol;
+        }
+
+        @Override
+        public void notificarStockBajo(Producto producto) {
+            notificaciones.incrementAndGet();
+        }
+
+        @Override
+        public void notificarResumenStockBajo(List<Producto> productos) {
+            resumenes.incrementAndGet();
+            notificaciones.addAndGet(productos.size());
+        }
+
+        @Override
+        public String getRol() {
+            return rol;
+        }
+    }
+}
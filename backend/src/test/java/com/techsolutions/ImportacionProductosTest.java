@@ -0,0 +1,177 @@
+package com.techsolutions;
+
+import com.techsolutions.repository.CategoriaRepository;
+import com.techsolutions.repository.ProductoRepository;
+import com.techsolutions.service.CacheCatalogo;
+import com.techsolutions.service.ImportacionProductosService;
+import com.techsolutions.service.ImportacionProductosService.ResultadoImportacion;
+import com.techsolutions.service.IndiceStockBajo;
+import com.techsolutions.service.ResolutorCategorias;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la importación masiva de productos
+ */
+@SuppressWarnings("all")
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN",
+    "inventario.importacion.tamano-lote=500"
+})
+@Import({ImportacionProductosService.class, ResolutorCategorias.class, IndiceStockBajo.class, CacheCatalogo.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests de Importación Masiva de Productos")
+class ImportacionProductosTest {
+
+    private static final int FILAS = 20_000;
+
+    @Autowired
+    private ImportacionProductosService importacionProductosService;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private ResolutorCategorias resolutorCategorias;
+
+    @AfterEach
+    void limpiar() {
+        productoRepository.deleteAllInBatch();
+        categoriaRepository.deleteAllInBatch();
+        resolutorCategorias.cargar();
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("CSV")
+    class CsvTests {
+
+        @Test
+        @DisplayName("Importa miles de filas por lotes y reporta las filas por segundo")
+        void importarCsvGrande_escribePorLotes() throws Exception {
+            // Arrange
+            StringBuilder csv = new StringBuilder("codigo,nombre,precio,stock,stockMinimo,categoria\n");
+            for (int i = 1; i <= FILAS; i++) {
+                csv.append("IMP-").append(i).append(",Producto ").append(i).append(',')
+                    .append(i % 100).append(".50,").append(i % 30).append(",10,Categoría ").append(i % 7).append('\n');
+            }
+
+            // Act
+            ResultadoImportacion resultado = importacionProductosService.importarCsv(flujo(csv.toString()));
+
+            // Assert
+            assertEquals(FILAS, resultado.filasLeidas());
+            assertEquals(FILAS, resultado.filasImportadas());
+            assertEquals(0, resultado.filasRechazadas());
+            assertEquals(FILAS, productoRepository.count());
+            assertEquals(7, categoriaRepository.count());
+            assertTrue(resultado.segundos() > 0);
+            assertEquals(FILAS / resultado.segundos(), resultado.filasPorSegundo(), 1e-6);
+            assertTrue(resultado.filasPorSegundo() > 500,
+                "Se importaron " + resultado.filasPorSegundo() + " filas/s");
+        }
+
+        @Test
+        @DisplayName("Las filas inválidas, repetidas o existentes se rechazan sin detener la importación")
+        void filasConErrores_seRechazanIndividualmente() throws Exception {
+            // Arrange
+            importacionProductosService.importarCsv(flujo("codigo,nombre,precio\nEXISTE-1,Existente,10\n"));
+            String csv = """
+                codigo,nombre,descripcion,precio
+                OK-1,Cable,"USB, 2 metros",9.90
+                OK-1,Repetido,,9.90
+                EXISTE-1,Ya existe,,5
+                MAL-1,Precio malo,,abc
+                ,Sin código,,5
+                OK-2,Hub,,19.90
+                """;
+
+            // Act
+            ResultadoImportacion resultado = importacionProductosService.importarCsv(flujo(csv));
+
+            // Assert
+            assertEquals(6, resultado.filasLeidas());
+            assertEquals(2, resultado.filasImportadas());
+            assertEquals(4, resultado.filasRechazadas());
+            assertEquals(4, resultado.errores().size());
+            assertEquals("USB, 2 metros", productoRepository.findByCodigo("OK-1").orElseThrow().getDescripcion());
+        }
+
+        @Test
+        @DisplayName("Una fila rechazada no deja creada su categoría")
+        void filaRechazada_noCreaCategoria() throws Exception {
+            // Arrange
+            importacionProductosService.importarCsv(flujo("codigo,nombre,precio\nEXISTE-1,Existente,10\n"));
+            String csv = """
+                codigo,nombre,precio,categoria
+                OK-1,Cable,9.90,Cables
+                OK-1,Repetido,9.90,Repetidos
+                EXISTE-1,Ya existe,5,Existentes
+                MAL-1,Precio malo,abc,Inválidos
+                """;
+
+            // Act
+            ResultadoImportacion resultado = importacionProductosService.importarCsv(flujo(csv));
+
+            // Assert
+            assertEquals(1, resultado.filasImportadas());
+            assertEquals(3, resultado.filasRechazadas());
+            assertEquals(1, categoriaRepository.count());
+            assertTrue(categoriaRepository.findByNombreNormalizado("cables").isPresent());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("JSON")
+    class JsonTests {
+
+        @Test
+        @DisplayName("Importa un arreglo JSON con nombres de campo sin distinguir mayúsculas")
+        void importarJson_importaProductos() throws Exception {
+            // Arrange
+            String json = """
+                [
+                  {"codigo": "J-1", "nombre": "Mouse", "precio": 45.00, "stockMinimo": 3, "categoria": "Periféricos"},
+                  {"codigo": "J-2", "nombre": "Teclado", "precio": 180, "STOCK": 12, "categoria": "PERIFÉRICOS"},
+                  {"codigo": "J-3"}
+                ]
+                """;
+
+            // Act
+            ResultadoImportacion resultado = importacionProductosService.importarJson(flujo(json));
+
+            // Assert
+            assertEquals(2, resultado.filasImportadas());
+            assertEquals(1, resultado.filasRechazadas());
+            assertEquals(3, productoRepository.findByCodigo("J-1").orElseThrow().getStockMinimo());
+            assertEquals(12, productoRepository.findByCodigo("J-2").orElseThrow().getStock());
+            assertEquals(1, categoriaRepository.count());
+        }
+    }
+
+    private InputStream flujo(String contenido) {
+        return new ByteArrayInputStream(contenido.getBytes(StandardCharsets.UTF_8));
+    }
+}
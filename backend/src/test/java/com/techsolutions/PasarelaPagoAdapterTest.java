@@ -4,12 +4,18 @@ import com.techsolutions.pattern.adapter.PasarelaPago;
 import com.techsolutions.pattern.adapter.PayPalAdapter;
 import com.techsolutions.pattern.adapter.YapeAdapter;
 import com.techsolutions.pattern.adapter.PlinAdapter;
+import com.techsolutions.pattern.decorator.PagoNoEnviadoException;
+import com.techsolutions.pattern.decorator.PasarelaPagoProtegida.Limites;
+import com.techsolutions.service.PagoService;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Nested;
 import org.junit.jupiter.api.Test;
 
 import java.math.BigDecimal;
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -26,12 +32,28 @@ class PasarelaPagoAdapterTest {
     private YapeAdapter yapeAdapter;
     private PlinAdapter plinAdapter;
 
+    /**
+     * RF2: la habilitación no es del adaptador, la decide la configuración versionada de PagoService
+     */
+    private PagoService pagoService;
+
     @SuppressWarnings("unused")
     @BeforeEach
     void setUp() {
         paypalAdapter = new PayPalAdapter();
         yapeAdapter = new YapeAdapter();
         plinAdapter = new PlinAdapter();
+        Map<String, PasarelaPago> adaptadores = new LinkedHashMap<>();
+        adaptadores.put("paypal", paypalAdapter);
+        adaptadores.put("yape", yapeAdapter);
+        adaptadores.put("plin", plinAdapter);
+        pagoService = new PagoService(adaptadores, Limites.porDefecto(), true);
+    }
+
+    @SuppressWarnings("unused")
+    @AfterEach
+    void tearDown() {
+        pagoService.cerrar();
     }
 
     @SuppressWarnings("unused")
@@ -64,7 +86,7 @@ class PasarelaPagoAdapterTest {
         @DisplayName("PayPal está habilitada por defecto")
         void paypal_habilitadaPorDefecto() {
             // Act & Assert
-            assertTrue(paypalAdapter.estaHabilitada());
+            assertTrue(pagoService.getConfiguracion().habilitada("paypal"));
         }
 
         @Test
@@ -109,7 +131,7 @@ class PasarelaPagoAdapterTest {
         @DisplayName("Yape está habilitada por defecto")
         void yape_habilitadaPorDefecto() {
             // Act & Assert
-            assertTrue(yapeAdapter.estaHabilitada());
+            assertTrue(pagoService.getConfiguracion().habilitada("yape"));
         }
     }
 
@@ -143,7 +165,7 @@ class PasarelaPagoAdapterTest {
         @DisplayName("Plin está habilitada por defecto")
         void plin_habilitadaPorDefecto() {
             // Act & Assert
-            assertTrue(plinAdapter.estaHabilitada());
+            assertTrue(pagoService.getConfiguracion().habilitada("plin"));
         }
     }
 
@@ -156,66 +178,59 @@ class PasarelaPagoAdapterTest {
         @DisplayName("PayPal puede ser deshabilitada")
         void paypal_puedeSerDeshabilitada() {
             // Arrange & Act
-            paypalAdapter.setHabilitada(false);
+            pagoService.configurarPasarela("paypal", false);
 
             // Assert
-            assertFalse(paypalAdapter.estaHabilitada());
+            assertFalse(pagoService.getConfiguracion().habilitada("paypal"));
+            assertEquals(false, pagoService.obtenerEstadoPasarelas().get("paypal").get("habilitada"));
         }
 
         @Test
         @DisplayName("PayPal deshabilitada no procesa pagos")
         void paypalDeshabilitada_noProcesaPagos() {
             // Arrange
-            paypalAdapter.setHabilitada(false);
+            pagoService.configurarPasarela("paypal", false);
             BigDecimal monto = new BigDecimal("100.00");
 
-            // Act
-            boolean resultado = paypalAdapter.procesarPago(monto, "TEST-001");
-
-            // Assert
-            assertFalse(resultado);
+            // Act & Assert
+            assertThrows(PagoNoEnviadoException.class, () -> pagoService.procesarPago("paypal", monto, "TEST-001"));
         }
 
         @Test
         @DisplayName("Yape puede ser deshabilitada y habilitada nuevamente")
         void yape_puedeSerHabilitadaYDeshabilitada() {
             // Arrange & Act - Deshabilitar
-            yapeAdapter.setHabilitada(false);
-            assertFalse(yapeAdapter.estaHabilitada());
+            pagoService.configurarPasarela("yape", false);
+            assertFalse(pagoService.getConfiguracion().habilitada("yape"));
 
             // Act - Habilitar
-            yapeAdapter.setHabilitada(true);
+            pagoService.configurarPasarela("yape", true);
 
             // Assert
-            assertTrue(yapeAdapter.estaHabilitada());
+            assertTrue(pagoService.getConfiguracion().habilitada("yape"));
+            assertTrue(pagoService.procesarPago("yape", new BigDecimal("50.00"), "TEST-REHABILITADA"));
         }
 
         @Test
         @DisplayName("Yape deshabilitada no procesa pagos")
         void yapeDeshabilitada_noProcesaPagos() {
             // Arrange
-            yapeAdapter.setHabilitada(false);
+            pagoService.configurarPasarela("yape", false);
             BigDecimal monto = new BigDecimal("50.00");
 
-            // Act
-            boolean resultado = yapeAdapter.procesarPago(monto, "TEST-002");
-
-            // Assert
-            assertFalse(resultado);
+            // Act & Assert
+            assertThrows(PagoNoEnviadoException.class, () -> pagoService.procesarPago("yape", monto, "TEST-002"));
         }
 
         @Test
         @DisplayName("Plin deshabilitada no procesa pagos")
         void plinDeshabilitada_noProcesaPagos() {
             // Arrange
-            plinAdapter.setHabilitada(false);
+            pagoService.configurarPasarela("plin", false);
             BigDecimal monto = new BigDecimal("30.00");
 
-            // Act
-            boolean resultado = plinAdapter.procesarPago(monto, "TEST-003");
-
-            // Assert
-            assertFalse(resultado);
+            // Act & Assert
+            assertThrows(PagoNoEnviadoException.class, () -> pagoService.procesarPago("plin", monto, "TEST-003"));
         }
     }
 
@@ -242,7 +257,6 @@ class PasarelaPagoAdapterTest {
 
             // Act & Assert
             for (PasarelaPago pasarela : pasarelas) {
-                assertTrue(pasarela.estaHabilitada());
                 assertNotNull(pasarela.getNombre());
                 assertTrue(pasarela.procesarPago(monto, "TEST-POLY"));
             }
@@ -0,0 +1,392 @@
+package com.techsolutions;
+
+import com.techsolutions.pattern.adapter.PasarelaPago;
+import com.techsolutions.pattern.adapter.PasarelaPagoAsincrona;
+import com.techsolutions.pattern.adapter.PayPalAdapter;
+import com.techsolutions.pattern.adapter.PlinAdapter;
+import com.techsolutions.pattern.adapter.ResultadoPago;
+import com.techsolutions.pattern.adapter.ResultadoPago.EstadoPago;
+import com.techsolutions.pattern.adapter.YapeAdapter;
+import com.techsolutions.pattern.decorator.InterruptorCircuito.Estado;
+import com.techsolutions.pattern.decorator.PagoNoEnviadoException;
+import com.techsolutions.pattern.decorator.PasarelaPagoProtegida;
+import com.techsolutions.pattern.decorator.PasarelaPagoProtegida.Limites;
+import com.techsolutions.service.PagoService;
+import com.techsolutions.util.AlmacenIdempotencia;
+import com.techsolutions.util.AlmacenIdempotencia.Resultado;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del contrato asíncrono de pasarelas (PasarelaPagoAsincrona)
+ * Incluye la medición de miles de pagos pendientes frente al camino bloqueante
+ */
+@SuppressWarnings("all")
+@DisplayName("Tests de Pagos Asíncronos")
+class PasarelaPagoAsincronaTest {
+
+    private static final BigDecimal MONTO = new BigDecimal("100.00");
+
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+    private final ScheduledExecutorService programador = Executors.newSingleThreadScheduledExecutor();
+
+    @AfterEach
+    void cerrar() {
+        ejecutor.shutdownNow();
+        programador.shutdownNow();
+    }
+
+    /**
+     * Pasarela con latencia simulada: la variante bloqueante duerme el hilo y la asíncrona
+     * programa la respuesta sin ocupar ninguno mientras espera
+     */
+    class PasarelaRemota implements PasarelaPago, PasarelaPagoAsincrona {
+        final long latenciaMs;
+        final AtomicInteger pendientes = new AtomicInteger();
+        final AtomicInteger maxPendientes = new AtomicInteger();
+        final Set<String> hilosRespuesta = ConcurrentHashMap.newKeySet();
+
+        PasarelaRemota(long latenciaMs) {
+            this.latenciaMs = latenciaMs;
+        }
+
+        @Override
+        public boolean procesarPago(BigDecimal monto, String referencia) {
+            maxPendientes.accumulateAndGet(pendientes.incrementAndGet(), Math::max);
+            try {
+                Thread.sleep(latenciaMs);
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                pendientes.decrementAndGet();
+            }
+        }
+
+        @Override
+        public CompletableFuture<ResultadoPago> procesarPagoAsync(BigDecimal monto, String referencia) {
+            maxPendientes.accumulateAndGet(pendientes.incrementAndGet(), Math::max);
+            CompletableFuture<ResultadoPago> respuesta = new CompletableFuture<>();
+            programador.schedule(() -> {
+                pendientes.decrementAndGet();
+                hilosRespuesta.add(Thread.currentThread().getName());
+                respuesta.complete(ResultadoPago.de(getNombre(), referencia, monto, true));
+            }, latenciaMs, TimeUnit.MILLISECONDS);
+            return respuesta;
+        }
+
+        @Override
+        public String verificarEstado(String referencia) {
+            return "COMPLETADO - Remota";
+        }
+
+        @Override
+        public CompletableFuture<String> verificarEstadoAsync(String referencia) {
+            return CompletableFuture.completedFuture(verificarEstado(referencia));
+        }
+
+        @Override
+        public String getNombre() {
+            return "Remota";
+        }
+    }
+
+    private PasarelaPagoProtegida proteger(PasarelaPago pasarela, int maxConcurrentes, long timeoutMs) {
+        return new PasarelaPagoProtegida(pasarela, new Limites(maxConcurrentes, Duration.ofMillis(timeoutMs),
+            10, 5, 50, Duration.ofSeconds(30), 2), ejecutor);
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Adaptadores")
+    class AdaptadoresTests {
+
+        @Test
+        @DisplayName("Las tres pasarelas implementan la variante asíncrona con resultado detallado")
+        void adaptadores_devuelvenResultadoAprobado() {
+            // Arrange
+            List<PasarelaPagoAsincrona> pasarelas = List.of(new PayPalAdapter(), new YapeAdapter(), new PlinAdapter());
+
+            for (PasarelaPagoAsincrona pasarela : pasarelas) {
+                // Act
+                ResultadoPago resultado = pasarela.procesarPagoAsync(MONTO, "ORD-1").join();
+
+                // Assert
+                assertTrue(resultado.exitoso());
+                assertEquals(EstadoPago.APROBADO, resultado.estado());
+                assertNotNull(resultado.codigoAutorizacion());
+                assertEquals("ORD-1", resultado.referencia());
+                assertEquals(MONTO, resultado.monto());
+                assertTrue(pasarela.verificarEstadoAsync("ORD-1").join().startsWith("COMPLETADO"));
+            }
+        }
+
+        @Test
+        @DisplayName("Una pasarela deshabilitada en la configuración rechaza el pago sin enviarlo")
+        void pasarelaDeshabilitada_noEnviaElPago() {
+            // Arrange
+            PagoService pagoService = new PagoService(Limites.porDefecto());
+            pagoService.configurarPasarela("yape", false);
+
+            // Act & Assert
+            assertThrows(PagoNoEnviadoException.class, () -> pagoService.procesarPagoAsync("yape", MONTO, "ORD-2"));
+            pagoService.cerrar();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Latencia simulada")
+    class LatenciaTests {
+
+        @Test
+        @DisplayName("Con latencia simulada la variante asíncrona devuelve el futuro sin esperar")
+        void latenciaSimulada_asincronoNoBloquea() {
+            // Arrange
+            YapeAdapter yape = new YapeAdapter();
+            yape.setLatenciaSimulada(200);
+
+            // Act
+            long inicio = System.nanoTime();
+            CompletableFuture<ResultadoPago> futuro = yape.procesarPagoAsync(MONTO, "ORD-8");
+            long devueltoEnMs = (System.nanoTime() - inicio) / 1_000_000;
+            ResultadoPago resultado = futuro.join();
+            long respondidoEnMs = (System.nanoTime() - inicio) / 1_000_000;
+
+            // Assert
+            assertTrue(devueltoEnMs < 100, "Devuelto en " + devueltoEnMs + " ms");
+            assertTrue(respondidoEnMs >= 200, "Respondido en " + respondidoEnMs + " ms");
+            assertTrue(resultado.exitoso());
+        }
+
+        @Test
+        @DisplayName("PagoService aplica la latencia en ambos modos de hilos")
+        void pagoService_ambosModosDeHilos() {
+            for (boolean hilosVirtuales : new boolean[]{false, true}) {
+                // Arrange
+                PagoService pagoService = new PagoService(Limites.porDefecto(), hilosVirtuales, 50);
+
+                // Act
+                long inicio = System.nanoTime();
+                boolean exitoso = pagoService.procesarPago("plin", MONTO, "ORD-9");
+                long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+                pagoService.cerrar();
+
+                // Assert
+                assertTrue(exitoso);
+                assertTrue(milisegundos >= 50, "Modo virtual=" + hilosVirtuales + ": " + milisegundos + " ms");
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Protección asíncrona")
+    class ProteccionTests {
+
+        @Test
+        @DisplayName("Una pasarela solo bloqueante se ejecuta en el ejecutor del decorador")
+        void delegadaBloqueante_seEjecutaEnElEjecutor() {
+            // Arrange
+            PasarelaPago bloqueante = new PasarelaPago() {
+                public boolean procesarPago(BigDecimal monto, String referencia) { return true; }
+                public String verificarEstado(String referencia) { return "COMPLETADO"; }
+                public String getNombre() { return "Bloqueante"; }
+            };
+            PasarelaPagoProtegida pasarela = proteger(bloqueante, 5, 1000);
+
+            // Act
+            ResultadoPago resultado = pasarela.procesarPagoAsync(MONTO, "ORD-3").join();
+
+            // Assert
+            assertEquals(EstadoPago.APROBADO, resultado.estado());
+            assertEquals("Bloqueante", resultado.pasarela());
+            assertEquals("COMPLETADO", pasarela.verificarEstadoAsync("ORD-3").join());
+        }
+
+        @Test
+        @DisplayName("El timeout completa el futuro con error y el permiso se conserva hasta la respuesta real")
+        void timeout_completaConErrorYConservaPermiso() throws Exception {
+            // Arrange
+            PasarelaRemota remota = new PasarelaRemota(300);
+            PasarelaPagoProtegida pasarela = proteger(remota, 1, 50);
+
+            // Act
+            ExecutionException error = assertThrows(ExecutionException.class,
+                () -> pasarela.procesarPagoAsync(MONTO, "ORD-4").get(2, TimeUnit.SECONDS));
+            ExecutionException saturada = assertThrows(ExecutionException.class,
+                () -> pasarela.procesarPagoAsync(MONTO, "ORD-5").get(2, TimeUnit.SECONDS));
+            Thread.sleep(400);
+
+            // Assert
+            assertInstanceOf(IllegalStateException.class, error.getCause());
+            assertTrue(error.getCause().getMessage().contains("no respondió"));
+            assertTrue(saturada.getCause().getMessage().contains("saturada"));
+            assertEquals(1L, pasarela.obtenerEstadisticas().get("tiemposAgotados"));
+            assertEquals(0, pasarela.obtenerEstadisticas().get("enCurso"));
+        }
+
+        @Test
+        @DisplayName("Con el circuito abierto el futuro falla sin llamar al proveedor")
+        void circuitoAbierto_fallaSinLlamar() {
+            // Arrange
+            AtomicInteger llamadas = new AtomicInteger();
+            PasarelaPagoAsincrona caida = new PasarelaRemota(0) {
+                @Override
+                public CompletableFuture<ResultadoPago> procesarPagoAsync(BigDecimal monto, String referencia) {
+                    llamadas.incrementAndGet();
+                    return CompletableFuture.failedFuture(new RuntimeException("Error 503 del proveedor"));
+                }
+            };
+            PasarelaPagoProtegida pasarela = proteger((PasarelaPago) caida, 5, 1000);
+            for (int i = 0; i < 5; i++) {
+                pasarela.procesarPagoAsync(MONTO, "ORD-" + i).exceptionally(e -> null).join();
+            }
+
+            // Act
+            CompletableFuture<ResultadoPago> rechazado = pasarela.procesarPagoAsync(MONTO, "ORD-6");
+
+            // Assert
+            assertEquals(Estado.ABIERTO, pasarela.getEstadoCircuito());
+            assertEquals(5, llamadas.get());
+            assertTrue(rechazado.isCompletedExceptionally());
+        }
+
+        @Test
+        @DisplayName("PagoService valida la pasarela antes de devolver el futuro")
+        void pagoService_validaPasarela() {
+            // Arrange
+            PagoService pagoService = new PagoService(Limites.porDefecto());
+            pagoService.configurarPasarela("plin", false);
+
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> pagoService.procesarPagoAsync("visa", MONTO, "ORD-7"));
+            assertThrows(IllegalStateException.class, () -> pagoService.procesarPagoAsync("plin", MONTO, "ORD-7"));
+            assertTrue(pagoService.procesarPagoAsync("yape", MONTO, "ORD-7").join().exitoso());
+            pagoService.cerrar();
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Idempotencia asíncrona")
+    class IdempotenciaTests {
+
+        @Test
+        @DisplayName("Los duplicados de un pago pendiente se encadenan a la misma llamada")
+        void duplicadosPendientes_unaSolaLlamada() {
+            // Arrange
+            AlmacenIdempotencia<String> almacen = new AlmacenIdempotencia<>(Duration.ofMinutes(1), 100, Duration.ofSeconds(5));
+            AtomicInteger llamadas = new AtomicInteger();
+            CompletableFuture<String> respuesta = new CompletableFuture<>();
+            List<CompletableFuture<Resultado<String>>> solicitudes = new ArrayList<>();
+
+            // Act
+            for (int i = 0; i < 50; i++) {
+                solicitudes.add(almacen.ejecutarAsync("pago-1", "h", () -> {
+                    llamadas.incrementAndGet();
+                    return respuesta;
+                }));
+            }
+            respuesta.complete("TX-1");
+
+            // Assert
+            assertEquals(1, llamadas.get());
+            assertEquals(49, solicitudes.stream().filter(s -> s.join().repetido()).count());
+            assertTrue(solicitudes.stream().allMatch(s -> "TX-1".equals(s.join().valor())));
+        }
+
+        @Test
+        @DisplayName("Si el pago asíncrono falla la clave se libera para un reintento")
+        void pagoFallido_liberaLaClave() {
+            // Arrange
+            AlmacenIdempotencia<String> almacen = new AlmacenIdempotencia<>(Duration.ofMinutes(1), 100, Duration.ofSeconds(5));
+            CompletableFuture<Resultado<String>> fallido = almacen.ejecutarAsync("pago-2", "h",
+                () -> CompletableFuture.failedFuture(new IllegalStateException("La pasarela yape no respondió en 5000 ms")));
+
+            // Act
+            Resultado<String> reintento = almacen.ejecutarAsync("pago-2", "h", () -> CompletableFuture.completedFuture("TX-2")).join();
+
+            // Assert
+            assertTrue(fallido.isCompletedExceptionally());
+            assertFalse(reintento.repetido());
+            assertEquals("TX-2", reintento.valor());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Rendimiento")
+    class RendimientoTests {
+
+        private static final int PAGOS = 2000;
+        private static final int HILOS_SERVIDOR = 200;
+        private static final long LATENCIA_MS = 50;
+
+        @Test
+        @DisplayName("Miles de pagos pendientes terminan antes por el camino asíncrono que por el bloqueante")
+        void medicion_bloqueanteVsAsincrono() throws Exception {
+            // Arrange: la pasarela tarda 50 ms; el camino bloqueante tiene 200 hilos como el pool de Tomcat
+            PasarelaRemota remotaBloqueante = new PasarelaRemota(LATENCIA_MS);
+            PasarelaRemota remotaAsincrona = new PasarelaRemota(LATENCIA_MS);
+            PasarelaPagoProtegida bloqueante = proteger(remotaBloqueante, PAGOS, 10_000);
+            PasarelaPagoProtegida asincrona = proteger(remotaAsincrona, PAGOS, 10_000);
+            ExecutorService hilosServidor = Executors.newFixedThreadPool(HILOS_SERVIDOR);
+
+            // Act
+            long inicio = System.nanoTime();
+            List<Future<Boolean>> tareas = new ArrayList<>();
+            for (int i = 0; i < PAGOS; i++) {
+                String referencia = "ORD-" + i;
+                tareas.add(hilosServidor.submit(() -> bloqueante.procesarPago(MONTO, referencia)));
+            }
+            int aprobadosBloqueante = 0;
+            for (Future<Boolean> tarea : tareas) {
+                aprobadosBloqueante += tarea.get() ? 1 : 0;
+            }
+            long nanosBloqueante = System.nanoTime() - inicio;
+            hilosServidor.shutdown();
+
+            inicio = System.nanoTime();
+            List<CompletableFuture<ResultadoPago>> futuros = new ArrayList<>();
+            for (int i = 0; i < PAGOS; i++) {
+                futuros.add(asincrona.procesarPagoAsync(MONTO, "ORD-" + i));
+            }
+            CompletableFuture.allOf(futuros.toArray(CompletableFuture[]::new)).get(30, TimeUnit.SECONDS);
+            long nanosAsincrono = System.nanoTime() - inicio;
+            long aprobadosAsincrono = futuros.stream().filter(f -> f.join().exitoso()).count();
+
+            // Assert
+            assertEquals(PAGOS, aprobadosBloqueante);
+            assertEquals(PAGOS, aprobadosAsincrono);
+            assertTrue(remotaBloqueante.maxPendientes.get() <= HILOS_SERVIDOR);
+            assertTrue(remotaAsincrona.maxPendientes.get() > HILOS_SERVIDOR,
+                "Pendientes a la vez: " + remotaAsincrona.maxPendientes.get());
+            assertEquals(1, remotaAsincrona.hilosRespuesta.size());
+            // Con 200 hilos el camino bloqueante no puede bajar de PAGOS / HILOS_SERVIDOR tandas de 50 ms
+            assertTrue(nanosBloqueante >= TimeUnit.MILLISECONDS.toNanos(PAGOS / HILOS_SERVIDOR * LATENCIA_MS));
+            assertTrue(nanosAsincrono < nanosBloqueante,
+                "Asíncrono: " + nanosAsincrono / 1_000_000 + " ms, bloqueante: " + nanosBloqueante / 1_000_000 + " ms");
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.techsolutions;
+
+import com.techsolutions.pattern.adapter.PasarelaPago;
+import com.techsolutions.pattern.decorator.InterruptorCircuito.Estado;
+import com.techsolutions.pattern.decorator.PasarelaPagoProtegida;
+import com.techsolutions.pattern.decorator.PasarelaPagoProtegida.Limites;
+import com.techsolutions.service.PagoService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del decorador de protección de pasarelas (bulkhead, timeout e interruptor de circuito)
+ * Usa una pasarela simulada a la que se le inyecta latencia y fallos
+ */
+@SuppressWarnings("all")
+@DisplayName("Tests de Protección de Pasarelas de Pago")
+class PasarelaPagoProtegidaTest {
+
+    private static final BigDecimal MONTO = new BigDecimal("100.00");
+
+    private final ExecutorService ejecutor = Executors.newVirtualThreadPerTaskExecutor();
+
+    @AfterEach
+    void cerrar() {
+        ejecutor.shutdownNow();
+    }
+
+    /**
+     * Pasarela local con latencia y fallos configurables
+     */
+    static class PasarelaSimulada implements PasarelaPago {
+        volatile long latenciaMs;
+        volatile boolean fallar;
+        volatile boolean rechazar;
+        final AtomicInteger llamadas = new AtomicInteger();
+        final AtomicInteger simultaneas = new AtomicInteger();
+        final AtomicInteger maxSimultaneas = new AtomicInteger();
+
+        @Override
+        public boolean procesarPago(BigDecimal monto, String referencia) {
+            llamadas.incrementAndGet();
+            maxSimultaneas.accumulateAndGet(simultaneas.incrementAndGet(), Math::max);
+            try {
+                if (latenciaMs > 0) {
+                    Thread.sleep(latenciaMs);
+                }
+                if (fallar) {
+                    throw new RuntimeException("Error 503 del proveedor");
+                }
+                return !rechazar;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                simultaneas.decrementAndGet();
+            }
+        }
+
+        @Override
+        public String verificarEstado(String referencia) {
+            return "COMPLETADO - Simulada";
+        }
+
+        @Override
+        public String getNombre() {
+            return "Simulada";
+        }
+    }
+
+    private PasarelaPagoProtegida proteger(PasarelaSimulada simulada, int maxConcurrentes, long timeoutMs,
+                                          long esperaAbiertoMs) {
+        return new PasarelaPagoProtegida(simulada, new Limites(maxConcurrentes, Duration.ofMillis(timeoutMs),
+            10, 5, 50, Duration.ofMillis(esperaAbiertoMs), 2), ejecutor);
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Bulkhead y timeout")
+    class BulkheadTests {
+
+        @Test
+        @DisplayName("Las llamadas que exceden el límite simultáneo se rechazan de inmediato")
+        void limiteSimultaneo_rechazaExcedentes() throws Exception {
+            // Arrange
+            PasarelaSimulada simulada = new PasarelaSimulada();
+            simulada.latenciaMs = 300;
+            PasarelaPagoProtegida pasarela = proteger(simulada, 2, 2000, 1000);
+            CountDownLatch largada = new CountDownLatch(1);
+            ExecutorService clientes = Executors.newFixedThreadPool(6);
+            List<Future<Boolean>> tareas = new ArrayList<>();
+
+            // Act
+            for (int i = 0; i < 6; i++) {
+                tareas.add(clientes.submit(() -> {
+                    largada.await();
+                    try {
+                        return pasarela.procesarPago(MONTO, "REF");
+                    } catch (IllegalStateException e) {
+                        assertTrue(e.getMessage().contains("saturada"));
+                        return null;
+                    }
+                }));
+            }
+            largada.countDown();
+            int exitosas = 0;
+            for (Future<Boolean> tarea : tareas) {
+                exitosas += tarea.get() != null ? 1 : 0;
+            }
+            clientes.shutdown();
+
+            // Assert
+            assertEquals(2, exitosas);
+            assertEquals(2, simulada.maxSimultaneas.get());
+            assertEquals(4L, pasarela.obtenerEstadisticas().get("rechazadasSaturacion"));
+        }
+
+        @Test
+        @DisplayName("Una pasarela lenta corta la espera en el timeout")
+        void pasarelaLenta_agotaTiempo() {
+            // Arrange
+            PasarelaSimulada simulada = new PasarelaSimulada();
+            simulada.latenciaMs = 2000;
+            PasarelaPagoProtegida pasarela = proteger(simulada, 5, 100, 1000);
+
+            // Act
+            long inicio = System.nanoTime();
+            IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> pasarela.procesarPago(MONTO, "REF"));
+            long ms = (System.nanoTime() - inicio) / 1_000_000;
+
+            // Assert
+            assertTrue(error.getMessage().contains("no respondió"));
+            assertTrue(ms < 1000, "Esperó " + ms + " ms");
+            assertEquals(1L, pasarela.obtenerEstadisticas().get("tiemposAgotados"));
+        }
+
+        @Test
+        @DisplayName("Una pasarela colgada no afecta la latencia de otra")
+        void pasarelaColgada_noAfectaOtra() throws Exception {
+            // Arrange: la pasarela lenta tiene todas sus llamadas ocupadas
+            PasarelaSimulada lenta = new PasarelaSimulada();
+            lenta.latenciaMs = 1500;
+            PasarelaSimulada sana = new PasarelaSimulada();
+            sana.latenciaMs = 5;
+            PasarelaPagoProtegida pasarelaLenta = proteger(lenta, 4, 3000, 1000);
+            PasarelaPagoProtegida pasarelaSana = proteger(sana, 4, 3000, 1000);
+            ExecutorService clientes = Executors.newFixedThreadPool(16);
+            for (int i = 0; i < 16; i++) {
+                clientes.submit(() -> {
+                    try {
+                        pasarelaLenta.procesarPago(MONTO, "LENTA");
+                    } catch (IllegalStateException e) {
+                        // Rechazadas por saturación
+                    }
+                });
+            }
+            Thread.sleep(100);
+
+            // Act
+            long inicio = System.nanoTime();
+            for (int i = 0; i < 20; i++) {
+                assertTrue(pasarelaSana.procesarPago(MONTO, "SANA-" + i));
+            }
+            long msSana = (System.nanoTime() - inicio) / 1_000_000;
+            clientes.shutdown();
+
+            // Assert
+            assertEquals(4, pasarelaLenta.obtenerEstadisticas().get("enCurso"));
+            assertTrue(msSana < 1500, "La pasarela sana tardó " + msSana + " ms");
+            assertEquals(4, lenta.maxSimultaneas.get());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Interruptor de circuito")
+    class CircuitoTests {
+
+        @Test
+        @DisplayName("Con fallos sobre el umbral el circuito se abre y deja de llamar al proveedor")
+        void fallos_abrenCircuito() {
+            // Arrange
+            PasarelaSimulada simulada = new PasarelaSimulada();
+            simulada.fallar = true;
+            PasarelaPagoProtegida pasarela = proteger(simulada, 5, 1000, 60_000);
+
+            // Act
+            for (int i = 0; i < 5; i++) {
+                assertThrows(RuntimeException.class, () -> pasarela.procesarPago(MONTO, "REF"));
+            }
+            IllegalStateException rechazo = assertThrows(IllegalStateException.class,
+                () -> pasarela.procesarPago(MONTO, "REF"));
+
+            // Assert
+            assertEquals(Estado.ABIERTO, pasarela.getEstadoCircuito());
+            assertEquals(5, simulada.llamadas.get());
+            assertTrue(rechazo.getMessage().contains("no está disponible"));
+            assertEquals(1L, pasarela.obtenerEstadisticas().get("rechazadasCircuito"));
+        }
+
+        @Test
+        @DisplayName("Tras la espera, las llamadas de prueba exitosas cierran el circuito")
+        void semiAbierto_pruebasExitosas_cierra() throws Exception {
+            // Arrange
+            PasarelaSimulada simulada = new PasarelaSimulada();
+            simulada.fallar = true;
+            PasarelaPagoProtegida pasarela = proteger(simulada, 5, 1000, 100);
+            for (int i = 0; i < 5; i++) {
+                assertThrows(RuntimeException.class, () -> pasarela.procesarPago(MONTO, "REF"));
+            }
+            simulada.fallar = false;
+            Thread.sleep(150);
+
+            // Act
+            assertEquals(Estado.SEMI_ABIERTO, pasarela.getEstadoCircuito());
+            assertTrue(pasarela.procesarPago(MONTO, "PRUEBA-1"));
+            assertTrue(pasarela.procesarPago(MONTO, "PRUEBA-2"));
+
+            // Assert
+            assertEquals(Estado.CERRADO, pasarela.getEstadoCircuito());
+            assertEquals(0, pasarela.obtenerEstadisticas().get("tasaFallos"));
+        }
+
+        @Test
+        @DisplayName("Un fallo en la llamada de prueba vuelve a abrir el circuito")
+        void semiAbierto_falloDePrueba_reabre() throws Exception {
+            // Arrange
+            PasarelaSimulada simulada = new PasarelaSimulada();
+            simulada.fallar = true;
+            PasarelaPagoProtegida pasarela = proteger(simulada, 5, 1000, 100);
+            for (int i = 0; i < 5; i++) {
+                assertThrows(RuntimeException.class, () -> pasarela.procesarPago(MONTO, "REF"));
+            }
+            Thread.sleep(150);
+
+            // Act
+            assertThrows(RuntimeException.class, () -> pasarela.procesarPago(MONTO, "PRUEBA"));
+
+            // Assert
+            assertEquals(Estado.ABIERTO, pasarela.getEstadoCircuito());
+        }
+
+        @Test
+        @DisplayName("Un pago rechazado por la pasarela no cuenta como fallo del proveedor")
+        void pagoRechazado_noAbreCircuito() {
+            // Arrange
+            PasarelaSimulada simulada = new PasarelaSimulada();
+            simulada.rechazar = true;
+            PasarelaPagoProtegida pasarela = proteger(simulada, 5, 1000, 60_000);
+
+            // Act
+            for (int i = 0; i < 20; i++) {
+                assertFalse(pasarela.procesarPago(MONTO, "REF"));
+            }
+
+            // Assert
+            assertEquals(Estado.CERRADO, pasarela.getEstadoCircuito());
+        }
+
+        @Test
+        @DisplayName("Los fallos esporádicos bajo el umbral no abren el circuito")
+        void fallosBajoUmbral_mantieneCerrado() {
+            // Arrange
+            PasarelaSimulada simulada = new PasarelaSimulada();
+            PasarelaPagoProtegida pasarela = proteger(simulada, 5, 1000, 60_000);
+
+            // Act: 1 de cada 3 llamadas falla (33% < 50%)
+            for (int i = 0; i < 30; i++) {
+                simulada.fallar = i % 3 == 0;
+                try {
+                    pasarela.procesarPago(MONTO, "REF");
+                } catch (RuntimeException e) {
+                    // Fallo esperado
+                }
+            }
+
+            // Assert
+            assertEquals(Estado.CERRADO, pasarela.getEstadoCircuito());
+            assertEquals(30, simulada.llamadas.get());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("PagoService")
+    class PagoServiceTests {
+
+        @Test
+        @DisplayName("El estado de las pasarelas incluye habilitación y circuito")
+        void estadoPasarelas_incluyeCircuito() {
+            // Arrange
+            PagoService pagoService = new PagoService(Limites.porDefecto());
+            pagoService.configurarPasarela("plin", false);
+
+            // Act
+            Map<String, Map<String, Object>> estados = pagoService.obtenerEstadoPasarelas();
+            pagoService.cerrar();
+
+            // Assert
+            assertEquals(3, estados.size());
+            assertEquals(true, estados.get("yape").get("habilitada"));
+            assertEquals("CERRADO", estados.get("yape").get("circuito"));
+            assertEquals(false, estados.get("plin").get("habilitada"));
+            assertEquals(false, estados.get("plin").get("disponible"));
+        }
+    }
+}
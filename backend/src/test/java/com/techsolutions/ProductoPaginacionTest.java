@@ -0,0 +1,204 @@
+package com.techsolutions;
+
+import com.techsolutions.dto.CursorProductosDTO;
+import com.techsolutions.dto.FiltroProductosDTO;
+import com.techsolutions.dto.FiltroProductosDTO.Orden;
+import com.techsolutions.dto.ProductoDTO;
+import com.techsolutions.model.Categoria;
+import com.techsolutions.model.Producto;
+import com.techsolutions.repository.CategoriaRepository;
+import com.techsolutions.repository.ProductoRepository;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del listado paginado de productos (paginación por clave)
+ */
+@SuppressWarnings("all")
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "logging.level.org.hibernate.SQL=WARN",
+    "logging.level.org.hibernate.stat=WARN"
+})
+@DisplayName("Tests de Listado Paginado de Productos")
+class ProductoPaginacionTest {
+
+    private static final int PRODUCTOS = 25;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    private Categoria categoria;
+
+    @BeforeEach
+    void setUp() {
+        productoRepository.deleteAll();
+        categoria = new Categoria();
+        categoria.setNombre("Periféricos");
+        categoria.setActiva(true);
+        categoriaRepository.save(categoria);
+        crearProductos(1, PRODUCTOS);
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Proyección en una sola sentencia")
+    class ProyeccionTests {
+
+        @Test
+        @DisplayName("El listado ejecuta una única sentencia SQL sin importar el tamaño del catálogo")
+        void listado_ejecutaUnaSentencia() {
+            // Arrange
+            Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            FiltroProductosDTO filtro = filtro(Orden.NOMBRE, false);
+
+            for (int catalogo : new int[] {PRODUCTOS, 200}) {
+                crearProductos(PRODUCTOS + 1, catalogo);
+                productoRepository.flush();
+                estadisticas.clear();
+
+                // Act
+                List<ProductoDTO> pagina = productoRepository.buscarPagina(filtro, null, catalogo);
+
+                // Assert
+                assertEquals(catalogo, pagina.size());
+                assertEquals(1, estadisticas.getPrepareStatementCount());
+                assertEquals(0, estadisticas.getEntityLoadCount());
+                assertTrue(pagina.stream().anyMatch(p -> "Periféricos".equals(p.getCategoria())));
+            }
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Recorrido por cursor")
+    class RecorridoTests {
+
+        @Test
+        @DisplayName("Recorrer por precio descendente entrega cada producto una vez y en orden")
+        void recorrerPorPrecioDescendente_sinDuplicadosNiHuecos() {
+            // Arrange
+            FiltroProductosDTO filtro = filtro(Orden.PRECIO, true);
+
+            // Act
+            List<ProductoDTO> recorridos = recorrer(filtro, 7);
+
+            // Assert
+            assertEquals(PRODUCTOS, recorridos.size());
+            assertEquals(PRODUCTOS, new HashSet<>(recorridos.stream().map(ProductoDTO::getId).toList()).size());
+            for (int i = 1; i < recorridos.size(); i++) {
+                ProductoDTO anterior = recorridos.get(i - 1);
+                ProductoDTO actual = recorridos.get(i);
+                int comparacion = anterior.getPrecio().compareTo(actual.getPrecio());
+                assertTrue(comparacion > 0 || (comparacion == 0 && anterior.getId() > actual.getId()));
+            }
+        }
+
+        @Test
+        @DisplayName("Recorrer por nombre con filtros solo entrega productos que los cumplen")
+        void recorrerPorNombreConFiltros_respetaFiltros() {
+            // Arrange
+            FiltroProductosDTO filtro = filtro(Orden.NOMBRE, false);
+            filtro.setActivo(true);
+            filtro.setCategoria("periféricos");
+            filtro.setPrecioMin(BigDecimal.valueOf(11));
+
+            // Act
+            List<ProductoDTO> recorridos = recorrer(filtro, 4);
+
+            // Assert
+            long esperados = productoRepository.findAll().stream()
+                .filter(p -> p.getActivo() && p.getCategoria() != null && p.getPrecio().compareTo(BigDecimal.valueOf(11)) >= 0)
+                .count();
+            assertEquals(esperados, recorridos.size());
+            assertTrue(recorridos.stream().allMatch(p -> "Periféricos".equals(p.getCategoria())));
+        }
+
+        @Test
+        @DisplayName("Un cursor generado con otro orden se rechaza")
+        void cursorDeOtroOrden_seRechaza() {
+            // Arrange
+            CursorProductosDTO cursor = new CursorProductosDTO(Orden.ID, false, 3L, null);
+
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> cursor.validarPara(filtro(Orden.PRECIO, false)));
+        }
+
+        @Test
+        @DisplayName("Un cursor sobrevive la codificación con separadores en el valor")
+        void cursorConSeparadores_seDecodifica() {
+            // Arrange
+            CursorProductosDTO cursor = new CursorProductosDTO(Orden.NOMBRE, true, 42L, "Cable | USB-C");
+
+            // Act
+            CursorProductosDTO decodificado = CursorProductosDTO.decodificar(cursor.codificar());
+
+            // Assert
+            assertEquals(cursor, decodificado);
+        }
+    }
+
+    private void crearProductos(int desde, int hasta) {
+        // Precios repetidos para forzar el desempate por ID
+        for (int i = desde; i <= hasta; i++) {
+            Producto producto = new Producto();
+            producto.setCodigo("PAG-" + i);
+            producto.setNombre("Producto " + (char) ('A' + (i * 7) % 26));
+            producto.setPrecio(BigDecimal.valueOf(10 + i % 5));
+            producto.setStock(i);
+            producto.setStockMinimo(5);
+            producto.setActivo(i % 6 != 0);
+            producto.setCategoria(i % 2 == 0 ? categoria : null);
+            productoRepository.save(producto);
+        }
+    }
+
+    private FiltroProductosDTO filtro(Orden orden, boolean descendente) {
+        FiltroProductosDTO filtro = new FiltroProductosDTO();
+        filtro.setOrden(orden);
+        filtro.setDescendente(descendente);
+        return filtro;
+    }
+
+    private List<ProductoDTO> recorrer(FiltroProductosDTO filtro, int tamano) {
+        List<ProductoDTO> recorridos = new ArrayList<>();
+        CursorProductosDTO cursor = null;
+        while (true) {
+            List<ProductoDTO> pagina = productoRepository.buscarPagina(filtro, cursor, tamano);
+            recorridos.addAll(pagina);
+            if (pagina.size() < tamano) {
+                return recorridos;
+            }
+            ProductoDTO ultimo = pagina.get(pagina.size() - 1);
+            String valor = switch (filtro.getOrden()) {
+                case ID -> null;
+                case NOMBRE -> ultimo.getNombre();
+                case PRECIO -> ultimo.getPrecio().toPlainString();
+            };
+            cursor = new CursorProductosDTO(filtro.getOrden(), filtro.isDescendente(), ultimo.getId(), valor);
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package com.techsolutions;
+
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordingStream;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Prueba de carga: compara la aplicación con spring.threads.virtual.enabled apagado y encendido
+ * Levanta la aplicación dos veces (base H2 en memoria) con las pasarelas simuladas a 200 ms y envía
+ * solicitudes concurrentes: 3 de cada 4 son pagos (POST /api/pagos/procesar) y 1 es una página del
+ * catálogo (JDBC). Informa throughput, p50/p99 y, en modo virtual, los eventos jdk.VirtualThreadPinned
+ * (hilos virtuales que se bloquearon sin soltar su hilo portador) agrupados por el método que los causó.
+ *
+ * No es un test de JUnit; se ejecuta a mano:
+ *   mvn -B test-compile dependency:build-classpath -Dmdep.outputFile=target/cp.txt
+ *   java -cp target/test-classes:target/classes:$(cat target/cp.txt) \
+ *        -Dcarga.solicitudes=4000 -Dcarga.concurrencia=400 com.techsolutions.PruebaCargaHilosVirtuales
+ * Los argumentos se pasan a Spring (por ejemplo --spring.datasource.url=... para medir contra MySQL)
+ */
+public class PruebaCargaHilosVirtuales {
+
+    private static final long LATENCIA_PASARELAS_MS = 200;
+
+    record Medicion(boolean hilosVirtuales, int solicitudes, int errores, long milisegundos,
+                    long p50Ms, long p99Ms, int eventosPinning, Map<String, Integer> puntosPinning) {
+
+        double throughput() {
+            return solicitudes * 1000.0 / milisegundos;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int solicitudes = Integer.getInteger("carga.solicitudes", 4000);
+        int concurrencia = Integer.getInteger("carga.concurrencia", 400);
+        // devtools reinicia la aplicación en otro classloader: no debe participar en la medición
+        System.setProperty("spring.devtools.restart.enabled", "false");
+
+        List<Medicion> mediciones = new ArrayList<>();
+        for (boolean hilosVirtuales : new boolean[]{false, true}) {
+            mediciones.add(medir(hilosVirtuales, solicitudes, concurrencia, args));
+        }
+
+        System.out.printf("%n📊 %d solicitudes, %d concurrentes, pasarelas a %d ms%n",
+            solicitudes, concurrencia, LATENCIA_PASARELAS_MS);
+        System.out.printf("%-22s %12s %8s %8s %8s %8s%n", "Modo", "Solicitudes/s", "p50 ms", "p99 ms", "Errores", "Pinning");
+        for (Medicion m : mediciones) {
+            System.out.printf("%-22s %12.1f %8d %8d %8d %8s%n",
+                m.hilosVirtuales() ? "Hilos virtuales" : "Pool de plataforma", m.throughput(), m.p50Ms(), m.p99Ms(),
+                m.errores(), m.hilosVirtuales() ? String.valueOf(m.eventosPinning()) : "-");
+        }
+        mediciones.stream()
+            .filter(Medicion::hilosVirtuales)
+            .flatMap(m -> m.puntosPinning().entrySet().stream())
+            .sorted(Map.Entry.<String, Integer>comparingByValue().reversed())
+            .limit(10)
+            .forEach(e -> System.out.printf("⚠️ Pinning en %s: %d eventos%n", e.getKey(), e.getValue()));
+    }
+
+    private static Medicion medir(boolean hilosVirtuales, int solicitudes, int concurrencia, String[] args) throws Exception {
+        Map<String, Object> propiedades = new HashMap<>();
+        propiedades.put("server.port", 0);
+        propiedades.put("spring.threads.virtual.enabled", hilosVirtuales);
+        propiedades.put("pagos.pasarelas.latencia-simulada-ms", LATENCIA_PASARELAS_MS);
+        // El bulkhead no debe limitar la prueba: se mide el modelo de hilos
+        propiedades.put("pagos.pasarelas.max-concurrentes", concurrencia);
+        propiedades.put("spring.datasource.url", "jdbc:h2:mem:carga" + hilosVirtuales + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        propiedades.put("spring.datasource.driver-class-name", "org.h2.Driver");
+        propiedades.put("spring.datasource.username", "sa");
+        propiedades.put("spring.datasource.password", "");
+        propiedades.put("spring.jpa.properties.hibernate.dialect", "org.hibernate.dialect.H2Dialect");
+        propiedades.put("spring.jpa.hibernate.ddl-auto", "create-drop");
+        propiedades.put("spring.jpa.show-sql", false);
+        propiedades.put("logging.level.com.techsolutions", "INFO");
+        propiedades.put("logging.level.org.hibernate.SQL", "WARN");
+        propiedades.put("logging.level.org.springframework.security", "WARN");
+        // Por encima de application.properties; los argumentos de la línea de comandos siguen teniendo prioridad
+        StandardEnvironment entorno = new StandardEnvironment();
+        entorno.getPropertySources().addFirst(new MapPropertySource("pruebaCarga", propiedades));
+        ConfigurableApplicationContext contexto = new SpringApplicationBuilder(TechSolutionsApplication.class)
+            .environment(entorno)
+            .run(args);
+        int puerto = contexto.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+
+        AtomicInteger eventosPinning = new AtomicInteger();
+        Map<String, Integer> puntosPinning = new ConcurrentHashMap<>();
+        // Las pasarelas simuladas escriben cada pago en consola: se silencia durante la medición
+        PrintStream consola = System.out;
+        try (RecordingStream jfr = new RecordingStream();
+             HttpClient cliente = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build()) {
+            jfr.enable("jdk.VirtualThreadPinned").withThreshold(Duration.ofMillis(1)).withStackTrace();
+            jfr.onEvent("jdk.VirtualThreadPinned", evento -> {
+                eventosPinning.incrementAndGet();
+                puntosPinning.merge(origen(evento.getStackTrace() == null ? List.of() : evento.getStackTrace().getFrames()), 1, Integer::sum);
+            });
+            jfr.startAsync();
+            System.setOut(new PrintStream(OutputStream.nullOutputStream()));
+
+            // Calentamiento: JIT, pool de conexiones y caché del catálogo
+            ejecutar(cliente, puerto, concurrencia, concurrencia);
+            eventosPinning.set(0);
+            puntosPinning.clear();
+
+            long inicio = System.nanoTime();
+            Resultados resultados = ejecutar(cliente, puerto, solicitudes, concurrencia);
+            long milisegundos = (System.nanoTime() - inicio) / 1_000_000;
+            jfr.stop();
+
+            long[] latencias = resultados.latenciasMs();
+            Arrays.sort(latencias);
+            return new Medicion(hilosVirtuales, solicitudes, resultados.errores(), Math.max(1, milisegundos),
+                percentil(latencias, 50), percentil(latencias, 99), eventosPinning.get(), Map.copyOf(puntosPinning));
+        } finally {
+            System.setOut(consola);
+            contexto.close();
+        }
+    }
+
+    private record Resultados(long[] latenciasMs, int errores) {}
+
+    /**
+     * Envía las solicitudes desde hilos virtuales, con a lo sumo 'concurrencia' en vuelo
+     */
+    private static Resultados ejecutar(HttpClient cliente, int puerto, int solicitudes, int concurrencia) throws Exception {
+        long[] latencias = new long[solicitudes];
+        LongAdder errores = new LongAdder();
+        Semaphore enVuelo = new Semaphore(concurrencia);
+        try (ExecutorService clientes = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < solicitudes; i++) {
+                int numero = i;
+                enVuelo.acquire();
+                clientes.submit(() -> {
+                    long inicio = System.nanoTime();
+                    try {
+                        HttpResponse<Void> respuesta = cliente.send(solicitud(puerto, numero), HttpResponse.BodyHandlers.discarding());
+                        if (respuesta.statusCode() != 200) {
+                            errores.increment();
+                        }
+                    } catch (Exception e) {
+                        errores.increment();
+                    } finally {
+                        latencias[numero] = (System.nanoTime() - inicio) / 1_000_000;
+                        enVuelo.release();
+                    }
+                });
+            }
+        }
+        return new Resultados(latencias, errores.intValue());
+    }
+
+    private static HttpRequest solicitud(int puerto, int numero) {
+        String base = "http://localhost:" + puerto;
+        if (numero % 4 == 3) {
+            return HttpRequest.newBuilder(URI.create(base + "/api/inventario/productos/pagina?tamano=20")).GET().build();
+        }
+        String pasarela = switch (numero % 3) {
+            case 0 -> "yape";
+            case 1 -> "plin";
+            default -> "paypal";
+        };
+        String cuerpo = "{\"pasarela\":\"" + pasarela + "\",\"monto\":150.50,\"referencia\":\"CARGA-" + numero + "\"}";
+        return HttpRequest.newBuilder(URI.create(base + "/api/pagos/procesar"))
+            .header("Content-Type", "application/json")
+            .POST(HttpRequest.BodyPublishers.ofString(cuerpo))
+            .build();
+    }
+
+    /**
+     * Primer método de la aplicación o de un driver en la pila del evento (lo que retenía el monitor)
+     */
+    private static String origen(List<RecordedFrame> frames) {
+        return frames.stream()
+            .map(f -> f.getMethod().getType().getName() + "." + f.getMethod().getName())
+            .filter(m -> m.startsWith("com.techsolutions") || m.startsWith("com.mysql") || m.startsWith("org.h2")
+                || m.startsWith("com.zaxxer") || m.startsWith("org.hibernate"))
+            .findFirst()
+            .orElse(frames.isEmpty() ? "desconocido" : frames.get(0).getMethod().getType().getName()
+                + "." + frames.get(0).getMethod().getName());
+    }
+
+    private static long percentil(long[] ordenadas, int percentil) {
+        if (ordenadas.length == 0) {
+            return 0;
+        }
+        int indice = (int) Math.ceil(percentil / 100.0 * ordenadas.length) - 1;
+        return ordenadas[Math.max(0, Math.min(indice, ordenadas.length - 1))];
+    }
+}
@@ -0,0 +1,116 @@
+package com.techsolutions;
+
+import com.techsolutions.model.Categoria;
+import com.techsolutions.repository.CategoriaRepository;
+import com.techsolutions.service.ResolutorCategorias;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del resolutor de categorías por nombre normalizado
+ */
+@SuppressWarnings("all")
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN",
+    "logging.level.org.hibernate.engine.jdbc.spi.SqlExceptionHelper=OFF"
+})
+@Import(ResolutorCategorias.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests de Resolución de Categorías")
+class ResolutorCategoriasTest {
+
+    @Autowired
+    private ResolutorCategorias resolutorCategorias;
+
+    @Autowired
+    private CategoriaRepository categoriaRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void limpiar() {
+        categoriaRepository.deleteAll();
+        resolutorCategorias.cargar();
+    }
+
+    @Test
+    @DisplayName("Nombres que solo difieren en mayúsculas y espacios resuelven la misma categoría")
+    void variantesDelNombre_resuelvenMismaCategoria() {
+        // Act
+        Long id = resolutorCategorias.resolver("Electrónica").getId();
+
+        // Assert
+        assertEquals(id, resolutorCategorias.resolver("  ELECTRÓNICA ").getId());
+        assertEquals(id, resolutorCategorias.resolver("electrónica").getId());
+        assertEquals(1, categoriaRepository.count());
+    }
+
+    @Test
+    @DisplayName("Muchos hilos pidiendo la misma categoría nueva crean una sola")
+    void resolucionConcurrente_creaUnaSolaCategoria() throws Exception {
+        // Arrange
+        ExecutorService executor = Executors.newFixedThreadPool(16);
+        CountDownLatch largada = new CountDownLatch(1);
+        Set<Long> ids = ConcurrentHashMap.newKeySet();
+        List<Future<?>> tareas = new ArrayList<>();
+
+        // Act
+        for (int hilo = 0; hilo < 16; hilo++) {
+            String nombre = hilo % 2 == 0 ? "Gaming" : "GAMING ";
+            tareas.add(executor.submit(() -> {
+                largada.await();
+                ids.add(resolutorCategorias.resolver(nombre).getId());
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(30, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        // Assert
+        assertEquals(1, ids.size());
+        assertEquals(1, categoriaRepository.count());
+    }
+
+    @Test
+    @DisplayName("Al arrancar se completa el nombre normalizado de categorías anteriores")
+    void cargar_normalizaCategoriasAnteriores() {
+        // Arrange
+        Categoria anterior = new Categoria();
+        anterior.setNombre("Oficina");
+        anterior.setActiva(true);
+        Long id = categoriaRepository.save(anterior).getId();
+        jdbcTemplate.update("UPDATE categorias SET nombre_normalizado = NULL WHERE id = ?", id);
+
+        // Act
+        resolutorCategorias.cargar();
+
+        // Assert
+        assertEquals("oficina", categoriaRepository.findById(id).orElseThrow().getNombreNormalizado());
+        assertEquals(id, resolutorCategorias.resolver("OFICINA").getId());
+    }
+}
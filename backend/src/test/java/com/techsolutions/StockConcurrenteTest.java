@@ -0,0 +1,165 @@
+package com.techsolutions;
+
+import com.techsolutions.model.Producto;
+import com.techsolutions.repository.ProductoRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de concurrencia para el descuento de stock
+ * Verifica que el UPDATE condicional no permite sobreventa bajo carga
+ */
+@SuppressWarnings("all")
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN"
+})
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests de Concurrencia - Descuento de Stock")
+class StockConcurrenteTest {
+
+    private static final int HILOS = 200;
+    private static final int INTENTOS_POR_HILO = 5;
+    private static final int STOCK_INICIAL = 300;
+
+    /**
+     * Cota de tiempo de cada corrida concurrente: holgada, solo detecta bloqueos o contención patológica
+     */
+    private static final long LIMITE_SEGUNDOS = 30;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @AfterEach
+    void limpiar() {
+        productoRepository.deleteAll();
+    }
+
+    @Test
+    @DisplayName("Descuento atómico con cientos de hilos no sobrevende")
+    void descuentoAtomico_noSobrevende() throws Exception {
+        // Arrange
+        Long id = crearProducto("CONC-001").getId();
+        AtomicInteger exitosas = new AtomicInteger();
+
+        // Act
+        long nanos = ejecutarConcurrente(() -> {
+            if (productoRepository.descontarStockSiDisponible(id, 1) == 1) {
+                exitosas.incrementAndGet();
+            }
+        });
+
+        // Assert
+        int stockFinal = productoRepository.findById(id).orElseThrow().getStock();
+        assertEquals(STOCK_INICIAL, exitosas.get());
+        assertEquals(0, stockFinal);
+        assertDentroDelLimite(nanos);
+    }
+
+    @Test
+    @DisplayName("Descuento atómico rechaza cantidades mayores al stock disponible")
+    void descuentoAtomico_rechazaStockInsuficiente() {
+        // Arrange
+        Long id = crearProducto("CONC-002").getId();
+
+        // Act
+        int filas = productoRepository.descontarStockSiDisponible(id, STOCK_INICIAL + 1);
+
+        // Assert
+        assertEquals(0, filas);
+        assertEquals(STOCK_INICIAL, productoRepository.findById(id).orElseThrow().getStock());
+    }
+
+    @Test
+    @DisplayName("Comparación con el camino leer-modificar-guardar")
+    void comparacionConLecturaModificacionEscritura() throws Exception {
+        // Arrange
+        Long id = crearProducto("CONC-003").getId();
+        TransactionTemplate tx = new TransactionTemplate(transactionManager);
+        AtomicInteger exitosas = new AtomicInteger();
+
+        // Act: camino anterior (findById -> reducirStock en memoria -> save)
+        long nanos = ejecutarConcurrente(() -> {
+            try {
+                tx.executeWithoutResult(status -> {
+                    Producto producto = productoRepository.findById(id).orElseThrow();
+                    producto.reducirStock(1);
+                    productoRepository.save(producto);
+                });
+                exitosas.incrementAndGet();
+            } catch (RuntimeException e) {
+                // Stock insuficiente o conflicto de bloqueo: la venta se pierde
+            }
+        });
+
+        // Assert: el stock nunca queda negativo, pero las ventas confirmadas
+        // pueden superar lo descontado (actualizaciones perdidas)
+        int stockFinal = productoRepository.findById(id).orElseThrow().getStock();
+        assertTrue(stockFinal >= 0);
+        assertTrue(STOCK_INICIAL - stockFinal <= exitosas.get());
+        assertDentroDelLimite(nanos);
+    }
+
+    private Producto crearProducto(String codigo) {
+        Producto producto = new Producto();
+        producto.setCodigo(codigo);
+        producto.setNombre("Producto " + codigo);
+        producto.setPrecio(new BigDecimal("10.00"));
+        producto.setStock(STOCK_INICIAL);
+        producto.setStockMinimo(10);
+        producto.setActivo(true);
+        return productoRepository.save(producto);
+    }
+
+    private long ejecutarConcurrente(Runnable intento) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(HILOS);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> tareas = new ArrayList<>();
+        for (int i = 0; i < HILOS; i++) {
+            tareas.add(executor.submit(() -> {
+                largada.await();
+                for (int j = 0; j < INTENTOS_POR_HILO; j++) {
+                    intento.run();
+                }
+                return null;
+            }));
+        }
+
+        long inicio = System.nanoTime();
+        largada.countDown();
+        for (Future<?> tarea : tareas) {
+            tarea.get(60, TimeUnit.SECONDS);
+        }
+        long nanos = System.nanoTime() - inicio;
+        executor.shutdown();
+        return nanos;
+    }
+
+    private void assertDentroDelLimite(long nanos) {
+        assertTrue(nanos < TimeUnit.SECONDS.toNanos(LIMITE_SEGUNDOS),
+            (HILOS * INTENTOS_POR_HILO) + " intentos tardaron " + TimeUnit.NANOSECONDS.toMillis(nanos) + " ms");
+    }
+}
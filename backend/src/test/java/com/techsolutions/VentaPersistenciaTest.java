@@ -0,0 +1,229 @@
+package com.techsolutions;
+
+import com.techsolutions.config.AlineadorSecuenciasId;
+import com.techsolutions.model.Cliente;
+import com.techsolutions.model.DetalleVenta;
+import com.techsolutions.model.Producto;
+import com.techsolutions.model.Usuario;
+import com.techsolutions.model.Venta;
+import com.techsolutions.repository.ClienteRepository;
+import com.techsolutions.repository.ProductoRepository;
+import com.techsolutions.repository.UsuarioRepository;
+import com.techsolutions.repository.VentaRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests de la persistencia por lotes de ventas (IDs por bloques + JDBC batch)
+ * Incluye una medición de ventas de 50 líneas por segundo con y sin lotes JDBC
+ */
+@SuppressWarnings("all")
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "spring.jpa.properties.hibernate.generate_statistics=true",
+    "logging.level.org.hibernate.SQL=WARN",
+    "logging.level.org.hibernate.stat=WARN"
+})
+@Import(AlineadorSecuenciasId.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests de Persistencia de Ventas por Lotes")
+class VentaPersistenciaTest {
+
+    private static final int LINEAS = 50;
+    private static final int VENTAS = 40;
+
+    @Autowired
+    private VentaRepository ventaRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private AlineadorSecuenciasId alineadorSecuenciasId;
+
+    private Cliente cliente;
+    private Usuario usuario;
+    private List<Producto> productos;
+    private int numeroVenta;
+
+    @BeforeEach
+    void setUp() {
+        cliente = new Cliente();
+        cliente.setNombre("Ana");
+        cliente.setApellido("Torres");
+        cliente.setDocumento("45678912");
+        clienteRepository.save(cliente);
+
+        usuario = new Usuario();
+        usuario.setUsername("vendedor");
+        usuario.setPassword("secreto");
+        usuario.setNombreCompleto("Vendedor de prueba");
+        usuario.setEmail("vendedor@techsolutions.com");
+        usuarioRepository.save(usuario);
+
+        productos = new ArrayList<>();
+        for (int i = 1; i <= LINEAS; i++) {
+            Producto producto = new Producto();
+            producto.setCodigo("VTA-" + i);
+            producto.setNombre("Producto " + i);
+            producto.setPrecio(BigDecimal.valueOf(10 + i));
+            producto.setStock(100);
+            productos.add(producto);
+        }
+        productoRepository.saveAll(productos);
+    }
+
+    @AfterEach
+    void limpiar() {
+        ventaRepository.deleteAll();
+        productoRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+        usuarioRepository.deleteAll();
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Lotes JDBC")
+    class LotesTests {
+
+        @Test
+        @DisplayName("Una venta de 50 líneas se inserta en pocas sentencias preparadas")
+        void ventaDe50Lineas_seInsertaPorLotes() {
+            // Arrange
+            Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+            guardarVentas(1, null);
+            estadisticas.clear();
+
+            // Act
+            guardarVentas(1, null);
+
+            // Assert: 1 venta + 50 detalles; sin lotes serían 51 sentencias
+            assertEquals(LINEAS + 1, estadisticas.getEntityInsertCount());
+            assertTrue(estadisticas.getPrepareStatementCount() <= 6,
+                "Sentencias preparadas: " + estadisticas.getPrepareStatementCount());
+        }
+
+        @Test
+        @DisplayName("Con lotes JDBC se preparan muchas menos sentencias por venta de 50 líneas")
+        void medicion_ventasPorSegundo() {
+            // Arrange: calentamiento
+            guardarVentas(5, null);
+            guardarVentas(5, 1);
+            Statistics estadisticas = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+
+            // Act
+            estadisticas.clear();
+            double sinLotes = guardarVentas(VENTAS, 1);
+            long sentenciasSinLotes = estadisticas.getPrepareStatementCount();
+
+            estadisticas.clear();
+            double conLotes = guardarVentas(VENTAS, null);
+            long sentenciasConLotes = estadisticas.getPrepareStatementCount();
+
+            // Assert
+            assertTrue(sinLotes > 5, "Sin lotes: " + sinLotes + " ventas/s");
+            assertTrue(conLotes > 5, "Con lotes: " + conLotes + " ventas/s");
+            assertTrue(sentenciasSinLotes >= (long) VENTAS * (LINEAS + 1));
+            assertTrue(sentenciasConLotes * 5 < sentenciasSinLotes);
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Alineación de IDs")
+    class AlineacionTests {
+
+        @Test
+        @DisplayName("Tras alinear, los IDs nuevos no chocan con filas insertadas fuera de Hibernate")
+        void alinear_idsNuevosSuperanLosExistentes() {
+            // Arrange: una fila con un ID alto, como las de AUTO_INCREMENT anteriores
+            jdbcTemplate.update("INSERT INTO productos (id, codigo, nombre, precio, stock, stock_minimo, activo) "
+                + "VALUES (5000, 'VTA-LEGADO', 'Producto previo', 10, 1, 1, true)");
+
+            // Act
+            alineadorSecuenciasId.run();
+            List<Producto> nuevos = new ArrayList<>();
+            for (int i = 0; i < 60; i++) {
+                Producto producto = new Producto();
+                producto.setCodigo("VTA-NUEVO-" + i);
+                producto.setNombre("Producto nuevo " + i);
+                producto.setPrecio(BigDecimal.ONE);
+                nuevos.add(producto);
+            }
+            productoRepository.saveAll(nuevos);
+
+            // Assert
+            assertTrue(nuevos.stream().allMatch(p -> p.getId() > 5000),
+                "IDs: " + nuevos.stream().map(Producto::getId).toList());
+        }
+    }
+
+    /**
+     * Guarda ventas de 50 líneas, cada una en su transacción
+     * @param tamanoLote Tamaño de lote JDBC de la sesión (null: el configurado)
+     * @return Ventas por segundo
+     */
+    private double guardarVentas(int cantidad, Integer tamanoLote) {
+        long inicio = System.nanoTime();
+        for (int v = 0; v < cantidad; v++) {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (tamanoLote != null) {
+                    entityManager.unwrap(Session.class).setJdbcBatchSize(tamanoLote);
+                }
+                Venta venta = new Venta();
+                venta.setNumeroVenta("VP" + (++numeroVenta));
+                venta.setCliente(entityManager.getReference(Cliente.class, cliente.getId()));
+                venta.setUsuario(entityManager.getReference(Usuario.class, usuario.getId()));
+                for (Producto producto : productos) {
+                    DetalleVenta detalle = new DetalleVenta();
+                    detalle.setProducto(entityManager.getReference(Producto.class, producto.getId()));
+                    detalle.setCantidad(1);
+                    detalle.setPrecioUnitario(producto.getPrecio());
+                    venta.agregarDetalle(detalle);
+                }
+                ventaRepository.save(venta);
+            });
+        }
+        return cantidad / ((System.nanoTime() - inicio) / 1_000_000_000.0);
+    }
+}
@@ -0,0 +1,640 @@
+package com.techsolutions;
+
+import com.techsolutions.PasarelaPagoProtegidaTest.PasarelaSimulada;
+import com.techsolutions.dto.CheckoutRequestDTO;
+import com.techsolutions.dto.CheckoutRequestDTO.ClienteCheckout;
+import com.techsolutions.dto.CheckoutRequestDTO.LineaCheckout;
+import com.techsolutions.model.Producto;
+import com.techsolutions.model.ReservaStock.EstadoReserva;
+import com.techsolutions.model.Venta;
+import com.techsolutions.model.Venta.EstadoVenta;
+import com.techsolutions.pattern.decorator.PasarelaPagoProtegida.Limites;
+import com.techsolutions.pattern.observer.DespachadorNotificaciones;
+import com.techsolutions.pattern.observer.GestorInventarioObservable;
+import com.techsolutions.repository.ClienteRepository;
+import com.techsolutions.repository.ProductoRepository;
+import com.techsolutions.repository.ReservaStockRepository;
+import com.techsolutions.repository.UsuarioRepository;
+import com.techsolutions.repository.VentaRepository;
+import com.techsolutions.service.CacheCatalogo;
+import com.techsolutions.service.ConciliacionPagosService;
+import com.techsolutions.service.ConciliacionPagosService.EstadoTransaccion;
+import com.techsolutions.service.IndiceStockBajo;
+import com.techsolutions.service.InventarioService;
+import com.techsolutions.service.PagoService;
+import com.techsolutions.service.ReservaStockService;
+import com.techsolutions.service.ReservaStockService.ConfirmacionPagada;
+import com.techsolutions.service.ResolutorCategorias;
+import com.techsolutions.service.VentaService;
+import com.techsolutions.service.VentaService.ResultadoCheckout;
+import com.techsolutions.util.AlmacenIdempotencia.ConflictoIdempotencia;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.jackson.JacksonAutoConfiguration;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests del checkout del lado del servidor
+ * Incluye una prueba de carga con checkouts concurrentes que mide checkouts por segundo
+ */
+@SuppressWarnings("all")
+@DataJpaTest(properties = {
+    "spring.jpa.properties.hibernate.dialect=org.hibernate.dialect.H2Dialect",
+    "spring.jpa.show-sql=false",
+    "logging.level.org.hibernate.SQL=WARN"
+})
+@Import({VentaService.class, ReservaStockService.class, InventarioService.class,
+    ConciliacionPagosService.class, GestorInventarioObservable.class, DespachadorNotificaciones.class,
+    IndiceStockBajo.class, CacheCatalogo.class, ResolutorCategorias.class, VentaServiceTest.PasarelasSimuladas.class})
+@ImportAutoConfiguration(JacksonAutoConfiguration.class)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@DisplayName("Tests de Checkout de Ventas")
+class VentaServiceTest {
+
+    private static final int HILOS = 16;
+    private static final int CHECKOUTS_POR_HILO = 15;
+    private static final int STOCK_CARGA = 60;
+
+    /**
+     * Pasarelas locales: permiten simular un error del proveedor después de recibir el cobro
+     */
+    private static final Map<String, PasarelaSimulada> PASARELAS = new LinkedHashMap<>(Map.of(
+        "yape", new PasarelaSimulada(), "plin", new PasarelaSimulada(), "paypal", new PasarelaSimulada()));
+
+    @TestConfiguration
+    static class PasarelasSimuladas {
+
+        @Bean
+        PagoService pagoService() {
+            return new PagoService(PASARELAS, Limites.porDefecto(), true);
+        }
+    }
+
+    @Autowired
+    private VentaService ventaService;
+
+    @Autowired
+    private PagoService pagoService;
+
+    @Autowired
+    private ConciliacionPagosService conciliacionPagos;
+
+    @Autowired
+    private ReservaStockService reservaStockService;
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private VentaRepository ventaRepository;
+
+    @Autowired
+    private ProductoRepository productoRepository;
+
+    @Autowired
+    private ReservaStockRepository reservaStockRepository;
+
+    @Autowired
+    private ClienteRepository clienteRepository;
+
+    @Autowired
+    private UsuarioRepository usuarioRepository;
+
+    private List<Producto> productos;
+
+    @BeforeEach
+    void setUp() {
+        productos = new ArrayList<>();
+        for (int i = 1; i <= 5; i++) {
+            Producto producto = new Producto();
+            producto.setCodigo("CHK-" + i);
+            producto.setNombre("Producto " + i);
+            producto.setPrecio(new BigDecimal(i + "9.90"));
+            producto.setStock(STOCK_CARGA);
+            producto.setStockMinimo(0);
+            productos.add(producto);
+        }
+        productoRepository.saveAll(productos);
+    }
+
+    /**
+     * El usuario de la tienda en línea no se borra: VentaService guarda su ID en memoria
+     */
+    @AfterEach
+    void limpiar() {
+        pagoService.configurarPasarela("yape", true);
+        PASARELAS.values().forEach(pasarela -> {
+            pasarela.fallar = false;
+            pasarela.latenciaMs = 0;
+        });
+        ventaRepository.deleteAll();
+        reservaStockRepository.deleteAllInBatch();
+        productoRepository.deleteAllInBatch();
+        clienteRepository.deleteAllInBatch();
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Flujo del checkout")
+    class FlujoTests {
+
+        @Test
+        @DisplayName("Un pago exitoso deja la venta COMPLETADA con precios del catálogo y stock descontado")
+        void pagoExitoso_completaVenta() {
+            // Arrange
+            CheckoutRequestDTO request = carrito("yape", linea(0, 2), linea(1, 1), linea(0, 1));
+
+            // Act
+            ResultadoCheckout resultado = ventaService.checkout(null, request);
+
+            // Assert: 3 x 19.90 + 1 x 29.90
+            assertEquals(EstadoVenta.COMPLETADA, resultado.estado());
+            assertTrue(resultado.exitoso());
+            assertEquals(0, new BigDecimal("89.60").compareTo(resultado.total()));
+            assertEquals(STOCK_CARGA - 3, stock(0));
+            assertEquals(STOCK_CARGA - 1, stock(1));
+            assertEquals(EstadoVenta.COMPLETADA, ventaRepository.findByNumeroVenta(resultado.numeroVenta()).orElseThrow().getEstado());
+            assertEquals(2, reservaStockRepository.findByReferenciaAndEstado(resultado.numeroVenta(), EstadoReserva.CONFIRMADA).size());
+            assertEquals("COMPLETADO", conciliacionPagos.consultar("yape", resultado.numeroVenta()).estado());
+        }
+
+        @Test
+        @DisplayName("Sin vendedor se usa el usuario de la tienda en línea, registrado una sola vez")
+        void sinVendedor_usaTiendaEnLinea() {
+            // Act
+            ventaService.checkout(null, carrito("yape", linea(0, 1)));
+            ventaService.checkout(null, carrito("plin", linea(1, 1)));
+
+            // Assert
+            assertTrue(usuarioRepository.findByUsername("tienda_online").isPresent());
+            assertEquals(1, usuarioRepository.count());
+            CheckoutRequestDTO otroVendedor = carrito("yape", linea(0, 1));
+            otroVendedor.setVendedor("desconocido");
+            assertThrows(IllegalArgumentException.class, () -> ventaService.checkout(null, otroVendedor));
+        }
+
+        @Test
+        @DisplayName("Un pago rechazado cancela la venta y devuelve el stock")
+        void pagoRechazado_cancelaVenta() {
+            // Arrange
+            pagoService.configurarPasarela("yape", false);
+
+            // Act
+            ResultadoCheckout resultado = ventaService.checkout(null, carrito("yape", linea(2, 4)));
+
+            // Assert
+            assertEquals(EstadoVenta.CANCELADA, resultado.estado());
+            assertFalse(resultado.exitoso());
+            assertEquals(STOCK_CARGA, stock(2));
+            assertEquals(EstadoVenta.CANCELADA, ventaRepository.findByNumeroVenta(resultado.numeroVenta()).orElseThrow().getEstado());
+            // Con la pasarela deshabilitada el pago nunca se envió: no hay cobro que conciliar
+            assertEquals(ConciliacionPagosService.NO_ENCONTRADO,
+                conciliacionPagos.consultar("yape", resultado.numeroVenta()).estado());
+        }
+
+        @Test
+        @DisplayName("Un error de la pasarela tras recibir el cobro deja la venta PROCESANDO con el stock retenido")
+        void pagoSinResultado_mantieneLaVentaYLaReserva() {
+            // Arrange
+            PASARELAS.get("plin").fallar = true;
+
+            // Act
+            ResultadoCheckout resultado = ventaService.checkout(null, carrito("plin", linea(2, 4)));
+
+            // Assert
+            assertEquals(EstadoVenta.PROCESANDO, resultado.estado());
+            assertFalse(resultado.exitoso());
+            assertEquals(STOCK_CARGA - 4, stock(2));
+            assertEquals(EstadoVenta.PROCESANDO, ventaRepository.findByNumeroVenta(resultado.numeroVenta()).orElseThrow().getEstado());
+            assertTrue(reservaStockRepository.findByReferenciaAndEstado(resultado.numeroVenta(), EstadoReserva.ACTIVA).stream()
+                .allMatch(reserva -> reserva.getExpiraEn().isAfter(LocalDateTime.now().plusMinutes(30))));
+            EstadoTransaccion cobro = conciliacionPagos.consultar("plin", resultado.numeroVenta());
+            assertTrue(!cobro.definitivo() || "COMPLETADO".equals(cobro.estado()));
+        }
+
+        @Test
+        @DisplayName("Sin stock suficiente no se registra la venta ni se descuenta nada")
+        void stockInsuficiente_noRegistraVenta() {
+            // Act & Assert
+            assertThrows(IllegalStateException.class,
+                () -> ventaService.checkout(null, carrito("plin", linea(3, 1), linea(4, STOCK_CARGA + 1))));
+            assertEquals(STOCK_CARGA, stock(3));
+            assertEquals(STOCK_CARGA, stock(4));
+            assertEquals(0, ventaRepository.count());
+        }
+
+        @Test
+        @DisplayName("Una solicitud inválida se rechaza antes de reservar")
+        void solicitudInvalida_lanzaExcepcion() {
+            // Act & Assert
+            assertThrows(IllegalArgumentException.class, () -> ventaService.checkout(null, carrito("yape")));
+            assertThrows(IllegalArgumentException.class, () -> ventaService.checkout(null, carrito("bitcoin", linea(0, 1))));
+            assertThrows(IllegalArgumentException.class, () -> ventaService.checkout(null, carrito("yape", linea(0, 0))));
+            assertEquals(0, ventaRepository.count());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Idempotencia")
+    class IdempotenciaTests {
+
+        @Test
+        @DisplayName("Reintentar con la misma clave devuelve la misma venta sin volver a cobrar")
+        void mismaClave_devuelveMismaVenta() {
+            // Act
+            ResultadoCheckout primero = ventaService.checkout("pedido-123", carrito("yape", linea(0, 5)));
+            ResultadoCheckout reintento = ventaService.checkout("pedido-123", carrito("yape", linea(0, 5)));
+
+            // Assert
+            assertFalse(primero.repetida());
+            assertTrue(reintento.repetida());
+            assertEquals(primero.numeroVenta(), reintento.numeroVenta());
+            assertEquals(STOCK_CARGA - 5, stock(0));
+            assertEquals(1, ventaRepository.count());
+        }
+
+        @Test
+        @DisplayName("La misma clave con otro carrito se rechaza sin cobrar ni reservar")
+        void mismaClaveOtroCarrito_lanzaConflicto() {
+            // Arrange
+            ventaService.checkout("pedido-456", carrito("yape", linea(0, 2), linea(1, 1)));
+
+            // Act & Assert: el mismo carrito en otro orden y con la línea dividida es el mismo checkout
+            assertTrue(ventaService.checkout("pedido-456", carrito("yape", linea(1, 1), linea(0, 1), linea(0, 1))).repetida());
+            assertThrows(ConflictoIdempotencia.class,
+                () -> ventaService.checkout("pedido-456", carrito("yape", linea(0, 3), linea(1, 1))));
+            assertThrows(ConflictoIdempotencia.class,
+                () -> ventaService.checkout("pedido-456", carrito("plin", linea(0, 2), linea(1, 1))));
+            assertEquals(STOCK_CARGA - 2, stock(0));
+            assertEquals(1, ventaRepository.count());
+        }
+
+        @Test
+        @DisplayName("Reintentos simultáneos con la misma clave registran una sola venta")
+        void reintentosSimultaneos_unaSolaVenta() throws Exception {
+            // Arrange
+            ExecutorService ejecutor = Executors.newFixedThreadPool(8);
+            CountDownLatch largada = new CountDownLatch(1);
+            List<Future<ResultadoCheckout>> tareas = new ArrayList<>();
+
+            // Act
+            for (int i = 0; i < 8; i++) {
+                tareas.add(ejecutor.submit(() -> {
+                    largada.await();
+                    return ventaService.checkout("pedido-doble-clic", carrito("yape", linea(1, 2)));
+                }));
+            }
+            largada.countDown();
+            List<String> numeros = new ArrayList<>();
+            for (Future<ResultadoCheckout> tarea : tareas) {
+                numeros.add(tarea.get().numeroVenta());
+            }
+            ejecutor.shutdown();
+
+            // Assert
+            assertEquals(1, numeros.stream().distinct().count());
+            assertEquals(1, ventaRepository.count());
+            assertEquals(STOCK_CARGA - 2, stock(1));
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Recuperación de checkouts")
+    class RecuperacionTests {
+
+        @Test
+        @DisplayName("Una venta con cobro sin resultado se completa cuando la conciliación lo confirma")
+        void cobroConfirmadoPorConciliacion_completaVenta() {
+            // Arrange
+            PASARELAS.get("plin").fallar = true;
+            ResultadoCheckout resultado = ventaService.checkout(null, carrito("plin", linea(0, 2)));
+            conciliacionPagos.conciliar(System.currentTimeMillis());
+
+            // Act
+            int cerradas = ventaService.recuperarVentas(LocalDateTime.now().plusMinutes(1));
+
+            // Assert
+            assertEquals(1, cerradas);
+            assertEquals(EstadoVenta.COMPLETADA, ventaRepository.findByNumeroVenta(resultado.numeroVenta()).orElseThrow().getEstado());
+            assertEquals(1, reservaStockRepository.findByReferenciaAndEstado(resultado.numeroVenta(), EstadoReserva.CONFIRMADA).size());
+            assertEquals(STOCK_CARGA - 2, stock(0));
+        }
+
+        @Test
+        @DisplayName("Una venta PENDIENTE nunca se cobró: se cancela y devuelve el stock")
+        void ventaPendiente_seCancela() {
+            // Arrange: simula una caída entre el registro de la venta y el cobro
+            PASARELAS.get("plin").fallar = true;
+            ResultadoCheckout resultado = ventaService.checkout(null, carrito("plin", linea(1, 3)));
+            ventaRepository.cambiarEstado(resultado.ventaId(), EstadoVenta.PROCESANDO, EstadoVenta.PENDIENTE);
+
+            // Act
+            int cerradas = ventaService.recuperarVentas(LocalDateTime.now().plusMinutes(1));
+
+            // Assert
+            assertEquals(1, cerradas);
+            assertEquals(EstadoVenta.CANCELADA, ventaRepository.findByNumeroVenta(resultado.numeroVenta()).orElseThrow().getEstado());
+            assertEquals(STOCK_CARGA, stock(1));
+        }
+
+        @Test
+        @DisplayName("Un checkout reciente no se toca")
+        void ventaReciente_noSeRecupera() {
+            // Arrange
+            PASARELAS.get("plin").fallar = true;
+            ResultadoCheckout resultado = ventaService.checkout(null, carrito("plin", linea(3, 1)));
+
+            // Act
+            int cerradas = ventaService.recuperarVentas(LocalDateTime.now().minusMinutes(10));
+
+            // Assert
+            assertEquals(0, cerradas);
+            assertEquals(EstadoVenta.PROCESANDO, ventaRepository.findByNumeroVenta(resultado.numeroVenta()).orElseThrow().getEstado());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Reservas tras el cobro")
+    class ReservasTests {
+
+        @Test
+        @DisplayName("Reservar un carrito deja en el índice de stock bajo solo los productos activos bajo el mínimo")
+        void reservarCarrito_actualizaIndiceDeStockBajo() {
+            // Arrange
+            inventarioService.configurarStockMinimo(productos.get(0).getId(), STOCK_CARGA - 5);
+            inventarioService.configurarStockMinimo(productos.get(1).getId(), STOCK_CARGA - 5);
+            inventarioService.configurarStockMinimo(productos.get(2).getId(), STOCK_CARGA - 5);
+            inventarioService.eliminarProducto(productos.get(2).getId());
+
+            // Act
+            reservaStockService.reservar("RES-MINIMO", Map.of(productos.get(0).getId(), 5,
+                productos.get(1).getId(), 1, productos.get(2).getId(), 5));
+
+            // Assert
+            List<Long> conStockBajo = inventarioService.obtenerProductosConStockBajo().stream().map(Producto::getId).toList();
+            assertEquals(List.of(productos.get(0).getId()), conStockBajo);
+        }
+
+        @Test
+        @DisplayName("El barrido devuelve el stock de las reservas vencidas")
+        void reservaVencida_seDevuelveAlInventario() {
+            // Arrange
+            reservaStockService.reservar("RES-VENCIDA", Map.of(productos.get(0).getId(), 3, productos.get(1).getId(), 2));
+            vencer("RES-VENCIDA");
+
+            // Act
+            reservaStockService.liberarExpiradas();
+
+            // Assert
+            assertEquals(STOCK_CARGA, stock(0));
+            assertEquals(STOCK_CARGA, stock(1));
+            assertEquals(2, reservaStockRepository.findByReferenciaAndEstado("RES-VENCIDA", EstadoReserva.EXPIRADA).size());
+        }
+
+        @Test
+        @DisplayName("Un pago que llega con la reserva vencida vuelve a retener el stock y avisa")
+        void pagoConReservaVencida_vuelveARetener() {
+            // Arrange
+            reservaStockService.reservar("RES-TARDE", Map.of(productos.get(2).getId(), 4));
+            vencer("RES-TARDE");
+            reservaStockService.liberarExpiradas();
+
+            // Act
+            ConfirmacionPagada confirmacion = reservaStockService.confirmarPagada("RES-TARDE");
+
+            // Assert
+            assertNotNull(confirmacion.advertencia());
+            assertFalse(confirmacion.requiereRevision());
+            assertEquals(STOCK_CARGA - 4, stock(2));
+            assertEquals(1, reservaStockRepository.findByReferenciaAndEstado("RES-TARDE", EstadoReserva.CONFIRMADA).size());
+        }
+
+        @Test
+        @DisplayName("Un pago con solo una línea vencida vuelve a retener esa línea y avisa")
+        void pagoConUnaLineaVencida_vuelveARetenerEsaLinea() {
+            // Arrange
+            reservaStockService.reservar("RES-PARCIAL", Map.of(productos.get(0).getId(), 3, productos.get(1).getId(), 2));
+            vencerLinea("RES-PARCIAL", productos.get(0).getId());
+            reservaStockService.liberarExpiradas();
+
+            // Act
+            ConfirmacionPagada confirmacion = reservaStockService.confirmarPagada("RES-PARCIAL");
+
+            // Assert
+            assertNotNull(confirmacion.advertencia());
+            assertEquals(STOCK_CARGA - 3, stock(0));
+            assertEquals(STOCK_CARGA - 2, stock(1));
+            assertEquals(2, reservaStockRepository.findByReferenciaAndEstado("RES-PARCIAL", EstadoReserva.CONFIRMADA).size());
+        }
+
+        @Test
+        @DisplayName("Confirmar una reserva con una línea vencida falla sin confirmar las demás")
+        void confirmarConUnaLineaVencida_falla() {
+            // Arrange
+            reservaStockService.reservar("RES-MIXTA", Map.of(productos.get(0).getId(), 3, productos.get(1).getId(), 2));
+            vencerLinea("RES-MIXTA", productos.get(0).getId());
+            reservaStockService.liberarExpiradas();
+
+            // Act & Assert
+            assertThrows(IllegalStateException.class, () -> reservaStockService.confirmar("RES-MIXTA"));
+            assertEquals(STOCK_CARGA, stock(0));
+            assertEquals(1, reservaStockRepository.findByReferenciaAndEstado("RES-MIXTA", EstadoReserva.ACTIVA).size());
+        }
+
+        @Test
+        @DisplayName("Sin stock para volver a retener, el pedido cobrado queda para atención manual")
+        void pagoConReservaVencidaSinStock_quedaParaAtencionManual() {
+            // Arrange
+            reservaStockService.reservar("RES-AGOTADA", Map.of(productos.get(3).getId(), 5));
+            vencer("RES-AGOTADA");
+            reservaStockService.liberarExpiradas();
+            reservaStockService.reservar("RES-OTRA", Map.of(productos.get(3).getId(), STOCK_CARGA));
+
+            // Act
+            ConfirmacionPagada confirmacion = reservaStockService.confirmarPagada("RES-AGOTADA");
+
+            // Assert
+            assertNotNull(confirmacion.advertencia());
+            assertTrue(confirmacion.requiereRevision());
+            assertEquals(0, stock(3));
+            assertEquals(1, reservaStockRepository.findByReferenciaAndEstado("RES-AGOTADA", EstadoReserva.PAGADA_SIN_STOCK).size());
+        }
+        @Test
+        @DisplayName("Un cobro aprobado cuya reserva ya no tiene stock deja la venta en REVISION_MANUAL con la advertencia")
+        void cobroAprobadoSinStock_quedaEnRevisionManual() throws Exception {
+            // Arrange: mientras la pasarela cobra, la reserva se libera y otro pedido toma todo el stock
+            PASARELAS.get("yape").latenciaMs = 500;
+            ExecutorService ejecutor = Executors.newSingleThreadExecutor();
+            Future<ResultadoCheckout> checkout = ejecutor.submit(() -> ventaService.checkout(null, carrito("yape", linea(4, 2))));
+            Venta enCobro = esperarVentaProcesando();
+            reservaStockService.liberar(enCobro.getNumeroVenta());
+            reservaStockService.reservar("RES-OTRA", Map.of(productos.get(4).getId(), STOCK_CARGA));
+
+            // Act
+            ResultadoCheckout resultado = checkout.get();
+            ejecutor.shutdown();
+
+            // Assert
+            assertEquals(EstadoVenta.REVISION_MANUAL, resultado.estado());
+            assertFalse(resultado.exitoso());
+            assertNotNull(resultado.advertencia());
+            assertTrue(resultado.mensaje().contains(resultado.advertencia()));
+            assertEquals(EstadoVenta.REVISION_MANUAL, ventaRepository.findByNumeroVenta(resultado.numeroVenta()).orElseThrow().getEstado());
+            assertEquals(1, reservaStockRepository.findByReferenciaAndEstado(resultado.numeroVenta(), EstadoReserva.PAGADA_SIN_STOCK).size());
+        }
+
+        @Test
+        @DisplayName("La recuperación no completa una venta cobrada que quedó sin stock")
+        void recuperacionSinStock_quedaEnRevisionManual() {
+            // Arrange
+            PASARELAS.get("plin").fallar = true;
+            ResultadoCheckout resultado = ventaService.checkout(null, carrito("plin", linea(4, 2)));
+            reservaStockService.liberar(resultado.numeroVenta());
+            reservaStockService.reservar("RES-OTRA", Map.of(productos.get(4).getId(), STOCK_CARGA));
+            conciliacionPagos.conciliar(System.currentTimeMillis());
+
+            // Act
+            int cerradas = ventaService.recuperarVentas(LocalDateTime.now().plusMinutes(1));
+
+            // Assert
+            assertEquals(1, cerradas);
+            assertEquals(EstadoVenta.REVISION_MANUAL, ventaRepository.findByNumeroVenta(resultado.numeroVenta()).orElseThrow().getEstado());
+            assertEquals(1, reservaStockRepository.findByReferenciaAndEstado(resultado.numeroVenta(), EstadoReserva.PAGADA_SIN_STOCK).size());
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Carga")
+    class CargaTests {
+
+        @Test
+        @DisplayName("Checkouts concurrentes terminan a tiempo y sin sobreventa")
+        void cargaConcurrente_sinSobreventa() throws Exception {
+            // Arrange: la demanda supera el stock para forzar rechazos
+            ExecutorService ejecutor = Executors.newFixedThreadPool(HILOS);
+            CountDownLatch largada = new CountDownLatch(1);
+            AtomicInteger completadas = new AtomicInteger();
+            AtomicInteger sinStock = new AtomicInteger();
+            int[] vendidas = new int[productos.size()];
+            List<Future<?>> tareas = new ArrayList<>();
+
+            // Act
+            for (int h = 0; h < HILOS; h++) {
+                int hilo = h;
+                tareas.add(ejecutor.submit(() -> {
+                    largada.await();
+                    for (int i = 0; i < CHECKOUTS_POR_HILO; i++) {
+                        int a = (hilo + i) % productos.size();
+                        int b = (hilo + i + 1) % productos.size();
+                        try {
+                            ResultadoCheckout resultado = ventaService.checkout("carga-" + hilo + "-" + i,
+                                carrito("yape", linea(b, 1), linea(a, 1)));
+                            if (resultado.exitoso()) {
+                                completadas.incrementAndGet();
+                                synchronized (vendidas) {
+                                    vendidas[a]++;
+                                    vendidas[b]++;
+                                }
+                            }
+                        } catch (IllegalStateException e) {
+                            sinStock.incrementAndGet();
+                        }
+                    }
+                    return null;
+                }));
+            }
+            long inicio = System.nanoTime();
+            largada.countDown();
+            for (Future<?> tarea : tareas) {
+                tarea.get();
+            }
+            double segundos = (System.nanoTime() - inicio) / 1_000_000_000.0;
+            ejecutor.shutdown();
+
+            // Assert
+            assertTrue(segundos < 30, HILOS * CHECKOUTS_POR_HILO + " checkouts tardaron " + segundos + " s");
+            assertEquals(HILOS * CHECKOUTS_POR_HILO, completadas.get() + sinStock.get());
+            for (int i = 0; i < productos.size(); i++) {
+                assertTrue(stock(i) >= 0);
+                assertEquals(STOCK_CARGA - vendidas[i], stock(i));
+            }
+            assertEquals(completadas.get(), ventaRepository.findByEstado(EstadoVenta.COMPLETADA).size());
+        }
+    }
+
+    private CheckoutRequestDTO carrito(String pasarela, LineaCheckout... lineas) {
+        ClienteCheckout cliente = new ClienteCheckout();
+        cliente.setDocumento("45678912");
+        cliente.setNombre("Ana");
+        cliente.setApellido("Torres");
+
+        CheckoutRequestDTO request = new CheckoutRequestDTO();
+        request.setPasarela(pasarela);
+        request.setCliente(cliente);
+        request.setLineas(List.of(lineas));
+        return request;
+    }
+
+    private LineaCheckout linea(int producto, int cantidad) {
+        return new LineaCheckout(productos.get(producto).getId(), cantidad);
+    }
+
+    private void vencer(String referencia) {
+        reservaStockRepository.findByReferenciaAndEstado(referencia, EstadoReserva.ACTIVA).forEach(reserva -> {
+            reserva.setExpiraEn(LocalDateTime.now().minusMinutes(1));
+            reservaStockRepository.save(reserva);
+        });
+    }
+
+    private void vencerLinea(String referencia, Long productoId) {
+        reservaStockRepository.findByReferenciaAndEstado(referencia, EstadoReserva.ACTIVA).stream()
+            .filter(reserva -> reserva.getProducto().getId().equals(productoId))
+            .forEach(reserva -> {
+                reserva.setExpiraEn(LocalDateTime.now().minusMinutes(1));
+                reservaStockRepository.save(reserva);
+            });
+    }
+
+    private Venta esperarVentaProcesando() throws InterruptedException {
+        for (int intento = 0; intento < 100; intento++) {
+            List<Venta> ventas = ventaRepository.findByEstado(EstadoVenta.PROCESANDO);
+            if (!ventas.isEmpty()) {
+                return ventas.get(0);
+            }
+            Thread.sleep(10);
+        }
+        throw new AssertionError("La venta no llegó a PROCESANDO");
+    }
+
+    private int stock(int producto) {
+        return productoRepository.findById(productos.get(producto).getId()).orElseThrow().getStock();
+    }
+}
@@ -0,0 +1,186 @@
+package com.techsolutions;
+
+import com.techsolutions.model.DetalleVenta;
+import com.techsolutions.model.Venta;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Nested;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.math.BigDecimal;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests unitarios de los totales de la venta
+ * Incluye una medición de tiempo y memoria asignada al armar ventas de 1, 100 y 5000 líneas
+ */
+@SuppressWarnings("all")
+@DisplayName("Tests de Totales de Venta")
+class VentaTest {
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Totales incrementales")
+    class TotalesTests {
+
+        @Test
+        @DisplayName("Agregar líneas suma su subtotal al total")
+        void agregarDetalle_sumaSubtotal() {
+            // Arrange
+            Venta venta = new Venta();
+
+            // Act
+            venta.agregarDetalle(detalle("10.50", 2));
+            venta.agregarDetalle(detalle("3.00", 1));
+
+            // Assert
+            assertEquals(0, new BigDecimal("24.00").compareTo(venta.getSubtotal()));
+            assertEquals(0, new BigDecimal("24.00").compareTo(venta.getTotal()));
+        }
+
+        @Test
+        @DisplayName("Cambiar la cantidad de una línea ajusta el total por la diferencia")
+        void cambiarCantidad_ajustaTotal() {
+            // Arrange
+            Venta venta = new Venta();
+            DetalleVenta detalle = detalle("10.00", 1);
+            venta.agregarDetalle(detalle);
+            venta.agregarDetalle(detalle("5.00", 1));
+
+            // Act
+            detalle.setCantidad(4);
+
+            // Assert
+            assertEquals(0, new BigDecimal("45.00").compareTo(venta.getTotal()));
+        }
+
+        @Test
+        @DisplayName("Quitar una línea resta solo esa línea aunque otra tenga los mismos datos")
+        void removerDetalle_restaSoloEsaLinea() {
+            // Arrange
+            Venta venta = new Venta();
+            DetalleVenta primera = detalle("7.00", 1);
+            DetalleVenta igual = detalle("7.00", 1);
+            venta.agregarDetalle(primera);
+            venta.agregarDetalle(igual);
+
+            // Act
+            venta.removerDetalle(igual);
+
+            // Assert
+            assertEquals(1, venta.getDetalles().size());
+            assertSame(primera, venta.getDetalles().get(0));
+            assertNull(igual.getVenta());
+            assertEquals(0, new BigDecimal("7.00").compareTo(venta.getTotal()));
+        }
+
+        @Test
+        @DisplayName("El descuento se refleja en el total")
+        void descuento_restaDelTotal() {
+            // Arrange
+            Venta venta = new Venta();
+            venta.agregarDetalle(detalle("100.00", 1));
+
+            // Act
+            venta.setDescuento(new BigDecimal("15.00"));
+
+            // Assert
+            assertEquals(0, new BigDecimal("100.00").compareTo(venta.getSubtotal()));
+            assertEquals(0, new BigDecimal("85.00").compareTo(venta.getTotal()));
+        }
+
+        @Test
+        @DisplayName("Los totales incrementales coinciden con el recálculo completo")
+        void totalesIncrementales_coincidenConRecalculo() {
+            // Arrange
+            Random aleatorio = new Random(42);
+            Venta venta = new Venta();
+            venta.setDescuento(new BigDecimal("3.25"));
+
+            // Act
+            for (int i = 0; i < 500; i++) {
+                DetalleVenta detalle = detalle(aleatorio.nextInt(100_000) / 100 + "." + aleatorio.nextInt(10) + "5",
+                    1 + aleatorio.nextInt(9));
+                venta.agregarDetalle(detalle);
+                if (i % 7 == 0) {
+                    detalle.setCantidad(detalle.getCantidad() + 1);
+                }
+                if (i % 11 == 0) {
+                    venta.removerDetalle(venta.getDetalles().get(0));
+                }
+            }
+            BigDecimal subtotalIncremental = venta.getSubtotal();
+            BigDecimal totalIncremental = venta.getTotal();
+            venta.calcularTotales();
+
+            // Assert
+            assertEquals(0, venta.getSubtotal().compareTo(subtotalIncremental));
+            assertEquals(0, venta.getTotal().compareTo(totalIncremental));
+        }
+    }
+
+    @SuppressWarnings("unused")
+    @Nested
+    @DisplayName("Rendimiento")
+    class RendimientoTests {
+
+        @Test
+        @DisplayName("Con 5000 líneas el total incremental es más rápido y asigna menos que el recálculo completo")
+        void medicion_armarVentas() {
+            // Arrange: calentamiento
+            for (int i = 0; i < 20; i++) {
+                armarVenta(100, false);
+                armarVenta(100, true);
+            }
+
+            for (int lineas : new int[] {1, 100, 5000}) {
+                // Act
+                long[] incremental = medir(lineas, false);
+                long[] recalculo = medir(lineas, true);
+
+                // Assert
+                if (lineas == 5000) {
+                    assertTrue(incremental[0] < recalculo[0],
+                        "Incremental: " + incremental[0] / 1000 + " µs, recálculo: " + recalculo[0] / 1000 + " µs");
+                    assertTrue(incremental[1] < recalculo[1]);
+                }
+            }
+        }
+
+        /**
+         * @return {nanosegundos, bytes asignados por el hilo}
+         */
+        private long[] medir(int lineas, boolean recalcularPorLinea) {
+            com.sun.management.ThreadMXBean hilos = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long hilo = Thread.currentThread().threadId();
+            long bytesInicio = hilos.getThreadAllocatedBytes(hilo);
+            long inicio = System.nanoTime();
+            armarVenta(lineas, recalcularPorLinea);
+            return new long[] {System.nanoTime() - inicio, hilos.getThreadAllocatedBytes(hilo) - bytesInicio};
+        }
+
+        /**
+         * Con recalcularPorLinea se reproduce el comportamiento anterior: reducir todos los
+         * detalles cada vez que se agrega uno
+         */
+        private Venta armarVenta(int lineas, boolean recalcularPorLinea) {
+            Venta venta = new Venta();
+            for (int i = 0; i < lineas; i++) {
+                venta.agregarDetalle(detalle("19.90", 1 + i % 5));
+                if (recalcularPorLinea) {
+                    venta.calcularTotales();
+                }
+            }
+            return venta;
+        }
+    }
+
+    private DetalleVenta detalle(String precio, int cantidad) {
+        DetalleVenta detalle = new DetalleVenta();
+        detalle.setPrecioUnitario(new BigDecimal(precio));
+        detalle.setCantidad(cantidad);
+        return detalle;
+    }
+}